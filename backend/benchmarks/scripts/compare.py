@@ -0,0 +1,114 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON result files and flag regressions.
+
+Usage:
+    compare.py BASELINE CURRENT [--threshold PCT] [--alloc-threshold PCT]
+
+Benchmarks are matched by name and @Param values. Time modes (avgt, sample, ss)
+regress when the score goes up, throughput (thrpt) when it goes down. Allocation
+per operation (gc.alloc.rate.norm) regresses when it grows by more than the
+allocation threshold and more than 16 bytes/op, so noise around zero is ignored.
+
+Prints a markdown table suitable for pasting into a review and exits with 1 when
+any benchmark regressed.
+"""
+import argparse
+import json
+import sys
+
+ALLOC_METRIC = "gc.alloc.rate.norm"
+ALLOC_NOISE_BYTES = 16.0
+
+
+def load(path):
+    with open(path) as f:
+        results = json.load(f)
+    indexed = {}
+    for result in results:
+        params = result.get("params") or {}
+        key = result["benchmark"]
+        if params:
+            key += "(" + ", ".join(f"{k}={v}" for k, v in sorted(params.items())) + ")"
+        alloc = (result.get("secondaryMetrics") or {}).get(ALLOC_METRIC)
+        indexed[key] = {
+            "mode": result["mode"],
+            "score": result["primaryMetric"]["score"],
+            "error": result["primaryMetric"].get("scoreError"),
+            "unit": result["primaryMetric"]["scoreUnit"],
+            "alloc": alloc["score"] if alloc else None,
+        }
+    return indexed
+
+
+def short_name(key):
+    name, _, params = key.partition("(")
+    parts = name.split(".")
+    short = ".".join(parts[-2:])
+    return short + ("(" + params if params else "")
+
+
+def pct_change(before, after):
+    if before == 0:
+        return 0.0 if after == 0 else float("inf")
+    return (after - before) / before * 100.0
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0,
+                        help="allowed score regression in percent (default 10)")
+    parser.add_argument("--alloc-threshold", type=float, default=10.0,
+                        help="allowed allocation growth in percent (default 10)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+
+    regressions = []
+    print("| Benchmark | Mode | Baseline | Current | Change | Alloc B/op (base -> cur) | |")
+    print("|---|---|---:|---:|---:|---:|---|")
+    for key in sorted(set(baseline) | set(current)):
+        before = baseline.get(key)
+        after = current.get(key)
+        if before is None or after is None:
+            status = "new" if before is None else "removed"
+            row = after or before
+            before_score = "-" if before is None else "%.2f" % before["score"]
+            after_score = "-" if after is None else "%.2f" % after["score"]
+            print(f"| {short_name(key)} | {row['mode']} | {before_score} | {after_score} | | | {status} |")
+            continue
+
+        change = pct_change(before["score"], after["score"])
+        worse = change > args.threshold if after["mode"] != "thrpt" else change < -args.threshold
+
+        alloc_text = ""
+        alloc_worse = False
+        if before["alloc"] is not None and after["alloc"] is not None:
+            alloc_text = f"{before['alloc']:.0f} -> {after['alloc']:.0f}"
+            alloc_delta = after["alloc"] - before["alloc"]
+            alloc_worse = (alloc_delta > ALLOC_NOISE_BYTES
+                           and pct_change(before["alloc"], after["alloc"]) > args.alloc_threshold)
+
+        flags = []
+        if worse:
+            flags.append("SLOWER")
+        if alloc_worse:
+            flags.append("MORE ALLOC")
+        if flags:
+            regressions.append(key)
+
+        print(f"| {short_name(key)} | {after['mode']} | {before['score']:.2f} | {after['score']:.2f} "
+              f"{after['unit']} | {change:+.1f}% | {alloc_text} | {' '.join(flags)} |")
+
+    if regressions:
+        print(f"\n{len(regressions)} regression(s) beyond {args.threshold:.0f}% "
+              f"(score) / {args.alloc_threshold:.0f}% (allocation)")
+        return 1
+    print("\nNo regressions")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
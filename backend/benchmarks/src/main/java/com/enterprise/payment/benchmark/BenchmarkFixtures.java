@@ -0,0 +1,132 @@
+package com.enterprise.payment.benchmark;
+
+import com.enterprise.payment.entity.Account;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.entity.User;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentTracing;
+import com.enterprise.payment.repository.AuditLogRepository;
+import com.enterprise.payment.service.BaseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds services and entities outside a Spring context so benchmarks measure the code under
+ * test rather than repositories or the container.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Instantiate a service through its (single) constructor, passing {@code null} for every
+     * collaborator. Only suitable for methods that don't touch injected dependencies.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T instantiateWithoutDependencies(Class<T> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructors()[0];
+            constructor.setAccessible(true);
+            return (T) constructor.newInstance(new Object[constructor.getParameterCount()]);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Replace the audit repository of a service with one that accepts and discards writes
+     */
+    public static <T extends BaseService> T withDiscardingAuditLog(T service) {
+        AuditLogRepository repository = (AuditLogRepository) Proxy.newProxyInstance(
+                AuditLogRepository.class.getClassLoader(),
+                new Class<?>[]{AuditLogRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "DiscardingAuditLogRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        setField(service, "auditLogRepository", repository);
+        return service;
+    }
+
+    /**
+     * Set a (possibly private, possibly inherited) field, standing in for {@code @Value} injection
+     */
+    public static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException("No field " + name + " on " + target.getClass().getName());
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    public static PaymentTracing noopTracing() {
+        return new PaymentTracing(new StaticListableBeanFactory().getBeanProvider(Tracer.class));
+    }
+
+    public static PaymentMetrics simpleMetrics() {
+        return new PaymentMetrics(new SimpleMeterRegistry());
+    }
+
+    public static Account account() {
+        Account account = new Account();
+        account.setId(42L);
+        account.setAccountNumber("ACC0000000042");
+        account.setAccountName("Benchmark Merchant");
+        account.setEmail("merchant@example.com");
+        account.setBalance(new BigDecimal("250000.00"));
+        account.setCurrencyCode("USD");
+        account.setCreatedAt(OffsetDateTime.now().minusDays(400));
+        return account;
+    }
+
+    public static Payment payment() {
+        Payment payment = new Payment();
+        payment.setId(1001L);
+        payment.setPaymentReference("PAY_4F3A9C2E7B1D0A55");
+        payment.setAccount(account());
+        payment.setAmount(new BigDecimal("1249.99"));
+        payment.setCurrencyCode("USD");
+        payment.setDescription("Order #100045 - 3 items");
+        payment.setStatus(Payment.PaymentStatus.COMPLETED);
+        payment.setMerchantReference("ORD-100045");
+        payment.setRiskScore(new BigDecimal("23.50"));
+        OffsetDateTime now = OffsetDateTime.now();
+        payment.setCreatedAt(now.minusMinutes(5));
+        payment.setUpdatedAt(now);
+        payment.setProcessedAt(now);
+        payment.setExpiresAt(now.plusHours(24));
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("channel", "web");
+        metadata.put("customerId", "CUST-88213");
+        metadata.put("items", 3);
+        payment.setMetadata(metadata);
+        return payment;
+    }
+
+    public static User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("benchmark.user");
+        user.setEmail("benchmark.user@example.com");
+        user.setFirstName("Bench");
+        user.setLastName("Mark");
+        user.setRole(User.UserRole.USER);
+        user.setAccount(account());
+        return user;
+    }
+}
@@ -0,0 +1,109 @@
+package com.enterprise.payment.deadline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@value #TIMERS} deadlines spread over 30 days, the refresh token lifetime, in the
+ * {@link TimingWheel} of {@link DeadlineScheduler} at its default 1 s tick: scheduling them,
+ * cancelling them, and letting them all expire by advancing through the 30 days tick by tick.
+ * The {@code heap*} variants do the same with a binary heap ordered by deadline, as a
+ * {@code ScheduledThreadPoolExecutor} would keep them, where each insert and poll is O(log n)
+ * and a cancel is a linear search. Divide the score by {@value #TIMERS} for the cost per timer.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimingWheelBenchmark {
+
+    private static final int TIMERS = 1_000_000;
+    private static final long START = 1_700_000_000_000L;
+    private static final long TICK = 1000;
+    private static final long SPAN = TimeUnit.DAYS.toMillis(30);
+
+    private long[] deadlines;
+    private TimingWheel<Long> wheel;
+    private List<TimingWheel.Timeout<Long>> timeouts;
+    private PriorityQueue<long[]> heap;
+
+    @Setup(Level.Trial)
+    public void setUpDeadlines() {
+        SplittableRandom random = new SplittableRandom(42);
+        deadlines = new long[TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            deadlines[i] = START + random.nextLong(SPAN);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fill() {
+        wheel = new TimingWheel<>(TICK, START);
+        timeouts = new ArrayList<>(TIMERS);
+        heap = new PriorityQueue<>(TIMERS, (a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < TIMERS; i++) {
+            timeouts.add(wheel.schedule(deadlines[i], (long) i));
+            heap.add(new long[] {deadlines[i], i});
+        }
+    }
+
+    @Benchmark
+    public TimingWheel<Long> schedule() {
+        TimingWheel<Long> fresh = new TimingWheel<>(TICK, START);
+        for (int i = 0; i < TIMERS; i++) {
+            fresh.schedule(deadlines[i], (long) i);
+        }
+        return fresh;
+    }
+
+    @Benchmark
+    public PriorityQueue<long[]> heapSchedule() {
+        PriorityQueue<long[]> fresh = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < TIMERS; i++) {
+            fresh.add(new long[] {deadlines[i], i});
+        }
+        return fresh;
+    }
+
+    @Benchmark
+    public void expire(Blackhole blackhole) {
+        for (long now = START + TICK; now <= START + SPAN; now += TICK) {
+            wheel.advance(now, blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void heapExpire(Blackhole blackhole) {
+        for (long now = START + TICK; now <= START + SPAN; now += TICK) {
+            while (!heap.isEmpty() && heap.peek()[0] <= now) {
+                blackhole.consume(heap.poll());
+            }
+        }
+    }
+
+    @Benchmark
+    public int cancel() {
+        for (TimingWheel.Timeout<Long> timeout : timeouts) {
+            wheel.cancel(timeout);
+        }
+        return wheel.size();
+    }
+}
@@ -0,0 +1,142 @@
+package com.enterprise.payment.export;
+
+import com.enterprise.payment.benchmark.BenchmarkFixtures;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.pagination.Cursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a 10M-row payment export, as {@link ExportService} does after the query: each row a
+ * freshly built entity, as a JDBC cursor delivers them, formatted and written to a discarding
+ * stream, with the per-interval clear. The fork's heap is capped at 64 MB, so completing at all
+ * shows the export runs in constant memory; the largest heap left after a collection during the
+ * run is printed as well. Divide 10M by the score for rows per second.
+ *
+ * The database side (cursor fetches of 1000 rows, persistence context cleared at the same
+ * interval) is exercised by ExportServiceTest against PostgreSQL.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms64m", "-Xmx64m"})
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    private static final long ROWS = 10_000_000;
+
+    @Param({"CSV", "NDJSON"})
+    private ExportFormat format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private Payment template;
+    private long maxRetainedBytes;
+    private long bytesWritten;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        template = BenchmarkFixtures.payment();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        maxRetainedBytes = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%n%d rows, %d MB written; max heap retained after GC %.1f MB%n", ROWS,
+                bytesWritten >> 20, maxRetainedBytes / (1024.0 * 1024.0));
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        CountingOutputStream counting = new CountingOutputStream();
+        OutputStream out = gzip ? new GZIPOutputStream(counting, 64 * 1024) : counting;
+        ExportWriter<Payment> writer = ExportWriter.create(format, ExportService.PAYMENT_COLUMNS, out, objectMapper);
+        OffsetDateTime start = template.getCreatedAt();
+        long rows = ExportService.copy(LongStream.range(0, ROWS).mapToObj(id -> row(id, start)), writer,
+                payment -> new Cursor(payment.getCreatedAt(), payment.getId()), this::sampleRetainedHeap);
+        if (out instanceof GZIPOutputStream compressed) {
+            compressed.finish();
+        }
+        bytesWritten = counting.count;
+        return rows;
+    }
+
+    private Payment row(long id, OffsetDateTime start) {
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setPaymentReference(template.getPaymentReference() + id);
+        payment.setAccount(template.getAccount());
+        payment.setAmount(template.getAmount());
+        payment.setCurrencyCode(template.getCurrencyCode());
+        payment.setStatus(template.getStatus());
+        payment.setDescription(template.getDescription());
+        payment.setMerchantReference(template.getMerchantReference());
+        payment.setMetadata(template.getMetadata());
+        payment.setRiskScore(template.getRiskScore());
+        payment.setCreatedAt(start.plusNanos(id * 1000));
+        payment.setUpdatedAt(template.getUpdatedAt());
+        return payment;
+    }
+
+    /**
+     * Stands in for the persistence context clear; the heap left after the last collection
+     * is what the export holds on to
+     */
+    private void sampleRetainedHeap() {
+        long retained = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (afterGc != null) {
+                retained += afterGc.getUsed();
+            }
+        }
+        maxRetainedBytes = Math.max(maxRetainedBytes, retained);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
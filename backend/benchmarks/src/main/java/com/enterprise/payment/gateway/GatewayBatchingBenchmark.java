@@ -0,0 +1,143 @@
+package com.enterprise.payment.gateway;
+
+import com.enterprise.payment.gateway.stub.StubGatewayBehaviour;
+import com.enterprise.payment.gateway.stub.StubGatewayServer;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time to push 10k payments through the gateway, one call per payment versus micro-batched
+ * ({@link MicroBatcher} plus {@link GatewayRouter#submitBatch}), against the stub gateway over
+ * HTTP. Both use {@value #WORKERS} worker threads, the default async pool size, and batches use
+ * the default max size of {@value #BATCH_SIZE}. Divide 10,000 by the score for payments per second.
+ *
+ * Covers the gateway leg only; the database side of batching (one claim statement and one
+ * settlement transaction per batch instead of a transaction per payment) comes on top.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GatewayBatchingBenchmark {
+
+    private static final int PAYMENTS = 10_000;
+    private static final int WORKERS = 32;
+    private static final int BATCH_SIZE = 100;
+
+    private StubGatewayServer stub;
+    private ExecutorService workers;
+    private ExecutorService gatewayExecutor;
+    private GatewayRouter router;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = new StubGatewayServer(0, Map.of("primary",
+                new StubGatewayBehaviour(Duration.ofMillis(30), Duration.ofMillis(120), 0.03, 0)));
+        stub.start();
+
+        GatewayProperties.Connector properties = new GatewayProperties.Connector();
+        properties.setBaseUrl("http://localhost:" + stub.port() + "/primary");
+        properties.setMaxConnections(WORKERS * 2);
+        GatewayProperties.Routing routing = new GatewayProperties.Routing();
+        routing.getHedging().setEnabled(false);
+
+        workers = Executors.newFixedThreadPool(WORKERS);
+        gatewayExecutor = Executors.newCachedThreadPool();
+        router = new GatewayRouter(List.of(new HttpGatewayConnector("primary", properties, new ObjectMapper())),
+                routing, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.of(BulkheadConfig.custom().maxConcurrentCalls(WORKERS * 2).build()),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build()),
+                gatewayExecutor, new PaymentMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workers.shutdownNow();
+        gatewayExecutor.shutdownNow();
+        router.destroy();
+        stub.close();
+    }
+
+    @Benchmark
+    public int perPayment() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(PAYMENTS);
+        AtomicInteger approved = new AtomicInteger();
+        for (int i = 0; i < PAYMENTS; i++) {
+            GatewayRequest request = nextRequest();
+            workers.execute(() -> {
+                try {
+                    if (router.submit(request).approved()) {
+                        approved.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return approved.get();
+    }
+
+    @Benchmark
+    public int microBatched() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(PAYMENTS);
+        AtomicInteger approved = new AtomicInteger();
+        try (MicroBatcher<String, GatewayRequest> batcher = new MicroBatcher<>(BATCH_SIZE, Duration.ofMillis(50),
+                PAYMENTS, workers, (connector, requests) -> {
+                    try {
+                        for (GatewayResponse response : router.submitBatch(connector, requests)) {
+                            if (response != null && response.approved()) {
+                                approved.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        for (int i = 0; i < requests.size(); i++) {
+                            done.countDown();
+                        }
+                    }
+                })) {
+            for (int i = 0; i < PAYMENTS; i++) {
+                batcher.offer("primary", nextRequest());
+            }
+            done.await();
+        }
+        return approved.get();
+    }
+
+    private GatewayRequest nextRequest() {
+        String reference = "PAY_BENCH_" + sequence.incrementAndGet();
+        return new GatewayRequest(GatewayRequest.Operation.PAYMENT, reference, new BigDecimal("25.00"), "USD", reference);
+    }
+}
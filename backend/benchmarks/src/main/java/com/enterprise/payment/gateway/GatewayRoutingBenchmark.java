@@ -0,0 +1,114 @@
+package com.enterprise.payment.gateway;
+
+import com.enterprise.payment.gateway.stub.StubGatewayBehaviour;
+import com.enterprise.payment.gateway.stub.StubGatewayServer;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tail latency of a payment submission when the first configured gateway is degraded: same
+ * median as the healthy one but a p99 ten times higher. Run in sample mode and compare
+ * {@code p0.99} across routings:
+ *
+ * <ul>
+ *   <li>{@code PRIORITY}: always the first gateway, so the degraded tail passes straight through</li>
+ *   <li>{@code LOWEST_P95}: traffic moves to the gateway with the lower recent p95</li>
+ *   <li>{@code LOWEST_P95_HEDGED}: additionally hedges requests that outlive the p95</li>
+ * </ul>
+ *
+ * Both gateways are the built-in stub over real HTTP on localhost.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class GatewayRoutingBenchmark {
+
+    @Param({"PRIORITY", "LOWEST_P95", "LOWEST_P95_HEDGED"})
+    public String routing;
+
+    private StubGatewayServer stub;
+    private ExecutorService executor;
+    private GatewayRouter router;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Map<String, StubGatewayBehaviour> gateways = new LinkedHashMap<>();
+        gateways.put("degraded", new StubGatewayBehaviour(Duration.ofMillis(20), Duration.ofMillis(600), 0, 0));
+        gateways.put("healthy", new StubGatewayBehaviour(Duration.ofMillis(20), Duration.ofMillis(60), 0, 0));
+        stub = new StubGatewayServer(0, gateways);
+        stub.start();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<GatewayConnector> connectors = new ArrayList<>();
+        for (String name : gateways.keySet()) {
+            GatewayProperties.Connector connector = new GatewayProperties.Connector();
+            connector.setBaseUrl("http://localhost:" + stub.port() + "/" + name);
+            connectors.add(new HttpGatewayConnector(name, connector, objectMapper));
+        }
+
+        GatewayProperties.Routing properties = new GatewayProperties.Routing();
+        properties.setStrategy(routing.startsWith("LOWEST_P95")
+                ? GatewayProperties.Strategy.LOWEST_P95 : GatewayProperties.Strategy.PRIORITY);
+        properties.getHedging().setEnabled(routing.endsWith("HEDGED"));
+        properties.getHedging().setMinDelay(Duration.ofMillis(20));
+
+        executor = Executors.newCachedThreadPool();
+        router = new GatewayRouter(connectors, properties, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(),
+                // The degraded tail must show up as latency, not as timeouts
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build()),
+                executor,
+                new PaymentMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        // Let voids of lost hedges finish before the connectors close
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        router.destroy();
+        stub.close();
+    }
+
+    @Benchmark
+    public GatewayResponse submitPayment() {
+        String reference = "PAY_BENCH_" + sequence.incrementAndGet();
+        return router.submit(new GatewayRequest(GatewayRequest.Operation.PAYMENT, reference,
+                new BigDecimal("25.00"), "USD", reference));
+    }
+}
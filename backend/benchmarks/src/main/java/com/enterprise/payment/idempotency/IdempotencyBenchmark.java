@@ -0,0 +1,177 @@
+package com.enterprise.payment.idempotency;
+
+import com.enterprise.payment.benchmark.BenchmarkFixtures;
+import com.enterprise.payment.dto.request.CreatePaymentRequest;
+import com.enterprise.payment.dto.response.PaymentResponse;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What {@code Idempotency-Key} handling adds to payment creation, excluding the operation
+ * itself: request hashing, claim and completion in the shared store, response serialization,
+ * and replays served from the local cache or from the store.
+ *
+ * The store is an in-memory map that serializes records the way {@link RedisIdempotencyStore}
+ * does, so the figures are the in-process cost; with Redis a new key adds two round trips
+ * (SET NX, then the completing script), a replay from another instance two (SET NX, GET) and
+ * a replay from the local cache none.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdempotencyBenchmark {
+
+    private final AtomicLong keys = new AtomicLong();
+    private IdempotencyService withLocalCache;
+    private IdempotencyService storeOnly;
+    private CreatePaymentRequest request;
+    private PaymentResponse response;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        SerializingStore store = new SerializingStore(objectMapper);
+        PaymentMetrics metrics = new PaymentMetrics(new SimpleMeterRegistry());
+
+        withLocalCache = new IdempotencyService(store, new IdempotencyProperties(), objectMapper, metrics);
+        IdempotencyProperties noLocalCache = new IdempotencyProperties();
+        noLocalCache.setLocalCacheSize(0);
+        storeOnly = new IdempotencyService(store, noLocalCache, objectMapper, metrics);
+
+        request = new CreatePaymentRequest();
+        request.setAccountId(42L);
+        request.setAmount(new BigDecimal("149.99"));
+        request.setCurrencyCode("USD");
+        request.setDescription("Order 10042");
+        request.setMerchantReference("ORDER-10042");
+        request.setCallbackUrl("https://merchant.example/callbacks/payments");
+        request.setMetadata(Map.of("channel", "web", "customerId", "C-778"));
+        Payment payment = BenchmarkFixtures.payment();
+        response = new PaymentResponse();
+        response.setId(payment.getId());
+        response.setPaymentReference(payment.getPaymentReference());
+        response.setAmount(payment.getAmount());
+        response.setCurrencyCode(payment.getCurrencyCode());
+        response.setDescription(payment.getDescription());
+        response.setStatus(payment.getStatus());
+        response.setMerchantReference(payment.getMerchantReference());
+        response.setMetadata(payment.getMetadata());
+        response.setRiskScore(payment.getRiskScore());
+        response.setCreatedAt(payment.getCreatedAt());
+        response.setUpdatedAt(payment.getUpdatedAt());
+
+        withLocalCache.execute("replayed", "createPayment", request, PaymentResponse.class, () -> response);
+        storeOnly.execute("replayed-shared", "createPayment", request, PaymentResponse.class, () -> response);
+    }
+
+    @Benchmark
+    public PaymentResponse withoutKey() {
+        return withLocalCache.execute(null, "createPayment", request, PaymentResponse.class, () -> response).value();
+    }
+
+    @Benchmark
+    public PaymentResponse newKey() {
+        return withLocalCache.execute("key-" + keys.incrementAndGet(), "createPayment", request,
+                PaymentResponse.class, () -> response).value();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public PaymentResponse newKeyContended() {
+        return newKey();
+    }
+
+    @Benchmark
+    public PaymentResponse replayFromLocalCache() {
+        return withLocalCache.execute("replayed", "createPayment", request, PaymentResponse.class,
+                () -> response).value();
+    }
+
+    @Benchmark
+    public PaymentResponse replayFromStore() {
+        return storeOnly.execute("replayed-shared", "createPayment", request, PaymentResponse.class,
+                () -> response).value();
+    }
+
+    /**
+     * Keeps records as JSON, like Redis
+     */
+    static final class SerializingStore implements IdempotencyStore {
+
+        private static final int MAX_RECORDS = 200_000;
+
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+        private final ObjectMapper objectMapper;
+
+        SerializingStore(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public IdempotencyRecord claim(String key, IdempotencyRecord inProgress, Duration lockTimeout) {
+            if (values.size() > MAX_RECORDS) {
+                // Stand-in for TTL expiry, so newKey runs in bounded memory
+                values.keySet().removeIf(stored -> stored.contains(":key-"));
+            }
+            String existing = values.putIfAbsent(key, write(inProgress));
+            return existing != null ? read(existing) : null;
+        }
+
+        @Override
+        public IdempotencyRecord get(String key) {
+            String value = values.get(key);
+            return value != null ? read(value) : null;
+        }
+
+        @Override
+        public void complete(String key, IdempotencyRecord inProgress, IdempotencyRecord completed, Duration ttl) {
+            values.replace(key, write(inProgress), write(completed));
+        }
+
+        @Override
+        public void release(String key, IdempotencyRecord inProgress) {
+            values.remove(key, write(inProgress));
+        }
+
+        private String write(IdempotencyRecord record) {
+            try {
+                return objectMapper.writeValueAsString(record);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private IdempotencyRecord read(String value) {
+            try {
+                return objectMapper.readValue(value, IdempotencyRecord.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.enterprise.payment.monitoring;
+
+import com.enterprise.payment.benchmark.BenchmarkFixtures;
+import com.enterprise.payment.service.RiskAssessmentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead the service instrumentation (which replaced BaseService.logMethodEntry/Exit) adds
+ * to a trivial service call with debug logging off. {@code proxiedWithoutAspect} is the Spring
+ * AOP proxy alone, {@code notInstrumented} a proxy carrying the aspect around a method without
+ * {@link Instrumented}, and {@code instrumented} an {@link Instrumented} method. Advising a
+ * method is not free: the baseline has {@code instrumented} at about 370 ns and 432 bytes per
+ * call against 100 ns and 160 bytes for the bare proxy, most of it the join point and argument
+ * array Spring AOP builds for every advised call. That is why only entry points opt in, and
+ * {@code notInstrumented} should stay level with {@code proxiedWithoutAspect}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceInstrumentationBenchmark {
+
+    private RiskAssessmentService direct;
+    private RiskAssessmentService proxiedWithoutAspect;
+    private RiskAssessmentService notInstrumented;
+    private RiskAssessmentService instrumented;
+    private BigDecimal riskScore;
+
+    @Setup
+    public void setUp() {
+        direct = new RiskAssessmentService(BenchmarkFixtures.noopTracing());
+
+        AspectJProxyFactory plainFactory = new AspectJProxyFactory(direct);
+        plainFactory.setProxyTargetClass(true);
+        proxiedWithoutAspect = plainFactory.getProxy();
+
+        notInstrumented = withAspect(direct);
+        instrumented = withAspect(new InstrumentedRiskAssessmentService());
+
+        riskScore = new BigDecimal("42.00");
+    }
+
+    @Benchmark
+    public boolean direct() {
+        return direct.shouldBlockPayment(riskScore);
+    }
+
+    @Benchmark
+    public boolean proxiedWithoutAspect() {
+        return proxiedWithoutAspect.shouldBlockPayment(riskScore);
+    }
+
+    @Benchmark
+    public boolean notInstrumented() {
+        return notInstrumented.shouldBlockPayment(riskScore);
+    }
+
+    @Benchmark
+    public boolean instrumented() {
+        return instrumented.shouldBlockPayment(riskScore);
+    }
+
+    private static RiskAssessmentService withAspect(RiskAssessmentService target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ServiceInstrumentationAspect(new SimpleMeterRegistry(),
+                BenchmarkFixtures.noopTracing()));
+        return factory.getProxy();
+    }
+
+    /**
+     * The same risk check, opted into the instrumentation
+     */
+    public static class InstrumentedRiskAssessmentService extends RiskAssessmentService {
+
+        public InstrumentedRiskAssessmentService() {
+            super(BenchmarkFixtures.noopTracing());
+        }
+
+        @Override
+        @Instrumented
+        public boolean shouldBlockPayment(BigDecimal riskScore) {
+            return super.shouldBlockPayment(riskScore);
+        }
+    }
+}
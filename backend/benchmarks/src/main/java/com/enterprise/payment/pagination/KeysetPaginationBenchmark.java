@@ -0,0 +1,150 @@
+package com.enterprise.payment.pagination;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of an account's payments by OFFSET and by keyset, at page 1 and page 10,000 of 20
+ * rows, against PostgreSQL. Seeds a temporary table shaped like {@code payments} with the
+ * {@code (account_id, created_at DESC, id DESC)} index of V6, so it needs a database but not
+ * the application schema: {@code -Dbenchmark.jdbc.url}, {@code -Dbenchmark.jdbc.user} and
+ * {@code -Dbenchmark.jdbc.password}, by default the docker-compose database.
+ *
+ * The keyset page should cost about the same at any depth; the OFFSET page reads and drops
+ * every row before it. {@code KeysetPaginationTest} checks the plans behind this.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeysetPaginationBenchmark {
+
+    private static final int PAGE_SIZE = Keyset.DEFAULT_LIMIT;
+    private static final int PAGES = 10_000;
+    private static final long ACCOUNT_ID = 1;
+
+    @Param({"1", "10000"})
+    private int page;
+
+    private Connection connection;
+    private PreparedStatement offsetPage;
+    private PreparedStatement keysetPage;
+    private Cursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/payment_system"),
+                System.getProperty("benchmark.jdbc.user", "payment_user"),
+                System.getProperty("benchmark.jdbc.password", "payment_pass"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TEMPORARY TABLE keyset_payments (
+                        id BIGSERIAL PRIMARY KEY,
+                        account_id BIGINT NOT NULL,
+                        payment_reference VARCHAR(50) NOT NULL,
+                        amount DECIMAL(15,2) NOT NULL,
+                        created_at TIMESTAMPTZ NOT NULL)
+                    """);
+            // Several rows share each timestamp, so the id tie-breaker is exercised
+            statement.execute("""
+                    INSERT INTO keyset_payments (account_id, payment_reference, amount, created_at)
+                    SELECT %d, 'PAY_KEYSET_' || n, 10.00,
+                           TIMESTAMPTZ '2024-01-01 00:00:00+00' + (n / 4) * INTERVAL '1 second'
+                    FROM generate_series(1, %d) n
+                    """.formatted(ACCOUNT_ID, PAGE_SIZE * PAGES));
+            statement.execute("CREATE INDEX ON keyset_payments (account_id, created_at DESC, id DESC)");
+            statement.execute("ANALYZE keyset_payments");
+        }
+
+        offsetPage = connection.prepareStatement("""
+                SELECT * FROM keyset_payments WHERE account_id = ?
+                ORDER BY created_at DESC, id DESC OFFSET ? LIMIT ?
+                """);
+        offsetPage.setLong(1, ACCOUNT_ID);
+        offsetPage.setInt(2, (page - 1) * PAGE_SIZE);
+        offsetPage.setInt(3, PAGE_SIZE);
+
+        // The cursor a client holds after reading every page before this one
+        if (page > 1) {
+            try (PreparedStatement before = connection.prepareStatement("""
+                    SELECT created_at, id FROM keyset_payments WHERE account_id = ?
+                    ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1
+                    """)) {
+                before.setLong(1, ACCOUNT_ID);
+                before.setInt(2, (page - 1) * PAGE_SIZE - 1);
+                try (ResultSet rs = before.executeQuery()) {
+                    rs.next();
+                    cursor = new Cursor(rs.getObject(1, OffsetDateTime.class), rs.getLong(2));
+                }
+            }
+        }
+        keysetPage = cursor == null
+                ? connection.prepareStatement("""
+                        SELECT * FROM keyset_payments WHERE account_id = ?
+                        ORDER BY created_at DESC, id DESC LIMIT ?
+                        """)
+                : connection.prepareStatement("""
+                        SELECT * FROM keyset_payments WHERE account_id = ?
+                        AND created_at <= ? AND (created_at < ? OR id < ?)
+                        ORDER BY created_at DESC, id DESC LIMIT ?
+                        """);
+        keysetPage.setLong(1, ACCOUNT_ID);
+        if (cursor == null) {
+            keysetPage.setInt(2, Keyset.fetchLimit(PAGE_SIZE).max());
+        } else {
+            keysetPage.setObject(2, cursor.createdAt());
+            keysetPage.setObject(3, cursor.createdAt());
+            keysetPage.setLong(4, cursor.id());
+            keysetPage.setInt(5, Keyset.fetchLimit(PAGE_SIZE).max());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        // The temporary table goes with the session
+        connection.close();
+    }
+
+    @Benchmark
+    public void offset(Blackhole blackhole) throws SQLException {
+        read(offsetPage, blackhole);
+    }
+
+    @Benchmark
+    public void keyset(Blackhole blackhole) throws SQLException {
+        read(keysetPage, blackhole);
+    }
+
+    private static void read(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong("id"));
+                blackhole.consume(rs.getString("payment_reference"));
+            }
+        }
+    }
+}
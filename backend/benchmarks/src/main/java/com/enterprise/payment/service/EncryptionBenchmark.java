@@ -0,0 +1,102 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.benchmark.BenchmarkFixtures;
+import com.enterprise.payment.crypto.DataKeyStore;
+import com.enterprise.payment.crypto.EnvelopeEncryption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES-GCM encrypt/decrypt of payment method details as stored in payment_methods.encrypted_details,
+ * with the data key cached after its first unwrap; the contended variants show the per-thread
+ * Cipher and IV source scaling across threads
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncryptionBenchmark {
+
+    private static final String CARD_DETAILS =
+            "{cardNumber=4111111111111111, cardholderName=Jane Q Cardholder, cvv=123}";
+
+    @Param({"card", "1kb"})
+    public String payload;
+
+    private EncryptionService encryptionService;
+    private String plaintext;
+    private String ciphertext;
+
+    @Setup
+    public void setUp() {
+        byte[] masterKey = "benchmark-master-key-0123456789a".getBytes(StandardCharsets.UTF_8);
+        EnvelopeEncryption envelopeEncryption = new EnvelopeEncryption(new InMemoryDataKeyStore(), masterKey,
+                EnvelopeEncryption.legacyKey("mySecretEncryptionKey1234567890123456"));
+        encryptionService = BenchmarkFixtures.withDiscardingAuditLog(new EncryptionService(envelopeEncryption));
+        plaintext = "card".equals(payload) ? CARD_DETAILS : "x".repeat(1024);
+        ciphertext = encryptionService.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionService.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionService.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String encryptContended() {
+        return encryptionService.encrypt(plaintext);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String decryptContended() {
+        return encryptionService.decrypt(ciphertext);
+    }
+
+    /**
+     * Data keys in memory; the database is only read once per key version anyway
+     */
+    static final class InMemoryDataKeyStore implements DataKeyStore {
+
+        private final Map<Integer, byte[]> keys = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] find(int version) {
+            return keys.get(version);
+        }
+
+        @Override
+        public OptionalInt latestVersion() {
+            return keys.keySet().stream().mapToInt(Integer::intValue).max();
+        }
+
+        @Override
+        public boolean insert(int version, byte[] wrappedKey) {
+            return keys.putIfAbsent(version, wrappedKey) == null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.benchmark.BenchmarkFixtures;
+import com.enterprise.payment.entity.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Access token issue and parse, the per-login and per-request JWT costs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.withDiscardingAuditLog(new JwtService());
+        BenchmarkFixtures.setField(jwtService, "jwtSecret",
+                "mySecretKey12345678901234567890123456789012345678901234567890");
+        BenchmarkFixtures.setField(jwtService, "accessTokenExpiration", 3_600_000L);
+        BenchmarkFixtures.setField(jwtService, "refreshTokenExpiration", 2_592_000_000L);
+        user = BenchmarkFixtures.user();
+        token = jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(user);
+    }
+
+    /**
+     * {@code extractAllClaims} is private; {@code extractClaim} with the identity resolver is
+     * exactly that call plus one function application
+     */
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtService.extractClaim(token, Function.identity());
+    }
+}
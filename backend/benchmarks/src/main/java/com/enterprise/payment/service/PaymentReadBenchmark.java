@@ -0,0 +1,106 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.benchmark.BenchmarkFixtures;
+import com.enterprise.payment.dto.response.ApiResponse;
+import com.enterprise.payment.dto.response.PaymentResponse;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.repository.PaymentReadRepository.PaymentView;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU and allocation of turning a page of 20 payment rows into the JSON of
+ * {@code GET /accounts/{accountNumber}/payments}: through entities, whose metadata is always
+ * parsed, versus through {@link PaymentView} records with and without metadata. Hibernate's own
+ * per-entity bookkeeping is not part of it; {@code PaymentReadRepositoryTest} compares that
+ * against a database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentReadBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private PaymentService paymentService;
+    private ObjectMapper objectMapper;
+    private Payment row;
+    private String metadataJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        paymentService = BenchmarkFixtures.instantiateWithoutDependencies(PaymentService.class);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        row = BenchmarkFixtures.payment();
+        metadataJson = objectMapper.writeValueAsString(row.getMetadata());
+    }
+
+    @Benchmark
+    public byte[] entities() throws Exception {
+        List<PaymentResponse> page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Payment payment = new Payment();
+            payment.setId(row.getId() + i);
+            payment.setPaymentReference(row.getPaymentReference());
+            payment.setAmount(row.getAmount());
+            payment.setCurrencyCode(row.getCurrencyCode());
+            payment.setDescription(row.getDescription());
+            payment.setStatus(row.getStatus());
+            payment.setMerchantReference(row.getMerchantReference());
+            payment.setRiskScore(row.getRiskScore());
+            payment.setProcessedAt(row.getProcessedAt());
+            payment.setExpiresAt(row.getExpiresAt());
+            payment.setCreatedAt(row.getCreatedAt());
+            payment.setUpdatedAt(row.getUpdatedAt());
+            payment.setMetadata(objectMapper.readValue(metadataJson, JSON_OBJECT));
+            page.add(paymentService.mapToPaymentResponse(payment));
+        }
+        return objectMapper.writeValueAsBytes(ApiResponse.success(page));
+    }
+
+    @Benchmark
+    public byte[] rowsWithMetadata() throws Exception {
+        List<PaymentResponse> page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(paymentService.mapToPaymentResponse(view(i, objectMapper.readValue(metadataJson, JSON_OBJECT))));
+        }
+        return objectMapper.writeValueAsBytes(ApiResponse.success(page));
+    }
+
+    @Benchmark
+    public byte[] rowsWithoutMetadata() throws Exception {
+        List<PaymentResponse> page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(paymentService.mapToPaymentResponse(view(i, null)));
+        }
+        return objectMapper.writeValueAsBytes(ApiResponse.success(page));
+    }
+
+    private PaymentView view(int i, Map<String, Object> metadata) {
+        return new PaymentView(row.getId() + i, row.getAccount().getId(), row.getPaymentReference(), row.getAmount(),
+                row.getCurrencyCode(), row.getDescription(), row.getStatus(), row.getMerchantReference(),
+                row.getRiskScore(), row.getProcessedAt(), row.getExpiresAt(), row.getCreatedAt(), row.getUpdatedAt(),
+                metadata);
+    }
+}
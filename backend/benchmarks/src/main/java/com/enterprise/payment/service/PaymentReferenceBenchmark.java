@@ -0,0 +1,117 @@
+package com.enterprise.payment.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payment reference generation: the former random UUID-derived references against the
+ * time-ordered {@link ReferenceGenerator}, single-threaded and under contention.
+ *
+ * {@code indexInsert*} models the reference B-tree: it inserts {@value #INDEX_INSERTS}
+ * references into a sorted map and counts how many land at its right edge (the last leaf
+ * page, which stays hot) rather than somewhere in the middle (a random page that has to be
+ * read and is split when full). The rightmost share is printed after each iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentReferenceBenchmark {
+
+    private static final int INDEX_INSERTS = 100_000;
+
+    private ReferenceGenerator referenceGenerator;
+
+    @Setup
+    public void setUp() {
+        referenceGenerator = new ReferenceGenerator(1, System::currentTimeMillis);
+    }
+
+    @Benchmark
+    public String uuidReference() {
+        return legacyReference();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String uuidReferenceContended() {
+        return legacyReference();
+    }
+
+    @Benchmark
+    public String timeOrderedReference() {
+        return referenceGenerator.nextPaymentReference();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String timeOrderedReferenceContended() {
+        return referenceGenerator.nextPaymentReference();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INDEX_INSERTS)
+    public void indexInsert(IndexState index, Blackhole blackhole) {
+        TreeMap<String, Boolean> tree = new TreeMap<>();
+        int rightmost = 0;
+        for (int i = 0; i < INDEX_INSERTS; i++) {
+            String reference = "uuid".equals(index.scheme) ? legacyReference()
+                    : referenceGenerator.nextPaymentReference();
+            if (tree.isEmpty() || reference.compareTo(tree.lastKey()) > 0) {
+                rightmost++;
+            }
+            tree.put(reference, Boolean.TRUE);
+        }
+        index.rightmost = rightmost;
+        blackhole.consume(tree);
+    }
+
+    /**
+     * The reference format used before {@link ReferenceGenerator}
+     */
+    private static String legacyReference() {
+        return "PAY_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+    }
+
+    @State(Scope.Thread)
+    public static class IndexState {
+
+        @Param({"uuid", "time-ordered"})
+        public String scheme;
+
+        int rightmost;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rightmost = -1;
+        }
+
+        @TearDown(Level.Iteration)
+        public void report() {
+            if (rightmost >= 0) {
+                System.out.printf("%n%s: %.1f%% of %d inserts at the right edge of the index%n",
+                        scheme, 100.0 * rightmost / INDEX_INSERTS, INDEX_INSERTS);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.benchmark.BenchmarkFixtures;
+import com.enterprise.payment.dto.response.ApiResponse;
+import com.enterprise.payment.dto.response.PaymentResponse;
+import com.enterprise.payment.entity.Payment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping and JSON rendering of a single payment, i.e. the CPU work behind
+ * {@code GET /payments/{reference}} once the row is loaded
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentResponseBenchmark {
+
+    private PaymentService paymentService;
+    private ObjectMapper objectMapper;
+    private Payment payment;
+    private ApiResponse<PaymentResponse> response;
+
+    @Setup
+    public void setUp() {
+        paymentService = BenchmarkFixtures.instantiateWithoutDependencies(PaymentService.class);
+        // Same defaults Spring Boot applies to the application's ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        payment = BenchmarkFixtures.payment();
+        response = ApiResponse.success(paymentService.mapToPaymentResponse(payment));
+    }
+
+    @Benchmark
+    public PaymentResponse mapToPaymentResponse() {
+        return paymentService.mapToPaymentResponse(payment);
+    }
+
+    @Benchmark
+    public byte[] serializeApiResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ApiResponse.success(paymentService.mapToPaymentResponse(payment)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.benchmark.BenchmarkFixtures;
+import com.enterprise.payment.entity.Payment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of scoring a payment, including the audit write (against a discarding repository)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RiskAssessmentBenchmark {
+
+    private RiskAssessmentService riskAssessmentService;
+    private Payment payment;
+
+    @Setup
+    public void setUp() {
+        riskAssessmentService = BenchmarkFixtures.withDiscardingAuditLog(
+                new RiskAssessmentService(BenchmarkFixtures.noopTracing()));
+        payment = BenchmarkFixtures.payment();
+    }
+
+    @Benchmark
+    public BigDecimal assessPaymentRisk() {
+        return riskAssessmentService.assessPaymentRisk(payment);
+    }
+}
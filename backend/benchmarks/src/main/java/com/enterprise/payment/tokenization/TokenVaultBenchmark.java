@@ -0,0 +1,150 @@
+package com.enterprise.payment.tokenization;
+
+import com.enterprise.payment.crypto.DataKeyStore;
+import com.enterprise.payment.crypto.EnvelopeEncryption;
+import com.enterprise.payment.crypto.KeyedHash;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detokenization on the charge path, served from the in-memory cache or read from the vault and
+ * decrypted each time, on one thread and on four; and tokenizing a card seen before, which is a
+ * keyed hash and an index probe. The vault table is an in-memory map, so the vault figures are
+ * the in-process cost without the database round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenVaultBenchmark {
+
+    private static final int CARDS = 1000;
+
+    private TokenVault cached;
+    private TokenVault uncached;
+    private String[] tokens;
+    private String[] pans;
+
+    @Setup
+    public void setUp() {
+        InMemoryVaultStore store = new InMemoryVaultStore();
+        EnvelopeEncryption encryption = new EnvelopeEncryption(new InMemoryDataKeyStore(),
+                "benchmark-master-key-0123456789a".getBytes(StandardCharsets.UTF_8), null);
+        KeyedHash keyedHash = new KeyedHash("benchmark-hash-key-0123456789abc".getBytes(StandardCharsets.UTF_8));
+        PaymentMetrics metrics = new PaymentMetrics(new SimpleMeterRegistry());
+
+        cached = new TokenVault(store, encryption, keyedHash, metrics, new TokenizationProperties());
+        TokenizationProperties noCache = new TokenizationProperties();
+        noCache.setCacheSize(0);
+        uncached = new TokenVault(store, encryption, keyedHash, metrics, noCache);
+
+        tokens = new String[CARDS];
+        pans = new String[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            pans[i] = String.format("4%015d", i * 7919L);
+            tokens[i] = cached.tokenize(pans[i]);
+        }
+    }
+
+    @Benchmark
+    public char detokenizeCached() {
+        return detokenize(cached);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public char detokenizeCachedContended() {
+        return detokenize(cached);
+    }
+
+    @Benchmark
+    public char detokenizeFromVault() {
+        return detokenize(uncached);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public char detokenizeFromVaultContended() {
+        return detokenize(uncached);
+    }
+
+    @Benchmark
+    public String tokenizeKnownCard() {
+        return cached.tokenize(pans[ThreadLocalRandom.current().nextInt(CARDS)]);
+    }
+
+    private char detokenize(TokenVault vault) {
+        try (DetokenizedPan pan = vault.detokenize(tokens[ThreadLocalRandom.current().nextInt(CARDS)])) {
+            return pan.digits()[0];
+        }
+    }
+
+    /**
+     * The card_tokens table, indexed by token and by card number hash
+     */
+    static final class InMemoryVaultStore implements TokenVaultStore {
+
+        private final Map<String, String> pansByToken = new ConcurrentHashMap<>();
+        private final Map<String, String> tokensByHash = new ConcurrentHashMap<>();
+
+        @Override
+        public String findToken(byte[] panHash) {
+            return tokensByHash.get(Arrays.toString(panHash));
+        }
+
+        @Override
+        public String findEncryptedPan(String token) {
+            return pansByToken.get(token);
+        }
+
+        @Override
+        public boolean insert(String token, byte[] panHash, String encryptedPan, String lastFour) {
+            if (tokensByHash.putIfAbsent(Arrays.toString(panHash), token) != null) {
+                return false;
+            }
+            pansByToken.put(token, encryptedPan);
+            return true;
+        }
+    }
+
+    static final class InMemoryDataKeyStore implements DataKeyStore {
+
+        private final Map<Integer, byte[]> keys = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] find(int version) {
+            return keys.get(version);
+        }
+
+        @Override
+        public OptionalInt latestVersion() {
+            return keys.keySet().stream().mapToInt(Integer::intValue).max();
+        }
+
+        @Override
+        public boolean insert(int version, byte[] wrappedKey) {
+            return keys.putIfAbsent(version, wrappedKey) == null;
+        }
+    }
+}
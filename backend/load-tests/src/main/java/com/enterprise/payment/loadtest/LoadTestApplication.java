@@ -0,0 +1,89 @@
+package com.enterprise.payment.loadtest;
+
+import com.enterprise.payment.PaymentSystemApplication;
+import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.PaymentRepository;
+import com.enterprise.payment.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the payment system against containerised PostgreSQL and Redis with the simulated
+ * gateway, seeds merchants, drives the selected workload over HTTP and prints the report.
+ *
+ * <pre>
+ * mvn -f ../pom.xml -Pbenchmark install -Dmaven.test.skip=true
+ * mvn compile exec:java -Dloadtest.workload=MIXED -Dloadtest.concurrency=64 -Dloadtest.duration-seconds=120
+ * </pre>
+ */
+@Slf4j
+public final class LoadTestApplication {
+
+    private LoadTestApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        try (LoadTestEnvironment environment = new LoadTestEnvironment(settings)) {
+            environment.start();
+
+            Map<String, Object> properties = new HashMap<>(environment.applicationProperties());
+            properties.putAll(settings.gatewayProperties());
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentSystemApplication.class)
+                    .profiles("loadtest")
+                    .initializers(ctx -> ctx.getEnvironment().getPropertySources()
+                            .addFirst(new MapPropertySource("loadtest", properties)))
+                    .run(args)) {
+                String report = run(settings, context);
+                System.out.println(report);
+                if (!settings.reportFile().isBlank()) {
+                    Files.writeString(Path.of(settings.reportFile()), report, StandardCharsets.UTF_8);
+                }
+            }
+        }
+    }
+
+    private static String run(LoadTestSettings settings, ConfigurableApplicationContext context) throws Exception {
+        LoadTestDataSeeder seeder = new LoadTestDataSeeder(
+                context.getBean(UserRepository.class),
+                context.getBean(AccountRepository.class),
+                context.getBean(PaymentRepository.class),
+                context.getBean(PasswordEncoder.class),
+                context.getBean(TransactionTemplate.class));
+        List<LoadTestDataSeeder.VirtualUserIdentity> users =
+                seeder.seed(settings.concurrency(), settings.refundablePaymentsPerUser());
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+        PaymentApiClient client = new PaymentApiClient("http://localhost:" + port + contextPath,
+                context.getBean(ObjectMapper.class));
+
+        ServerMetricsProbe probe = new ServerMetricsProbe(
+                context.getBean(MeterRegistry.class),
+                context.getBean(DataSource.class).unwrap(HikariDataSource.class).getHikariPoolMXBean(),
+                context.getBean(StatementCounter.class));
+
+        WorkloadRunner runner = new WorkloadRunner(client, settings.workload(), settings.bulkSize());
+        Map<Operation, OperationStats.Result> results =
+                runner.run(users, settings.warmup(), settings.duration(), probe::start);
+        return LoadTestReport.render(settings, results, probe.stop());
+    }
+}
@@ -0,0 +1,95 @@
+package com.enterprise.payment.loadtest;
+
+import com.enterprise.payment.entity.Account;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.entity.User;
+import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.PaymentRepository;
+import com.enterprise.payment.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Creates one merchant user and account per virtual user, funded well beyond what a run can
+ * spend, plus a pool of completed payments for the refund workload.
+ */
+@Slf4j
+@RequiredArgsConstructor
+final class LoadTestDataSeeder {
+
+    static final String PASSWORD = "LoadTest#2024";
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000000.00");
+    private static final BigDecimal SEEDED_PAYMENT_AMOUNT = new BigDecimal("25.00");
+
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final PaymentRepository paymentRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+
+    List<VirtualUserIdentity> seed(int users, int refundablePaymentsPerUser) {
+        long start = System.nanoTime();
+        // BCrypt is deliberately slow; one hash is enough since every user shares the password
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        List<VirtualUserIdentity> identities = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            int index = i;
+            identities.add(transactionTemplate.execute(status ->
+                    seedUser(index, passwordHash, refundablePaymentsPerUser)));
+        }
+        log.info("Seeded {} users with {} refundable payments each in {} ms", users, refundablePaymentsPerUser,
+                (System.nanoTime() - start) / 1_000_000);
+        return identities;
+    }
+
+    private VirtualUserIdentity seedUser(int index, String passwordHash, int refundablePayments) {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+
+        Account account = new Account();
+        account.setAccountNumber("LT-" + runId + "-" + index);
+        account.setAccountName("Load test merchant " + index);
+        account.setEmail("merchant-" + runId + "-" + index + "@loadtest.local");
+        account.setBalance(OPENING_BALANCE);
+        account = accountRepository.save(account);
+
+        User user = new User();
+        user.setUsername("lt_" + runId + "_" + index);
+        user.setEmail("user-" + runId + "-" + index + "@loadtest.local");
+        user.setPasswordHash(passwordHash);
+        user.setFirstName("Load");
+        user.setLastName("Tester " + index);
+        user.setRole(User.UserRole.MERCHANT);
+        user.setAccount(account);
+        userRepository.save(user);
+
+        List<Payment> payments = new ArrayList<>(refundablePayments);
+        for (int i = 0; i < refundablePayments; i++) {
+            Payment payment = new Payment();
+            payment.setPaymentReference("PAY_LT" + runId.toUpperCase() + String.format("%06d", index * refundablePayments + i));
+            payment.setAccount(account);
+            payment.setAmount(SEEDED_PAYMENT_AMOUNT);
+            payment.setCurrencyCode("USD");
+            payment.setStatus(Payment.PaymentStatus.COMPLETED);
+            payment.setProcessedAt(OffsetDateTime.now());
+            payments.add(payment);
+        }
+        List<String> references = paymentRepository.saveAll(payments).stream()
+                .map(Payment::getPaymentReference)
+                .toList();
+
+        return new VirtualUserIdentity(user.getUsername(), PASSWORD, account.getId(), account.getAccountNumber(),
+                references);
+    }
+
+    record VirtualUserIdentity(String username, String password, Long accountId, String accountNumber,
+                               List<String> refundablePayments) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.enterprise.payment.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.lifecycle.Startables;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PostgreSQL and Redis containers the application under load connects to. Flyway builds the
+ * schema on startup exactly as in production.
+ */
+@Slf4j
+final class LoadTestEnvironment implements AutoCloseable {
+
+    private static final int REDIS_PORT = 6379;
+
+    private final PostgreSQLContainer<?> postgres;
+    private final GenericContainer<?> redis;
+
+    LoadTestEnvironment(LoadTestSettings settings) {
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse(settings.postgresImage())
+                .asCompatibleSubstituteFor("postgres"))
+                .withDatabaseName("payment_system")
+                .withUsername("payment_user")
+                .withPassword("payment_pass");
+        redis = new GenericContainer<>(DockerImageName.parse(settings.redisImage()))
+                .withExposedPorts(REDIS_PORT);
+    }
+
+    void start() {
+        long start = System.nanoTime();
+        Startables.deepStart(postgres, redis).join();
+        log.info("PostgreSQL and Redis started in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    Map<String, Object> applicationProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", postgres.getJdbcUrl());
+        properties.put("spring.datasource.username", postgres.getUsername());
+        properties.put("spring.datasource.password", postgres.getPassword());
+        properties.put("spring.data.redis.host", redis.getHost());
+        properties.put("spring.data.redis.port", redis.getMappedPort(REDIS_PORT));
+        return properties;
+    }
+
+    @Override
+    public void close() {
+        redis.stop();
+        postgres.stop();
+    }
+}
@@ -0,0 +1,78 @@
+package com.enterprise.payment.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Plain-text report of one run, printed to stdout and optionally written to a file so runs
+ * before and after a change can be diffed.
+ */
+final class LoadTestReport {
+
+    private LoadTestReport() {
+    }
+
+    static String render(LoadTestSettings settings, Map<Operation, OperationStats.Result> results,
+                         ServerMetricsProbe.Snapshot server) {
+        StringBuilder out = new StringBuilder();
+        double seconds = settings.duration().toMillis() / 1000.0;
+
+        out.append(String.format("Workload %s, %d virtual users, %.0f s measured after %d s warm-up%n",
+                settings.workload(), settings.concurrency(), seconds, settings.warmup().toSeconds()));
+        out.append(String.format("Gateway: median %d ms, p99 %d ms, decline %.1f%%, error %.1f%%%n%n",
+                settings.gatewayMedianLatency().toMillis(), settings.gatewayP99Latency().toMillis(),
+                settings.gatewayDeclineRate() * 100, settings.gatewayErrorRate() * 100));
+
+        out.append(String.format("%-10s %10s %8s %8s %10s %9s %9s %9s %9s%n",
+                "Operation", "OK", "Errors", "Skipped", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Map.Entry<Operation, OperationStats.Result> entry : results.entrySet()) {
+            OperationStats.Result result = entry.getValue();
+            if (result.successes() == 0 && result.errorCount() == 0 && result.skipped() == 0) {
+                continue;
+            }
+            total.add(result.latencyMicros());
+            totalErrors += result.errorCount();
+            appendRow(out, entry.getKey().name(), result.latencyMicros(), result.errorCount(), result.skipped(), seconds);
+        }
+        appendRow(out, "TOTAL", total, totalErrors, 0, seconds);
+
+        OperationStats.Result bulk = results.get(Operation.BULK_CREATE);
+        if (bulk != null && bulk.successes() > 0) {
+            out.append(String.format("BULK_CREATE: %d payments per request, %.1f payments/s%n",
+                    settings.bulkSize(), bulk.successes() * settings.bulkSize() / seconds));
+        }
+
+        results.forEach((operation, result) -> result.errors().forEach((reason, count) ->
+                out.append(String.format("  %s error: %s x %d%n", operation, reason, count))));
+
+        out.append(String.format("%nHikari: %d acquisitions, mean wait %.3f ms, p99 %.3f ms, max %.3f ms; "
+                        + "peak %d waiting threads, peak %d/%d connections active%n",
+                server.connectionAcquisitions(), server.meanAcquireMillis(), server.p99AcquireMillis(),
+                server.maxAcquireMillis(), server.peakWaitingThreads(), server.peakActiveConnections(),
+                server.poolSize()));
+
+        out.append(String.format("%nDB statements per request (Hibernate-prepared):%n"));
+        server.statementsByRoute().forEach((route, statements) ->
+                out.append(String.format("  %-45s %8d requests %8.2f statements/request%n",
+                        route, statements.requests(), statements.statementsPerRequest())));
+        out.append(String.format("  %-45s %8d statements%n", "background (async processing, webhooks)",
+                server.backgroundStatements()));
+        return out.toString();
+    }
+
+    private static void appendRow(StringBuilder out, String name, Histogram latencyMicros, long errors, long skipped,
+                                  double seconds) {
+        long count = latencyMicros.getTotalCount();
+        out.append(String.format("%-10s %10d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, count, errors, skipped, count / seconds,
+                millis(latencyMicros, 50.0), millis(latencyMicros, 99.0), millis(latencyMicros, 99.9),
+                latencyMicros.getMaxValue() / 1000.0));
+    }
+
+    private static double millis(Histogram latencyMicros, double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
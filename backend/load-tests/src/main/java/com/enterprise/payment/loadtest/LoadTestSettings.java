@@ -0,0 +1,81 @@
+package com.enterprise.payment.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load-test run parameters, read from {@code -Dloadtest.*} system properties so they can be
+ * passed straight through {@code mvn exec:java}.
+ */
+record LoadTestSettings(
+        Workload workload,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        int refundablePaymentsPerUser,
+        int bulkSize,
+        Duration gatewayMedianLatency,
+        Duration gatewayP99Latency,
+        double gatewayDeclineRate,
+        double gatewayErrorRate,
+        String postgresImage,
+        String redisImage,
+        String reportFile) {
+
+    private static final List<String> GATEWAYS = List.of("primary", "secondary");
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Workload.valueOf(property("workload", "MIXED").toUpperCase()),
+                Integer.parseInt(property("concurrency", "32")),
+                Duration.ofSeconds(Long.parseLong(property("warmup-seconds", "15"))),
+                Duration.ofSeconds(Long.parseLong(property("duration-seconds", "60"))),
+                Integer.parseInt(property("refundable-per-user", "200")),
+                Integer.parseInt(property("bulk-size", "500")),
+                Duration.ofMillis(Long.parseLong(property("gateway.median-ms", "120"))),
+                Duration.ofMillis(Long.parseLong(property("gateway.p99-ms", "800"))),
+                Double.parseDouble(property("gateway.decline-rate", "0.03")),
+                Double.parseDouble(property("gateway.error-rate", "0.01")),
+                property("postgres-image", "postgres:15-alpine"),
+                property("redis-image", "redis:7-alpine"),
+                property("report-file", ""));
+    }
+
+    /**
+     * Properties handed to the application context: both configured gateways are served by
+     * the built-in stub on a free port, with the latency and outcome settings of this run.
+     */
+    Map<String, Object> gatewayProperties() {
+        int port = freePort();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("payment.gateway.stub.enabled", true);
+        properties.put("payment.gateway.stub.port", port);
+        for (String gateway : GATEWAYS) {
+            String stub = "payment.gateway.stub.gateways." + gateway + ".";
+            properties.put(stub + "median-latency", gatewayMedianLatency.toMillis() + "ms");
+            properties.put(stub + "p99-latency", gatewayP99Latency.toMillis() + "ms");
+            properties.put(stub + "decline-rate", gatewayDeclineRate);
+            properties.put(stub + "error-rate", gatewayErrorRate);
+            properties.put("payment.gateway.connectors." + gateway + ".base-url",
+                    "http://localhost:" + port + "/" + gateway);
+        }
+        return properties;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No free port for the stub gateway", e);
+        }
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+}
@@ -0,0 +1,15 @@
+package com.enterprise.payment.loadtest;
+
+/**
+ * Requests a virtual user can issue. {@link #PROCESS} is end to end: create a payment and
+ * poll it until the asynchronous gateway processing settles it. {@link #BULK_CREATE} creates
+ * {@code bulk-size} payments in one request.
+ */
+enum Operation {
+    LOGIN,
+    CREATE,
+    BULK_CREATE,
+    PROCESS,
+    REFUND,
+    LIST
+}
@@ -0,0 +1,62 @@
+package com.enterprise.payment.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-observed latency and errors for one {@link Operation}. Latencies are recorded in
+ * microseconds into an HdrHistogram {@link Recorder}, which is safe for concurrent writers and
+ * lets the warm-up phase be discarded without pausing the virtual users.
+ */
+final class OperationStats {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final Recorder latencies = new Recorder(MAX_TRACKABLE_MICROS, 3);
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder skipped = new LongAdder();
+
+    void recordSuccess(long elapsedNanos) {
+        latencies.recordValue(Math.min(MAX_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+    }
+
+    void recordError(String reason) {
+        errors.computeIfAbsent(reason, r -> new LongAdder()).increment();
+    }
+
+    /**
+     * The operation had nothing to act on, e.g. no refundable payment was available
+     */
+    void recordSkipped() {
+        skipped.increment();
+    }
+
+    void reset() {
+        latencies.reset();
+        errors.clear();
+        skipped.reset();
+    }
+
+    Result result() {
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((reason, count) -> errorCounts.put(reason, count.sum()));
+        return new Result(latencies.getIntervalHistogram(), errorCounts, skipped.sum());
+    }
+
+    record Result(Histogram latencyMicros, Map<String, Long> errors, long skipped) {
+
+        long successes() {
+            return latencyMicros.getTotalCount();
+        }
+
+        long errorCount() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
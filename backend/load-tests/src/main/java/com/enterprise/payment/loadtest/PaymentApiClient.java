@@ -0,0 +1,135 @@
+package com.enterprise.payment.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Minimal HTTP client for the endpoints the workloads exercise. Non-2xx responses raise
+ * {@link ApiCallException} carrying the status so the report can break errors down.
+ */
+final class PaymentApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+
+    PaymentApiClient(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    String login(String username, String password) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("usernameOrEmail", username)
+                .put("password", password);
+        return post("/auth/login", null, body).path("accessToken").asText();
+    }
+
+    JsonNode createPayment(String token, Long accountId, String amount) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("accountId", accountId)
+                .put("amount", amount)
+                .put("currencyCode", "USD")
+                .put("description", "Load test payment");
+        return post("/payments", token, body);
+    }
+
+    JsonNode createPayments(String token, Long accountId, List<String> amounts) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ArrayNode payments = body.putArray("payments");
+        for (String amount : amounts) {
+            payments.addObject()
+                    .put("accountId", accountId)
+                    .put("amount", amount)
+                    .put("currencyCode", "USD")
+                    .put("description", "Load test bulk payment");
+        }
+        return post("/payments/bulk", token, body);
+    }
+
+    JsonNode getPayment(String token, String paymentReference) {
+        return send(request("/payments/" + paymentReference, token).GET().build());
+    }
+
+    JsonNode refundPayment(String token, String paymentReference, String amount) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("amount", amount)
+                .put("reason", "Load test refund");
+        return post("/payments/" + paymentReference + "/refund", token, body);
+    }
+
+    JsonNode listPayments(String token, String accountNumber) {
+        return send(request("/accounts/" + accountNumber + "/payments?page=0&size=20", token).GET().build());
+    }
+
+    private JsonNode post(String path, String token, JsonNode body) {
+        try {
+            return send(request(path, token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build());
+        } catch (IOException e) {
+            throw new ApiCallException(0, e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private JsonNode send(HttpRequest request) {
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new ApiCallException(0, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiCallException(0, e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new ApiCallException(response.statusCode(), null);
+        }
+        try {
+            return objectMapper.readTree(response.body()).path("data");
+        } catch (IOException e) {
+            throw new ApiCallException(response.statusCode(), e);
+        }
+    }
+
+    static final class ApiCallException extends RuntimeException {
+
+        private final int status;
+
+        ApiCallException(int status, Throwable cause) {
+            super(status == 0 ? "I/O error" : "HTTP " + status, cause);
+            this.status = status;
+        }
+
+        int status() {
+            return status;
+        }
+    }
+}
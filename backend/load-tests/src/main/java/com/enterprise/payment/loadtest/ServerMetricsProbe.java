@@ -0,0 +1,99 @@
+package com.enterprise.payment.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side view of a measurement window: Hikari connection acquisition (from the
+ * {@code hikaricp.connections.acquire} timer Spring Boot binds, plus sampled pool pressure)
+ * and Hibernate statements per route from {@link StatementCounter}.
+ */
+final class ServerMetricsProbe {
+
+    private static final String HIKARI_ACQUIRE_TIMER = "hikaricp.connections.acquire";
+    private static final long SAMPLE_INTERVAL_MILLIS = 50;
+
+    private final MeterRegistry meterRegistry;
+    private final HikariPoolMXBean pool;
+    private final StatementCounter statementCounter;
+
+    private ScheduledExecutorService sampler;
+    private long baselineAcquisitions;
+    private double baselineAcquireNanos;
+    private volatile int peakWaitingThreads;
+    private volatile int peakActiveConnections;
+
+    ServerMetricsProbe(MeterRegistry meterRegistry, HikariPoolMXBean pool, StatementCounter statementCounter) {
+        this.meterRegistry = meterRegistry;
+        this.pool = pool;
+        this.statementCounter = statementCounter;
+    }
+
+    void start() {
+        Timer acquire = acquireTimer();
+        baselineAcquisitions = acquire != null ? acquire.count() : 0;
+        baselineAcquireNanos = acquire != null ? acquire.totalTime(TimeUnit.NANOSECONDS) : 0;
+        statementCounter.reset();
+        peakWaitingThreads = 0;
+        peakActiveConnections = 0;
+
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "loadtest-pool-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(() -> {
+            peakWaitingThreads = Math.max(peakWaitingThreads, pool.getThreadsAwaitingConnection());
+            peakActiveConnections = Math.max(peakActiveConnections, pool.getActiveConnections());
+        }, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    Snapshot stop() {
+        sampler.shutdownNow();
+        Timer acquire = acquireTimer();
+        long acquisitions = acquire != null ? acquire.count() - baselineAcquisitions : 0;
+        double acquireNanos = acquire != null ? acquire.totalTime(TimeUnit.NANOSECONDS) - baselineAcquireNanos : 0;
+        double p99Millis = Double.NaN;
+        double maxMillis = Double.NaN;
+        if (acquire != null) {
+            maxMillis = acquire.max(TimeUnit.MILLISECONDS);
+            for (ValueAtPercentile percentile : acquire.takeSnapshot().percentileValues()) {
+                if (percentile.percentile() == 0.99) {
+                    p99Millis = percentile.value(TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        return new Snapshot(
+                acquisitions,
+                acquisitions == 0 ? 0 : acquireNanos / acquisitions / 1_000_000,
+                p99Millis,
+                maxMillis,
+                peakWaitingThreads,
+                peakActiveConnections,
+                pool.getTotalConnections(),
+                statementCounter.routes(),
+                statementCounter.backgroundStatements());
+    }
+
+    private Timer acquireTimer() {
+        return meterRegistry.find(HIKARI_ACQUIRE_TIMER).timer();
+    }
+
+    record Snapshot(long connectionAcquisitions,
+                    double meanAcquireMillis,
+                    double p99AcquireMillis,
+                    double maxAcquireMillis,
+                    int peakWaitingThreads,
+                    int peakActiveConnections,
+                    int poolSize,
+                    Map<String, StatementCounter.RouteStatements> statementsByRoute,
+                    long backgroundStatements) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.enterprise.payment.loadtest;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts SQL statements Hibernate prepares, attributed to the HTTP route being served on the
+ * current thread (see {@link StatementCountingFilter}). Statements issued outside a request,
+ * e.g. by asynchronous payment processing, are counted as background work.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> CURRENT_REQUEST = new ThreadLocal<>();
+
+    private final Map<String, RouteStatements> routes = new ConcurrentHashMap<>();
+    private final LongAdder backgroundStatements = new LongAdder();
+
+    @Override
+    public String inspect(String sql) {
+        long[] counter = CURRENT_REQUEST.get();
+        if (counter != null) {
+            counter[0]++;
+        } else {
+            backgroundStatements.increment();
+        }
+        return sql;
+    }
+
+    void beginRequest() {
+        CURRENT_REQUEST.set(new long[1]);
+    }
+
+    void endRequest(String route) {
+        long[] counter = CURRENT_REQUEST.get();
+        CURRENT_REQUEST.remove();
+        if (counter != null) {
+            routes.computeIfAbsent(route, r -> new RouteStatements()).record(counter[0]);
+        }
+    }
+
+    void reset() {
+        routes.clear();
+        backgroundStatements.reset();
+    }
+
+    Map<String, RouteStatements> routes() {
+        return new TreeMap<>(routes);
+    }
+
+    long backgroundStatements() {
+        return backgroundStatements.sum();
+    }
+
+    static final class RouteStatements {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+
+        private void record(long count) {
+            requests.increment();
+            statements.add(count);
+        }
+
+        long requests() {
+            return requests.sum();
+        }
+
+        double statementsPerRequest() {
+            long n = requests.sum();
+            return n == 0 ? 0 : (double) statements.sum() / n;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.enterprise.payment.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Scopes {@link StatementCounter} to a request and files the count under the matched route
+ * pattern (e.g. {@code GET /payments/{paymentReference}}) rather than the concrete URI.
+ */
+class StatementCountingFilter extends OncePerRequestFilter {
+
+    private final StatementCounter statementCounter;
+
+    StatementCountingFilter(StatementCounter statementCounter) {
+        this.statementCounter = statementCounter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        statementCounter.beginRequest();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            statementCounter.endRequest(request.getMethod() + " " + (pattern != null ? pattern : request.getServletPath()));
+        }
+    }
+}
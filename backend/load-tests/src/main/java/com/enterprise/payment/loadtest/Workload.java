@@ -0,0 +1,49 @@
+package com.enterprise.payment.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Operation mixes. The single-operation workloads isolate one endpoint, which also makes the
+ * per-route statement counts and Hikari waits attributable; {@link #MIXED} approximates
+ * production traffic.
+ */
+enum Workload {
+    LOGIN(Map.of(Operation.LOGIN, 1)),
+    CREATE(Map.of(Operation.CREATE, 1)),
+    BULK_CREATE(Map.of(Operation.BULK_CREATE, 1)),
+    PROCESS(Map.of(Operation.PROCESS, 1)),
+    REFUND(Map.of(Operation.REFUND, 1)),
+    LIST(Map.of(Operation.LIST, 1)),
+    MIXED(Map.of(
+            Operation.LOGIN, 5,
+            Operation.CREATE, 35,
+            Operation.PROCESS, 10,
+            Operation.REFUND, 5,
+            Operation.LIST, 45));
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    Workload(Map<Operation, Integer> weights) {
+        Map<Operation, Integer> ordered = new EnumMap<>(weights);
+        operations = ordered.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += ordered.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    Operation next(ThreadLocalRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+}
@@ -0,0 +1,186 @@
+package com.enterprise.payment.loadtest;
+
+import com.enterprise.payment.loadtest.LoadTestDataSeeder.VirtualUserIdentity;
+import com.enterprise.payment.loadtest.PaymentApiClient.ApiCallException;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-model load generator: one thread per virtual user, each issuing the next operation
+ * from the workload mix as soon as the previous one returns. Statistics gathered during the
+ * warm-up are discarded.
+ */
+@Slf4j
+final class WorkloadRunner {
+
+    private static final Duration SETTLEMENT_TIMEOUT = Duration.ofSeconds(30);
+    private static final long SETTLEMENT_POLL_MILLIS = 25;
+    private static final Set<String> SETTLED_STATUSES = Set.of("COMPLETED", "FAILED", "CANCELLED", "REFUNDED");
+
+    private final PaymentApiClient client;
+    private final Workload workload;
+    private final int bulkSize;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final Queue<RefundCandidate> refundable = new ConcurrentLinkedQueue<>();
+
+    WorkloadRunner(PaymentApiClient client, Workload workload, int bulkSize) {
+        this.client = client;
+        this.workload = workload;
+        this.bulkSize = bulkSize;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    /**
+     * Runs the warm-up, calls {@code onMeasurementStart}, runs the measured phase and returns the
+     * per-operation results of the measured phase only.
+     */
+    Map<Operation, OperationStats.Result> run(List<VirtualUserIdentity> users, Duration warmup, Duration duration,
+                                              Runnable onMeasurementStart) throws InterruptedException {
+        for (VirtualUserIdentity user : users) {
+            for (String reference : user.refundablePayments()) {
+                refundable.add(new RefundCandidate(reference, new BigDecimal("25.00")));
+            }
+        }
+
+        long measurementStart = System.nanoTime() + warmup.toNanos();
+        long end = measurementStart + duration.toNanos();
+        CountDownLatch finished = new CountDownLatch(users.size());
+        List<Thread> threads = new ArrayList<>(users.size());
+        for (VirtualUserIdentity user : users) {
+            Thread thread = new Thread(() -> {
+                try {
+                    runVirtualUser(user, end);
+                } finally {
+                    finished.countDown();
+                }
+            }, "loadtest-vu-" + threads.size());
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, measurementStart - System.nanoTime()));
+        stats.values().forEach(OperationStats::reset);
+        onMeasurementStart.run();
+        log.info("Warm-up finished, measuring for {} s", duration.toSeconds());
+
+        finished.await();
+        Map<Operation, OperationStats.Result> results = new EnumMap<>(Operation.class);
+        stats.forEach((operation, operationStats) -> results.put(operation, operationStats.result()));
+        return results;
+    }
+
+    private void runVirtualUser(VirtualUserIdentity user, long endNanos) {
+        String token = client.login(user.username(), user.password());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < endNanos) {
+            Operation operation = workload.next(random);
+            OperationStats operationStats = stats.get(operation);
+            long start = System.nanoTime();
+            try {
+                boolean executed = switch (operation) {
+                    case LOGIN -> {
+                        token = client.login(user.username(), user.password());
+                        yield true;
+                    }
+                    case CREATE -> {
+                        client.createPayment(token, user.accountId(), randomAmount(random));
+                        yield true;
+                    }
+                    case BULK_CREATE -> {
+                        List<String> amounts = new ArrayList<>(bulkSize);
+                        for (int i = 0; i < bulkSize; i++) {
+                            amounts.add(randomAmount(random));
+                        }
+                        client.createPayments(token, user.accountId(), amounts);
+                        yield true;
+                    }
+                    case PROCESS -> createAndAwaitSettlement(token, user, random);
+                    case REFUND -> refund(token);
+                    case LIST -> {
+                        client.listPayments(token, user.accountNumber());
+                        yield true;
+                    }
+                };
+                if (executed) {
+                    operationStats.recordSuccess(System.nanoTime() - start);
+                } else {
+                    operationStats.recordSkipped();
+                }
+            } catch (ApiCallException e) {
+                operationStats.recordError(e.getMessage());
+            } catch (SettlementTimeoutException e) {
+                operationStats.recordError("settlement timeout");
+            } catch (RuntimeException e) {
+                operationStats.recordError(e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private boolean createAndAwaitSettlement(String token, VirtualUserIdentity user, ThreadLocalRandom random) {
+        String amount = randomAmount(random);
+        JsonNode payment = client.createPayment(token, user.accountId(), amount);
+        String reference = payment.path("paymentReference").asText();
+        String status = payment.path("status").asText();
+        long deadline = System.nanoTime() + SETTLEMENT_TIMEOUT.toNanos();
+        while (!SETTLED_STATUSES.contains(status)) {
+            if (System.nanoTime() > deadline) {
+                throw new SettlementTimeoutException();
+            }
+            sleepMillis(SETTLEMENT_POLL_MILLIS);
+            status = client.getPayment(token, reference).path("status").asText();
+        }
+        if ("COMPLETED".equals(status)) {
+            refundable.add(new RefundCandidate(reference, new BigDecimal(amount)));
+        }
+        return true;
+    }
+
+    private boolean refund(String token) {
+        RefundCandidate candidate = refundable.poll();
+        if (candidate == null) {
+            return false;
+        }
+        client.refundPayment(token, candidate.paymentReference(), candidate.amount().toPlainString());
+        return true;
+    }
+
+    private static String randomAmount(ThreadLocalRandom random) {
+        return BigDecimal.valueOf(random.nextInt(100, 10_000)).movePointLeft(2)
+                .setScale(2, RoundingMode.UNNECESSARY).toPlainString();
+    }
+
+    private static void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while awaiting settlement", e);
+        }
+    }
+
+    private record RefundCandidate(String paymentReference, BigDecimal amount) {
+    }
+
+    private static final class SettlementTimeoutException extends RuntimeException {
+        SettlementTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+}
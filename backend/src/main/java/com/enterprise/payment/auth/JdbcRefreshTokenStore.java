@@ -0,0 +1,83 @@
+package com.enterprise.payment.auth;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Refresh tokens in the {@code refresh_tokens} table. Revoking is a conditional update, so of
+ * two refreshes racing with the same token exactly one wins.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcRefreshTokenStore implements RefreshTokenStore {
+
+    private static final RowMapper<StoredRefreshToken> ROW_MAPPER = (rs, rowNum) -> new StoredRefreshToken(
+            rs.getLong("id"), rs.getLong("user_id"), rs.getObject("family_id", UUID.class),
+            rs.getObject("expires_at", OffsetDateTime.class), rs.getBoolean("is_revoked"));
+
+    private static final RowMapper<RevokedRefreshToken> REVOKED_MAPPER = (rs, rowNum) -> new RevokedRefreshToken(
+            rs.getLong("id"), rs.getBytes("token_hash"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public StoredRefreshToken find(byte[] digest) {
+        List<StoredRefreshToken> tokens = jdbcTemplate.query("""
+                SELECT id, user_id, family_id, expires_at, is_revoked FROM refresh_tokens WHERE token_hash = ?
+                """, ROW_MAPPER, (Object) digest);
+        return tokens.isEmpty() ? null : tokens.get(0);
+    }
+
+    @Override
+    public StoredRefreshToken insert(byte[] digest, long userId, UUID familyId, OffsetDateTime expiresAt) {
+        Long id = jdbcTemplate.queryForObject("""
+                INSERT INTO refresh_tokens (token_hash, user_id, family_id, expires_at) VALUES (?, ?, ?, ?)
+                RETURNING id
+                """, Long.class, digest, userId, familyId, expiresAt);
+        return new StoredRefreshToken(id, userId, familyId, expiresAt, false);
+    }
+
+    @Override
+    public boolean revoke(byte[] digest, long id) {
+        return jdbcTemplate.update("UPDATE refresh_tokens SET is_revoked = true WHERE id = ? AND NOT is_revoked",
+                id) == 1;
+    }
+
+    @Override
+    public List<RevokedRefreshToken> revokeFamily(UUID familyId) {
+        return jdbcTemplate.query("""
+                UPDATE refresh_tokens SET is_revoked = true WHERE family_id = ? AND NOT is_revoked
+                RETURNING id, token_hash
+                """, REVOKED_MAPPER, familyId);
+    }
+
+    @Override
+    public List<RevokedRefreshToken> revokeAllForUser(long userId) {
+        return jdbcTemplate.query("""
+                UPDATE refresh_tokens SET is_revoked = true WHERE user_id = ? AND NOT is_revoked
+                RETURNING id, token_hash
+                """, REVOKED_MAPPER, userId);
+    }
+
+    /**
+     * Delete up to {@code limit} tokens that expired before {@code cutoff}, oldest first,
+     * skipping rows locked by a concurrent refresh
+     *
+     * @return the number deleted
+     */
+    public int deleteExpired(OffsetDateTime cutoff, int limit) {
+        return jdbcTemplate.update("""
+                DELETE FROM refresh_tokens WHERE id IN (
+                    SELECT id FROM refresh_tokens WHERE expires_at < ?
+                    ORDER BY expires_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                """, cutoff, limit);
+    }
+}
@@ -0,0 +1,152 @@
+package com.enterprise.payment.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Serves refresh token lookups from Redis, where each live token is a key that expires with the
+ * token, and writes every change through to the database first.
+ *
+ * The database stays the record for audit and decides races: revoking is its conditional
+ * update, after which the Redis key is deleted. Revoked tokens are not kept in Redis, so a
+ * lookup that misses falls back to the database, which is how a rotated-out token presented
+ * again is recognised, and how live tokens come back after Redis lost them. When Redis is
+ * unreachable every call goes to the database alone.
+ *
+ * Redis is only written once the caller's transaction commits: a rolled back insert must not
+ * be served from the cache, and a key deleted before the revocation commits could be cached
+ * again from the still live row by a concurrent lookup.
+ */
+@Slf4j
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+
+    static final String KEY_PREFIX = "refresh-token:";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final RefreshTokenStore database;
+    private final StringRedisTemplate redisTemplate;
+    private final LongSupplier clock;
+
+    public RedisRefreshTokenStore(RefreshTokenStore database, StringRedisTemplate redisTemplate) {
+        this(database, redisTemplate, System::currentTimeMillis);
+    }
+
+    RedisRefreshTokenStore(RefreshTokenStore database, StringRedisTemplate redisTemplate, LongSupplier clock) {
+        this.database = database;
+        this.redisTemplate = redisTemplate;
+        this.clock = clock;
+    }
+
+    @Override
+    public StoredRefreshToken find(byte[] digest) {
+        try {
+            String value = redisTemplate.opsForValue().get(key(digest));
+            if (value != null) {
+                return read(value);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Refresh token lookup in Redis failed, reading the database: {}", e.getMessage());
+            return database.find(digest);
+        }
+        StoredRefreshToken token = database.find(digest);
+        if (token != null && !token.revoked()) {
+            cache(digest, token);
+        }
+        return token;
+    }
+
+    @Override
+    public StoredRefreshToken insert(byte[] digest, long userId, UUID familyId, OffsetDateTime expiresAt) {
+        StoredRefreshToken token = database.insert(digest, userId, familyId, expiresAt);
+        afterCommit(() -> cache(digest, token));
+        return token;
+    }
+
+    @Override
+    public boolean revoke(byte[] digest, long id) {
+        boolean revoked = database.revoke(digest, id);
+        afterCommit(() -> evict(List.of(digest)));
+        return revoked;
+    }
+
+    @Override
+    public List<RevokedRefreshToken> revokeFamily(UUID familyId) {
+        List<RevokedRefreshToken> revoked = database.revokeFamily(familyId);
+        afterCommit(() -> evict(revoked.stream().map(RevokedRefreshToken::digest).toList()));
+        return revoked;
+    }
+
+    @Override
+    public List<RevokedRefreshToken> revokeAllForUser(long userId) {
+        List<RevokedRefreshToken> revoked = database.revokeAllForUser(userId);
+        afterCommit(() -> evict(revoked.stream().map(RevokedRefreshToken::digest).toList()));
+        return revoked;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void cache(byte[] digest, StoredRefreshToken token) {
+        long ttlMillis = token.expiresAt().toInstant().toEpochMilli() - clock.getAsLong();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(key(digest), write(token), Duration.ofMillis(ttlMillis));
+        } catch (DataAccessException e) {
+            log.warn("Caching refresh token {} in Redis failed: {}", token.id(), e.getMessage());
+        }
+    }
+
+    private void evict(List<byte[]> digests) {
+        if (digests.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(digests.stream().map(RedisRefreshTokenStore::key).toList());
+        } catch (DataAccessException e) {
+            // The stale keys still resolve to live tokens, but revoking them again fails in the
+            // database, so a refresh with one is treated as reuse
+            log.warn("Evicting {} revoked refresh tokens from Redis failed: {}", digests.size(), e.getMessage());
+        }
+    }
+
+    static String key(byte[] digest) {
+        return KEY_PREFIX + HEX.formatHex(digest);
+    }
+
+    static String write(StoredRefreshToken token) {
+        return token.id() + ":" + token.userId() + ":" + token.familyId() + ":"
+                + token.expiresAt().toInstant().toEpochMilli();
+    }
+
+    static StoredRefreshToken read(String value) {
+        String[] fields = value.split(":", 4);
+        return new StoredRefreshToken(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                UUID.fromString(fields[2]),
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(fields[3])), ZoneOffset.UTC), false);
+    }
+}
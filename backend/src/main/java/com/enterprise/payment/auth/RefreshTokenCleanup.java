@@ -0,0 +1,52 @@
+package com.enterprise.payment.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Deletes refresh tokens that expired more than the retention ago, in statements of at most
+ * {@code cleanupBatchSize} rows, each committed on its own: locks and WAL stay small however
+ * many tokens piled up, and logins and refreshes are never held up behind the cleanup.
+ */
+@Component
+@Slf4j
+public class RefreshTokenCleanup {
+
+    private final JdbcRefreshTokenStore store;
+    private final RefreshTokenProperties properties;
+
+    public RefreshTokenCleanup(JdbcRefreshTokenStore store, RefreshTokenProperties properties) {
+        this.store = store;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.refresh-tokens.cleanup-interval:PT1H}",
+               initialDelayString = "${payment.refresh-tokens.cleanup-interval:PT1H}")
+    public void deleteExpired() {
+        deleteExpiredBefore(OffsetDateTime.now().minus(properties.getRetention()));
+    }
+
+    /**
+     * Delete every token that expired before {@code cutoff}
+     *
+     * @return the number deleted
+     */
+    int deleteExpiredBefore(OffsetDateTime cutoff) {
+        long started = System.nanoTime();
+        int batchSize = properties.getCleanupBatchSize();
+        int deleted = 0;
+        int batch;
+        do {
+            batch = store.deleteExpired(cutoff, batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+        if (deleted > 0) {
+            log.info("Deleted {} refresh tokens expired before {} in {} ms", deleted, cutoff,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+        return deleted;
+    }
+}
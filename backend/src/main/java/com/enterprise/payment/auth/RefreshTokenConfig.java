@@ -0,0 +1,25 @@
+package com.enterprise.payment.auth;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Refresh token settings; token lookups go to Redis in front of the database when
+ * {@code payment.refresh-tokens.redis-enabled} is set
+ */
+@Configuration
+@EnableConfigurationProperties(RefreshTokenProperties.class)
+public class RefreshTokenConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "payment.refresh-tokens", name = "redis-enabled", havingValue = "true")
+    public RefreshTokenStore redisRefreshTokenStore(JdbcRefreshTokenStore jdbcRefreshTokenStore,
+                                                    StringRedisTemplate stringRedisTemplate) {
+        return new RedisRefreshTokenStore(jdbcRefreshTokenStore, stringRedisTemplate);
+    }
+}
@@ -0,0 +1,29 @@
+package com.enterprise.payment.auth;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Refresh token lifetime, store and cleanup, bound from {@code payment.refresh-tokens}
+ */
+@Data
+@ConfigurationProperties(prefix = "payment.refresh-tokens")
+public class RefreshTokenProperties {
+
+    /** Lifetime of a token; a refresh rotates it into a new token with a full lifetime */
+    private Duration ttl = Duration.ofDays(30);
+
+    /** Serve token lookups from Redis, writing through to the database */
+    private boolean redisEnabled = false;
+
+    /** How long expired tokens stay in the database for audit before the cleanup deletes them */
+    private Duration retention = Duration.ofDays(7);
+
+    /** Pause between cleanup runs */
+    private Duration cleanupInterval = Duration.ofHours(1);
+
+    /** Tokens deleted per cleanup statement */
+    private int cleanupBatchSize = 1_000;
+}
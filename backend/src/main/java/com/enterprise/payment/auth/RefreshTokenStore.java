@@ -0,0 +1,43 @@
+package com.enterprise.payment.auth;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Where refresh tokens are kept, by the SHA-256 digest of the token
+ */
+public interface RefreshTokenStore {
+
+    /**
+     * The token with this digest, revoked or not, or null
+     */
+    StoredRefreshToken find(byte[] digest);
+
+    /**
+     * Store a new token
+     */
+    StoredRefreshToken insert(byte[] digest, long userId, UUID familyId, OffsetDateTime expiresAt);
+
+    /**
+     * Revoke a token unless it is revoked already
+     *
+     * @return whether this call revoked it; false when a concurrent refresh or logout got there
+     * first
+     */
+    boolean revoke(byte[] digest, long id);
+
+    /**
+     * Revoke every token of a rotation family
+     *
+     * @return the tokens this call revoked
+     */
+    List<RevokedRefreshToken> revokeFamily(UUID familyId);
+
+    /**
+     * Revoke every token of a user
+     *
+     * @return the tokens this call revoked
+     */
+    List<RevokedRefreshToken> revokeAllForUser(long userId);
+}
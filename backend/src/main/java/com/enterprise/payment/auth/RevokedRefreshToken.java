@@ -0,0 +1,7 @@
+package com.enterprise.payment.auth;
+
+/**
+ * A refresh token revoked in bulk, by id and by the digest it is looked up with
+ */
+public record RevokedRefreshToken(long id, byte[] digest) {
+}
@@ -0,0 +1,14 @@
+package com.enterprise.payment.auth;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A refresh token as stored, without the token itself
+ */
+public record StoredRefreshToken(long id, long userId, UUID familyId, OffsetDateTime expiresAt, boolean revoked) {
+
+    public boolean isExpired(OffsetDateTime now) {
+        return !expiresAt.isAfter(now);
+    }
+}
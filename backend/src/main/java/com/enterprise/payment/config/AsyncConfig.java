@@ -0,0 +1,67 @@
+package com.enterprise.payment.config;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+
+/**
+ * Executor for {@code @Async} service methods and the {@code CompletableFuture} work they fan out.
+ *
+ * Tasks carry the submitting thread's MDC and Micrometer context (current observation/span and
+ * baggage), so correlation and trace ids survive the hop onto the pool.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        ContextPropagatingTaskDecorator observationContext = new ContextPropagatingTaskDecorator();
+        return runnable -> {
+            Runnable decorated = observationContext.decorate(runnable);
+            Map<String, String> submitterMdc = MDC.getCopyOfContextMap();
+            return () -> {
+                Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+                setMdc(submitterMdc);
+                try {
+                    decorated.run();
+                } finally {
+                    setMdc(previousMdc);
+                }
+            };
+        };
+    }
+
+    @Bean(name = "taskExecutor")
+    @Primary
+    public ThreadPoolTaskExecutor taskExecutor(TaskDecorator contextPropagatingTaskDecorator,
+                                               @Value("${payment.async.core-pool-size:8}") int corePoolSize,
+                                               @Value("${payment.async.max-pool-size:32}") int maxPoolSize,
+                                               @Value("${payment.async.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("payment-async-");
+        executor.setTaskDecorator(contextPropagatingTaskDecorator);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.enterprise.payment.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} maintenance jobs; they run on Spring Boot's auto-configured
+ * task scheduler, apart from the {@code @Async} pool.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,40 @@
+package com.enterprise.payment.config;
+
+import com.enterprise.payment.monitoring.CorrelationIdFilter;
+import org.slf4j.MDC;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.amqp.RabbitTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Trace and correlation propagation over RabbitMQ.
+ *
+ * Observation on the template and listener containers lets Micrometer Tracing inject and
+ * extract the trace context and baggage (including the correlation id) as message headers.
+ * The correlation id is also stamped as a plain {@code X-Correlation-ID} header for
+ * consumers that do not run tracing.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public RabbitTemplateCustomizer tracingRabbitTemplateCustomizer() {
+        return template -> {
+            template.setObservationEnabled(true);
+            template.addBeforePublishPostProcessors(message -> {
+                String correlationId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+                if (correlationId != null) {
+                    message.getMessageProperties().setHeader(CorrelationIdFilter.CORRELATION_ID_HEADER, correlationId);
+                }
+                return message;
+            });
+        };
+    }
+
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> tracingListenerContainerCustomizer() {
+        return container -> container.setObservationEnabled(true);
+    }
+}
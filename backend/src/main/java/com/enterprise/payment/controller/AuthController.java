@@ -22,7 +22,7 @@ import org.springframework.web.bind.annotation.*;
  * Handles user authentication operations including login, registration, token refresh, and logout
  */
 @RestController
-@RequestMapping("/api/v1/auth")
+@RequestMapping("/auth")
 @RequiredArgsConstructor
 @Slf4j
 @Tag(name = "Authentication", description = "Authentication and authorization endpoints")
@@ -1,6 +1,7 @@
 package com.enterprise.payment.controller;
 
 import com.enterprise.payment.dto.response.ApiResponse;
+import com.enterprise.payment.idempotency.IdempotencyService;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.extern.slf4j.Slf4j;
@@ -168,6 +169,16 @@ public abstract class BaseController {
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
     }
 
+    /**
+     * Marks a response as the replay of an earlier request with the same Idempotency-Key
+     */
+    protected <T> ResponseEntity<T> replayed(ResponseEntity<T> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(IdempotencyService.REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
     /**
      * Creates a no content response for DELETE operations
      */
@@ -0,0 +1,103 @@
+package com.enterprise.payment.controller;
+
+import com.enterprise.payment.crypto.BulkCryptoPipeline;
+import com.enterprise.payment.crypto.EnvelopeEncryption;
+import com.enterprise.payment.crypto.ReEncryption;
+import com.enterprise.payment.dto.response.ApiResponse;
+import com.enterprise.payment.tokenization.CardFingerprintBackfill;
+import com.enterprise.payment.tokenization.Tokenization;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Encryption Admin Controller
+ * Data key rotation, re-encryption, tokenization and card fingerprints of stored payment method details; ADMIN only
+ */
+@RestController
+@RequestMapping("/admin/encryption")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Encryption administration", description = "Data key rotation and re-encryption")
+@SecurityRequirement(name = "bearerAuth")
+public class EncryptionAdminController extends BaseController {
+
+    private final EnvelopeEncryption envelopeEncryption;
+    private final BulkCryptoPipeline bulkCryptoPipeline;
+    private final ReEncryption reEncryption;
+    private final Tokenization tokenization;
+    private final CardFingerprintBackfill cardFingerprintBackfill;
+
+    @Operation(summary = "Rotate the data key", description = "Create a new data key version; new data is encrypted with it, "
+            + "existing data stays readable with its own version until re-encrypted")
+    @PostMapping("/data-keys")
+    public ResponseEntity<ApiResponse<Integer>> rotateDataKey() {
+        int version = envelopeEncryption.rotate();
+        log.info("Data key rotated to version {}", version);
+        return success(version, "Data key rotated");
+    }
+
+    @Operation(summary = "Re-encrypt payment methods", description = "Start re-encrypting stored payment method details "
+            + "with the active data key in the background; an interrupted run resumes from its checkpoint")
+    @PostMapping("/re-encryption")
+    public ResponseEntity<ApiResponse<Void>> startReEncryption(
+            @Parameter(description = "Start over instead of resuming an interrupted run")
+            @RequestParam(defaultValue = "false") boolean restart) {
+        if (!bulkCryptoPipeline.start(reEncryption, restart)) {
+            return conflict("Re-encryption is already running");
+        }
+        return accepted(null, "Re-encryption started; follow it with GET /admin/encryption/re-encryption");
+    }
+
+    @Operation(summary = "Re-encryption progress", description = "Checkpoint of the current or last re-encryption run, with its rows/s")
+    @GetMapping("/re-encryption")
+    public ResponseEntity<ApiResponse<BulkCryptoPipeline.JobStatus>> reEncryptionProgress() {
+        return success(bulkCryptoPipeline.status(ReEncryption.JOB));
+    }
+
+    @Operation(summary = "Tokenize payment methods", description = "Start moving stored card numbers into the token vault "
+            + "in the background; an interrupted run resumes from its checkpoint")
+    @PostMapping("/tokenization")
+    public ResponseEntity<ApiResponse<Void>> startTokenization(
+            @Parameter(description = "Start over instead of resuming an interrupted run")
+            @RequestParam(defaultValue = "false") boolean restart) {
+        if (!bulkCryptoPipeline.start(tokenization, restart)) {
+            return conflict("Tokenization is already running");
+        }
+        return accepted(null, "Tokenization started; follow it with GET /admin/encryption/tokenization");
+    }
+
+    @Operation(summary = "Tokenization progress", description = "Checkpoint of the current or last tokenization run, with its rows/s")
+    @GetMapping("/tokenization")
+    public ResponseEntity<ApiResponse<BulkCryptoPipeline.JobStatus>> tokenizationProgress() {
+        return success(bulkCryptoPipeline.status(Tokenization.JOB));
+    }
+
+    @Operation(summary = "Backfill card fingerprints", description = "Start fingerprinting card payment methods created "
+            + "before fingerprints existed, in the background; an interrupted run resumes from its checkpoint")
+    @PostMapping("/card-fingerprints")
+    public ResponseEntity<ApiResponse<Void>> startCardFingerprintBackfill(
+            @Parameter(description = "Start over instead of resuming an interrupted run")
+            @RequestParam(defaultValue = "false") boolean restart) {
+        if (!cardFingerprintBackfill.start(restart)) {
+            return conflict("Card fingerprint backfill is already running");
+        }
+        return accepted(null, "Card fingerprint backfill started; follow it with GET /admin/encryption/card-fingerprints");
+    }
+
+    @Operation(summary = "Card fingerprint backfill progress", description = "Checkpoint of the current or last backfill run; "
+            + "failed counts duplicate cards and payment methods whose card number could not be read")
+    @GetMapping("/card-fingerprints")
+    public ResponseEntity<ApiResponse<BulkCryptoPipeline.JobStatus>> cardFingerprintBackfillProgress() {
+        return success(cardFingerprintBackfill.status());
+    }
+}
@@ -0,0 +1,112 @@
+package com.enterprise.payment.controller;
+
+import com.enterprise.payment.export.Export;
+import com.enterprise.payment.export.ExportFormat;
+import com.enterprise.payment.export.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export Controller
+ * Streams payments, transactions and audit logs of a date range as CSV or NDJSON downloads
+ */
+@RestController
+@RequestMapping("/exports")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Exports", description = "Streaming data exports")
+@SecurityRequirement(name = "bearerAuth")
+public class ExportController extends BaseController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final ExportService exportService;
+
+    @Operation(summary = "Export payments", description = "Stream payments created in [from, to), oldest first. "
+            + "Each row ends with its cursor; pass the last one received as cursor to resume an interrupted export.")
+    @GetMapping("/payments")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @Parameter(description = "Start of the range, inclusive", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @Parameter(description = "End of the range, exclusive", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @Parameter(description = "Only this account's payments; every account's when omitted, for administrators only")
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @Parameter(description = "Cursor of the last row received, to resume")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Compress the download with gzip")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return stream("payments", from, to, format, gzip,
+                exportService.paymentExport(accountNumber, from, to, cursor, format));
+    }
+
+    @Operation(summary = "Export transactions", description = "Stream transactions of every account created in [from, to), "
+            + "oldest first, resumable by cursor. Administrators only.")
+    @GetMapping("/transactions")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return stream("transactions", from, to, format, gzip,
+                exportService.transactionExport(from, to, cursor, format));
+    }
+
+    @Operation(summary = "Export audit logs", description = "Stream audit log entries created in [from, to), oldest first, resumable by cursor")
+    @GetMapping("/audit-logs")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return stream("audit-logs", from, to, format, gzip,
+                exportService.auditLogExport(from, to, cursor, format));
+    }
+
+    /**
+     * Download response whose body is written on the export pool after this method returns
+     */
+    private ResponseEntity<StreamingResponseBody> stream(String dataset, OffsetDateTime from, OffsetDateTime to,
+                                                         ExportFormat format, boolean gzip, Export export) {
+        String filename = dataset + "-" + FILE_DATE.format(from) + "-" + FILE_DATE.format(to) + "."
+                + format.getExtension() + (gzip ? ".gz" : "");
+        log.info("Starting {} export {}", dataset, filename);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                export.writeTo(compressed);
+                compressed.finish();
+            } else {
+                export.writeTo(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
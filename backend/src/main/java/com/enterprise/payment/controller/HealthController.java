@@ -25,10 +25,4 @@ public class HealthController {
     public ResponseEntity<Map<String, Object>> actuatorHealth() {
         return health();
     }
-
-    @GetMapping("/actuator/prometheus")
-    public ResponseEntity<String> prometheus() {
-        // Simple metrics for now
-        return ResponseEntity.ok("# HELP payment_system_status System status\n# TYPE payment_system_status gauge\npayment_system_status 1\n");
-    }
 } 
\ No newline at end of file
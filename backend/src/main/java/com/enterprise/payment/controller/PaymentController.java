@@ -0,0 +1,140 @@
+package com.enterprise.payment.controller;
+
+import com.enterprise.payment.dto.request.BulkCreatePaymentRequest;
+import com.enterprise.payment.dto.request.CreatePaymentRequest;
+import com.enterprise.payment.dto.request.RefundPaymentRequest;
+import com.enterprise.payment.dto.response.ApiResponse;
+import com.enterprise.payment.dto.response.BulkCreatePaymentResponse;
+import com.enterprise.payment.dto.response.CursorPage;
+import com.enterprise.payment.dto.response.PaymentResponse;
+import com.enterprise.payment.idempotency.IdempotencyService;
+import com.enterprise.payment.pagination.Keyset;
+import com.enterprise.payment.service.PaymentBulkService;
+import com.enterprise.payment.service.PaymentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Payment Controller
+ * Handles payment creation (single and bulk), lookup, listing, refunds and cancellation
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Payments", description = "Payment lifecycle endpoints")
+@SecurityRequirement(name = "bearerAuth")
+public class PaymentController extends BaseController {
+
+    private final PaymentService paymentService;
+    private final PaymentBulkService paymentBulkService;
+    private final IdempotencyService idempotencyService;
+
+    @Operation(summary = "Create payment", description = "Create a payment; risk assessment runs inline and gateway processing asynchronously. "
+            + "Retries with the same Idempotency-Key return the original response.")
+    @PostMapping("/payments")
+    public ResponseEntity<ApiResponse<PaymentResponse>> createPayment(
+            @Parameter(description = "Client-chosen key that makes retries of this request safe")
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CreatePaymentRequest request) {
+        IdempotencyService.Result<PaymentResponse> result = idempotencyService.execute(idempotencyKey,
+                "createPayment", request, PaymentResponse.class, () -> paymentService.createPayment(request));
+        PaymentResponse payment = result.value();
+        if (result.replayed()) {
+            log.info("Payment creation replayed: {}", payment.getPaymentReference());
+            return replayed(created(payment, "Payment created"));
+        }
+        log.info("Payment created: {}", payment.getPaymentReference());
+        return created(payment, "Payment created");
+    }
+
+    @Operation(summary = "Create payments in bulk", description = "Create up to 50000 payments in one request; invalid items are reported per item and the rest are created and processed after the response (202)")
+    @PostMapping("/payments/bulk")
+    public ResponseEntity<ApiResponse<BulkCreatePaymentResponse>> createPayments(@Valid @RequestBody BulkCreatePaymentRequest request) {
+        BulkCreatePaymentResponse result = paymentBulkService.createPayments(request);
+        log.info("Bulk payment creation: {} of {} created", result.getCreated(), result.getRequested());
+        String message = result.getCreated() + " of " + result.getRequested() + " payments created";
+        // Created payments are processed after the response
+        return result.getCreated() > 0 ? accepted(result, message) : success(result, message);
+    }
+
+    @Operation(summary = "Get payment", description = "Get a payment by its reference")
+    @GetMapping("/payments/{paymentReference}")
+    public ResponseEntity<ApiResponse<PaymentResponse>> getPayment(
+            @Parameter(description = "Payment reference", required = true)
+            @PathVariable String paymentReference) {
+        return success(paymentService.getPaymentByReference(paymentReference));
+    }
+
+    @Operation(summary = "Refund payment", description = "Refund a completed payment in full or in part. "
+            + "Retries with the same Idempotency-Key return the original response.")
+    @PostMapping("/payments/{paymentReference}/refund")
+    public ResponseEntity<ApiResponse<PaymentResponse>> refundPayment(
+            @Parameter(description = "Payment reference", required = true)
+            @PathVariable String paymentReference,
+            @Parameter(description = "Client-chosen key that makes retries of this request safe")
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody RefundPaymentRequest request) {
+        IdempotencyService.Result<PaymentResponse> result = idempotencyService.execute(idempotencyKey,
+                "refundPayment:" + paymentReference, request, PaymentResponse.class,
+                () -> paymentService.refundPayment(paymentReference, request));
+        if (result.replayed()) {
+            log.info("Payment refund replayed: {}", paymentReference);
+            return replayed(success(result.value(), "Payment refunded"));
+        }
+        log.info("Payment refunded: {}", paymentReference);
+        return success(result.value(), "Payment refunded");
+    }
+
+    @Operation(summary = "Cancel payment", description = "Cancel a pending or processing payment")
+    @PostMapping("/payments/{paymentReference}/cancel")
+    public ResponseEntity<ApiResponse<PaymentResponse>> cancelPayment(
+            @Parameter(description = "Payment reference", required = true)
+            @PathVariable String paymentReference,
+            @Parameter(description = "Cancellation reason")
+            @RequestParam(required = false) String reason) {
+        PaymentResponse payment = paymentService.cancelPayment(paymentReference, reason);
+        log.info("Payment cancelled: {}", paymentReference);
+        return success(payment, "Payment cancelled");
+    }
+
+    @Operation(summary = "List account payments", description = "List payments for an account, newest first")
+    @GetMapping("/accounts/{accountNumber}/payments")
+    public ResponseEntity<ApiResponse<PaymentResponse>> getAccountPayments(
+            @Parameter(description = "Account number", required = true)
+            @PathVariable String accountNumber,
+            @PageableDefault(size = 20) Pageable pageable,
+            @Parameter(description = "Also return each payment's metadata")
+            @RequestParam(defaultValue = "false") boolean includeMetadata) {
+        Page<PaymentResponse> payments = paymentService.getPaymentsForAccount(accountNumber, pageable,
+                includeMetadata);
+        return successWithPagination(payments, pageable);
+    }
+
+    @Operation(summary = "List account payments by cursor", description = "List payments for an account, newest first. "
+            + "Pass nextCursor of a page to get the next one; every page costs the same however deep it is.")
+    @GetMapping("/accounts/{accountNumber}/payments/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<PaymentResponse>>> getAccountPaymentsByCursor(
+            @Parameter(description = "Account number", required = true)
+            @PathVariable String accountNumber,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, 1 to " + Keyset.MAX_LIMIT)
+            @RequestParam(defaultValue = "" + Keyset.DEFAULT_LIMIT) int limit,
+            @Parameter(description = "Also return the number of payments, counted up to " + Keyset.COUNT_CAP)
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @Parameter(description = "Also return each payment's metadata")
+            @RequestParam(defaultValue = "false") boolean includeMetadata) {
+        return success(paymentService.getPaymentsForAccount(accountNumber, cursor, limit, includeTotal,
+                includeMetadata));
+    }
+}
@@ -0,0 +1,26 @@
+package com.enterprise.payment.crypto;
+
+/**
+ * What a bulk job does to each payment method's decrypted details
+ */
+public interface BulkCryptoOperation {
+
+    /**
+     * Names the job's checkpoint
+     */
+    String name();
+
+    /**
+     * Whether a row needs decrypting at all, judged from its stored details; rows already done
+     * are skipped without the cost of decryption
+     */
+    default boolean accepts(String encryptedDetails) {
+        return true;
+    }
+
+    /**
+     * The new stored details of a row, or null to leave it as it is; called from several
+     * threads at once
+     */
+    String apply(long paymentMethodId, String details);
+}
@@ -0,0 +1,206 @@
+package com.enterprise.payment.crypto;
+
+import com.enterprise.payment.crypto.CryptoJobCheckpoint.BatchResult;
+import com.enterprise.payment.crypto.EncryptedDetailsStore.Replacement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs a {@link BulkCryptoOperation} over every payment method, for migrations of millions of
+ * rows while the application keeps serving.
+ *
+ * A coordinator thread of the job's own reads rows in id order, a batch at a time, and hands
+ * each batch to a pool of workers, also the job's own, so an hours-long run never holds a
+ * thread of the shared task executor. The workers decrypt, transform and write each batch back
+ * with JDBC batched updates; at most {@code maxBatchesInFlight} batches are read ahead, so
+ * memory stays bounded however many rows there are. Batches finish in any order but are checkpointed in id order: the checkpoint only
+ * moves past a batch once every batch before it is written, so a run that stops for any reason
+ * resumes after the last checkpoint without skipping a row. Rows whose details do not decrypt
+ * are counted as failed and left as they are.
+ */
+@Service
+@Slf4j
+public class BulkCryptoPipeline {
+
+    private final EnvelopeEncryption envelopeEncryption;
+    private final EncryptedDetailsStore detailsStore;
+    private final CryptoJobCheckpointStore checkpointStore;
+    private final Function<String, Executor> coordinators;
+    private final int batchSize;
+    private final int parallelism;
+    private final int maxBatchesInFlight;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public BulkCryptoPipeline(EnvelopeEncryption envelopeEncryption, EncryptedDetailsStore detailsStore,
+                              CryptoJobCheckpointStore checkpointStore, EncryptionProperties properties) {
+        this(envelopeEncryption, detailsStore, checkpointStore,
+                job -> task -> jobThreads(job, "coordinator").newThread(task).start(), properties);
+    }
+
+    /**
+     * @param coordinators executor to run the coordinator of the named job on
+     */
+    BulkCryptoPipeline(EnvelopeEncryption envelopeEncryption, EncryptedDetailsStore detailsStore,
+                       CryptoJobCheckpointStore checkpointStore, Function<String, Executor> coordinators,
+                       EncryptionProperties properties) {
+        EncryptionProperties.Bulk bulk = properties.getBulk();
+        this.envelopeEncryption = envelopeEncryption;
+        this.detailsStore = detailsStore;
+        this.checkpointStore = checkpointStore;
+        this.coordinators = coordinators;
+        this.batchSize = bulk.getBatchSize();
+        this.parallelism = bulk.getParallelism() > 0
+                ? bulk.getParallelism() : Runtime.getRuntime().availableProcessors();
+        this.maxBatchesInFlight = bulk.getMaxBatchesInFlight() > 0 ? bulk.getMaxBatchesInFlight() : 2 * parallelism;
+    }
+
+    /**
+     * Start the job in the background, resuming from its checkpoint unless {@code restart}
+     *
+     * @return false when the job is running already
+     */
+    public boolean start(BulkCryptoOperation operation, boolean restart) {
+        if (!running.add(operation.name())) {
+            return false;
+        }
+        try {
+            coordinators.apply(operation.name()).execute(() -> {
+                try {
+                    run(operation, restart);
+                } catch (RuntimeException e) {
+                    log.error("Bulk job {} stopped; starting it again resumes after the last checkpoint",
+                            operation.name(), e);
+                } finally {
+                    running.remove(operation.name());
+                }
+            });
+        } catch (RuntimeException e) {
+            running.remove(operation.name());
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the job is running and its last checkpoint, which is null when it never ran
+     */
+    public JobStatus status(String job) {
+        return new JobStatus(running.contains(job), checkpointStore.find(job));
+    }
+
+    /**
+     * Run the job to the end on the calling thread; a finished job runs again from the start
+     */
+    CryptoJobCheckpoint run(BulkCryptoOperation operation, boolean restart) {
+        CryptoJobCheckpoint checkpoint = restart ? null : checkpointStore.find(operation.name());
+        if (checkpoint == null || checkpoint.finished()) {
+            checkpoint = CryptoJobCheckpoint.start(operation.name(), OffsetDateTime.now());
+            checkpointStore.save(checkpoint);
+            log.info("Bulk job {} started with {} workers", operation.name(), parallelism);
+        } else {
+            log.info("Bulk job {} resumed after payment method {} with {} workers", operation.name(),
+                    checkpoint.lastId(), parallelism);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, jobThreads(operation.name(), "worker"));
+        Deque<Future<BatchResult>> inFlight = new ArrayDeque<>();
+        try {
+            long afterId = checkpoint.lastId();
+            List<EncryptedDetails> batch;
+            while (!(batch = detailsStore.readAfter(afterId, batchSize)).isEmpty()) {
+                afterId = batch.get(batch.size() - 1).id();
+                List<EncryptedDetails> rows = batch;
+                inFlight.add(workers.submit(() -> process(operation, rows)));
+                if (inFlight.size() >= maxBatchesInFlight) {
+                    checkpoint = checkpoint(checkpoint, inFlight.poll());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                checkpoint = checkpoint(checkpoint, inFlight.poll());
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            workers.shutdownNow();
+        }
+
+        checkpoint = checkpoint.finish(OffsetDateTime.now());
+        checkpointStore.save(checkpoint);
+        log.info("Bulk job {} finished: {} payment methods scanned, {} changed, {} failed ({} rows/s)",
+                operation.name(), checkpoint.scanned(), checkpoint.changed(), checkpoint.failed(),
+                checkpoint.rowsPerSecond());
+        return checkpoint;
+    }
+
+    /**
+     * Decrypt and transform a batch, then write the changed rows in one JDBC batch
+     */
+    BatchResult process(BulkCryptoOperation operation, List<EncryptedDetails> batch) {
+        List<Replacement> replacements = new ArrayList<>();
+        int failed = 0;
+        for (EncryptedDetails row : batch) {
+            if (!operation.accepts(row.encryptedDetails())) {
+                continue;
+            }
+            String details;
+            try {
+                details = envelopeEncryption.decrypt(row.encryptedDetails());
+            } catch (IllegalArgumentException e) {
+                failed++;
+                log.warn("Payment method {} could not be decrypted, left as it is", row.id());
+                continue;
+            }
+            String replacement = operation.apply(row.id(), details);
+            if (replacement != null) {
+                replacements.add(new Replacement(row.id(), row.encryptedDetails(), replacement));
+            }
+        }
+        int changed = detailsStore.replace(replacements);
+        return new BatchResult(batch.get(batch.size() - 1).id(), batch.size(), changed, failed);
+    }
+
+    private CryptoJobCheckpoint checkpoint(CryptoJobCheckpoint checkpoint, Future<BatchResult> oldest) {
+        BatchResult batch;
+        try {
+            batch = oldest.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk job " + checkpoint.job() + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause
+                    : new IllegalStateException("Bulk job " + checkpoint.job() + " failed", e.getCause());
+        }
+        CryptoJobCheckpoint next = checkpoint.advance(batch, OffsetDateTime.now());
+        checkpointStore.save(next);
+        return next;
+    }
+
+    private static ThreadFactory jobThreads(String job, String role) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "bulk-crypto-" + job + "-" + role + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public record JobStatus(boolean running, CryptoJobCheckpoint checkpoint) {
+    }
+}
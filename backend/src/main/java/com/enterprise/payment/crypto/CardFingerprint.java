@@ -0,0 +1,39 @@
+package com.enterprise.payment.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Fingerprint of a card number: an HMAC-SHA256 under its own key, so the same card stored twice
+ * on an account is found with one probe of the unique (account_id, card_fingerprint) index
+ * instead of decrypting every payment method. Unlike a plain digest, the fingerprint of a
+ * card number cannot be computed, nor the number guessed from it, without the key.
+ */
+public class CardFingerprint {
+
+    private final KeyedHash keyedHash;
+
+    public CardFingerprint(byte[] key) {
+        this.keyedHash = new KeyedHash(key);
+    }
+
+    public byte[] of(String pan) {
+        return keyedHash.hash(pan.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * The fingerprint of a card number held as characters, without turning it into a
+     * {@code String}
+     */
+    public byte[] of(char[] digits) {
+        byte[] bytes = new byte[digits.length];
+        for (int i = 0; i < digits.length; i++) {
+            bytes[i] = (byte) digits[i];
+        }
+        try {
+            return keyedHash.hash(bytes);
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.enterprise.payment.crypto;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * How far a bulk job got: every payment method up to {@code lastId} is done
+ */
+public record CryptoJobCheckpoint(String job, long lastId, long scanned, long changed, long failed,
+                                  OffsetDateTime startedAt, OffsetDateTime updatedAt, OffsetDateTime finishedAt) {
+
+    public static CryptoJobCheckpoint start(String job, OffsetDateTime now) {
+        return new CryptoJobCheckpoint(job, 0, 0, 0, 0, now, now, null);
+    }
+
+    public CryptoJobCheckpoint advance(BatchResult batch, OffsetDateTime now) {
+        return new CryptoJobCheckpoint(job, batch.lastId(), scanned + batch.scanned(), changed + batch.changed(),
+                failed + batch.failed(), startedAt, now, null);
+    }
+
+    public CryptoJobCheckpoint finish(OffsetDateTime now) {
+        return new CryptoJobCheckpoint(job, lastId, scanned, changed, failed, startedAt, now, now);
+    }
+
+    public boolean finished() {
+        return finishedAt != null;
+    }
+
+    /**
+     * Rows scanned per second from the start of the run to the last update
+     */
+    public long rowsPerSecond() {
+        long millis = Math.max(1, Duration.between(startedAt, updatedAt).toMillis());
+        return scanned * 1000 / millis;
+    }
+
+    /**
+     * What one batch did; {@code lastId} is its highest id
+     */
+    public record BatchResult(long lastId, int scanned, int changed, int failed) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.enterprise.payment.crypto;
+
+/**
+ * Where bulk jobs record their progress, one checkpoint per job
+ */
+public interface CryptoJobCheckpointStore {
+
+    /**
+     * The job's last checkpoint, or null when it never ran
+     */
+    CryptoJobCheckpoint find(String job);
+
+    void save(CryptoJobCheckpoint checkpoint);
+}
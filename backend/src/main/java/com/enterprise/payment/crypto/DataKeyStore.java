@@ -0,0 +1,26 @@
+package com.enterprise.payment.crypto;
+
+import java.util.OptionalInt;
+
+/**
+ * Where data keys are kept, wrapped with the master key, by version
+ */
+public interface DataKeyStore {
+
+    /**
+     * The wrapped data key of a version, or null when there is none
+     */
+    byte[] find(int version);
+
+    /**
+     * The highest version stored, which is the one new data is encrypted with
+     */
+    OptionalInt latestVersion();
+
+    /**
+     * Store a new version unless it exists already (another instance created it first)
+     *
+     * @return whether this call stored it
+     */
+    boolean insert(int version, byte[] wrappedKey);
+}
@@ -0,0 +1,7 @@
+package com.enterprise.payment.crypto;
+
+/**
+ * A payment method's {@code encrypted_details} as stored
+ */
+public record EncryptedDetails(long id, String encryptedDetails) {
+}
@@ -0,0 +1,26 @@
+package com.enterprise.payment.crypto;
+
+import java.util.List;
+
+/**
+ * Batch access to {@code payment_methods.encrypted_details} for bulk jobs
+ */
+public interface EncryptedDetailsStore {
+
+    /**
+     * Up to {@code limit} rows with an id above {@code afterId}, in id order
+     */
+    List<EncryptedDetails> readAfter(long afterId, int limit);
+
+    /**
+     * Replace each row's details in one transaction, where the row still holds the details it
+     * was read with
+     *
+     * @param replacements id, details as read and new details of each row
+     * @return how many rows were replaced
+     */
+    int replace(List<Replacement> replacements);
+
+    record Replacement(long id, String expected, String replacement) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.enterprise.payment.crypto;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.util.StringUtils;
+
+import java.util.Base64;
+
+/**
+ * Envelope encryption; data keys live in the database, wrapped with the configured master key.
+ * The development keys of application-dev.yml are accepted only under the {@code dev} profile.
+ */
+@Configuration
+@EnableConfigurationProperties(EncryptionProperties.class)
+public class EncryptionConfig {
+
+    static final String DEV_MASTER_KEY = "ZGV2LW9ubHktbWFzdGVyLWtleS0zMi1ieXRlcy0hISE=";
+    static final String DEV_HASH_KEY = "ZGV2LW9ubHkta2V5ZWQtaGFzaC1rZXktMzItYnl0ZXM=";
+    static final String DEV_FINGERPRINT_KEY = "ZGV2LW9ubHktY2FyZC1maW5nZXJwcmludC1rZXktMzI=";
+
+    @Bean
+    public EnvelopeEncryption envelopeEncryption(DataKeyStore dataKeyStore, EncryptionProperties properties,
+                                                 Environment environment) {
+        byte[] masterKey = requireKey("payment.encryption.master-key", properties.getMasterKey(), DEV_MASTER_KEY,
+                environment);
+        return new EnvelopeEncryption(dataKeyStore, masterKey,
+                StringUtils.hasText(properties.getLegacyKey())
+                        ? EnvelopeEncryption.legacyKey(properties.getLegacyKey()) : null);
+    }
+
+    @Bean
+    public KeyedHash keyedHash(EncryptionProperties properties, Environment environment) {
+        return new KeyedHash(requireKey("payment.encryption.hash-key", properties.getHashKey(), DEV_HASH_KEY,
+                environment));
+    }
+
+    @Bean
+    public CardFingerprint cardFingerprint(EncryptionProperties properties, Environment environment) {
+        return new CardFingerprint(requireKey("payment.encryption.fingerprint-key", properties.getFingerprintKey(),
+                DEV_FINGERPRINT_KEY, environment));
+    }
+
+    /**
+     * Decode a configured key, refusing a missing one and the development key outside the dev profile
+     */
+    static byte[] requireKey(String property, String value, String devValue, Environment environment) {
+        if (!StringUtils.hasText(value)) {
+            throw new IllegalStateException(property + " is not set");
+        }
+        if (devValue.equals(value.trim()) && !environment.acceptsProfiles(Profiles.of("dev"))) {
+            throw new IllegalStateException("The development " + property
+                    + " is only allowed with the dev profile; set a real key");
+        }
+        return Base64.getDecoder().decode(value.trim());
+    }
+}
@@ -0,0 +1,47 @@
+package com.enterprise.payment.crypto;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Envelope encryption of sensitive data, bound from {@code payment.encryption}
+ */
+@Data
+@ConfigurationProperties(prefix = "payment.encryption")
+public class EncryptionProperties {
+
+    /** Base64 AES-256 key encryption key; wraps the data keys stored in the database */
+    private String masterKey;
+
+    /** Base64 key, at least 32 bytes, of the keyed hashes that index sensitive values such as card numbers */
+    private String hashKey;
+
+    /** Base64 key, at least 32 bytes, of payment method card fingerprints; kept apart from the hash key */
+    private String fingerprintKey;
+
+    /** Key that encrypted data written before versioned keys; only ever used to decrypt */
+    private String legacyKey;
+
+    /** How often the active data key version is re-read, to pick up rotations by other instances */
+    private Duration keyRefreshInterval = Duration.ofMinutes(1);
+
+    private Bulk bulk = new Bulk();
+
+    /**
+     * Bulk jobs over payment_methods.encrypted_details: re-encryption, tokenization
+     */
+    @Data
+    public static class Bulk {
+
+        /** Rows read, processed and written per batch */
+        private int batchSize = 500;
+
+        /** Threads decrypting and transforming batches; 0 for one per available processor */
+        private int parallelism = 0;
+
+        /** Batches read ahead of the oldest unfinished one, bounding memory; 0 for twice the parallelism */
+        private int maxBatchesInFlight = 0;
+    }
+}
@@ -0,0 +1,343 @@
+package com.enterprise.payment.crypto;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.security.DrbgParameters.Capability.RESEED_ONLY;
+
+/**
+ * AES-256-GCM envelope encryption with versioned data keys.
+ *
+ * Data is encrypted with a data key; data keys are stored wrapped with the master key in a
+ * {@link DataKeyStore} and unwrapped once per version, then cached. A ciphertext starts with a
+ * header naming its format and key version, authenticated as associated data, so it always
+ * decrypts with the key that encrypted it, and rotating to a new version leaves existing data
+ * readable until it is re-encrypted.
+ *
+ * <pre>
+ *   magic (1) | format (1) | key version (4) | IV (12) | ciphertext | tag (16)
+ * </pre>
+ *
+ * Ciphertexts from before key versioning (IV, ciphertext and tag under the legacy key) still
+ * decrypt, as version {@link #LEGACY_VERSION}. Each thread keeps its own {@link Cipher} and
+ * draws IVs from its own DRBG, so encryption takes no locks.
+ */
+@Slf4j
+public class EnvelopeEncryption {
+
+    /** Key version reported for ciphertexts from before versioning */
+    public static final int LEGACY_VERSION = 0;
+
+    static final byte MAGIC = (byte) 0xE5;
+    static final byte FORMAT = 1;
+    static final int IV_LENGTH = 12;
+    static final int TAG_LENGTH = 16;
+    static final int HEADER_LENGTH = 2 + Integer.BYTES;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int KEY_LENGTH = 32;
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TRANSFORMATION + " is not available", e);
+        }
+    });
+
+    private static final ThreadLocal<SecureRandom> IV_SOURCE = ThreadLocal.withInitial(() -> {
+        try {
+            return SecureRandom.getInstance("DRBG", DrbgParameters.instantiation(256, RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("DRBG is not available", e);
+        }
+    });
+
+    private final DataKeyStore dataKeyStore;
+    private final SecretKey masterKey;
+    private final SecretKey legacyKey;
+    private final Map<Integer, SecretKey> dataKeys = new ConcurrentHashMap<>();
+    private volatile int activeVersion;
+
+    public EnvelopeEncryption(DataKeyStore dataKeyStore, byte[] masterKey, SecretKey legacyKey) {
+        if (masterKey.length != KEY_LENGTH) {
+            throw new IllegalArgumentException("The master key must be " + KEY_LENGTH + " bytes");
+        }
+        this.dataKeyStore = dataKeyStore;
+        this.masterKey = new SecretKeySpec(masterKey, "AES");
+        this.legacyKey = legacyKey;
+    }
+
+    /**
+     * The legacy key as derived before versioning: the UTF-8 bytes of the configured string,
+     * truncated or zero-padded to 32 bytes
+     */
+    public static SecretKey legacyKey(String key) {
+        return new SecretKeySpec(Arrays.copyOf(key.getBytes(StandardCharsets.UTF_8), KEY_LENGTH), "AES");
+    }
+
+    /**
+     * Encrypt with the active data key; returns Base64
+     */
+    public String encrypt(String plaintext) {
+        return Base64.getEncoder().encodeToString(encrypt(plaintext.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Encrypt with the active data key
+     */
+    public byte[] encrypt(byte[] plaintext) {
+        int version = activeVersion();
+        SecretKey key = dataKey(version);
+        byte[] out = new byte[HEADER_LENGTH + IV_LENGTH + plaintext.length + TAG_LENGTH];
+        out[0] = MAGIC;
+        out[1] = FORMAT;
+        ByteBuffer.wrap(out, 2, Integer.BYTES).putInt(version);
+        byte[] iv = new byte[IV_LENGTH];
+        IV_SOURCE.get().nextBytes(iv);
+        System.arraycopy(iv, 0, out, HEADER_LENGTH, IV_LENGTH);
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+            cipher.updateAAD(out, 0, HEADER_LENGTH);
+            cipher.doFinal(plaintext, 0, plaintext.length, out, HEADER_LENGTH + IV_LENGTH);
+            return out;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Encryption failed", e);
+        }
+    }
+
+    /**
+     * Decrypt a Base64 ciphertext of any key version, or of the legacy format
+     */
+    public String decrypt(String ciphertext) {
+        return new String(decrypt(Base64.getDecoder().decode(ciphertext)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decrypt a ciphertext of any key version, or of the legacy format
+     */
+    public byte[] decrypt(byte[] ciphertext) {
+        try {
+            if (isVersioned(ciphertext)) {
+                int version = ByteBuffer.wrap(ciphertext, 2, Integer.BYTES).getInt();
+                try {
+                    return decrypt(dataKey(version), ciphertext, HEADER_LENGTH, true);
+                } catch (AEADBadTagException | UnknownKeyVersionException e) {
+                    // One legacy ciphertext in 65,536 starts like a header by chance
+                    if (legacyKey == null) {
+                        throw e;
+                    }
+                }
+            }
+            if (legacyKey == null) {
+                throw new IllegalArgumentException("Not a versioned ciphertext and no legacy key is configured");
+            }
+            return decrypt(legacyKey, ciphertext, 0, false);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Ciphertext could not be decrypted", e);
+        }
+    }
+
+    /**
+     * The key version a Base64 ciphertext was encrypted with, {@link #LEGACY_VERSION} for the
+     * legacy format; read from the header without decrypting
+     */
+    public int keyVersion(String ciphertext) {
+        if (ciphertext.length() < minimumLength()) {
+            return LEGACY_VERSION;
+        }
+        byte[] header;
+        try {
+            // Eight Base64 characters are the six header bytes
+            header = Base64.getDecoder().decode(ciphertext.substring(0, 8));
+        } catch (IllegalArgumentException e) {
+            return LEGACY_VERSION;
+        }
+        return header[0] == MAGIC && header[1] == FORMAT
+                ? ByteBuffer.wrap(header, 2, Integer.BYTES).getInt() : LEGACY_VERSION;
+    }
+
+    /**
+     * The version new data is encrypted with; creates version 1 on first use
+     */
+    public int activeVersion() {
+        int version = activeVersion;
+        return version != 0 ? version : refreshActiveVersion();
+    }
+
+    /**
+     * Re-read the latest version from the store, to pick up a rotation done elsewhere
+     */
+    public synchronized int refreshActiveVersion() {
+        OptionalInt latest = dataKeyStore.latestVersion();
+        activeVersion = latest.isPresent() ? latest.getAsInt() : createFirstVersion();
+        return activeVersion;
+    }
+
+    /**
+     * Pick up a rotation done by another instance; nothing to do until this one has encrypted
+     */
+    @Scheduled(fixedDelayString = "${payment.encryption.key-refresh-interval:PT1M}")
+    public void refresh() {
+        if (activeVersion != 0) {
+            int previous = activeVersion;
+            if (refreshActiveVersion() != previous) {
+                log.info("Now encrypting with data key version {}", activeVersion);
+            }
+        }
+    }
+
+    /**
+     * Create the next data key version and encrypt with it from now on
+     */
+    public synchronized int rotate() {
+        int version = dataKeyStore.latestVersion().orElse(0) + 1;
+        activeVersion = createVersion(version);
+        log.info("Rotated the data encryption key to version {}", activeVersion);
+        return activeVersion;
+    }
+
+    private int createFirstVersion() {
+        if (insertVersion(1)) {
+            return 1;
+        }
+        // Another instance created the first version meanwhile; encrypt with its key too
+        return dataKeyStore.latestVersion()
+                .orElseThrow(() -> new IllegalStateException("Data key version 1 exists but is not stored"));
+    }
+
+    private int createVersion(int version) {
+        while (!insertVersion(version)) {
+            // Another instance created this version first; take the next
+            version = dataKeyStore.latestVersion().orElse(version) + 1;
+        }
+        return version;
+    }
+
+    /**
+     * Generate and store a data key as {@code version}; false when that version exists already
+     */
+    private boolean insertVersion(int version) {
+        byte[] key = generateKey();
+        try {
+            if (!dataKeyStore.insert(version, wrap(version, key))) {
+                return false;
+            }
+            dataKeys.put(version, new SecretKeySpec(key, "AES"));
+            return true;
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    private SecretKey dataKey(int version) {
+        SecretKey key = dataKeys.get(version);
+        if (key != null) {
+            return key;
+        }
+        return dataKeys.computeIfAbsent(version, v -> {
+            byte[] wrapped = dataKeyStore.find(v);
+            if (wrapped == null) {
+                throw new UnknownKeyVersionException(v);
+            }
+            byte[] unwrapped = unwrap(v, wrapped);
+            try {
+                return new SecretKeySpec(unwrapped, "AES");
+            } finally {
+                Arrays.fill(unwrapped, (byte) 0);
+            }
+        });
+    }
+
+    private byte[] wrap(int version, byte[] key) {
+        byte[] iv = new byte[IV_LENGTH];
+        IV_SOURCE.get().nextBytes(iv);
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+            cipher.updateAAD(versionAad(version));
+            byte[] wrapped = Arrays.copyOf(iv, IV_LENGTH + KEY_LENGTH + TAG_LENGTH);
+            cipher.doFinal(key, 0, key.length, wrapped, IV_LENGTH);
+            return wrapped;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not wrap data key " + version, e);
+        }
+    }
+
+    private byte[] unwrap(int version, byte[] wrapped) {
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(TAG_LENGTH * 8, wrapped, 0, IV_LENGTH));
+            cipher.updateAAD(versionAad(version));
+            return cipher.doFinal(wrapped, IV_LENGTH, wrapped.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not unwrap data key " + version + "; wrong master key?", e);
+        }
+    }
+
+    private static byte[] decrypt(SecretKey key, byte[] ciphertext, int ivOffset, boolean authenticateHeader)
+            throws GeneralSecurityException {
+        if (ciphertext.length < ivOffset + IV_LENGTH + TAG_LENGTH) {
+            throw new AEADBadTagException("Ciphertext is too short");
+        }
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, ciphertext, ivOffset, IV_LENGTH));
+        if (authenticateHeader) {
+            cipher.updateAAD(ciphertext, 0, HEADER_LENGTH);
+        }
+        int offset = ivOffset + IV_LENGTH;
+        return cipher.doFinal(ciphertext, offset, ciphertext.length - offset);
+    }
+
+    private static boolean isVersioned(byte[] ciphertext) {
+        return ciphertext.length >= HEADER_LENGTH + IV_LENGTH + TAG_LENGTH
+                && ciphertext[0] == MAGIC && ciphertext[1] == FORMAT;
+    }
+
+    private static int minimumLength() {
+        return (HEADER_LENGTH + IV_LENGTH + TAG_LENGTH + 2) / 3 * 4;
+    }
+
+    private static byte[] versionAad(int version) {
+        return ("data-key:" + version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] generateKey() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(KEY_LENGTH * 8);
+            return generator.generateKey().getEncoded();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("AES is not available", e);
+        }
+    }
+
+    /**
+     * A ciphertext names a key version the store does not have
+     */
+    static final class UnknownKeyVersionException extends IllegalArgumentException {
+
+        UnknownKeyVersionException(int version) {
+            super("Unknown data key version " + version);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.enterprise.payment.crypto;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Checkpoints in the {@code crypto_job_checkpoints} table
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcCryptoJobCheckpointStore implements CryptoJobCheckpointStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public CryptoJobCheckpoint find(String job) {
+        List<CryptoJobCheckpoint> checkpoints = jdbcTemplate.query("""
+                SELECT job, last_id, scanned, changed, failed, started_at, updated_at, finished_at
+                FROM crypto_job_checkpoints WHERE job = ?
+                """, (rs, rowNum) -> new CryptoJobCheckpoint(rs.getString(1), rs.getLong(2), rs.getLong(3),
+                rs.getLong(4), rs.getLong(5), rs.getObject(6, OffsetDateTime.class),
+                rs.getObject(7, OffsetDateTime.class), rs.getObject(8, OffsetDateTime.class)), job);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    @Override
+    public void save(CryptoJobCheckpoint checkpoint) {
+        jdbcTemplate.update("""
+                INSERT INTO crypto_job_checkpoints (job, last_id, scanned, changed, failed, started_at, updated_at,
+                                                    finished_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT (job) DO UPDATE SET last_id = EXCLUDED.last_id, scanned = EXCLUDED.scanned,
+                    changed = EXCLUDED.changed, failed = EXCLUDED.failed, started_at = EXCLUDED.started_at,
+                    updated_at = EXCLUDED.updated_at, finished_at = EXCLUDED.finished_at
+                """, checkpoint.job(), checkpoint.lastId(), checkpoint.scanned(), checkpoint.changed(),
+                checkpoint.failed(), checkpoint.startedAt(), checkpoint.updatedAt(), checkpoint.finishedAt());
+    }
+}
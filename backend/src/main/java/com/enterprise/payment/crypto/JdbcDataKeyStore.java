@@ -0,0 +1,39 @@
+package com.enterprise.payment.crypto;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Data keys in the {@code data_encryption_keys} table
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcDataKeyStore implements DataKeyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public byte[] find(int version) {
+        List<byte[]> keys = jdbcTemplate.query("SELECT wrapped_key FROM data_encryption_keys WHERE version = ?",
+                (rs, rowNum) -> rs.getBytes(1), version);
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    @Override
+    public OptionalInt latestVersion() {
+        Integer version = jdbcTemplate.queryForObject("SELECT MAX(version) FROM data_encryption_keys", Integer.class);
+        return version != null ? OptionalInt.of(version) : OptionalInt.empty();
+    }
+
+    @Override
+    public boolean insert(int version, byte[] wrappedKey) {
+        return jdbcTemplate.update("""
+                INSERT INTO data_encryption_keys (version, wrapped_key) VALUES (?, ?)
+                ON CONFLICT (version) DO NOTHING
+                """, version, wrappedKey) == 1;
+    }
+}
@@ -0,0 +1,60 @@
+package com.enterprise.payment.crypto;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keyset reads and JDBC batched updates of {@code payment_methods}, outside the persistence
+ * context; each update only applies while the row still holds the details that were read, so
+ * a payment method the application changed meanwhile keeps its change
+ */
+@Repository
+public class JdbcEncryptedDetailsStore implements EncryptedDetailsStore {
+
+    private static final String SELECT_BATCH = """
+            SELECT id, encrypted_details FROM payment_methods WHERE id > ? ORDER BY id LIMIT ?
+            """;
+    private static final String REPLACE = """
+            UPDATE payment_methods SET encrypted_details = ?, updated_at = CURRENT_TIMESTAMP
+            WHERE id = ? AND encrypted_details = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcEncryptedDetailsStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public List<EncryptedDetails> readAfter(long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_BATCH,
+                (rs, rowNum) -> new EncryptedDetails(rs.getLong(1), rs.getString(2)), afterId, limit);
+    }
+
+    @Override
+    public int replace(List<Replacement> replacements) {
+        if (replacements.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(REPLACE, replacements,
+                replacements.size(), (ps, replacement) -> {
+                    ps.setString(1, replacement.replacement());
+                    ps.setLong(2, replacement.id());
+                    ps.setString(3, replacement.expected());
+                }));
+        int replaced = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // The driver may report SUCCESS_NO_INFO (-2) for a batched statement
+                replaced += count == -2 ? 1 : count;
+            }
+        }
+        return replaced;
+    }
+}
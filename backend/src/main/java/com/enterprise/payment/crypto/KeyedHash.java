@@ -0,0 +1,48 @@
+package com.enterprise.payment.crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+
+/**
+ * HMAC-SHA256 under a dedicated key, for indexing sensitive values: equal values hash equally,
+ * so a lookup by value is an index probe on the hash, and the hash reveals nothing without the
+ * key. Each thread keeps its own initialized {@link Mac}.
+ */
+public class KeyedHash {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<Mac> mac;
+
+    public KeyedHash(byte[] key) {
+        if (key.length < 32) {
+            throw new IllegalArgumentException("The keyed hash key must be at least 32 bytes");
+        }
+        SecretKeySpec secretKey = new SecretKeySpec(key, ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(secretKey);
+                return instance;
+            } catch (InvalidKeyException e) {
+                throw new IllegalArgumentException("Invalid keyed hash key", e);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(ALGORITHM + " is not available", e);
+            }
+        });
+    }
+
+    /**
+     * The 32-byte hash of {@code value}
+     */
+    public byte[] hash(byte[] value) {
+        return mac.get().doFinal(value);
+    }
+
+    public byte[] hash(String value) {
+        return hash(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,33 @@
+package com.enterprise.payment.crypto;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-encrypts payment method details with the active data key, after a rotation or to move
+ * legacy ciphertexts to versioned keys; rows already on the active version are skipped
+ * without decrypting them
+ */
+@Component
+@RequiredArgsConstructor
+public class ReEncryption implements BulkCryptoOperation {
+
+    public static final String JOB = "re-encryption";
+
+    private final EnvelopeEncryption envelopeEncryption;
+
+    @Override
+    public String name() {
+        return JOB;
+    }
+
+    @Override
+    public boolean accepts(String encryptedDetails) {
+        return envelopeEncryption.keyVersion(encryptedDetails) != envelopeEncryption.activeVersion();
+    }
+
+    @Override
+    public String apply(long paymentMethodId, String details) {
+        return envelopeEncryption.encrypt(details);
+    }
+}
@@ -0,0 +1,100 @@
+package com.enterprise.payment.datasource;
+
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to read replicas when
+ * {@code payment.read-replicas.enabled} is set.
+ *
+ * The primary keeps Spring Boot's pool settings ({@code spring.datasource.hikari}); each
+ * replica gets its own read-only Hikari pool, sized from its entry under
+ * {@code payment.read-replicas.replicas} and otherwise configured like the primary. The
+ * application's {@link DataSource} routes between them and its transaction manager marks
+ * read-only transactions before they take a connection.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "payment.read-replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(System::currentTimeMillis);
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadReplicas readReplicas(ReadReplicaProperties properties, HikariDataSource primaryDataSource,
+                                     PaymentMetrics paymentMetrics, MeterRegistry meterRegistry) {
+        if (properties.getReplicas().isEmpty()) {
+            throw new IllegalStateException("payment.read-replicas.enabled is set but no replicas are configured");
+        }
+        List<ReadReplicas.Replica> replicas = new ArrayList<>();
+        for (ReadReplicaProperties.Replica replica : properties.getReplicas()) {
+            replicas.add(new ReadReplicas.Replica(replica.getName(),
+                    replicaPool(replica, primaryDataSource, meterRegistry)));
+        }
+        ReadReplicas readReplicas = new ReadReplicas(replicas, readYourWrites, paymentMetrics,
+                properties.getMaxLag(), properties.getLagCheckInterval(), System::currentTimeMillis);
+        readReplicas.checkLag();
+        return readReplicas;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReadReplicas readReplicas) {
+        return new ReplicaRoutingDataSource(primaryDataSource, readReplicas);
+    }
+
+    @Bean
+    public JpaTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new RoutingJpaTransactionManager(readYourWrites);
+        // Typed as TransactionManager so the non-deprecated customize overload applies
+        TransactionManager customizable = transactionManager;
+        customizers.ifAvailable(customizer -> customizer.customize(customizable));
+        return transactionManager;
+    }
+
+    private static HikariDataSource replicaPool(ReadReplicaProperties.Replica replica, HikariConfig primary,
+                                                MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("replica-" + replica.getName());
+        config.setJdbcUrl(replica.getUrl());
+        config.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.getUsername());
+        config.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.getPassword());
+        config.setDriverClassName(primary.getDriverClassName());
+        config.setDataSourceProperties(primary.getDataSourceProperties());
+        config.setMaximumPoolSize(replica.getMaximumPoolSize());
+        config.setMinimumIdle(replica.getMinimumIdle());
+        config.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+        config.setIdleTimeout(primary.getIdleTimeout());
+        config.setMaxLifetime(primary.getMaxLifetime());
+        config.setValidationTimeout(primary.getValidationTimeout());
+        config.setReadOnly(true);
+        // Start without connections, so that a replica that is down at startup does not stop it
+        config.setInitializationFailTimeout(-1);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(config);
+    }
+}
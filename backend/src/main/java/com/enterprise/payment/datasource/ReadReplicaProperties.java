@@ -0,0 +1,48 @@
+package com.enterprise.payment.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica routing, bound from {@code payment.read-replicas}
+ */
+@Data
+@ConfigurationProperties(prefix = "payment.read-replicas")
+public class ReadReplicaProperties {
+
+    /** Route read-only transactions to the replicas below; off, everything uses the primary */
+    private boolean enabled = false;
+
+    /** Replicas further behind the primary than this are skipped */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /** How often each replica's lag is measured */
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        private String name;
+
+        private String url;
+
+        /** Defaults to the primary's */
+        private String username;
+
+        /** Defaults to the primary's */
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+        private int minimumIdle = 2;
+
+        /** Kept short: a replica that cannot hand out a connection quickly is skipped for the primary */
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+    }
+}
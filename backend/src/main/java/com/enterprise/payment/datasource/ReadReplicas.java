@@ -0,0 +1,176 @@
+package com.enterprise.payment.datasource;
+
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentMetrics.ReadRoute;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * The read replica pools and how far behind the primary each one is.
+ *
+ * Lag is measured every {@code payment.read-replicas.lag-check-interval} on the replica itself:
+ * zero when it has replayed all WAL it received, otherwise the age of the last transaction it
+ * replayed. From that each replica gets the point in time it has replayed up to. A read goes
+ * to a healthy replica, chosen round robin, that is within the allowed lag and past the
+ * caller's last write; a replica whose check or connection fails is skipped until a check
+ * succeeds again.
+ */
+@Slf4j
+public class ReadReplicas implements DisposableBean {
+
+    /** Replication lag in seconds; zero on a server that is not a standby */
+    static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END""";
+
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final PaymentMetrics paymentMetrics;
+    private final long maxLagMillis;
+    private final long horizonMillis;
+    private final LongSupplier clock;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * A replica's pool and its last measured state
+     */
+    static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMillis = Long.MAX_VALUE;
+        private volatile long replayedUpTo;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        String name() {
+            return name;
+        }
+
+        DataSource dataSource() {
+            return dataSource;
+        }
+
+        double lagSeconds() {
+            return healthy ? lagMillis / 1000.0 : Double.NaN;
+        }
+    }
+
+    /**
+     * The replica to read from and why; {@code replica} is null when the read goes to the
+     * primary
+     */
+    record Selection(Replica replica, ReadRoute route) {
+    }
+
+    ReadReplicas(List<Replica> replicas, ReadYourWrites readYourWrites, PaymentMetrics paymentMetrics,
+                 Duration maxLag, Duration lagCheckInterval, LongSupplier clock) {
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        this.paymentMetrics = paymentMetrics;
+        this.maxLagMillis = maxLag.toMillis();
+        this.horizonMillis = maxLag.plus(lagCheckInterval).toMillis();
+        this.clock = clock;
+        for (Replica replica : this.replicas) {
+            paymentMetrics.registerReadReplica(replica.name(), replica, Replica::lagSeconds);
+        }
+    }
+
+    /**
+     * Pick the replica for a read
+     */
+    Selection select() {
+        long required = readYourWrites.requiredPosition();
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        boolean anyCurrent = false;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy || replica.lagMillis > maxLagMillis) {
+                continue;
+            }
+            anyCurrent = true;
+            if (replica.replayedUpTo >= required) {
+                return new Selection(replica, ReadRoute.REPLICA);
+            }
+        }
+        return new Selection(null, anyCurrent ? ReadRoute.READ_YOUR_WRITES : ReadRoute.REPLICAS_BEHIND);
+    }
+
+    /**
+     * Skip a replica that refused a connection until its next successful check
+     */
+    void markFailed(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            log.warn("Read replica {} failed, reading from the primary: {}", replica.name(), cause.getMessage());
+        }
+        replica.healthy = false;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.read-replicas.lag-check-interval:PT1S}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            long checkedAt = clock.getAsLong();
+            try (Connection connection = replica.dataSource().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(1);
+                try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                    resultSet.next();
+                    recordLag(replica, Math.round(resultSet.getDouble(1) * 1000), checkedAt);
+                }
+            } catch (SQLException e) {
+                markFailed(replica, e);
+            }
+        }
+        readYourWrites.forgetBefore(clock.getAsLong() - horizonMillis);
+    }
+
+    void recordLag(Replica replica, long lagMillis, long checkedAt) {
+        if (!replica.healthy) {
+            log.info("Read replica {} is available, {} ms behind", replica.name(), lagMillis);
+        } else if (lagMillis > maxLagMillis && replica.lagMillis <= maxLagMillis) {
+            log.warn("Read replica {} is {} ms behind, reading from the primary", replica.name(), lagMillis);
+        }
+        replica.lagMillis = lagMillis;
+        replica.replayedUpTo = checkedAt - lagMillis;
+        replica.healthy = true;
+    }
+
+    void routed(ReadRoute route) {
+        paymentMetrics.readRouted(route);
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Could not close read replica pool {}", replica.name(), e);
+                }
+            }
+        }
+    }
+}
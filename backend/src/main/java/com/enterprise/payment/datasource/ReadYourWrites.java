@@ -0,0 +1,72 @@
+package com.enterprise.payment.datasource;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * When the current caller last committed a write, so that its reads go only to replicas that
+ * have replayed past it.
+ *
+ * Tracked per thread, which covers the rest of the request that wrote, and per authenticated
+ * principal, which covers the caller's next requests on this instance. Writes older than the
+ * horizon (the replicas' allowed lag plus one lag check) are forgotten: no replica behind
+ * them is used anyway.
+ */
+final class ReadYourWrites {
+
+    private final ThreadLocal<long[]> threadWrite = ThreadLocal.withInitial(() -> new long[1]);
+    private final Map<String, Long> principalWrites = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    ReadYourWrites(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Note that the caller has just committed a write
+     */
+    void recordWrite() {
+        long now = clock.getAsLong();
+        threadWrite.get()[0] = now;
+        String principal = currentPrincipal();
+        if (principal != null) {
+            principalWrites.put(principal, now);
+        }
+    }
+
+    /**
+     * Time (epoch millis) a replica must have replayed up to for the caller to see its own
+     * writes; 0 when it has none to see
+     */
+    long requiredPosition() {
+        long required = threadWrite.get()[0];
+        String principal = currentPrincipal();
+        if (principal != null) {
+            Long written = principalWrites.get(principal);
+            if (written != null && written > required) {
+                required = written;
+            }
+        }
+        return required;
+    }
+
+    /**
+     * Forget principals whose last write is before {@code horizon}
+     */
+    void forgetBefore(long horizon) {
+        principalWrites.values().removeIf(written -> written < horizon);
+    }
+
+    int trackedPrincipals() {
+        return principalWrites.size();
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
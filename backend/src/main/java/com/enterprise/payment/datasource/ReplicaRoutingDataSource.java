@@ -0,0 +1,67 @@
+package com.enterprise.payment.datasource;
+
+import com.enterprise.payment.monitoring.PaymentMetrics.ReadRoute;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hands out primary connections, except to read-only transactions, which get a connection
+ * from a read replica chosen by {@link ReadReplicas}; when none qualifies or the chosen one
+ * refuses, they fall back to the primary.
+ *
+ * Relies on {@link RoutingJpaTransactionManager} to mark read-only transactions; JDBC access
+ * outside a transaction always uses the primary.
+ */
+class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReadReplicas readReplicas;
+
+    ReplicaRoutingDataSource(DataSource primary, ReadReplicas readReplicas) {
+        this.primary = primary;
+        this.readReplicas = readReplicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionRouting.isReadOnly()) {
+            return primary.getConnection();
+        }
+        ReadReplicas.Selection selection = readReplicas.select();
+        if (selection.replica() != null) {
+            try {
+                Connection connection = selection.replica().dataSource().getConnection();
+                readReplicas.routed(ReadRoute.REPLICA);
+                return connection;
+            } catch (SQLException e) {
+                readReplicas.markFailed(selection.replica(), e);
+                readReplicas.routed(ReadRoute.REPLICA_FAILED);
+                return primary.getConnection();
+            }
+        }
+        readReplicas.routed(selection.route());
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,47 @@
+package com.enterprise.payment.datasource;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * {@link JpaTransactionManager} that tells {@link ReplicaRoutingDataSource} whether a new
+ * transaction is read-only before its connection is taken, and records committed writes for
+ * read-your-writes routing
+ */
+class RoutingJpaTransactionManager extends JpaTransactionManager {
+
+    private final ReadYourWrites readYourWrites;
+
+    RoutingJpaTransactionManager(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        TransactionRouting.begin(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            TransactionRouting.end();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        super.doCommit(status);
+        if (!status.isReadOnly()) {
+            readYourWrites.recordWrite();
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            TransactionRouting.end();
+        }
+    }
+}
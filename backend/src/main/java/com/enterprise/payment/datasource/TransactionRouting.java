@@ -0,0 +1,37 @@
+package com.enterprise.payment.datasource;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Whether the transaction running on this thread is read-only, as declared when it began.
+ *
+ * Set by {@link RoutingJpaTransactionManager} before the transaction's connection is taken,
+ * which is when {@link ReplicaRoutingDataSource} has to decide where it comes from; Spring's
+ * own read-only flag is only published after that. A stack, because a REQUIRES_NEW
+ * transaction suspends the one it runs in.
+ */
+final class TransactionRouting {
+
+    private static final ThreadLocal<Deque<Boolean>> READ_ONLY = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private TransactionRouting() {
+    }
+
+    static void begin(boolean readOnly) {
+        READ_ONLY.get().push(readOnly);
+    }
+
+    static void end() {
+        Deque<Boolean> transactions = READ_ONLY.get();
+        transactions.poll();
+        if (transactions.isEmpty()) {
+            READ_ONLY.remove();
+        }
+    }
+
+    static boolean isReadOnly() {
+        Boolean readOnly = READ_ONLY.get().peek();
+        return readOnly != null && readOnly;
+    }
+}
@@ -0,0 +1,7 @@
+package com.enterprise.payment.deadline;
+
+/**
+ * The deadline of one row, e.g. the expiry of payment 42
+ */
+public record Deadline(DeadlineType type, long id) {
+}
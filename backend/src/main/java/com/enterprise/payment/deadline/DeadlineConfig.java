@@ -0,0 +1,46 @@
+package com.enterprise.payment.deadline;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Deadline scheduling settings and the handlers of deadlines that need no service of their
+ * own: each is one set-based statement over the rows whose deadline fell due, however many
+ * fell due together. A row is only changed if its deadline has really passed, since it may
+ * have been extended after the deadline was scheduled.
+ */
+@Configuration
+@EnableConfigurationProperties(DeadlineProperties.class)
+public class DeadlineConfig {
+
+    private static final String EXPIRE_API_KEYS_SQL =
+            "UPDATE api_keys SET is_active = false WHERE id = ANY(?) AND is_active AND expires_at <= now()";
+
+    private static final String EXPIRE_REFRESH_TOKENS_SQL =
+            "UPDATE refresh_tokens SET is_revoked = true WHERE id = ANY(?) AND NOT is_revoked AND expires_at <= now()";
+
+    @Bean
+    public DeadlineHandler apiKeyExpiryHandler(JdbcTemplate jdbcTemplate) {
+        return DeadlineHandler.of(DeadlineType.API_KEY_EXPIRY,
+                ids -> updateDue(jdbcTemplate, EXPIRE_API_KEYS_SQL, ids));
+    }
+
+    @Bean
+    public DeadlineHandler refreshTokenExpiryHandler(JdbcTemplate jdbcTemplate) {
+        return DeadlineHandler.of(DeadlineType.REFRESH_TOKEN_EXPIRY,
+                ids -> updateDue(jdbcTemplate, EXPIRE_REFRESH_TOKENS_SQL, ids));
+    }
+
+    private static void updateDue(JdbcTemplate jdbcTemplate, String sql, List<Long> ids) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.enterprise.payment.deadline;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Acts on the deadlines of one type that fell due on the same tick. Runs on the task executor;
+ * the rows may have changed since they were scheduled, so handlers re-check them.
+ */
+public interface DeadlineHandler {
+
+    DeadlineType type();
+
+    void handle(List<Long> ids);
+
+    static DeadlineHandler of(DeadlineType type, Consumer<List<Long>> action) {
+        return new DeadlineHandler() {
+            @Override
+            public DeadlineType type() {
+                return type;
+            }
+
+            @Override
+            public void handle(List<Long> ids) {
+                action.accept(ids);
+            }
+        };
+    }
+}
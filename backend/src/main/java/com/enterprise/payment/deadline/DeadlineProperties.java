@@ -0,0 +1,23 @@
+package com.enterprise.payment.deadline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * In-memory deadline scheduling, bound from {@code payment.deadlines}
+ */
+@Data
+@ConfigurationProperties(prefix = "payment.deadlines")
+public class DeadlineProperties {
+
+    /** Rebuild the deadlines at startup and act on them as they fall due */
+    private boolean enabled = true;
+
+    /** Resolution of the timing wheel; deadlines fire up to one tick late */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /** Rows fetched per round trip while rebuilding */
+    private int rebuildFetchSize = 10_000;
+}
@@ -0,0 +1,155 @@
+package com.enterprise.payment.deadline;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the pending deadlines of payments, API keys and refresh tokens in a {@link TimingWheel},
+ * so each is acted on when it falls due instead of by polling its table.
+ *
+ * The deadlines are persisted in their own timestamp columns; at startup the wheel is rebuilt
+ * from those, and afterwards services schedule and cancel deadlines as they write them, each in
+ * O(1). A ticker thread advances the wheel and hands the deadlines due on a tick, grouped by
+ * type, to the type's {@link DeadlineHandler} on the task executor. Every instance holds the
+ * deadlines it rebuilt or wrote, so handlers must be safe to run on several at once.
+ */
+@Service
+@Slf4j
+public class DeadlineScheduler {
+
+    private final DeadlineStore deadlineStore;
+    private final Map<DeadlineType, DeadlineHandler> handlers = new EnumMap<>(DeadlineType.class);
+    private final Executor taskExecutor;
+    private final DeadlineProperties properties;
+    private final LongSupplier clock;
+    private final TimingWheel<Deadline> wheel;
+    private final Map<Deadline, TimingWheel.Timeout<Deadline>> timeouts = new HashMap<>();
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public DeadlineScheduler(DeadlineStore deadlineStore, List<DeadlineHandler> handlers, Executor taskExecutor,
+                             DeadlineProperties properties) {
+        this(deadlineStore, handlers, taskExecutor, properties, System::currentTimeMillis);
+    }
+
+    DeadlineScheduler(DeadlineStore deadlineStore, List<DeadlineHandler> handlers, Executor taskExecutor,
+                      DeadlineProperties properties, LongSupplier clock) {
+        this.deadlineStore = deadlineStore;
+        handlers.forEach(handler -> this.handlers.put(handler.type(), handler));
+        this.taskExecutor = taskExecutor;
+        this.properties = properties;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(properties.getTick().toMillis(), clock.getAsLong());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rebuild();
+        ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "deadline-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = properties.getTick().toMillis();
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedule the deadline of a row, replacing the one it had; a deadline already passed falls
+     * due on the next tick
+     */
+    public void schedule(DeadlineType type, long id, OffsetDateTime at) {
+        if (!properties.isEnabled() || at == null || !handlers.containsKey(type)) {
+            return;
+        }
+        Deadline deadline = new Deadline(type, id);
+        long atMillis = at.toInstant().toEpochMilli();
+        synchronized (wheel) {
+            TimingWheel.Timeout<Deadline> previous = timeouts.put(deadline, wheel.schedule(atMillis, deadline));
+            if (previous != null) {
+                wheel.cancel(previous);
+            }
+        }
+    }
+
+    /**
+     * Drop the deadline of a row, e.g. of a payment that left PENDING
+     */
+    public void cancel(DeadlineType type, long id) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        synchronized (wheel) {
+            TimingWheel.Timeout<Deadline> timeout = timeouts.remove(new Deadline(type, id));
+            if (timeout != null) {
+                wheel.cancel(timeout);
+            }
+        }
+    }
+
+    public int pending() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Load every pending deadline of the handled types from its table
+     */
+    int rebuild() {
+        long started = System.nanoTime();
+        int before = pending();
+        for (DeadlineType type : handlers.keySet()) {
+            deadlineStore.forEachPending(type, (id, at) -> schedule(type, id, at));
+        }
+        int loaded = pending() - before;
+        log.info("Rebuilt {} pending deadlines in {} ms", loaded, (System.nanoTime() - started) / 1_000_000);
+        return loaded;
+    }
+
+    /**
+     * Advance the wheel to now and dispatch what fell due
+     */
+    void tick() {
+        Map<DeadlineType, List<Long>> due = new EnumMap<>(DeadlineType.class);
+        synchronized (wheel) {
+            wheel.advance(clock.getAsLong(), deadline -> {
+                timeouts.remove(deadline);
+                due.computeIfAbsent(deadline.type(), type -> new ArrayList<>()).add(deadline.id());
+            });
+        }
+        due.forEach((type, ids) -> taskExecutor.execute(() -> {
+            try {
+                handlers.get(type).handle(ids);
+            } catch (RuntimeException e) {
+                log.error("Handling {} {} deadlines failed", ids.size(), type, e);
+            }
+        }));
+    }
+}
@@ -0,0 +1,19 @@
+package com.enterprise.payment.deadline;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Reads pending deadlines back from the timestamp columns that persist them
+ */
+public interface DeadlineStore {
+
+    /**
+     * Hand every pending deadline of {@code type} to {@code consumer}, streaming
+     */
+    void forEachPending(DeadlineType type, PendingDeadline consumer);
+
+    @FunctionalInterface
+    interface PendingDeadline {
+        void accept(long id, OffsetDateTime deadline);
+    }
+}
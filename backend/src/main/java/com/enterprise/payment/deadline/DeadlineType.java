@@ -0,0 +1,13 @@
+package com.enterprise.payment.deadline;
+
+/**
+ * What a deadline is for; each is persisted as the timestamp column it is rebuilt from
+ */
+public enum DeadlineType {
+    /** {@code payments.expires_at} of a PENDING payment */
+    PAYMENT_EXPIRY,
+    /** {@code api_keys.expires_at} of an active key */
+    API_KEY_EXPIRY,
+    /** {@code refresh_tokens.expires_at} of an unrevoked token */
+    REFRESH_TOKEN_EXPIRY
+}
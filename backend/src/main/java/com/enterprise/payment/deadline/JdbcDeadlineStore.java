@@ -0,0 +1,46 @@
+package com.enterprise.payment.deadline;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Streams pending deadlines through a server-side cursor, {@code rebuildFetchSize} rows per
+ * round trip, so rebuilding millions of them never holds more than one fetch in memory.
+ * Pending payment expiries come from the partial index on {@code expires_at}.
+ */
+@Repository
+public class JdbcDeadlineStore implements DeadlineStore {
+
+    private static final Map<DeadlineType, String> PENDING_SQL = Map.of(
+            DeadlineType.PAYMENT_EXPIRY,
+            "SELECT id, expires_at FROM payments WHERE status = 'PENDING' AND expires_at IS NOT NULL",
+            DeadlineType.API_KEY_EXPIRY,
+            "SELECT id, expires_at FROM api_keys WHERE is_active AND expires_at IS NOT NULL",
+            DeadlineType.REFRESH_TOKEN_EXPIRY,
+            "SELECT id, expires_at FROM refresh_tokens WHERE NOT is_revoked");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcDeadlineStore(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             DeadlineProperties properties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.getRebuildFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void forEachPending(DeadlineType type, PendingDeadline consumer) {
+        // PostgreSQL only honours the fetch size inside a transaction
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(PENDING_SQL.get(type),
+                rs -> {
+                    consumer.accept(rs.getLong(1), rs.getObject(2, OffsetDateTime.class));
+                }));
+    }
+}
@@ -0,0 +1,164 @@
+package com.enterprise.payment.deadline;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: four wheels of 256 slots, each slot spanning 256 slots of the
+ * wheel below, so one tick of 1 s reaches about 136 years ahead. Scheduling puts a timeout in
+ * the slot of the coarsest wheel its deadline fits and cancelling unlinks it; both are O(1)
+ * whatever the number of timeouts. When a wheel completes a turn, the next slot of the wheel
+ * above is emptied into the finer wheels, so each timeout moves at most three times before it
+ * fires.
+ *
+ * Timeouts fire on the first tick at or after their deadline, never before. Not thread-safe.
+ */
+public final class TimingWheel<T> {
+
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Timeout<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    /**
+     * A scheduled task, linked into the slot it waits in
+     */
+    public static final class Timeout<T> {
+
+        private final T task;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T task() {
+            return task;
+        }
+
+        /**
+         * Whether the timeout is still waiting, i.e. neither fired nor cancelled
+         */
+        public boolean isPending() {
+            return prev != null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+        this.wheels = new Timeout[LEVELS][SLOTS];
+        for (Timeout<T>[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timeout<T> head = new Timeout<>(null, 0);
+                head.prev = head;
+                head.next = head;
+                wheel[slot] = head;
+            }
+        }
+    }
+
+    /**
+     * Schedule {@code task} at {@code deadlineMillis}; a deadline already passed fires on the
+     * next tick
+     */
+    public Timeout<T> schedule(long deadlineMillis, T task) {
+        Timeout<T> timeout = new Timeout<>(task, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        place(timeout, currentTick + 1);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a pending timeout
+     *
+     * @return false when it had fired or was cancelled already
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (!timeout.isPending()) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Move time forward to {@code nowMillis}, handing every task that became due to
+     * {@code expired}, tick by tick. The callback may schedule and cancel.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < target) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(wheels[level][(int) (currentTick >>> (BITS * level)) & MASK]);
+                }
+            }
+            Timeout<T> head = wheels[0][(int) currentTick & MASK];
+            while (head.next != head) {
+                Timeout<T> timeout = head.next;
+                unlink(timeout);
+                size--;
+                expired.accept(timeout.task);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade(Timeout<T> head) {
+        Timeout<T> timeout = head.next;
+        head.prev = head;
+        head.next = head;
+        while (timeout != head) {
+            Timeout<T> next = timeout.next;
+            // Due on this very tick when it was scheduled a full turn or more ahead
+            place(timeout, currentTick);
+            timeout = next;
+        }
+    }
+
+    /**
+     * Link the timeout into its slot, or into the slot of {@code earliestTick} when it is due
+     * by then
+     */
+    private void place(Timeout<T> timeout, long earliestTick) {
+        long delta = timeout.deadlineTick - currentTick;
+        Timeout<T> head;
+        if (timeout.deadlineTick <= earliestTick) {
+            head = wheels[0][(int) earliestTick & MASK];
+        } else {
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+                level++;
+            }
+            head = wheels[level][(int) (timeout.deadlineTick >>> (BITS * level)) & MASK];
+        }
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+}
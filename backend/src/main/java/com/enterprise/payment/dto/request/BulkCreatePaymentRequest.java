@@ -0,0 +1,26 @@
+package com.enterprise.payment.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreatePaymentRequest {
+
+    public static final int MAX_PAYMENTS = 50_000;
+
+    // Items are validated one by one by the service, so one bad item is reported
+    // in the results instead of rejecting the whole request
+    @NotEmpty(message = "At least one payment is required")
+    @Size(max = MAX_PAYMENTS, message = "At most 50000 payments per request")
+    private List<CreatePaymentRequest> payments;
+
+    // Default for items that leave batchEligible unset: bulk payouts go to the gateway in micro-batches
+    private Boolean batchEligible = true;
+}
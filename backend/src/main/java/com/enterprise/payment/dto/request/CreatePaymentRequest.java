@@ -58,6 +58,9 @@ public class CreatePaymentRequest {
     @DecimalMax(value = "100.0", message = "Risk score must not exceed 100")
     private BigDecimal riskScore;
 
+    // Submit to the gateway in micro-batches together with other payments (bulk payouts)
+    private Boolean batchEligible;
+
     // Validation method to ensure at least one URL is provided for redirects
     public boolean hasValidUrls() {
         return (callbackUrl != null && !callbackUrl.trim().isEmpty()) ||
@@ -0,0 +1,68 @@
+package com.enterprise.payment.dto.response;
+
+import com.enterprise.payment.entity.Payment;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCreatePaymentResponse {
+
+    @JsonProperty("requested")
+    private Integer requested;
+
+    // Payments written, including those rejected by risk assessment (status FAILED)
+    @JsonProperty("created")
+    private Integer created;
+
+    @JsonProperty("rejected")
+    private Integer rejected;
+
+    // Items not written because they failed validation
+    @JsonProperty("invalid")
+    private Integer invalid;
+
+    // PENDING payments handed to a micro-batch or the async pool
+    @JsonProperty("accepted")
+    private Integer accepted;
+
+    // PENDING payments the batcher or the async pool had no room for; they stay PENDING
+    @JsonProperty("queued")
+    private Integer queued;
+
+    @JsonProperty("items")
+    private List<ItemResult> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+
+        // Position of the item in the request
+        @JsonProperty("index")
+        private Integer index;
+
+        @JsonProperty("id")
+        private Long id;
+
+        @JsonProperty("paymentReference")
+        private String paymentReference;
+
+        @JsonProperty("merchantReference")
+        private String merchantReference;
+
+        @JsonProperty("status")
+        private Payment.PaymentStatus status;
+
+        @JsonProperty("errors")
+        private List<ApiResponse.ErrorDetail> errors;
+    }
+}
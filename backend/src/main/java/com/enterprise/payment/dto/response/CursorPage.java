@@ -0,0 +1,36 @@
+package com.enterprise.payment.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing, newest first. Pass {@code nextCursor} back to get
+ * the following page; it is absent on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+
+    @JsonProperty("items")
+    private List<T> items;
+
+    @JsonProperty("nextCursor")
+    private String nextCursor;
+
+    @JsonProperty("hasMore")
+    private Boolean hasMore;
+
+    // Only when requested; counting stops at a cap, in which case totalExact is false
+    @JsonProperty("total")
+    private Long total;
+
+    @JsonProperty("totalExact")
+    private Boolean totalExact;
+}
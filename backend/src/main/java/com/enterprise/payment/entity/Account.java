@@ -15,8 +15,6 @@ import java.util.List;
 
 @Entity
 @Table(name = "accounts", indexes = {
-    @Index(name = "idx_accounts_account_number", columnList = "accountNumber"),
-    @Index(name = "idx_accounts_email", columnList = "email"),
     @Index(name = "idx_accounts_status", columnList = "status")
 })
 @Data
@@ -26,7 +24,8 @@ import java.util.List;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_id_seq")
+    @SequenceGenerator(name = "accounts_id_seq", sequenceName = "accounts_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_number", unique = true, nullable = false, length = 50)
@@ -58,6 +57,10 @@ public class Account {
     @DecimalMin(value = "0.0", inclusive = true)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "currency_code", nullable = false, length = 3)
     @NotBlank
     @Size(min = 3, max = 3)
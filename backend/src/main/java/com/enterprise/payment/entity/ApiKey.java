@@ -16,7 +16,6 @@ import java.util.List;
 
 @Entity
 @Table(name = "api_keys", indexes = {
-    @Index(name = "idx_api_keys_key_id", columnList = "keyId"),
     @Index(name = "idx_api_keys_account_id", columnList = "account_id"),
     @Index(name = "idx_api_keys_is_active", columnList = "isActive")
 })
@@ -27,7 +26,8 @@ import java.util.List;
 public class ApiKey {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "api_keys_id_seq")
+    @SequenceGenerator(name = "api_keys_id_seq", sequenceName = "api_keys_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "key_id", unique = true, nullable = false, length = 100)
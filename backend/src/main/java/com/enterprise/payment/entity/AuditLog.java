@@ -14,12 +14,13 @@ import java.net.InetAddress;
 import java.time.OffsetDateTime;
 import java.util.Map;
 
+// Partitioned by month of created_at, primary key (id, created_at) (V11)
 @Entity
 @Table(name = "audit_logs", indexes = {
-    @Index(name = "idx_audit_logs_entity_type_id", columnList = "entityType, entityId"),
+    @Index(name = "idx_audit_logs_entity_created", columnList = "entityType, entityId, createdAt DESC, id DESC"),
     @Index(name = "idx_audit_logs_correlation_id", columnList = "correlationId"),
     @Index(name = "idx_audit_logs_user_id", columnList = "user_id"),
-    @Index(name = "idx_audit_logs_created_at", columnList = "createdAt")
+    @Index(name = "idx_audit_logs_created", columnList = "createdAt DESC, id DESC")
 })
 @Data
 @NoArgsConstructor
@@ -28,7 +29,8 @@ import java.util.Map;
 public class AuditLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_logs_id_seq")
+    @SequenceGenerator(name = "audit_logs_id_seq", sequenceName = "audit_logs_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "entity_type", nullable = false, length = 100)
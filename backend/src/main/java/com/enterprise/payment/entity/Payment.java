@@ -16,12 +16,12 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 
+// Pending expiry also has the partial index idx_payments_pending_expires (V8)
 @Entity
 @Table(name = "payments", indexes = {
-    @Index(name = "idx_payments_payment_reference", columnList = "paymentReference"),
-    @Index(name = "idx_payments_account_id", columnList = "account_id"),
-    @Index(name = "idx_payments_status", columnList = "status"),
-    @Index(name = "idx_payments_created_at", columnList = "createdAt"),
+    @Index(name = "idx_payments_account_created", columnList = "account_id, createdAt DESC, id DESC"),
+    @Index(name = "idx_payments_status_created", columnList = "status, createdAt DESC, id DESC"),
+    @Index(name = "idx_payments_created", columnList = "createdAt DESC, id DESC"),
     @Index(name = "idx_payments_processed_at", columnList = "processedAt"),
     @Index(name = "idx_payments_merchant_reference", columnList = "merchantReference")
 })
@@ -32,7 +32,8 @@ import java.util.Map;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_id_seq")
+    @SequenceGenerator(name = "payments_id_seq", sequenceName = "payments_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "payment_reference", unique = true, nullable = false, length = 100)
@@ -98,6 +99,9 @@ public class Payment {
     @Column(name = "expires_at")
     private OffsetDateTime expiresAt;
 
+    @Column(name = "batch_eligible", nullable = false)
+    private Boolean batchEligible = false;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     @CreationTimestamp
     private OffsetDateTime createdAt;
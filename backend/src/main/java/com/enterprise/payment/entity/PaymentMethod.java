@@ -25,7 +25,8 @@ import java.util.List;
 public class PaymentMethod {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_methods_id_seq")
+    @SequenceGenerator(name = "payment_methods_id_seq", sequenceName = "payment_methods_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -66,6 +67,10 @@ public class PaymentMethod {
     @Column(name = "expires_at")
     private OffsetDateTime expiresAt;
 
+    // Keyed hash of the card number; unique per account among active payment methods
+    @Column(name = "card_fingerprint")
+    private byte[] cardFingerprint;
+
     @Column(name = "is_default", nullable = false)
     @NotNull
     private Boolean isDefault = false;
@@ -25,7 +25,8 @@ import java.util.Map;
 public class PaymentStatusHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_status_history_id_seq")
+    @SequenceGenerator(name = "payment_status_history_id_seq", sequenceName = "payment_status_history_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
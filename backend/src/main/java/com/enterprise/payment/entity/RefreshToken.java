@@ -9,11 +9,13 @@ import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.OffsetDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "refresh_tokens", indexes = {
     @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id"),
-    @Index(name = "idx_refresh_tokens_expires_at", columnList = "expiresAt")
+    @Index(name = "idx_refresh_tokens_expires_at", columnList = "expiresAt"),
+    @Index(name = "idx_refresh_tokens_family_id", columnList = "familyId")
 })
 @Data
 @NoArgsConstructor
@@ -22,13 +24,19 @@ import java.time.OffsetDateTime;
 public class RefreshToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_id_seq")
+    @SequenceGenerator(name = "refresh_tokens_id_seq", sequenceName = "refresh_tokens_id_seq", allocationSize = 50)
     private Long id;
 
-    @Column(unique = true, nullable = false, length = 500)
-    @NotBlank
-    @Size(max = 500)
-    private String token;
+    // SHA-256 of the token, which is only ever held by the client
+    @Column(name = "token_hash", unique = true, nullable = false)
+    @NotNull
+    private byte[] tokenHash;
+
+    // Shared by the token issued at login and every token it was rotated into
+    @Column(name = "family_id", nullable = false)
+    @NotNull
+    private UUID familyId;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
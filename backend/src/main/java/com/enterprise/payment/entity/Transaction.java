@@ -15,13 +15,13 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.Map;
 
+// Pending transactions also have the partial index idx_transactions_pending_created (V8)
 @Entity
 @Table(name = "transactions", indexes = {
-    @Index(name = "idx_transactions_transaction_reference", columnList = "transactionReference"),
-    @Index(name = "idx_transactions_payment_id", columnList = "payment_id"),
-    @Index(name = "idx_transactions_type", columnList = "type"),
-    @Index(name = "idx_transactions_status", columnList = "status"),
-    @Index(name = "idx_transactions_created_at", columnList = "createdAt"),
+    @Index(name = "idx_transactions_payment_created", columnList = "payment_id, createdAt DESC, id DESC"),
+    @Index(name = "idx_transactions_type_created", columnList = "type, createdAt DESC, id DESC"),
+    @Index(name = "idx_transactions_payment_type", columnList = "payment_id, type"),
+    @Index(name = "idx_transactions_created", columnList = "createdAt DESC, id DESC"),
     @Index(name = "idx_transactions_processed_at", columnList = "processedAt")
 })
 @Data
@@ -31,7 +31,8 @@ import java.util.Map;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "transaction_reference", unique = true, nullable = false, length = 100)
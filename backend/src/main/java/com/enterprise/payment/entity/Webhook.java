@@ -24,7 +24,8 @@ import java.util.List;
 public class Webhook {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhooks_id_seq")
+    @SequenceGenerator(name = "webhooks_id_seq", sequenceName = "webhooks_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
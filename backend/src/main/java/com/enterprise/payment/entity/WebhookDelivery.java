@@ -13,6 +13,8 @@ import org.hibernate.type.SqlTypes;
 import java.time.OffsetDateTime;
 import java.util.Map;
 
+// Partitioned by month of created_at, primary key (id, created_at) (V11); undelivered retries
+// also have the partial index idx_webhook_deliveries_retry
 @Entity
 @Table(name = "webhook_deliveries", indexes = {
     @Index(name = "idx_webhook_deliveries_webhook_id", columnList = "webhook_id"),
@@ -27,7 +29,8 @@ import java.util.Map;
 public class WebhookDelivery {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_deliveries_id_seq")
+    @SequenceGenerator(name = "webhook_deliveries_id_seq", sequenceName = "webhook_deliveries_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
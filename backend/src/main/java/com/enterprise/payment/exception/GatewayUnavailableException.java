@@ -0,0 +1,17 @@
+package com.enterprise.payment.exception;
+
+/**
+ * Exception thrown when a payment gateway could not be reached or refused the request before
+ * processing it (circuit open, bulkhead full, connection failure, 5xx). The request had no
+ * effect at the gateway, so it is safe to retry or to fail over to another gateway.
+ */
+public class GatewayUnavailableException extends PaymentProcessingException {
+
+    public GatewayUnavailableException(String message) {
+        super(message);
+    }
+
+    public GatewayUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
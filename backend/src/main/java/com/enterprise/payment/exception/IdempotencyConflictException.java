@@ -0,0 +1,12 @@
+package com.enterprise.payment.exception;
+
+/**
+ * Exception thrown when the request that first used an Idempotency-Key is still being
+ * processed and a duplicate gave up waiting for it
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
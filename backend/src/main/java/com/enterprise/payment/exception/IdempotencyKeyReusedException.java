@@ -0,0 +1,11 @@
+package com.enterprise.payment.exception;
+
+/**
+ * Exception thrown when an Idempotency-Key is sent again with a different request
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,94 @@
+package com.enterprise.payment.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV. Structured values (metadata, audit diffs) are written as JSON text. Text
+ * starting with {@code = + - @} is prefixed with an apostrophe so spreadsheets do not evaluate
+ * it as a formula.
+ */
+final class CsvExportWriter<T> implements ExportWriter<T> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<ExportColumn<T>> columns;
+    private final Writer writer;
+    private final ObjectMapper objectMapper;
+
+    CsvExportWriter(List<ExportColumn<T>> columns, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.columns = columns;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.objectMapper = objectMapper;
+        for (ExportColumn<T> column : columns) {
+            writer.write(column.name());
+            writer.write(',');
+        }
+        writer.write(CURSOR_COLUMN);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(T row, String cursor) throws IOException {
+        for (ExportColumn<T> column : columns) {
+            writeValue(column.value().apply(row));
+            writer.write(',');
+        }
+        writer.write(cursor);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof BigDecimal decimal) {
+            writer.write(decimal.toPlainString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(value.toString());
+        } else if (value instanceof Map<?, ?> || value instanceof Collection<?>) {
+            writeText(objectMapper.writeValueAsString(value));
+        } else {
+            writeText(value instanceof Enum<?> constant ? constant.name() : value.toString());
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        boolean formula = !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0;
+        if (!formula && !needsQuoting(text)) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        writer.write(text.indexOf('"') >= 0 ? text.replace("\"", "\"\"") : text);
+        writer.write('"');
+    }
+
+    private static boolean needsQuoting(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,16 @@
+package com.enterprise.payment.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A validated export, ready to be written once the response has started
+ */
+@FunctionalInterface
+public interface Export {
+
+    /**
+     * Write every row to {@code out} and return how many were written
+     */
+    long writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,13 @@
+package com.enterprise.payment.export;
+
+import java.util.function.Function;
+
+/**
+ * A named column of an export and how to read it from a row
+ */
+record ExportColumn<T>(String name, Function<T, Object> value) {
+
+    static <T> ExportColumn<T> of(String name, Function<T, Object> value) {
+        return new ExportColumn<>(name, value);
+    }
+}
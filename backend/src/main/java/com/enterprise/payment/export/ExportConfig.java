@@ -0,0 +1,44 @@
+package com.enterprise.payment.export;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Streaming response bodies are written on a small pool of their own rather than on a new
+ * thread each, so concurrent exports, and the connections they hold, stay bounded. The exports
+ * are the only asynchronous MVC responses, so the pool and timeout apply to them alone.
+ */
+@Configuration
+@EnableConfigurationProperties(ExportProperties.class)
+public class ExportConfig implements WebMvcConfigurer, DisposableBean {
+
+    private final ExportProperties properties;
+    private final ThreadPoolTaskExecutor exportExecutor;
+
+    public ExportConfig(ExportProperties properties, TaskDecorator contextPropagatingTaskDecorator) {
+        this.properties = properties;
+        this.exportExecutor = new ThreadPoolTaskExecutor();
+        exportExecutor.setCorePoolSize(properties.getMaxConcurrent());
+        exportExecutor.setMaxPoolSize(properties.getMaxConcurrent());
+        exportExecutor.setQueueCapacity(properties.getQueueCapacity());
+        exportExecutor.setThreadNamePrefix("payment-export-");
+        exportExecutor.setTaskDecorator(contextPropagatingTaskDecorator);
+        exportExecutor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportExecutor);
+        configurer.setDefaultTimeout(properties.getTimeout().toMillis());
+    }
+
+    @Override
+    public void destroy() {
+        exportExecutor.shutdown();
+    }
+}
@@ -0,0 +1,29 @@
+package com.enterprise.payment.export;
+
+/**
+ * Output formats of the streaming exports
+ */
+public enum ExportFormat {
+
+    /** RFC 4180 CSV with a header row */
+    CSV("text/csv", "csv"),
+
+    /** One JSON object per line */
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
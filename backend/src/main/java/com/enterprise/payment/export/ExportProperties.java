@@ -0,0 +1,23 @@
+package com.enterprise.payment.export;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Streaming exports, bound from {@code payment.export}
+ */
+@Data
+@ConfigurationProperties(prefix = "payment.export")
+public class ExportProperties {
+
+    /** Exports written at the same time; each holds a database connection while it runs */
+    private int maxConcurrent = 4;
+
+    /** Exports waiting for a writer; beyond this a request is answered 503 */
+    private int queueCapacity = 16;
+
+    /** Longest an export may run before the response is cut off */
+    private Duration timeout = Duration.ofHours(1);
+}
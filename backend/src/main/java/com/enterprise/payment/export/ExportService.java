@@ -0,0 +1,236 @@
+package com.enterprise.payment.export;
+
+import com.enterprise.payment.entity.AuditLog;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.entity.Transaction;
+import com.enterprise.payment.exception.AccountNotFoundException;
+import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.pagination.Cursor;
+import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.AuditLogRepository;
+import com.enterprise.payment.repository.PaymentRepository;
+import com.enterprise.payment.repository.TransactionRepository;
+import com.enterprise.payment.repository.UserRepository;
+import com.enterprise.payment.security.AccountAccess;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streaming exports of payments, transactions and audit logs created in a date range, oldest
+ * first, as CSV or NDJSON.
+ *
+ * Rows are read through a JDBC cursor in one read-only transaction and written as they arrive;
+ * every {@link #CLEAR_INTERVAL} rows the output is flushed and the persistence context cleared,
+ * so memory stays flat however many rows an export has. Each row carries its cursor: passing
+ * the cursor of the last row received resumes an interrupted export right after it.
+ *
+ * Exports spanning every account are for administrators; other callers export the payments of
+ * an account they belong to.
+ */
+@Service
+@Slf4j
+public class ExportService {
+
+    /** Rows between flushes and persistence context clears; the export queries' fetch size */
+    static final int CLEAR_INTERVAL = 1000;
+
+    static final List<ExportColumn<Payment>> PAYMENT_COLUMNS = List.of(
+            ExportColumn.of("id", Payment::getId),
+            ExportColumn.of("payment_reference", Payment::getPaymentReference),
+            ExportColumn.of("account_number", payment -> payment.getAccount().getAccountNumber()),
+            ExportColumn.of("amount", Payment::getAmount),
+            ExportColumn.of("currency_code", Payment::getCurrencyCode),
+            ExportColumn.of("status", Payment::getStatus),
+            ExportColumn.of("description", Payment::getDescription),
+            ExportColumn.of("merchant_reference", Payment::getMerchantReference),
+            ExportColumn.of("risk_score", Payment::getRiskScore),
+            ExportColumn.of("processed_at", Payment::getProcessedAt),
+            ExportColumn.of("created_at", Payment::getCreatedAt),
+            ExportColumn.of("updated_at", Payment::getUpdatedAt),
+            ExportColumn.of("metadata", Payment::getMetadata));
+
+    static final List<ExportColumn<Transaction>> TRANSACTION_COLUMNS = List.of(
+            ExportColumn.of("id", Transaction::getId),
+            ExportColumn.of("transaction_reference", Transaction::getTransactionReference),
+            ExportColumn.of("payment_reference", transaction -> transaction.getPayment().getPaymentReference()),
+            ExportColumn.of("type", Transaction::getType),
+            ExportColumn.of("amount", Transaction::getAmount),
+            ExportColumn.of("currency_code", Transaction::getCurrencyCode),
+            ExportColumn.of("status", Transaction::getStatus),
+            ExportColumn.of("processing_fee", Transaction::getProcessingFee),
+            ExportColumn.of("gateway_transaction_id", Transaction::getGatewayTransactionId),
+            ExportColumn.of("description", Transaction::getDescription),
+            ExportColumn.of("processed_at", Transaction::getProcessedAt),
+            ExportColumn.of("created_at", Transaction::getCreatedAt));
+
+    static final List<ExportColumn<AuditLog>> AUDIT_LOG_COLUMNS = List.of(
+            ExportColumn.of("id", AuditLog::getId),
+            ExportColumn.of("entity_type", AuditLog::getEntityType),
+            ExportColumn.of("entity_id", AuditLog::getEntityId),
+            ExportColumn.of("action", AuditLog::getAction),
+            // The id of the lazy user reference is known without loading the user
+            ExportColumn.of("user_id", auditLog -> auditLog.getUser() != null ? auditLog.getUser().getId() : null),
+            ExportColumn.of("correlation_id", AuditLog::getCorrelationId),
+            ExportColumn.of("ip_address",
+                    auditLog -> auditLog.getIpAddress() != null ? auditLog.getIpAddress().getHostAddress() : null),
+            ExportColumn.of("user_agent", AuditLog::getUserAgent),
+            ExportColumn.of("created_at", AuditLog::getCreatedAt),
+            ExportColumn.of("old_values", AuditLog::getOldValues),
+            ExportColumn.of("new_values", AuditLog::getNewValues));
+
+    private final PaymentRepository paymentRepository;
+    private final TransactionRepository transactionRepository;
+    private final AuditLogRepository auditLogRepository;
+    private final AccountRepository accountRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(PaymentRepository paymentRepository, TransactionRepository transactionRepository,
+                         AuditLogRepository auditLogRepository, AccountRepository accountRepository,
+                         UserRepository userRepository, EntityManager entityManager,
+                         PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.paymentRepository = paymentRepository;
+        this.transactionRepository = transactionRepository;
+        this.auditLogRepository = auditLogRepository;
+        this.accountRepository = accountRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Payments created in [from, to), of one account or of all when {@code accountNumber} is null
+     *
+     * @throws AccessDeniedException when a caller other than an administrator asks for every
+     *                               account or for an account it does not belong to
+     */
+    public Export paymentExport(String accountNumber, OffsetDateTime from, OffsetDateTime to, String cursor,
+                                ExportFormat format) {
+        Authentication caller = SecurityContextHolder.getContext().getAuthentication();
+        if (accountNumber == null) {
+            requireAdmin(caller, "payments");
+        }
+        Cursor start = startOf(from, to, cursor);
+        Long accountId = accountNumber == null ? null : accountRepository.findByAccountNumber(accountNumber)
+            .orElseThrow(() -> AccountNotFoundException.byAccountNumber(accountNumber))
+            .getId();
+        if (accountId != null && !AccountAccess.isAdmin(caller)
+                && !userRepository.existsByUsernameAndAccountId(caller.getName(), accountId)) {
+            throw new AccessDeniedException("Cannot export the payments of account " + accountNumber);
+        }
+        return export("payments", format, PAYMENT_COLUMNS,
+                payment -> new Cursor(payment.getCreatedAt(), payment.getId()),
+                () -> accountId == null
+                        ? paymentRepository.streamForExport(start.createdAt(), start.id(), to)
+                        : paymentRepository.streamForExportByAccountId(accountId, start.createdAt(), start.id(), to));
+    }
+
+    /**
+     * Transactions created in [from, to), of every account; administrators only
+     */
+    public Export transactionExport(OffsetDateTime from, OffsetDateTime to, String cursor, ExportFormat format) {
+        requireAdmin(SecurityContextHolder.getContext().getAuthentication(), "transactions");
+        Cursor start = startOf(from, to, cursor);
+        return export("transactions", format, TRANSACTION_COLUMNS,
+                transaction -> new Cursor(transaction.getCreatedAt(), transaction.getId()),
+                () -> transactionRepository.streamForExport(start.createdAt(), start.id(), to));
+    }
+
+    /**
+     * Audit log entries created in [from, to)
+     */
+    public Export auditLogExport(OffsetDateTime from, OffsetDateTime to, String cursor, ExportFormat format) {
+        Cursor start = startOf(from, to, cursor);
+        return export("audit logs", format, AUDIT_LOG_COLUMNS,
+                auditLog -> new Cursor(auditLog.getCreatedAt(), auditLog.getId()),
+                () -> auditLogRepository.streamForExport(start.createdAt(), start.id(), to));
+    }
+
+    private static void requireAdmin(Authentication caller, String dataset) {
+        if (!AccountAccess.isAdmin(caller)) {
+            throw new AccessDeniedException("Only administrators can export the " + dataset + " of every account");
+        }
+    }
+
+    private <T> Export export(String dataset, ExportFormat format, List<ExportColumn<T>> columns,
+                              Function<T, Cursor> cursorOf, Supplier<Stream<T>> query) {
+        return out -> {
+            long started = System.nanoTime();
+            long rows;
+            try {
+                rows = readOnlyTransaction.execute(status -> {
+                    try (Stream<T> stream = query.get()) {
+                        ExportWriter<T> writer = ExportWriter.create(format, columns, out, objectMapper);
+                        return copy(stream, writer, cursorOf, entityManager::clear);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                log.info("Export of {} aborted: {}", dataset, e.getCause().getMessage());
+                throw e.getCause();
+            }
+            long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+            log.info("Exported {} {} as {} in {} ms ({} rows/s)", rows, dataset, format, elapsedMillis,
+                    rows * 1000 / elapsedMillis);
+            return rows;
+        };
+    }
+
+    /**
+     * Write every row, flushing the output and releasing loaded entities every {@link #CLEAR_INTERVAL} rows
+     */
+    static <T> long copy(Stream<T> rows, ExportWriter<T> writer, Function<T, Cursor> cursorOf,
+                         Runnable clearPersistenceContext) throws IOException {
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            T row = iterator.next();
+            writer.write(row, cursorOf.apply(row).encode());
+            if (++count % CLEAR_INTERVAL == 0) {
+                writer.flush();
+                clearPersistenceContext.run();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Where the export starts: after the client's cursor, or at the start of the range
+     */
+    private static Cursor startOf(OffsetDateTime from, OffsetDateTime to, String token) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("from must be before to");
+        }
+        Cursor after = Cursor.decode(token);
+        if (after == null) {
+            return new Cursor(from, Long.MIN_VALUE);
+        }
+        if (after.createdAt().isBefore(from) || !after.createdAt().isBefore(to)) {
+            throw new ValidationException("Cursor is outside the export range");
+        }
+        return after;
+    }
+}
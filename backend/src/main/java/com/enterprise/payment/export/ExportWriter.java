@@ -0,0 +1,31 @@
+package com.enterprise.payment.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes export rows to a stream in one {@link ExportFormat}. Each row carries the cursor of
+ * its position, so a client whose download broke off can resume after the last complete row.
+ */
+interface ExportWriter<T> {
+
+    String CURSOR_COLUMN = "cursor";
+
+    void write(T row, String cursor) throws IOException;
+
+    /**
+     * Push buffered rows to the underlying stream, which stays open
+     */
+    void flush() throws IOException;
+
+    static <T> ExportWriter<T> create(ExportFormat format, List<ExportColumn<T>> columns, OutputStream out,
+                                      ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvExportWriter<>(columns, out, objectMapper);
+            case NDJSON -> new NdjsonExportWriter<>(columns, out, objectMapper);
+        };
+    }
+}
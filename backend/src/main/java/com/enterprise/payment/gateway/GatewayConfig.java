@@ -0,0 +1,63 @@
+package com.enterprise.payment.gateway;
+
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the gateway router from {@code payment.gateway.connectors} plus any
+ * {@link GatewayConnector} beans (custom integrations).
+ */
+@Configuration
+@EnableConfigurationProperties(GatewayProperties.class)
+public class GatewayConfig {
+
+    /**
+     * Threads that block on gateway calls. No queue: per-connector bulkheads already bound the
+     * calls in flight, and a queued payment would only miss its time limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor gatewayExecutor(TaskDecorator contextPropagatingTaskDecorator,
+                                                  @Value("${payment.gateway.executor.max-threads:256}") int maxThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.min(16, maxThreads));
+        executor.setMaxPoolSize(maxThreads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("payment-gateway-");
+        executor.setTaskDecorator(contextPropagatingTaskDecorator);
+        return executor;
+    }
+
+    @Bean
+    public GatewayRouter gatewayRouter(GatewayProperties gatewayProperties,
+                                       ObjectProvider<GatewayConnector> customConnectors,
+                                       ObjectMapper objectMapper,
+                                       CircuitBreakerRegistry circuitBreakerRegistry,
+                                       BulkheadRegistry bulkheadRegistry,
+                                       TimeLimiterRegistry timeLimiterRegistry,
+                                       @Qualifier("gatewayExecutor") ThreadPoolTaskExecutor gatewayExecutor,
+                                       PaymentMetrics paymentMetrics) {
+        List<GatewayConnector> connectors = new ArrayList<>();
+        gatewayProperties.getConnectors().forEach((name, connector) -> {
+            if (connector.isEnabled()) {
+                connectors.add(new HttpGatewayConnector(name, connector, objectMapper));
+            }
+        });
+        customConnectors.orderedStream().forEach(connectors::add);
+        return new GatewayRouter(connectors, gatewayProperties.getRouting(), circuitBreakerRegistry, bulkheadRegistry,
+                timeLimiterRegistry, gatewayExecutor, paymentMetrics);
+    }
+}
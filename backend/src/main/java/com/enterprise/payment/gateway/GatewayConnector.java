@@ -0,0 +1,80 @@
+package com.enterprise.payment.gateway;
+
+import com.enterprise.payment.exception.GatewayUnavailableException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SPI for a payment gateway integration.
+ *
+ * Implementations perform one blocking call per request and must be thread-safe. Concurrency
+ * limits, circuit breaking, timeouts, hedging and routing are applied around them by
+ * {@link GatewayRouter}, so connectors only deal with the wire protocol and their own
+ * connection pool.
+ *
+ * Throw {@link GatewayUnavailableException} when the request
+ * provably did not take effect (connection refused, 5xx); any other exception is treated as
+ * an ambiguous failure that must not be blindly retried elsewhere.
+ */
+public interface GatewayConnector {
+
+    /**
+     * Stable name, used for routing configuration, resilience instances and metrics
+     */
+    String name();
+
+    /**
+     * Whether this gateway can take the request, e.g. based on currency
+     */
+    default boolean supports(GatewayRequest request) {
+        return true;
+    }
+
+    GatewayResponse execute(GatewayRequest request);
+
+    /**
+     * Submit several payments in one call and return one response per request, in request
+     * order. Throw {@link GatewayUnavailableException} only
+     * when none of them took effect. A single item the gateway provably did not take is a
+     * decline; an item whose outcome is unknown (a timeout, an error after it was sent) is
+     * null, and its payment is left to reconciliation.
+     *
+     * The default sends the requests one by one, for gateways without a batch API.
+     */
+    default List<GatewayResponse> executeBatch(List<GatewayRequest> requests) {
+        List<GatewayResponse> responses = new ArrayList<>(requests.size());
+        for (GatewayRequest request : requests) {
+            try {
+                responses.add(execute(request));
+            } catch (GatewayUnavailableException e) {
+                responses.add(GatewayResponse.declined(name(), "gateway_unavailable"));
+            } catch (RuntimeException e) {
+                responses.add(null);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Whether the gateway can be asked for a payment's outcome with {@link #lookup}
+     */
+    default boolean supportsLookup() {
+        return false;
+    }
+
+    /**
+     * The outcome the gateway recorded for the request's idempotency key, or null when it
+     * has no record of it. Used to settle payments whose submission had an unknown outcome.
+     */
+    default GatewayResponse lookup(GatewayRequest request) {
+        throw new UnsupportedOperationException("Gateway " + name() + " does not support payment lookups");
+    }
+
+    /**
+     * Release an authorization that lost a hedged race. Gateways without a void operation
+     * rely on the idempotency key and may leave this as a no-op.
+     */
+    default void voidAuthorization(GatewayRequest request, GatewayResponse response) {
+    }
+}
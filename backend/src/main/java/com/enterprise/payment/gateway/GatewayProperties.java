@@ -0,0 +1,130 @@
+package com.enterprise.payment.gateway;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gateway connectors and routing, bound from {@code payment.gateway}. Connector order is
+ * significant for the {@link Strategy#PRIORITY} strategy.
+ */
+@Data
+@ConfigurationProperties(prefix = "payment.gateway")
+public class GatewayProperties {
+
+    private Map<String, Connector> connectors = new LinkedHashMap<>();
+
+    private Routing routing = new Routing();
+
+    private Batching batching = new Batching();
+
+    private Stub stub = new Stub();
+
+    public enum Strategy {
+        /** Always prefer the first available connector in configuration order */
+        PRIORITY,
+        /** Prefer the available connector with the lowest recent p95 latency */
+        LOWEST_P95
+    }
+
+    @Data
+    public static class Connector {
+
+        private boolean enabled = true;
+
+        /** Base URL of the gateway API, e.g. {@code https://api.gateway.example/v1} */
+        private String baseUrl;
+
+        /** Currencies the gateway accepts; empty means all */
+        private Set<String> currencies = Set.of();
+
+        /** Size of this connector's HTTP connection pool */
+        private int maxConnections = 50;
+
+        private Duration connectTimeout = Duration.ofSeconds(1);
+
+        /** Hard socket-level limit; the time limiter normally fires first */
+        private Duration responseTimeout = Duration.ofSeconds(6);
+
+        /** How long to wait for a pooled connection before failing over */
+        private Duration connectionRequestTimeout = Duration.ofMillis(200);
+    }
+
+    @Data
+    public static class Routing {
+
+        private Strategy strategy = Strategy.LOWEST_P95;
+
+        /** Latency samples older than this are ignored, so a recovered gateway gets probed again */
+        private Duration latencyWindow = Duration.ofSeconds(30);
+
+        private Hedging hedging = new Hedging();
+    }
+
+    @Data
+    public static class Hedging {
+
+        /** Send a backup payment request to the next gateway when the first one is slow */
+        private boolean enabled = true;
+
+        /** Percentile of the primary's recent latency after which the backup is sent */
+        private double percentile = 0.95;
+
+        /** Lower bound for the hedge delay, also used before enough samples exist */
+        private Duration minDelay = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Batching {
+
+        /** Queue batch-eligible payments and submit them in micro-batches */
+        private boolean enabled = true;
+
+        /** A batch is submitted as soon as it holds this many payments... */
+        private int maxSize = 100;
+
+        /** ...or this long after its first payment was queued */
+        private Duration linger = Duration.ofMillis(50);
+
+        /** Payments queued or in flight; beyond this they are processed individually */
+        private int maxPending = 10_000;
+
+        /** How often pending batch-eligible payments are re-queued while the batcher is idle (ISO-8601) */
+        private Duration requeueInterval = Duration.ofSeconds(30);
+
+        /** Claimed payments not settled within this long are reconciled with the gateways (ISO-8601) */
+        private Duration claimLease = Duration.ofMinutes(5);
+
+        /** How often claims past their lease are looked for (ISO-8601) */
+        private Duration reconcileInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Stub {
+
+        /** Serve simulated gateways in-process, for local development and load tests */
+        private boolean enabled = false;
+
+        private int port = 8089;
+
+        /** Simulated gateways, served under {@code http://localhost:<port>/<name>} */
+        private Map<String, StubGateway> gateways = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class StubGateway {
+
+        private Duration medianLatency = Duration.ofMillis(100);
+
+        private Duration p99Latency = Duration.ofMillis(400);
+
+        private double declineRate = 0.03;
+
+        /** Share of requests answered with HTTP 503 */
+        private double errorRate = 0.01;
+    }
+}
@@ -0,0 +1,13 @@
+package com.enterprise.payment.gateway;
+
+import java.math.BigDecimal;
+
+/**
+ * A request to a payment gateway. The idempotency key is stable across retries and hedged
+ * attempts of the same logical operation.
+ */
+public record GatewayRequest(Operation operation, String paymentReference, BigDecimal amount,
+                             String currencyCode, String idempotencyKey) {
+
+    public enum Operation { PAYMENT, REFUND }
+}
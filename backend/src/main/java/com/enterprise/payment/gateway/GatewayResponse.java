@@ -0,0 +1,16 @@
+package com.enterprise.payment.gateway;
+
+/**
+ * Outcome of a gateway call that reached the gateway. A decline is a normal response,
+ * transport failures are exceptions.
+ */
+public record GatewayResponse(String connector, boolean approved, String gatewayReference, String declineReason) {
+
+    public static GatewayResponse approved(String connector, String gatewayReference) {
+        return new GatewayResponse(connector, true, gatewayReference, null);
+    }
+
+    public static GatewayResponse declined(String connector, String declineReason) {
+        return new GatewayResponse(connector, false, null, declineReason);
+    }
+}
@@ -0,0 +1,533 @@
+package com.enterprise.payment.gateway;
+
+import com.enterprise.payment.exception.GatewayUnavailableException;
+import com.enterprise.payment.exception.PaymentProcessingException;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentMetrics.GatewayOutcome;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Routes gateway requests across the registered {@link GatewayConnector}s.
+ *
+ * Every connector gets its own resilience4j circuit breaker, semaphore bulkhead and time
+ * limiter, created from the shared {@code payment-gateway} configurations (per-connector
+ * {@code payment-gateway-<name>} instances override them). Candidates are ordered by
+ * availability and then by configuration order or by recent p95 latency.
+ *
+ * Payments are hedged: if the primary has not answered after its recent latency percentile,
+ * the same request (same idempotency key) goes to the next gateway and the first answer wins.
+ * An approval that loses the race is voided, including one that arrives after its call timed
+ * out; a call that failed ambiguously is looked up once it has returned and voided if it was
+ * approved. Refunds are never hedged; like payments they fail
+ * over only when the failure proves the request was not processed
+ * ({@link GatewayUnavailableException}).
+ *
+ * Batches ({@link #submitBatch}) go to the connector they were grouped for and fail over as a
+ * whole under the same rule. They are not hedged and don't feed the latency window, whose
+ * percentiles describe single calls.
+ *
+ * Payments whose outcome is unknown (an ambiguous failure) are settled later with
+ * {@link #lookup}, which asks every candidate gateway by idempotency key.
+ */
+@Slf4j
+public class GatewayRouter implements DisposableBean {
+
+    static final String RESILIENCE_CONFIG = "payment-gateway";
+    private static final String INSTANCE_PREFIX = RESILIENCE_CONFIG + "-";
+
+    private final List<Route> routes = new ArrayList<>();
+    private final GatewayProperties.Routing routing;
+    private final Executor executor;
+    private final PaymentMetrics paymentMetrics;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gateway-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GatewayRouter(List<GatewayConnector> connectors, GatewayProperties.Routing routing,
+                         CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+                         TimeLimiterRegistry timeLimiterRegistry, Executor executor, PaymentMetrics paymentMetrics) {
+        this.routing = routing;
+        this.executor = executor;
+        this.paymentMetrics = paymentMetrics;
+        for (GatewayConnector connector : connectors) {
+            String instance = INSTANCE_PREFIX + connector.name();
+            routes.add(new Route(connector,
+                    circuitBreakerRegistry.circuitBreaker(instance, circuitBreakerRegistry.getConfiguration(RESILIENCE_CONFIG)
+                            .orElseGet(circuitBreakerRegistry::getDefaultConfig)),
+                    bulkheadRegistry.bulkhead(instance, bulkheadRegistry.getConfiguration(RESILIENCE_CONFIG)
+                            .orElseGet(bulkheadRegistry::getDefaultConfig)),
+                    timeLimiterRegistry.timeLimiter(instance, timeLimiterRegistry.getConfiguration(RESILIENCE_CONFIG)
+                            .orElseGet(timeLimiterRegistry::getDefaultConfig)),
+                    new LatencyWindow(routing.getLatencyWindow())));
+            paymentMetrics.registerGatewayConnector(connector.name());
+            log.info("Registered payment gateway connector: {}", connector.name());
+        }
+    }
+
+    /**
+     * Submit a request and wait for the winning response
+     */
+    public GatewayResponse submit(GatewayRequest request) {
+        List<Route> candidates = rank(request);
+        if (candidates.isEmpty()) {
+            throw new GatewayUnavailableException("No payment gateway accepts currency " + request.currencyCode());
+        }
+        CompletableFuture<GatewayResponse> outcome = shouldHedge(request, candidates)
+                ? new HedgedCall(request, candidates.get(0), candidates.get(1)).start()
+                : withFailover(request, candidates, 0);
+        try {
+            return outcome.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentProcessingException("Interrupted while waiting for the payment gateway", e);
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        }
+    }
+
+    /**
+     * Submit a batch of payments in the same currency, preferring the given connector, and
+     * wait for the per-item responses (in request order)
+     */
+    public List<GatewayResponse> submitBatch(String preferredConnector, List<GatewayRequest> requests) {
+        List<Route> candidates = rank(requests.get(0));
+        if (candidates.isEmpty()) {
+            throw new GatewayUnavailableException("No payment gateway accepts currency " + requests.get(0).currencyCode());
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).connector.name().equals(preferredConnector)) {
+                candidates.add(0, candidates.remove(i));
+                break;
+            }
+        }
+        try {
+            return batchWithFailover(requests, candidates, 0).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentProcessingException("Interrupted while waiting for the payment gateway", e);
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        }
+    }
+
+    /**
+     * What the gateways accepting a payment recorded for it, to settle a payment whose
+     * submission had an unknown outcome: the approval if one approved it, else the decline if
+     * one declined it, else null when none has a record of it. Throws when one of them cannot
+     * be asked, since it may hold the approval.
+     */
+    public GatewayResponse lookup(GatewayRequest request) {
+        GatewayResponse declined = null;
+        for (Route route : rank(request)) {
+            if (!route.connector.supportsLookup()) {
+                throw new PaymentProcessingException("Gateway " + route.connector.name() + " cannot look up payments");
+            }
+            GatewayResponse response;
+            try {
+                response = guarded(route, () -> route.connector.lookup(request)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PaymentProcessingException("Interrupted while waiting for the payment gateway", e);
+            } catch (ExecutionException e) {
+                throw translate(e.getCause());
+            }
+            if (response != null && response.approved()) {
+                return response;
+            }
+            if (response != null) {
+                declined = response;
+            }
+        }
+        return declined;
+    }
+
+    /**
+     * Name of the connector a request would be sent to first, or null if none accepts it
+     */
+    public String preferredConnector(GatewayRequest request) {
+        List<Route> candidates = rank(request);
+        return candidates.isEmpty() ? null : candidates.get(0).connector.name();
+    }
+
+    /**
+     * Candidate connectors for a request, best first
+     */
+    List<String> candidates(GatewayRequest request) {
+        return rank(request).stream().map(route -> route.connector.name()).toList();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        scheduler.shutdownNow();
+        for (Route route : routes) {
+            if (route.connector instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private List<Route> rank(GatewayRequest request) {
+        List<Route> candidates = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            if (route.connector.supports(request)) {
+                candidates.add(route);
+            }
+        }
+        Comparator<Route> order = Comparator.comparing(Route::unavailable);
+        if (routing.getStrategy() == GatewayProperties.Strategy.LOWEST_P95) {
+            order = order.thenComparingLong(route -> route.latency.percentile(0.95));
+        }
+        // Stable sort: ties keep configuration order
+        candidates.sort(order);
+        return candidates;
+    }
+
+    private boolean shouldHedge(GatewayRequest request, List<Route> candidates) {
+        return routing.getHedging().isEnabled()
+                && request.operation() == GatewayRequest.Operation.PAYMENT
+                && candidates.size() > 1
+                && !candidates.get(1).unavailable();
+    }
+
+    private CompletableFuture<GatewayResponse> withFailover(GatewayRequest request, List<Route> candidates, int index) {
+        Route route = candidates.get(index);
+        return attempt(route, request).exceptionallyCompose(failure -> {
+            Throwable cause = unwrap(failure);
+            if (cause instanceof GatewayUnavailableException && index + 1 < candidates.size()) {
+                log.warn("Gateway {} unavailable for {}, failing over to {}: {}", route.connector.name(),
+                        request.paymentReference(), candidates.get(index + 1).connector.name(), cause.getMessage());
+                return withFailover(request, candidates, index + 1);
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+
+    private CompletableFuture<List<GatewayResponse>> batchWithFailover(List<GatewayRequest> requests,
+                                                                       List<Route> candidates, int index) {
+        Route route = candidates.get(index);
+        long start = System.nanoTime();
+        return guarded(route, () -> route.connector.executeBatch(requests))
+                .whenComplete((responses, failure) -> paymentMetrics.recordConnectorLatency(route.connector.name(),
+                        failure == null ? GatewayOutcome.SUCCESS : GatewayOutcome.ERROR, System.nanoTime() - start))
+                .exceptionallyCompose(failure -> {
+                    Throwable cause = unwrap(failure);
+                    if (cause instanceof GatewayUnavailableException && index + 1 < candidates.size()) {
+                        log.warn("Gateway {} unavailable for a batch of {}, failing over to {}: {}",
+                                route.connector.name(), requests.size(), candidates.get(index + 1).connector.name(),
+                                cause.getMessage());
+                        return batchWithFailover(requests, candidates, index + 1);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    /**
+     * One call to one connector, recorded in its metrics and, when the connector answered, in
+     * its latency window
+     */
+    private CompletableFuture<GatewayResponse> attempt(Route route, GatewayRequest request) {
+        return attempt(route, request, (response, failure) -> { });
+    }
+
+    /**
+     * One call to one connector; {@code returned} is told what the connector returned or threw
+     * once it does, even after the attempt has failed with a timeout
+     */
+    private CompletableFuture<GatewayResponse> attempt(Route route, GatewayRequest request,
+                                                       BiConsumer<GatewayResponse, RuntimeException> returned) {
+        String name = route.connector.name();
+        long start = System.nanoTime();
+        return guarded(route, () -> {
+                    GatewayResponse response;
+                    try {
+                        response = route.connector.execute(request);
+                    } catch (RuntimeException e) {
+                        returned.accept(null, e);
+                        throw e;
+                    }
+                    returned.accept(response, null);
+                    return response;
+                })
+                .whenComplete((response, failure) -> {
+                    long elapsed = System.nanoTime() - start;
+                    // Only answers, approved or declined: a gateway failing fast (full bulkhead,
+                    // quick errors) must not look fast to ranking and hedging
+                    if (failure == null) {
+                        route.latency.record(elapsed);
+                    }
+                    GatewayOutcome outcome = failure != null ? GatewayOutcome.ERROR
+                            : response.approved() ? GatewayOutcome.SUCCESS : GatewayOutcome.DECLINED;
+                    paymentMetrics.recordConnectorLatency(name, outcome, elapsed);
+                });
+    }
+
+    /**
+     * Run a connector call through the connector's circuit breaker, bulkhead and time limiter
+     */
+    private <T> CompletableFuture<T> guarded(Route route, Supplier<T> call) {
+        String name = route.connector.name();
+        if (!route.circuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(
+                    new GatewayUnavailableException("Gateway " + name + " circuit breaker is open"));
+        }
+        if (!route.bulkhead.tryAcquirePermission()) {
+            route.circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(
+                    new GatewayUnavailableException("Gateway " + name + " is at its concurrency limit"));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.get();
+                } finally {
+                    // Released when the connector returns, not at the timeout, so the bulkhead
+                    // bounds the threads actually blocked on this gateway
+                    route.bulkhead.onComplete();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            route.bulkhead.onComplete();
+            route.circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(
+                    new GatewayUnavailableException("No gateway worker available for " + name, e));
+        }
+
+        return route.timeLimiter.executeCompletionStage(scheduler, () -> future).toCompletableFuture()
+                .whenComplete((result, failure) -> {
+                    long elapsed = System.nanoTime() - start;
+                    if (failure == null) {
+                        route.circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                    } else {
+                        route.circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, unwrap(failure));
+                    }
+                });
+    }
+
+    /**
+     * Void what a call that failed ambiguously left at its gateway, once the hedge was won by
+     * the other call: its record is looked up by idempotency key, since its answer was lost
+     */
+    private void voidIfAuthorized(Route route, GatewayRequest request) {
+        if (!route.connector.supportsLookup()) {
+            log.error("Cannot look up hedged payment {} at {} to void it; it needs manual reconciliation",
+                    request.paymentReference(), route.connector.name());
+            return;
+        }
+        guarded(route, () -> route.connector.lookup(request)).whenComplete((recorded, failure) -> {
+            if (failure != null) {
+                log.error("Failed to look up hedged payment {} at {} to void it; it needs manual reconciliation",
+                        request.paymentReference(), route.connector.name(), unwrap(failure));
+            } else if (recorded != null && recorded.approved()) {
+                voidLosingAuthorization(route, request, recorded);
+            }
+        });
+    }
+
+    private void voidLosingAuthorization(Route route, GatewayRequest request, GatewayResponse response) {
+        CompletableFuture.runAsync(() -> route.connector.voidAuthorization(request, response), executor)
+                .whenComplete((ignored, failure) -> {
+                    if (failure != null) {
+                        log.error("Failed to void hedged authorization {} at {} for {}", response.gatewayReference(),
+                                route.connector.name(), request.paymentReference(), failure);
+                    } else {
+                        log.info("Voided hedged authorization {} at {} for {}", response.gatewayReference(),
+                                route.connector.name(), request.paymentReference());
+                    }
+                });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static RuntimeException translate(Throwable failure) {
+        Throwable cause = unwrap(failure);
+        if (cause instanceof PaymentProcessingException processingException) {
+            return processingException;
+        }
+        if (cause instanceof TimeoutException) {
+            return new PaymentProcessingException("Payment gateway call timed out", cause);
+        }
+        return new PaymentProcessingException("Payment gateway error", cause);
+    }
+
+    private record Route(GatewayConnector connector, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                         TimeLimiter timeLimiter, LatencyWindow latency) {
+
+        boolean unavailable() {
+            CircuitBreaker.State state = circuitBreaker.getState();
+            return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN
+                    || bulkhead.getMetrics().getAvailableConcurrentCalls() == 0;
+        }
+    }
+
+    /**
+     * A payment sent to the primary, and to the backup once the primary is slower than its
+     * recent hedge percentile or fails. Completes with the first response.
+     *
+     * A call that failed ambiguously (timed out, or failed after the request may have been
+     * sent) has an outcome of its own once its connector returns. Should the other call win,
+     * a late approval is voided, and a call whose answer is lost altogether is looked up and
+     * voided. Should no call win, the payment is settled later with {@link #lookup} and
+     * nothing is voided.
+     */
+    private final class HedgedCall {
+
+        private final GatewayRequest request;
+        private final Leg primary;
+        private final Leg backup;
+        private final CompletableFuture<GatewayResponse> result = new CompletableFuture<>();
+        private final AtomicBoolean backupLaunched = new AtomicBoolean();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // Calls whose answer was lost, to look up if the hedge is won; guarded by this
+        private final Set<Route> unresolved = new HashSet<>();
+        private volatile ScheduledFuture<?> hedgeTimer;
+
+        HedgedCall(GatewayRequest request, Route primary, Route backup) {
+            this.request = request;
+            this.primary = new Leg(primary);
+            this.backup = new Leg(backup);
+        }
+
+        CompletableFuture<GatewayResponse> start() {
+            long delay = Math.max(routing.getHedging().getMinDelay().toNanos(),
+                    primary.route.latency.percentile(routing.getHedging().getPercentile()));
+            launch(primary);
+            if (!result.isDone()) {
+                hedgeTimer = scheduler.schedule(this::launchBackup, delay, TimeUnit.NANOSECONDS);
+            }
+            return result;
+        }
+
+        private void launch(Leg leg) {
+            inFlight.incrementAndGet();
+            attempt(leg.route, request, (response, failure) -> returned(leg, response, failure))
+                    .whenComplete((response, failure) -> onComplete(leg, response, failure));
+        }
+
+        private void launchBackup() {
+            if (!result.isDone() && backupLaunched.compareAndSet(false, true)) {
+                paymentMetrics.gatewayHedged(backup.route.connector.name());
+                launch(backup);
+            }
+        }
+
+        private void onComplete(Leg leg, GatewayResponse response, Throwable failure) {
+            if (failure == null) {
+                if (result.complete(response)) {
+                    won();
+                } else if (response.approved()) {
+                    voidLosingAuthorization(leg.route, request, response);
+                }
+            } else if (unwrap(failure) instanceof GatewayUnavailableException) {
+                // Don't wait for the hedge delay once the primary has proven unavailable
+                launchBackup();
+            } else {
+                failedAmbiguously(leg);
+            }
+            if (inFlight.decrementAndGet() == 0 && failure != null) {
+                result.completeExceptionally(unwrap(failure));
+            }
+        }
+
+        private synchronized void won() {
+            ScheduledFuture<?> timer = hedgeTimer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            for (Route route : unresolved) {
+                voidIfAuthorized(route, request);
+            }
+            unresolved.clear();
+        }
+
+        private synchronized void failedAmbiguously(Leg leg) {
+            leg.ambiguous = true;
+            if (leg.returned) {
+                resolve(leg);
+            }
+        }
+
+        private synchronized void returned(Leg leg, GatewayResponse response, RuntimeException failure) {
+            leg.returned = true;
+            leg.response = response;
+            leg.failure = failure;
+            if (leg.ambiguous) {
+                resolve(leg);
+            }
+        }
+
+        /**
+         * Act on the outcome of a call that failed ambiguously, now that its connector returned
+         */
+        private void resolve(Leg leg) {
+            if (leg.response != null) {
+                if (result.complete(leg.response)) {
+                    won();
+                } else if (leg.response.approved() && !result.isCompletedExceptionally()) {
+                    log.warn("Hedged payment {} approved by {} after its call timed out", request.paymentReference(),
+                            leg.route.connector.name());
+                    voidLosingAuthorization(leg.route, request, leg.response);
+                }
+            } else if (leg.failure instanceof GatewayUnavailableException) {
+                // Not processed after all
+            } else if (!result.isDone()) {
+                unresolved.add(leg.route);
+            } else if (!result.isCompletedExceptionally()) {
+                voidIfAuthorized(leg.route, request);
+            }
+        }
+    }
+
+    /**
+     * One of the calls of a {@link HedgedCall}; guarded by the call
+     */
+    private static final class Leg {
+
+        private final Route route;
+        private boolean ambiguous;
+        private boolean returned;
+        private GatewayResponse response;
+        private RuntimeException failure;
+
+        Leg(Route route) {
+            this.route = route;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.enterprise.payment.gateway;
+
+import com.enterprise.payment.exception.GatewayUnavailableException;
+import com.enterprise.payment.exception.PaymentProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.HttpHostConnectException;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Connector for gateways speaking the JSON protocol of the local stub gateway
+ * ({@code POST {baseUrl}/payments | /payments/batch | /payments/lookup | /refunds | /voids}).
+ *
+ * Each connector owns its connection pool, sized by {@code max-connections}, so a slow
+ * gateway cannot starve the others of sockets. Automatic retries are disabled: retrying is
+ * the router's decision.
+ */
+@Slf4j
+public class HttpGatewayConnector implements GatewayConnector, AutoCloseable {
+
+    private final String name;
+    private final String baseUrl;
+    private final Set<String> currencies;
+    private final ObjectMapper objectMapper;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    public HttpGatewayConnector(String name, GatewayProperties.Connector properties, ObjectMapper objectMapper) {
+        this.name = name;
+        this.baseUrl = properties.getBaseUrl().replaceAll("/+$", "");
+        this.currencies = properties.getCurrencies();
+        this.objectMapper = objectMapper;
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getResponseTimeout()))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getResponseTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean supports(GatewayRequest request) {
+        return currencies.isEmpty() || currencies.contains(request.currencyCode());
+    }
+
+    @Override
+    public GatewayResponse execute(GatewayRequest request) {
+        String path = request.operation() == GatewayRequest.Operation.PAYMENT ? "/payments" : "/refunds";
+        return toResponse(post(path, toJson(request)));
+    }
+
+    /**
+     * One {@code POST /payments/batch} carrying all items; results come back in item order
+     */
+    @Override
+    public List<GatewayResponse> executeBatch(List<GatewayRequest> requests) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ArrayNode items = body.putArray("items");
+        for (GatewayRequest request : requests) {
+            items.add(toJson(request));
+        }
+        JsonNode results = post("/payments/batch", body).path("results");
+        if (results.size() != requests.size()) {
+            throw new PaymentProcessingException("Gateway " + name + " returned " + results.size()
+                    + " results for a batch of " + requests.size());
+        }
+        List<GatewayResponse> responses = new ArrayList<>(requests.size());
+        for (JsonNode result : results) {
+            responses.add(toResponse(result));
+        }
+        return responses;
+    }
+
+    @Override
+    public boolean supportsLookup() {
+        return true;
+    }
+
+    /**
+     * {@code POST /payments/lookup} by idempotency key; {@code found: false} when the gateway
+     * never received the payment
+     */
+    @Override
+    public GatewayResponse lookup(GatewayRequest request) {
+        JsonNode result = post("/payments/lookup", toJson(request));
+        return result.path("found").asBoolean(false) ? toResponse(result) : null;
+    }
+
+    @Override
+    public void voidAuthorization(GatewayRequest request, GatewayResponse response) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("reference", response.gatewayReference())
+                .put("idempotencyKey", request.idempotencyKey());
+        post("/voids", body);
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private ObjectNode toJson(GatewayRequest request) {
+        return objectMapper.createObjectNode()
+                .put("reference", request.paymentReference())
+                .put("amount", request.amount())
+                .put("currency", request.currencyCode())
+                .put("idempotencyKey", request.idempotencyKey());
+    }
+
+    private GatewayResponse toResponse(JsonNode result) {
+        if (result.path("approved").asBoolean(false)) {
+            return GatewayResponse.approved(name, result.path("reference").asText(null));
+        }
+        return GatewayResponse.declined(name, result.path("declineReason").asText(null));
+    }
+
+    private JsonNode post(String path, JsonNode body) {
+        HttpPost post = new HttpPost(baseUrl + path);
+        try {
+            post.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON));
+            return httpClient.execute(post, response -> {
+                int status = response.getCode();
+                byte[] content = response.getEntity() != null ? EntityUtils.toByteArray(response.getEntity()) : new byte[0];
+                if (status >= 500) {
+                    throw new GatewayUnavailableException("Gateway " + name + " returned HTTP " + status);
+                }
+                if (status >= 400) {
+                    throw new PaymentProcessingException("Gateway " + name + " rejected request with HTTP " + status);
+                }
+                return objectMapper.readTree(content);
+            });
+        } catch (ConnectionRequestTimeoutException | ConnectTimeoutException | HttpHostConnectException e) {
+            // Nothing was sent: safe to fail over
+            throw new GatewayUnavailableException("Gateway " + name + " unreachable", e);
+        } catch (IOException e) {
+            throw new PaymentProcessingException("Gateway " + name + " I/O error", e);
+        }
+    }
+}
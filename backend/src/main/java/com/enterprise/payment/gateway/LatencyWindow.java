@@ -0,0 +1,84 @@
+package com.enterprise.payment.gateway;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Recent call latencies of one connector, for routing and hedging decisions.
+ *
+ * A fixed ring buffer of timestamped samples; percentiles are computed over samples inside
+ * the time window from a sorted snapshot that is rebuilt at most every
+ * {@link #SNAPSHOT_INTERVAL_NANOS}, so lookups on the request path are an array read. While
+ * the window holds only a few samples the snapshot follows every new one, so a cold
+ * connector's first calls count straight away.
+ */
+final class LatencyWindow {
+
+    private static final int CAPACITY = 1024;
+    private static final long SNAPSHOT_INTERVAL_NANOS = Duration.ofMillis(100).toNanos();
+    private static final int WARM_UP_SAMPLES = 32;
+    private static final long[] EMPTY = new long[0];
+
+    private final long windowNanos;
+    private final long[] timestamps = new long[CAPACITY];
+    private final long[] latencies = new long[CAPACITY];
+    private int next;
+    private int size;
+    private volatile long recorded;
+
+    private volatile long[] sortedSnapshot = EMPTY;
+    private volatile long snapshotTakenAt = Long.MIN_VALUE;
+    private volatile long snapshotRecorded;
+
+    LatencyWindow(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    synchronized void record(long latencyNanos) {
+        timestamps[next] = System.nanoTime();
+        latencies[next] = latencyNanos;
+        next = (next + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+        recorded++;
+    }
+
+    /**
+     * Latency at the given percentile (0..1) over the window, or 0 without recent samples
+     */
+    long percentile(double percentile) {
+        long[] sorted = snapshot();
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private long[] snapshot() {
+        long now = System.nanoTime();
+        long[] current = sortedSnapshot;
+        if (now - snapshotTakenAt < SNAPSHOT_INTERVAL_NANOS
+                && (current.length >= WARM_UP_SAMPLES || snapshotRecorded == recorded)) {
+            return current;
+        }
+        long[] recent;
+        long recordedAtSnapshot;
+        synchronized (this) {
+            recordedAtSnapshot = recorded;
+            long cutoff = now - windowNanos;
+            recent = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (timestamps[i] - cutoff >= 0) {
+                    recent[count++] = latencies[i];
+                }
+            }
+            recent = count == recent.length ? recent : Arrays.copyOf(recent, count);
+        }
+        Arrays.sort(recent);
+        sortedSnapshot = recent;
+        snapshotRecorded = recordedAtSnapshot;
+        snapshotTakenAt = now;
+        return recent;
+    }
+}
@@ -0,0 +1,171 @@
+package com.enterprise.payment.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Groups items by key into micro-batches bounded by size and linger time.
+ *
+ * A batch is handed to the flusher (on the flush executor) as soon as it reaches
+ * {@code maxSize} items, or {@code linger} after its first item arrived, whichever comes
+ * first. {@link #offer} refuses items once {@code maxPending} are queued or in flight, so
+ * callers can fall back to unbatched processing instead of growing the queue.
+ */
+@Slf4j
+public final class MicroBatcher<K, T> implements AutoCloseable {
+
+    private final int maxSize;
+    private final long lingerNanos;
+    private final int maxPending;
+    private final BiConsumer<K, List<T>> flusher;
+    private final Executor flushExecutor;
+    private final Map<K, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "micro-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    public MicroBatcher(int maxSize, Duration linger, int maxPending, Executor flushExecutor,
+                        BiConsumer<K, List<T>> flusher) {
+        if (maxSize < 1 || maxPending < maxSize) {
+            throw new IllegalArgumentException("Need 1 <= maxSize <= maxPending");
+        }
+        this.maxSize = maxSize;
+        this.lingerNanos = linger.toNanos();
+        this.maxPending = maxPending;
+        this.flushExecutor = flushExecutor;
+        this.flusher = flusher;
+    }
+
+    /**
+     * Queue an item, or return false when the batcher is full or closed
+     */
+    public boolean offer(K key, T item) {
+        if (closed) {
+            return false;
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            return false;
+        }
+        lanes.computeIfAbsent(key, Lane::new).add(item);
+        return true;
+    }
+
+    /**
+     * Items queued or being flushed
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * Flush everything queued and stop accepting items
+     */
+    @Override
+    public void close() {
+        closed = true;
+        lanes.values().forEach(Lane::flushNow);
+        timer.shutdownNow();
+    }
+
+    private void dispatch(K key, List<T> batch) {
+        Runnable flush = () -> {
+            try {
+                flusher.accept(key, batch);
+            } catch (RuntimeException e) {
+                log.error("Flushing a batch of {} for {} failed", batch.size(), key, e);
+            } finally {
+                pending.addAndGet(-batch.size());
+            }
+        };
+        try {
+            flushExecutor.execute(flush);
+        } catch (RejectedExecutionException e) {
+            // Saturated flush pool: flush on the caller's thread, which also slows down producers
+            flush.run();
+        }
+    }
+
+    private final class Lane {
+
+        private final K key;
+        private List<T> items;
+        private ScheduledFuture<?> lingerTimer;
+        /** Identifies the current batch, so a late linger timer cannot flush its successor early */
+        private long generation;
+
+        Lane(K key) {
+            this.key = key;
+            this.items = new ArrayList<>(maxSize);
+        }
+
+        void add(T item) {
+            List<T> full = null;
+            synchronized (this) {
+                items.add(item);
+                if (items.size() >= maxSize) {
+                    full = take();
+                } else if (items.size() == 1) {
+                    long batch = generation;
+                    try {
+                        lingerTimer = timer.schedule(() -> flushIfStill(batch), lingerNanos, TimeUnit.NANOSECONDS);
+                    } catch (RejectedExecutionException e) {
+                        // Raced with close(): nothing will flush this batch later
+                        full = take();
+                    }
+                }
+            }
+            if (full != null) {
+                dispatch(key, full);
+            }
+        }
+
+        void flushNow() {
+            List<T> batch;
+            synchronized (this) {
+                batch = items.isEmpty() ? null : take();
+            }
+            if (batch != null) {
+                dispatch(key, batch);
+            }
+        }
+
+        private void flushIfStill(long batchGeneration) {
+            List<T> batch;
+            synchronized (this) {
+                batch = generation == batchGeneration && !items.isEmpty() ? take() : null;
+            }
+            if (batch != null) {
+                dispatch(key, batch);
+            }
+        }
+
+        private List<T> take() {
+            List<T> batch = items;
+            items = new ArrayList<>(maxSize);
+            generation++;
+            if (lingerTimer != null) {
+                lingerTimer.cancel(false);
+                lingerTimer = null;
+            }
+            return batch;
+        }
+    }
+}
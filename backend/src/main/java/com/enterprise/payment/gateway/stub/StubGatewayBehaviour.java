@@ -0,0 +1,48 @@
+package com.enterprise.payment.gateway.stub;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency and outcome distribution of a simulated gateway.
+ *
+ * Latency is log-normal, parameterised by its median and 99th percentile, which is a
+ * reasonable fit for card network round trips: most calls cluster around the median with a
+ * long right tail.
+ */
+public final class StubGatewayBehaviour {
+
+    /** z-score of the 99th percentile of the standard normal distribution */
+    private static final double Z_99 = 2.3263;
+
+    private final double mu;
+    private final double sigma;
+    private final double declineRate;
+    private final double errorRate;
+
+    public StubGatewayBehaviour(Duration medianLatency, Duration p99Latency, double declineRate, double errorRate) {
+        if (p99Latency.compareTo(medianLatency) < 0) {
+            throw new IllegalArgumentException("p99 latency must not be below the median");
+        }
+        this.mu = Math.log(Math.max(1, medianLatency.toNanos()));
+        this.sigma = (Math.log(Math.max(1, p99Latency.toNanos())) - mu) / Z_99;
+        this.declineRate = declineRate;
+        this.errorRate = errorRate;
+    }
+
+    long sampleLatencyNanos() {
+        return (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+
+    Outcome sampleOutcome() {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < errorRate) {
+            return Outcome.ERROR;
+        }
+        return roll < errorRate + declineRate ? Outcome.DECLINED : Outcome.APPROVED;
+    }
+
+    enum Outcome {
+        APPROVED, DECLINED, ERROR
+    }
+}
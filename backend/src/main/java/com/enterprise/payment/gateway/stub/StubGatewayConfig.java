@@ -0,0 +1,30 @@
+package com.enterprise.payment.gateway.stub;
+
+import com.enterprise.payment.gateway.GatewayProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts the stub gateways when {@code payment.gateway.stub.enabled} is set. Point connectors
+ * at {@code http://localhost:<port>/<name>} to use them.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "payment.gateway.stub", name = "enabled", havingValue = "true")
+public class StubGatewayConfig {
+
+    @Bean(destroyMethod = "close")
+    public StubGatewayServer stubGatewayServer(GatewayProperties gatewayProperties) throws IOException {
+        GatewayProperties.Stub stub = gatewayProperties.getStub();
+        Map<String, StubGatewayBehaviour> gateways = new LinkedHashMap<>();
+        stub.getGateways().forEach((name, gateway) -> gateways.put(name, new StubGatewayBehaviour(
+                gateway.getMedianLatency(), gateway.getP99Latency(), gateway.getDeclineRate(), gateway.getErrorRate())));
+        StubGatewayServer server = new StubGatewayServer(stub.getPort(), gateways);
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,201 @@
+package com.enterprise.payment.gateway.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process HTTP server simulating one or more payment gateways for local development,
+ * load tests and benchmarks. Speaks the protocol of
+ * {@link com.enterprise.payment.gateway.HttpGatewayConnector}:
+ * {@code POST /<gateway>/payments|payments/batch|payments/lookup|refunds|voids}.
+ *
+ * A batch costs one latency sample plus {@link #BATCH_ITEM_NANOS} per item; errors (503)
+ * are rolled once per batch, approvals and declines per item. The outcomes of the last
+ * {@link #REMEMBERED_OUTCOMES} payments are kept by idempotency key for lookups, including
+ * those whose response the client never read.
+ *
+ * Responses are delayed on a scheduler rather than by sleeping, so a slow simulated gateway
+ * holds a socket but no server thread, like a real remote one.
+ */
+@Slf4j
+public class StubGatewayServer implements AutoCloseable {
+
+    /** Simulated gateway-side processing time per batch item */
+    static final long BATCH_ITEM_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    static final int REMEMBERED_OUTCOMES = 100_000;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final Map<String, StubGatewayBehaviour> gateways;
+    private final Map<String, LongAdder> voids = new ConcurrentHashMap<>();
+    private final Map<String, ObjectNode> outcomes = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ObjectNode> eldest) {
+                    return size() > REMEMBERED_OUTCOMES;
+                }
+            });
+    private final AtomicLong references = new AtomicLong();
+    private final HttpServer server;
+    private final ExecutorService acceptor;
+    private final ScheduledExecutorService responder;
+
+    public StubGatewayServer(int port, Map<String, StubGatewayBehaviour> gateways) throws IOException {
+        this.gateways = Map.copyOf(gateways);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        this.acceptor = Executors.newFixedThreadPool(4, daemonThreads("stub-gateway-io"));
+        this.responder = Executors.newScheduledThreadPool(4, daemonThreads("stub-gateway-responder"));
+        server.setExecutor(acceptor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        log.info("Stub payment gateways {} listening on port {}", gateways.keySet(), port());
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Voids received by a gateway, i.e. hedged authorizations released by the router
+     */
+    public long voids(String gateway) {
+        LongAdder count = voids.get(gateway);
+        return count == null ? 0 : count.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        responder.shutdownNow();
+        acceptor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] requestBody;
+        try (InputStream body = exchange.getRequestBody()) {
+            requestBody = body.readAllBytes();
+        }
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        StubGatewayBehaviour behaviour = path.length >= 3 ? gateways.get(path[1]) : null;
+        boolean batch = path.length == 4 && "payments".equals(path[2]) && "batch".equals(path[3]);
+        boolean lookup = path.length == 4 && "payments".equals(path[2]) && "lookup".equals(path[3]);
+        if (behaviour == null || (path.length != 3 && !batch && !lookup) || !"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 404, "{\"error\":\"not_found\"}");
+            return;
+        }
+        String gateway = path[1];
+        String operation = path[2];
+        JsonNode request = JSON.readTree(requestBody);
+        if (batch) {
+            handleBatch(exchange, gateway, behaviour, request.path("items"));
+            return;
+        }
+        if (lookup) {
+            ObjectNode outcome = outcomes.get(gateway + ":" + request.path("idempotencyKey").asText());
+            ObjectNode found = JSON.createObjectNode().put("found", outcome != null);
+            if (outcome != null) {
+                found.setAll(outcome);
+            }
+            String json = found.toString();
+            responder.schedule(() -> respond(exchange, 200, json), behaviour.sampleLatencyNanos(), TimeUnit.NANOSECONDS);
+            return;
+        }
+        if ("voids".equals(operation)) {
+            voids.computeIfAbsent(gateway, g -> new LongAdder()).increment();
+            respond(exchange, 200, "{\"voided\":true}");
+            return;
+        }
+
+        long delay = behaviour.sampleLatencyNanos();
+        StubGatewayBehaviour.Outcome outcome = behaviour.sampleOutcome();
+        if (outcome == StubGatewayBehaviour.Outcome.ERROR) {
+            responder.schedule(() -> respond(exchange, 503, "{\"error\":\"temporarily_unavailable\"}"),
+                    delay, TimeUnit.NANOSECONDS);
+            return;
+        }
+        ObjectNode result = result(gateway, outcome);
+        if ("payments".equals(operation)) {
+            outcomes.put(gateway + ":" + request.path("idempotencyKey").asText(), result);
+        }
+        String json = result.toString();
+        responder.schedule(() -> respond(exchange, 200, json), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void handleBatch(HttpExchange exchange, String gateway, StubGatewayBehaviour behaviour, JsonNode items) {
+        long delay = behaviour.sampleLatencyNanos() + items.size() * BATCH_ITEM_NANOS;
+        if (behaviour.sampleOutcome() == StubGatewayBehaviour.Outcome.ERROR) {
+            responder.schedule(() -> respond(exchange, 503, "{\"error\":\"temporarily_unavailable\"}"),
+                    delay, TimeUnit.NANOSECONDS);
+            return;
+        }
+        ObjectNode response = JSON.createObjectNode();
+        ArrayNode results = response.putArray("results");
+        for (JsonNode item : items) {
+            // A batch that was accepted settles every item
+            StubGatewayBehaviour.Outcome outcome = behaviour.sampleOutcome() == StubGatewayBehaviour.Outcome.DECLINED
+                    ? StubGatewayBehaviour.Outcome.DECLINED : StubGatewayBehaviour.Outcome.APPROVED;
+            ObjectNode result = result(gateway, outcome);
+            results.add(result);
+            outcomes.put(gateway + ":" + item.path("idempotencyKey").asText(), result);
+        }
+        String json = response.toString();
+        responder.schedule(() -> respond(exchange, 200, json), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private ObjectNode result(String gateway, StubGatewayBehaviour.Outcome outcome) {
+        ObjectNode result = JSON.createObjectNode();
+        if (outcome == StubGatewayBehaviour.Outcome.DECLINED) {
+            return result.put("approved", false).put("declineReason", "do_not_honor");
+        }
+        return result.put("approved", true).put("reference", gateway.toUpperCase() + "_" + references.incrementAndGet());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            // Client gave up (timeout or hedge winner already returned)
+            log.debug("Stub gateway response not delivered: {}", e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicLong sequence = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.enterprise.payment.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Idempotency-Key support; the shared store is Redis unless another {@link IdempotencyStore}
+ * bean is defined
+ */
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(IdempotencyStore.class)
+    public IdempotencyStore idempotencyStore(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper) {
+        return new RedisIdempotencyStore(stringRedisTemplate, objectMapper);
+    }
+}
@@ -0,0 +1,36 @@
+package com.enterprise.payment.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Idempotency-Key handling, bound from {@code payment.idempotency}
+ */
+@Data
+@ConfigurationProperties(prefix = "payment.idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+
+    /** How long a completed response is replayed for retries with the same key */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * How long a claim of a request that is still running is honoured. Must exceed the slowest
+     * create or refund, otherwise a retry on another node may run the operation again.
+     */
+    private Duration lockTimeout = Duration.ofSeconds(30);
+
+    /** How long a concurrent duplicate waits for the first request before it is answered 409 */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    /** Initial interval at which a duplicate polls the shared store; doubles up to 8x */
+    private Duration pollInterval = Duration.ofMillis(10);
+
+    /** Completed responses kept in process, so retries to the same node skip Redis */
+    private int localCacheSize = 10_000;
+
+    private Duration localCacheTtl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,24 @@
+package com.enterprise.payment.idempotency;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * What is stored under an idempotency key: the hash of the request that claimed it and,
+ * once that request has finished, its serialized response. While the request runs the
+ * record carries the claiming owner's token instead.
+ */
+public record IdempotencyRecord(String requestHash, String owner, String response) {
+
+    public static IdempotencyRecord inProgress(String requestHash, String owner) {
+        return new IdempotencyRecord(requestHash, owner, null);
+    }
+
+    public static IdempotencyRecord completed(String requestHash, String response) {
+        return new IdempotencyRecord(requestHash, null, response);
+    }
+
+    @JsonIgnore
+    public boolean isCompleted() {
+        return response != null;
+    }
+}
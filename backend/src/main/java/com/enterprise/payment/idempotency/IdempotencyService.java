@@ -0,0 +1,308 @@
+package com.enterprise.payment.idempotency;
+
+import com.enterprise.payment.exception.IdempotencyConflictException;
+import com.enterprise.payment.exception.IdempotencyKeyReusedException;
+import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentMetrics.IdempotencyOutcome;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation at most once per Idempotency-Key and principal, and replays its response
+ * to retries.
+ *
+ * A key is claimed in the shared {@link IdempotencyStore} together with a SHA-256 hash of the
+ * operation and request; the response is stored under it when the operation returns, and kept
+ * for {@code payment.idempotency.ttl}. A retry with the same key gets the stored response; one
+ * with a different request is rejected. A duplicate that arrives while the first request is
+ * still running waits for it: on the same instance through an in-process future, on another
+ * instance by polling the store. If the operation throws, the claim is released and a retry
+ * runs it again. Completed records are also cached in process, so a retry that lands on the
+ * same instance costs no round trip.
+ *
+ * If the store is unreachable the operation still runs, deduplicated only within this
+ * instance; this is counted as {@link IdempotencyOutcome#STORE_UNAVAILABLE}.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper canonicalMapper;
+    private final PaymentMetrics paymentMetrics;
+    private final LocalRecordCache localCache;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The operation's response and whether it was replayed rather than produced by this call
+     */
+    public record Result<T>(T value, boolean replayed) {
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<IdempotencyRecord> result) {
+    }
+
+    public IdempotencyService(IdempotencyStore store, IdempotencyProperties properties, ObjectMapper objectMapper,
+                              PaymentMetrics paymentMetrics) {
+        this.store = store;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.canonicalMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        this.paymentMetrics = paymentMetrics;
+        this.localCache = new LocalRecordCache(properties.getLocalCacheSize(), properties.getLocalCacheTtl(),
+                System::nanoTime);
+    }
+
+    /**
+     * Run {@code action} unless a request with the same key has already run it.
+     *
+     * @param idempotencyKey the client's key; null runs the action without deduplication
+     * @param operation      identifies the operation and its target, e.g. {@code refund:PAY_...};
+     *                       part of the request hash, so a key cannot be reused across operations
+     * @param request        the request body, hashed to detect a key reused for another request
+     */
+    public <T> Result<T> execute(String idempotencyKey, String operation, Object request, Class<T> responseType,
+                                 Supplier<T> action) {
+        if (idempotencyKey == null || !properties.isEnabled()) {
+            return new Result<>(action.get(), false);
+        }
+        validateKey(idempotencyKey);
+        long started = System.nanoTime();
+        long deadline = started + properties.getWaitTimeout().toNanos();
+        String key = storeKey(currentPrincipal(), idempotencyKey);
+        String requestHash = fingerprint(operation, request);
+
+        while (true) {
+            IdempotencyRecord cached = localCache.get(key);
+            if (cached != null) {
+                return replay(cached, requestHash, responseType, started);
+            }
+            InFlight claim = new InFlight(requestHash, new CompletableFuture<>());
+            InFlight running = inFlight.putIfAbsent(key, claim);
+            if (running != null) {
+                checkSameRequest(running.requestHash(), requestHash);
+                IdempotencyRecord completed = await(running.result(), deadline);
+                if (completed != null) {
+                    return replay(completed, requestHash, responseType, started);
+                }
+                // The first request failed and released the key; run the operation ourselves
+                continue;
+            }
+            try {
+                return runClaimed(key, requestHash, responseType, action, claim.result(), started, deadline);
+            } catch (RuntimeException | Error e) {
+                claim.result().completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, claim);
+            }
+        }
+    }
+
+    private <T> Result<T> runClaimed(String key, String requestHash, Class<T> responseType, Supplier<T> action,
+                                     CompletableFuture<IdempotencyRecord> claim, long started, long deadline) {
+        IdempotencyRecord inProgress = IdempotencyRecord.inProgress(requestHash,
+                Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36));
+        boolean shared = true;
+        while (true) {
+            IdempotencyRecord existing;
+            try {
+                existing = store.claim(key, inProgress, properties.getLockTimeout());
+            } catch (DataAccessException e) {
+                log.warn("Idempotency store unavailable, deduplicating key {} in process only: {}", key,
+                        e.getMessage());
+                paymentMetrics.idempotentRequest(IdempotencyOutcome.STORE_UNAVAILABLE);
+                shared = false;
+                break;
+            }
+            if (existing == null) {
+                break;
+            }
+            checkSameRequest(existing.requestHash(), requestHash);
+            IdempotencyRecord completed = existing.isCompleted() ? existing : poll(key, requestHash, deadline);
+            if (completed != null) {
+                localCache.put(key, completed);
+                claim.complete(completed);
+                return replay(completed, requestHash, responseType, started);
+            }
+        }
+
+        long overhead = System.nanoTime() - started;
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            if (shared) {
+                release(key, inProgress);
+            }
+            throw e;
+        }
+        long completing = System.nanoTime();
+        IdempotencyRecord completed = IdempotencyRecord.completed(requestHash, serialize(response));
+        localCache.put(key, completed);
+        if (shared) {
+            try {
+                store.complete(key, inProgress, completed, properties.getTtl());
+            } catch (DataAccessException e) {
+                log.warn("Could not store the response for idempotency key {}: {}", key, e.getMessage());
+            }
+        }
+        claim.complete(completed);
+        paymentMetrics.idempotentRequest(IdempotencyOutcome.EXECUTED);
+        paymentMetrics.recordIdempotencyOverhead(overhead + System.nanoTime() - completing);
+        return new Result<>(response, false);
+    }
+
+    /**
+     * Wait for another instance to finish the request; null when its claim disappeared
+     */
+    private IdempotencyRecord poll(String key, String requestHash, long deadline) {
+        long interval = properties.getPollInterval().toNanos();
+        long maxInterval = interval * 8;
+        while (true) {
+            if (System.nanoTime() + interval - deadline > 0) {
+                throw inProgress();
+            }
+            LockSupport.parkNanos(interval);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw inProgress();
+            }
+            IdempotencyRecord record = store.get(key);
+            if (record == null || record.isCompleted()) {
+                return record;
+            }
+            checkSameRequest(record.requestHash(), requestHash);
+            interval = Math.min(interval * 2, maxInterval);
+        }
+    }
+
+    /**
+     * Wait for a request running in this process; null when it failed
+     */
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> result, long deadline) {
+        try {
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            return null;
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private <T> Result<T> replay(IdempotencyRecord record, String requestHash, Class<T> responseType, long started) {
+        checkSameRequest(record.requestHash(), requestHash);
+        try {
+            T response = objectMapper.readValue(record.response(), responseType);
+            paymentMetrics.idempotentRequest(IdempotencyOutcome.REPLAYED);
+            paymentMetrics.recordIdempotencyOverhead(System.nanoTime() - started);
+            return new Result<>(response, true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response is not a " + responseType.getSimpleName(), e);
+        }
+    }
+
+    private void release(String key, IdempotencyRecord inProgress) {
+        try {
+            store.release(key, inProgress);
+        } catch (DataAccessException e) {
+            log.warn("Could not release idempotency key {}; it expires after the lock timeout: {}", key,
+                    e.getMessage());
+        }
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            paymentMetrics.idempotentRequest(IdempotencyOutcome.MISMATCH);
+            throw new IdempotencyKeyReusedException(
+                    "Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private IdempotencyConflictException inProgress() {
+        paymentMetrics.idempotentRequest(IdempotencyOutcome.IN_PROGRESS);
+        return new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+    }
+
+    String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(canonicalMapper.writeValueAsBytes(request));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot hash request for idempotency", e);
+        }
+    }
+
+    private String serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response is not serializable", e);
+        }
+    }
+
+    private static void validateKey(String idempotencyKey) {
+        boolean valid = !idempotencyKey.isEmpty() && idempotencyKey.length() <= MAX_KEY_LENGTH;
+        for (int i = 0; valid && i < idempotencyKey.length(); i++) {
+            char c = idempotencyKey.charAt(i);
+            valid = c > ' ' && c < 127;
+        }
+        if (!valid) {
+            throw new ValidationException(IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH
+                    + " printable ASCII characters");
+        }
+    }
+
+    /**
+     * Length-prefixed so that no principal/key pair can produce another pair's store key
+     */
+    private static String storeKey(String principal, String idempotencyKey) {
+        return principal.length() + ":" + principal + ":" + idempotencyKey;
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : "anonymous";
+    }
+}
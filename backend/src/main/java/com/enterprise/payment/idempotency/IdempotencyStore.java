@@ -0,0 +1,34 @@
+package com.enterprise.payment.idempotency;
+
+import java.time.Duration;
+
+/**
+ * Shared store of idempotency records, visible to every instance of the application.
+ * Implementations signal an unreachable store with a
+ * {@link org.springframework.dao.DataAccessException}.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Atomically store {@code inProgress} under the key unless a record exists.
+     *
+     * @return the existing record, or null when the key was claimed
+     */
+    IdempotencyRecord claim(String key, IdempotencyRecord inProgress, Duration lockTimeout);
+
+    /**
+     * The record stored under the key, or null
+     */
+    IdempotencyRecord get(String key);
+
+    /**
+     * Replace this caller's claim with the completed record. Does nothing if another caller
+     * has claimed the key since (the claim expired).
+     */
+    void complete(String key, IdempotencyRecord inProgress, IdempotencyRecord completed, Duration ttl);
+
+    /**
+     * Remove this caller's claim so that a retry runs the operation again
+     */
+    void release(String key, IdempotencyRecord inProgress);
+}
@@ -0,0 +1,73 @@
+package com.enterprise.payment.idempotency;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-process cache of completed idempotency records. Completed records never change,
+ * so a hit is always safe to replay. When full, expired entries are dropped first and then
+ * arbitrary ones down to 90% of the capacity; a dropped record is still found in the shared
+ * store.
+ */
+final class LocalRecordCache {
+
+    private record Entry(IdempotencyRecord record, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    LocalRecordCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    IdempotencyRecord get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nanoClock.getAsLong() - entry.expiresAt() > 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.record();
+    }
+
+    void put(String key, IdempotencyRecord record) {
+        if (maxSize <= 0) {
+            return;
+        }
+        entries.put(key, new Entry(record, nanoClock.getAsLong() + ttlNanos));
+        if (entries.size() > maxSize && evicting.compareAndSet(false, true)) {
+            try {
+                evict();
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = nanoClock.getAsLong();
+        entries.values().removeIf(entry -> now - entry.expiresAt() > 0);
+        int target = maxSize - maxSize / 10;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
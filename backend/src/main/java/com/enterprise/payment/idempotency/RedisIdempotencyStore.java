@@ -0,0 +1,97 @@
+package com.enterprise.payment.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Idempotency records as JSON strings in Redis. Claims are {@code SET NX PX}; completing and
+ * releasing compare the stored value with the caller's claim in a script, so a caller whose
+ * claim expired cannot overwrite or delete another caller's record.
+ */
+@Slf4j
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    static final String KEY_PREFIX = "idempotency:";
+
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current == false or current == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    public RedisIdempotencyStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public IdempotencyRecord claim(String key, IdempotencyRecord inProgress, Duration lockTimeout) {
+        String value = write(inProgress);
+        while (true) {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, value, lockTimeout))) {
+                return null;
+            }
+            IdempotencyRecord existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            // Expired between SET NX and GET; try to claim again
+        }
+    }
+
+    @Override
+    public IdempotencyRecord get(String key) {
+        String value = redisTemplate.opsForValue().get(KEY_PREFIX + key);
+        return value != null ? read(value) : null;
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord inProgress, IdempotencyRecord completed, Duration ttl) {
+        Long stored = redisTemplate.execute(COMPLETE_SCRIPT, List.of(KEY_PREFIX + key), write(inProgress),
+                write(completed), String.valueOf(ttl.toMillis()));
+        if (!Long.valueOf(1).equals(stored)) {
+            log.warn("Idempotency key {} was claimed by another request before this one completed", key);
+        }
+    }
+
+    @Override
+    public void release(String key, IdempotencyRecord inProgress) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + key), write(inProgress));
+    }
+
+    private String write(IdempotencyRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Idempotency record is not serializable", e);
+        }
+    }
+
+    private IdempotencyRecord read(String value) {
+        try {
+            return objectMapper.readValue(value, IdempotencyRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable idempotency record", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.enterprise.payment.monitoring;
+
+import io.micrometer.tracing.BaggageInScope;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Establishes the request correlation id.
+ *
+ * Takes {@code X-Correlation-ID} from the caller (or generates one), echoes it on the response,
+ * exposes it through the MDC for logs and audit rows, and puts it into tracing baggage so it
+ * follows the trace across executors, outbound HTTP calls and RabbitMQ messages. Runs right
+ * after the server observation filter so the request span already exists.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String CORRELATION_ID_HEADER = "X-Correlation-ID";
+    public static final String CORRELATION_ID_MDC_KEY = "correlationId";
+
+    private static final Pattern VALID_CORRELATION_ID = Pattern.compile("[A-Za-z0-9._:-]{1,100}");
+
+    private final PaymentTracing paymentTracing;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String correlationId = resolveCorrelationId(request.getHeader(CORRELATION_ID_HEADER));
+        response.setHeader(CORRELATION_ID_HEADER, correlationId);
+
+        MDC.put(CORRELATION_ID_MDC_KEY, correlationId);
+        try (BaggageInScope ignored = paymentTracing.tracer()
+                .createBaggageInScope(PaymentTracing.CORRELATION_ID_BAGGAGE, correlationId)) {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CORRELATION_ID_MDC_KEY);
+        }
+    }
+
+    private String resolveCorrelationId(String header) {
+        if (header != null && VALID_CORRELATION_ID.matcher(header).matches()) {
+            return header;
+        }
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.enterprise.payment.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts a service entry point, or every public method of a service, into
+ * {@link ServiceInstrumentationAspect} timing and error counting
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Instrumented {
+
+    /**
+     * Publish a percentile histogram for the method's timer; each one adds a few dozen
+     * time series per instance, so keep it to the few methods whose latency is alerted on
+     */
+    boolean percentiles() default false;
+}
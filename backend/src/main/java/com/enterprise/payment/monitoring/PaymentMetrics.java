@@ -0,0 +1,418 @@
+package com.enterprise.payment.monitoring;
+
+import com.enterprise.payment.entity.Payment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Business and hot-path meters for the payment system.
+ *
+ * Every meter is registered once at startup with a fixed tag set, so recording on the
+ * hot path is a map lookup plus an atomic add. Currencies outside {@link #TRACKED_CURRENCIES}
+ * are folded into {@code OTHER} to keep the number of time series bounded.
+ */
+@Component
+public class PaymentMetrics {
+
+    public static final List<String> TRACKED_CURRENCIES = List.of("USD", "EUR", "GBP", "CAD", "AUD", "JPY", "INR");
+    public static final String OTHER_CURRENCY = "OTHER";
+
+    public enum GatewayOperation { PROCESS, REFUND, BATCH }
+
+    public enum GatewayOutcome { SUCCESS, DECLINED, ERROR }
+
+    public enum FailureReason { RISK_REJECTED, GATEWAY_DECLINED, PROCESSING_ERROR }
+
+    public enum BalanceOperation { DEBIT, CREDIT }
+
+    public enum IdempotencyOutcome {
+        /** First request with the key; the operation ran */
+        EXECUTED,
+        /** A stored response was returned */
+        REPLAYED,
+        /** The key was reused with a different request */
+        MISMATCH,
+        /** The first request was still running when the duplicate gave up waiting */
+        IN_PROGRESS,
+        /** The shared store could not be reached; only in-process deduplication applied */
+        STORE_UNAVAILABLE
+    }
+
+    public enum ReadRoute {
+        /** Served by a read replica */
+        REPLICA,
+        /** No replica had caught up with the caller's last write */
+        READ_YOUR_WRITES,
+        /** Every replica was down or further behind than the allowed lag */
+        REPLICAS_BEHIND,
+        /** The chosen replica refused a connection */
+        REPLICA_FAILED
+    }
+
+    public enum Detokenization {
+        /** Served from the in-memory cache */
+        CACHE,
+        /** Read from the vault and decrypted */
+        VAULT,
+        /** No such token */
+        UNKNOWN_TOKEN
+    }
+
+    public enum RefreshOutcome {
+        /** Rotated into a new token */
+        ROTATED,
+        /** Unknown, expired or revoked token, or inactive user */
+        REJECTED,
+        /** A rotated-out token was presented again; its family was revoked */
+        REUSED
+    }
+
+    private final Map<Payment.PaymentStatus, Map<String, Counter>> createdCounters;
+    private final Map<Payment.PaymentStatus, Map<String, Counter>> processedCounters;
+    private final Map<FailureReason, Map<String, Counter>> failedCounters;
+    private final Map<GatewayOperation, Map<GatewayOutcome, Timer>> gatewayTimers;
+    private final Map<String, Map<GatewayOutcome, Timer>> connectorTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> hedgeCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final Map<BalanceOperation, Counter> balanceContentionCounters;
+    private final DistributionSummary riskScores;
+    private final DistributionSummary gatewayBatchSizes;
+    private final Timer webhookDeliveryLag;
+    private final Map<IdempotencyOutcome, Counter> idempotencyCounters;
+    private final Timer idempotencyOverhead;
+    private final AtomicInteger inFlightAuditWrites = new AtomicInteger();
+    private final Map<ReadRoute, Counter> readRouteCounters;
+    private final Map<Detokenization, Counter> detokenizationCounters;
+    private final Counter expiredPayments;
+    private final Timer expirySweeps;
+    private final Map<RefreshOutcome, Timer> refreshTimers;
+
+    public PaymentMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.createdCounters = statusCurrencyCounters(registry, "payments.created",
+                "Payments created, by initial status and currency");
+        this.processedCounters = statusCurrencyCounters(registry, "payments.processed",
+                "Payments that finished gateway processing, by final status and currency");
+
+        this.failedCounters = new EnumMap<>(FailureReason.class);
+        for (FailureReason reason : FailureReason.values()) {
+            Map<String, Counter> byCurrency = new HashMap<>();
+            for (String currency : currencyTags()) {
+                byCurrency.put(currency, Counter.builder("payments.failed")
+                        .description("Payments moved to FAILED, by failure reason and currency")
+                        .tag("reason", reason.name().toLowerCase())
+                        .tag("currency", currency)
+                        .register(registry));
+            }
+            failedCounters.put(reason, byCurrency);
+        }
+
+        this.gatewayTimers = new EnumMap<>(GatewayOperation.class);
+        for (GatewayOperation operation : GatewayOperation.values()) {
+            Map<GatewayOutcome, Timer> byOutcome = new EnumMap<>(GatewayOutcome.class);
+            for (GatewayOutcome outcome : GatewayOutcome.values()) {
+                byOutcome.put(outcome, Timer.builder("payment.gateway.latency")
+                        .description("Round-trip latency of payment gateway calls")
+                        .tag("operation", operation.name().toLowerCase())
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(5))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry));
+            }
+            gatewayTimers.put(operation, byOutcome);
+        }
+
+        this.balanceContentionCounters = new EnumMap<>(BalanceOperation.class);
+        for (BalanceOperation operation : BalanceOperation.values()) {
+            balanceContentionCounters.put(operation, Counter.builder("payment.balance.update.contention")
+                    .description("Account balance updates that lost a concurrent-write race and must be retried")
+                    .tag("operation", operation.name().toLowerCase())
+                    .register(registry));
+        }
+
+        this.riskScores = DistributionSummary.builder("payment.risk.score")
+                .description("Distribution of assessed payment risk scores (0-100)")
+                .serviceLevelObjectives(10, 20, 30, 40, 50, 60, 70, 80, 90, 100)
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(100.0)
+                .register(registry);
+
+        this.gatewayBatchSizes = DistributionSummary.builder("payment.gateway.batch.size")
+                .description("Payments per micro-batch submitted to a gateway")
+                .serviceLevelObjectives(1, 10, 25, 50, 100, 250, 500)
+                .register(registry);
+
+        this.webhookDeliveryLag = Timer.builder("payment.webhook.delivery.lag")
+                .description("Time from a payment event being raised to its webhook delivery being recorded")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(30))
+                .register(registry);
+
+        this.idempotencyCounters = new EnumMap<>(IdempotencyOutcome.class);
+        for (IdempotencyOutcome outcome : IdempotencyOutcome.values()) {
+            idempotencyCounters.put(outcome, Counter.builder("payment.idempotency.requests")
+                    .description("Requests carrying an Idempotency-Key, by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(registry));
+        }
+        this.idempotencyOverhead = Timer.builder("payment.idempotency.overhead")
+                .description("Time spent in idempotency key lookup and bookkeeping, excluding the operation itself")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(registry);
+
+        this.readRouteCounters = new EnumMap<>(ReadRoute.class);
+        for (ReadRoute route : ReadRoute.values()) {
+            readRouteCounters.put(route, Counter.builder("payment.datasource.reads")
+                    .description("Read-only transactions, by where they were routed and why")
+                    .tag("route", route.name().toLowerCase())
+                    .register(registry));
+        }
+
+        this.detokenizationCounters = new EnumMap<>(Detokenization.class);
+        for (Detokenization source : Detokenization.values()) {
+            detokenizationCounters.put(source, Counter.builder("payment.tokenization.detokenized")
+                    .description("Card tokens resolved to card numbers, by where the number came from")
+                    .tag("source", source.name().toLowerCase())
+                    .register(registry));
+        }
+
+        this.expiredPayments = Counter.builder("payments.expired")
+                .description("PENDING payments cancelled by the expiry sweep")
+                .register(registry);
+        this.expirySweeps = Timer.builder("payment.expiry.sweep")
+                .description("Time taken by an expiry sweep, all of its batches")
+                .register(registry);
+
+        this.refreshTimers = new EnumMap<>(RefreshOutcome.class);
+        for (RefreshOutcome outcome : RefreshOutcome.values()) {
+            refreshTimers.put(outcome, Timer.builder("payment.auth.refresh")
+                    .description("Refresh token exchanges, by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100_000))
+                    .maximumExpectedValue(Duration.ofSeconds(5))
+                    .register(registry));
+        }
+
+        Gauge.builder("payment.audit.writes.in-flight", inFlightAuditWrites, AtomicInteger::get)
+                .description("Audit log entries being saved by the request threads that wrote them")
+                .register(registry);
+    }
+
+    /**
+     * Record a newly created payment
+     */
+    public void paymentCreated(Payment.PaymentStatus status, String currencyCode) {
+        createdCounters.get(status).get(currencyTag(currencyCode)).increment();
+    }
+
+    /**
+     * Record the final status of a payment after gateway processing
+     */
+    public void paymentProcessed(Payment.PaymentStatus status, String currencyCode) {
+        processedCounters.get(status).get(currencyTag(currencyCode)).increment();
+    }
+
+    /**
+     * Record a payment moved to FAILED
+     */
+    public void paymentFailed(FailureReason reason, String currencyCode) {
+        failedCounters.get(reason).get(currencyTag(currencyCode)).increment();
+    }
+
+    /**
+     * Record the latency of a gateway call
+     */
+    public void recordGatewayLatency(GatewayOperation operation, GatewayOutcome outcome, long elapsedNanos) {
+        gatewayTimers.get(operation).get(outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the size of a micro-batch submitted to a gateway; its latency goes to
+     * {@link #recordGatewayLatency} with {@link GatewayOperation#BATCH}
+     */
+    public void recordGatewayBatch(int size) {
+        gatewayBatchSizes.record(size);
+    }
+
+    /**
+     * Register the meters of a gateway connector; called once per connector when the router
+     * is built, so the per-call methods below stay lookups
+     */
+    public void registerGatewayConnector(String connector) {
+        Map<GatewayOutcome, Timer> byOutcome = new EnumMap<>(GatewayOutcome.class);
+        for (GatewayOutcome outcome : GatewayOutcome.values()) {
+            byOutcome.put(outcome, Timer.builder("payment.gateway.connector.latency")
+                    .description("Latency of individual gateway connector attempts, including hedged ones")
+                    .tag("connector", connector)
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(5))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry));
+        }
+        connectorTimers.put(connector, byOutcome);
+        hedgeCounters.put(connector, Counter.builder("payment.gateway.hedged")
+                .description("Backup requests sent to this connector because the primary was slow or failed")
+                .tag("connector", connector)
+                .register(registry));
+    }
+
+    /**
+     * Record one connector attempt
+     */
+    public void recordConnectorLatency(String connector, GatewayOutcome outcome, long elapsedNanos) {
+        Map<GatewayOutcome, Timer> byOutcome = connectorTimers.get(connector);
+        if (byOutcome != null) {
+            byOutcome.get(outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record a hedged (backup) request sent to the given connector
+     */
+    public void gatewayHedged(String connector) {
+        Counter counter = hedgeCounters.get(connector);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Record an assessed risk score
+     */
+    public void recordRiskScore(BigDecimal riskScore) {
+        if (riskScore != null) {
+            riskScores.record(riskScore.doubleValue());
+        }
+    }
+
+    /**
+     * Record a balance update rejected because of concurrent modification
+     */
+    public void balanceUpdateContention(BalanceOperation operation) {
+        balanceContentionCounters.get(operation).increment();
+    }
+
+    /**
+     * Record the lag between a payment event and its webhook delivery
+     */
+    public void recordWebhookDeliveryLag(long elapsedNanos) {
+        webhookDeliveryLag.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record how a request carrying an Idempotency-Key was handled
+     */
+    public void idempotentRequest(IdempotencyOutcome outcome) {
+        idempotencyCounters.get(outcome).increment();
+    }
+
+    /**
+     * Record the time idempotency handling added to a request
+     */
+    public void recordIdempotencyOverhead(long elapsedNanos) {
+        idempotencyOverhead.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Mark the start of a synchronous audit log save
+     */
+    public void auditWriteStarted() {
+        inFlightAuditWrites.incrementAndGet();
+    }
+
+    /**
+     * Mark the end of a synchronous audit log save, saved or not
+     */
+    public void auditWriteFinished() {
+        inFlightAuditWrites.decrementAndGet();
+    }
+
+    /**
+     * Register the replication lag gauge of a read replica
+     */
+    public <T> void registerReadReplica(String replica, T state, ToDoubleFunction<T> lagSeconds) {
+        Gauge.builder("payment.datasource.replica.lag", state, lagSeconds)
+                .description("Replication lag of a read replica at its last check")
+                .tag("replica", replica)
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Record where a read-only transaction was routed
+     */
+    public void readRouted(ReadRoute route) {
+        readRouteCounters.get(route).increment();
+    }
+
+    /**
+     * Record a detokenization
+     */
+    public void detokenized(Detokenization source) {
+        detokenizationCounters.get(source).increment();
+    }
+
+    /**
+     * Record an expiry sweep and the payments it cancelled
+     */
+    public void expirySwept(int expired, long elapsedNanos) {
+        expiredPayments.increment(expired);
+        expirySweeps.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a refresh token exchange
+     */
+    public void recordRefresh(RefreshOutcome outcome, long elapsedNanos) {
+        refreshTimers.get(outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    static String currencyTag(String currencyCode) {
+        return currencyCode != null && TRACKED_CURRENCIES.contains(currencyCode) ? currencyCode : OTHER_CURRENCY;
+    }
+
+    private static List<String> currencyTags() {
+        List<String> tags = new ArrayList<>(TRACKED_CURRENCIES);
+        tags.add(OTHER_CURRENCY);
+        return tags;
+    }
+
+    private static Map<Payment.PaymentStatus, Map<String, Counter>> statusCurrencyCounters(
+            MeterRegistry registry, String name, String description) {
+        Map<Payment.PaymentStatus, Map<String, Counter>> counters = new EnumMap<>(Payment.PaymentStatus.class);
+        for (Payment.PaymentStatus status : Payment.PaymentStatus.values()) {
+            Map<String, Counter> byCurrency = new HashMap<>();
+            for (String currency : currencyTags()) {
+                byCurrency.put(currency, Counter.builder(name)
+                        .description(description)
+                        .tag("status", status.name().toLowerCase())
+                        .tag("currency", currency)
+                        .register(registry));
+            }
+            counters.put(status, byCurrency);
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,69 @@
+package com.enterprise.payment.monitoring;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Thin wrapper over Micrometer {@link Tracer} for spans around external and expensive calls
+ * (gateway, risk scoring, webhooks). Spans carry the payment reference so slow traces can be
+ * looked up by the reference a merchant reports.
+ *
+ * Falls back to {@link Tracer#NOOP} when tracing is disabled.
+ */
+@Component
+public class PaymentTracing {
+
+    public static final String PAYMENT_REFERENCE_TAG = "payment.reference";
+    public static final String CORRELATION_ID_BAGGAGE = "correlationId";
+
+    private final Tracer tracer;
+
+    public PaymentTracing(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+    }
+
+    /**
+     * Run {@code work} inside a child span of the current trace
+     */
+    public <T> T inSpan(String spanName, String paymentReference, Supplier<T> work) {
+        Span span = tracer.nextSpan().name(spanName);
+        if (paymentReference != null) {
+            span.tag(PAYMENT_REFERENCE_TAG, paymentReference);
+        }
+        span.start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return work.get();
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Tag the current span (usually the inbound HTTP request) with the payment reference
+     */
+    public void tagPaymentReference(String paymentReference) {
+        Span current = tracer.currentSpan();
+        if (current != null && paymentReference != null) {
+            current.tag(PAYMENT_REFERENCE_TAG, paymentReference);
+        }
+    }
+
+    /**
+     * Whether the current trace is sampled, i.e. its spans will be exported
+     */
+    public boolean isSampled() {
+        Span current = tracer.currentSpan();
+        return current != null && Boolean.TRUE.equals(current.context().sampled());
+    }
+
+    Tracer tracer() {
+        return tracer;
+    }
+}
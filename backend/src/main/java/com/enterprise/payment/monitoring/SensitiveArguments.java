@@ -0,0 +1,17 @@
+package com.enterprise.payment.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service whose method arguments and results must never be written to trace logs
+ * by {@link ServiceInstrumentationAspect} (credentials, key material, card data)
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SensitiveArguments {
+}
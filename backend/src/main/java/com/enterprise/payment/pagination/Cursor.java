@@ -0,0 +1,50 @@
+package com.enterprise.payment.pagination;
+
+import com.enterprise.payment.exception.ValidationException;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by {@code (created_at, id)}, newest or oldest first: the sort
+ * key of the last row returned. Clients see it only as an opaque URL-safe token.
+ */
+public record Cursor(OffsetDateTime createdAt, long id) {
+
+    private static final byte VERSION = 1;
+    private static final int LENGTH = 1 + Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public String encode() {
+        Instant instant = createdAt.toInstant();
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .put(VERSION)
+                .putLong(instant.getEpochSecond())
+                .putInt(instant.getNano())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}; null or blank means the first page
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (bytes.length != LENGTH || buffer.get() != VERSION) {
+                throw new ValidationException("Invalid cursor");
+            }
+            Instant instant = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            return new Cursor(instant.atOffset(ZoneOffset.UTC), buffer.getLong());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new ValidationException("Invalid cursor", e);
+        }
+    }
+}
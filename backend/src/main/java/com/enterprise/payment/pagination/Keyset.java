@@ -0,0 +1,58 @@
+package com.enterprise.payment.pagination;
+
+import com.enterprise.payment.dto.response.CursorPage;
+import com.enterprise.payment.exception.ValidationException;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keyset pagination on {@code (created_at DESC, id DESC)}.
+ *
+ * Each page is one index range scan that starts right after the previous page's last row, so
+ * page 10,000 costs the same as page 1, unlike OFFSET, which reads and discards every earlier
+ * row. One extra row is fetched to tell whether another page exists, so no COUNT is needed;
+ * when a total is asked for, it is counted up to {@link #COUNT_CAP} rows only.
+ */
+public final class Keyset {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    public static final int COUNT_CAP = 10_000;
+
+    private Keyset() {
+    }
+
+    /**
+     * Rows to fetch for a page of {@code limit}: one more than requested
+     */
+    public static Limit fetchLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return Limit.of(limit + 1);
+    }
+
+    /**
+     * Build the page from rows fetched with {@link #fetchLimit}
+     */
+    public static <E, T> CursorPage<T> page(List<E> rows, int limit, Function<E, Cursor> cursorOf,
+                                            Function<E, T> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<E> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(pageRows.get(limit - 1)).encode() : null;
+        return new CursorPage<>(pageRows.stream().map(mapper).toList(), nextCursor, hasMore, null, null);
+    }
+
+    /**
+     * Add a total counted with {@code cappedCount}, which must stop at {@link #COUNT_CAP} + 1 rows
+     */
+    public static <T> CursorPage<T> withTotal(CursorPage<T> page, LongSupplier cappedCount) {
+        long count = cappedCount.getAsLong();
+        page.setTotal(Math.min(count, COUNT_CAP));
+        page.setTotalExact(count <= COUNT_CAP);
+        return page;
+    }
+}
@@ -4,6 +4,7 @@ import com.enterprise.payment.entity.Account;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -35,6 +36,26 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Query("SELECT SUM(a.balance) FROM Account a WHERE a.status = 'ACTIVE'")
     BigDecimal getTotalActiveBalance();
     
+    /**
+     * Debit the account only if its balance covers the amount, in one statement; returns 0
+     * when it does not
+     */
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, version = version + 1, updated_at = now() "
+            + "WHERE id = :id AND balance >= :amount", nativeQuery = true)
+    int debitIfSufficient(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, version = version + 1, updated_at = now() "
+            + "WHERE id = :id", nativeQuery = true)
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Current balance, read past the persistence context
+     */
+    @Query(value = "SELECT balance FROM accounts WHERE id = :id", nativeQuery = true)
+    BigDecimal findBalanceById(@Param("id") Long id);
+    
     boolean existsByAccountNumber(String accountNumber);
     
     boolean existsByEmail(String email);
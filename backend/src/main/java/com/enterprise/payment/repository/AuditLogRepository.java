@@ -1,15 +1,20 @@
 package com.enterprise.payment.repository;
 
 import com.enterprise.payment.entity.AuditLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
@@ -25,6 +30,40 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
     List<AuditLog> findByEntityTypeAndEntityId(String entityType, Long entityId);
     
     Page<AuditLog> findByEntityTypeAndEntityIdOrderByCreatedAtDesc(String entityType, Long entityId, Pageable pageable);
+
+    // Keyset pages of an entity's audit trail, newest first
+
+    @Query("SELECT al FROM AuditLog al WHERE al.entityType = :entityType AND al.entityId = :entityId " +
+           "ORDER BY al.createdAt DESC, al.id DESC")
+    List<AuditLog> findKeysetByEntity(@Param("entityType") String entityType, @Param("entityId") Long entityId,
+                                      Limit limit);
+
+    @Query("SELECT al FROM AuditLog al WHERE al.entityType = :entityType AND al.entityId = :entityId " +
+           "AND al.createdAt <= :createdAt AND (al.createdAt < :createdAt OR al.id < :id) " +
+           "ORDER BY al.createdAt DESC, al.id DESC")
+    List<AuditLog> findKeysetByEntityAfter(@Param("entityType") String entityType, @Param("entityId") Long entityId,
+                                           @Param("createdAt") OffsetDateTime createdAt, @Param("id") Long id,
+                                           Limit limit);
+
+    // Export stream, oldest first: rows created before :endDate that follow the (createdAt, id) cursor.
+    // Read through a JDBC cursor 1000 rows at a time and not tracked for dirty checking.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT al FROM AuditLog al WHERE al.createdAt < :endDate " +
+           "AND al.createdAt >= :createdAt AND (al.createdAt > :createdAt OR al.id > :id) " +
+           "ORDER BY al.createdAt, al.id")
+    Stream<AuditLog> streamForExport(@Param("createdAt") OffsetDateTime createdAt, @Param("id") Long id,
+                                     @Param("endDate") OffsetDateTime endDate);
+
+    // The cursor of a date range listing only ever narrows the upper bound
+    @Query("SELECT al FROM AuditLog al WHERE al.createdAt >= :startDate " +
+           "AND al.createdAt <= :createdAt AND (al.createdAt < :createdAt OR al.id < :id) " +
+           "ORDER BY al.createdAt DESC, al.id DESC")
+    List<AuditLog> findKeysetByDateRange(@Param("startDate") OffsetDateTime startDate,
+                                         @Param("createdAt") OffsetDateTime createdAt, @Param("id") Long id,
+                                         Limit limit);
     
     List<AuditLog> findByCorrelationId(String correlationId);
     
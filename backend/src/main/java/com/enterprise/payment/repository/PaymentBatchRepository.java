@@ -0,0 +1,347 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.entity.Payment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based JDBC writes for micro-batched payment processing and the expiry sweep. Each method
+ * is a fixed number of round trips regardless of batch size; callers provide the transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentBatchRepository {
+
+    private static final String CLAIM_SQL = """
+            WITH claimed AS (
+                UPDATE payments SET status = 'PROCESSING', claimed_at = now(), updated_at = now()
+                WHERE id = ANY(?) AND status = 'PENDING' AND (expires_at IS NULL OR expires_at > now())
+                RETURNING id, account_id, payment_reference, amount, currency_code
+            ), history AS (
+                INSERT INTO payment_status_history (payment_id, from_status, to_status, reason, changed_by, changed_at)
+                SELECT id, 'PENDING'::payment_status, 'PROCESSING'::payment_status, 'Batch processing started', ?, now()
+                FROM claimed
+            )
+            SELECT id, account_id, payment_reference, amount, currency_code
+            FROM claimed
+            ORDER BY id
+            """;
+
+    // Walks idx_payments_processing_claimed_at; taking a claim renews its lease, so nodes
+    // reconciling at the same time skip each other's payments
+    private static final String RECLAIM_SQL = """
+            WITH stale AS (
+                SELECT id FROM payments
+                WHERE status = 'PROCESSING' AND claimed_at < ?
+                ORDER BY claimed_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE payments p SET claimed_at = now()
+            FROM stale WHERE p.id = stale.id
+            RETURNING p.id, p.account_id, p.payment_reference, p.amount, p.currency_code
+            """;
+
+    // In id order, so batches sharing accounts lock them in the same order and cannot deadlock
+    private static final String LOCK_ACCOUNTS_SQL =
+            "SELECT id, balance FROM accounts WHERE id = ANY(?) ORDER BY id FOR UPDATE";
+
+    private static final String RESERVE_SQL = """
+            UPDATE accounts SET balance = balance - ?, version = version + 1, updated_at = now()
+            WHERE id = ? AND balance >= ?
+            """;
+
+    private static final String RELEASE_SQL =
+            "UPDATE accounts SET balance = balance + ?, version = version + 1, updated_at = now() WHERE id = ?";
+
+    private static final String SETTLE_PAYMENT_SQL = """
+            UPDATE payments SET status = CAST(? AS payment_status), processed_at = ?, updated_at = now()
+            WHERE id = ? AND status = 'PROCESSING'
+            """;
+
+    private static final String INSERT_HISTORY_SQL = """
+            INSERT INTO payment_status_history (payment_id, from_status, to_status, reason, changed_by, changed_at)
+            VALUES (?, 'PROCESSING', CAST(? AS payment_status), ?, ?, now())
+            """;
+
+    private static final String INSERT_AUDIT_SQL = """
+            INSERT INTO audit_logs (entity_type, entity_id, action, new_values, correlation_id)
+            VALUES ('PAYMENT', ?, ?, CAST(? AS jsonb), ?)
+            """;
+
+    private static final String PENDING_BATCH_ELIGIBLE_SQL = """
+            SELECT id, account_id, payment_reference, amount, currency_code
+            FROM payments
+            WHERE batch_eligible AND status = 'PENDING' AND (expires_at IS NULL OR expires_at > now())
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    // Walks idx_payments_pending_expires in (expires_at, id) order; rows locked by a concurrent
+    // sweep or a status change are skipped rather than waited for
+    private static final String EXPIRE_SQL = """
+            WITH batch AS (
+                SELECT id FROM payments
+                WHERE status = 'PENDING' AND %s
+                ORDER BY expires_at, id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ), expired AS (
+                UPDATE payments p SET status = 'CANCELLED', updated_at = now()
+                FROM batch WHERE p.id = batch.id
+                RETURNING p.id, p.account_id, p.payment_reference, p.amount, p.currency_code, p.expires_at
+            ), history AS (
+                INSERT INTO payment_status_history (payment_id, from_status, to_status, reason, changed_by, changed_at)
+                SELECT id, 'PENDING'::payment_status, 'CANCELLED'::payment_status, 'Payment expired', ?, now()
+                FROM expired
+            ), audit AS (
+                INSERT INTO audit_logs (entity_type, entity_id, action, new_values, correlation_id)
+                SELECT 'PAYMENT', id, 'PAYMENT_EXPIRED', jsonb_build_object('expiresAt', expires_at), ?
+                FROM expired
+            )
+            SELECT id, account_id, payment_reference, amount, currency_code, expires_at
+            FROM expired
+            ORDER BY expires_at, id
+            """;
+
+    private static final String EXPIRE_FIRST_SQL = EXPIRE_SQL.formatted("expires_at < ?");
+
+    private static final String EXPIRE_AFTER_SQL =
+            EXPIRE_SQL.formatted("expires_at < ? AND expires_at >= ? AND (expires_at > ? OR id > ?)");
+
+    private static final String EXPIRE_DUE_SQL = EXPIRE_SQL.formatted("id = ANY(?) AND expires_at <= now()");
+
+    private static final RowMapper<ExpiredPayment> EXPIRED_PAYMENT = (rs, rowNum) -> new ExpiredPayment(
+            rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getBigDecimal(4), rs.getString(5),
+            rs.getObject(6, OffsetDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * A payment of a micro-batch
+     */
+    public record BatchPayment(long id, long accountId, String paymentReference, BigDecimal amount,
+                               String currencyCode) {
+    }
+
+    /**
+     * Final state of one claimed payment
+     */
+    public record Settlement(BatchPayment payment, Payment.PaymentStatus status, String reason,
+                             String auditAction, Map<String, Object> auditValues) {
+    }
+
+    /**
+     * A PENDING payment cancelled by {@link #expirePending}
+     */
+    public record ExpiredPayment(long id, long accountId, String paymentReference, BigDecimal amount,
+                                 String currencyCode, OffsetDateTime expiresAt) {
+    }
+
+    /**
+     * Cancel up to {@code limit} PENDING payments that expired before {@code cutoff}, in
+     * expiry order after {@code after} (from the first when null), recording the status
+     * history and an audit entry of each, in one statement. Returns them in the same order,
+     * so the last one is the cursor of the next batch.
+     */
+    public List<ExpiredPayment> expirePending(OffsetDateTime cutoff, ExpiredPayment after, int limit,
+                                              String changedBy, String correlationId) {
+        if (after == null) {
+            return jdbcTemplate.query(EXPIRE_FIRST_SQL, EXPIRED_PAYMENT, cutoff, limit, changedBy, correlationId);
+        }
+        return jdbcTemplate.query(EXPIRE_AFTER_SQL, EXPIRED_PAYMENT, cutoff, after.expiresAt(), after.expiresAt(),
+                after.id(), limit, changedBy, correlationId);
+    }
+
+    /**
+     * Cancel those of the given payments that are still PENDING and past their expiry, like
+     * {@link #expirePending}; the rest are left alone
+     */
+    public List<ExpiredPayment> expireDue(Collection<Long> paymentIds, String changedBy, String correlationId) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPIRE_DUE_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", paymentIds.toArray()));
+            statement.setInt(2, paymentIds.size());
+            statement.setString(3, changedBy);
+            statement.setString(4, correlationId);
+            return statement;
+        }, EXPIRED_PAYMENT);
+    }
+
+    /**
+     * Move the given payments that are still PENDING and unexpired to PROCESSING and record
+     * the transition, in one statement. Payments taken by someone else are skipped.
+     */
+    public List<BatchPayment> claimPending(Collection<Long> paymentIds, String changedBy) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CLAIM_SQL);
+            Array ids = connection.createArrayOf("bigint", paymentIds.toArray());
+            statement.setArray(1, ids);
+            statement.setString(2, changedBy);
+            return statement;
+        }, (rs, rowNum) -> batchPayment(rs));
+    }
+
+    /**
+     * Take over up to {@code limit} payments claimed before {@code cutoff}, by a batch or on
+     * their own, and still PROCESSING, renewing their lease. Their amounts are reserved; their gateway outcome is
+     * unknown.
+     */
+    public List<BatchPayment> reclaimStale(OffsetDateTime cutoff, int limit) {
+        return jdbcTemplate.query(RECLAIM_SQL, (rs, rowNum) -> batchPayment(rs), cutoff, limit);
+    }
+
+    /**
+     * Reserve the amounts of claimed payments, in claim order, by debiting their accounts
+     * before the gateway call. The account rows stay locked until the caller's transaction
+     * ends, so the balances checked are the ones debited. Returns the payments their account
+     * could not cover, which are left unreserved.
+     */
+    public List<BatchPayment> reserve(List<BatchPayment> payments) {
+        Map<Long, BigDecimal> available = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_ACCOUNTS_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint",
+                    payments.stream().map(BatchPayment::accountId).distinct().toArray()));
+            return statement;
+        }, rs -> {
+            available.put(rs.getLong(1), rs.getBigDecimal(2));
+        });
+
+        List<BatchPayment> unreserved = new ArrayList<>();
+        Map<Long, BigDecimal> debits = new LinkedHashMap<>();
+        for (BatchPayment payment : payments) {
+            BigDecimal balance = available.get(payment.accountId());
+            if (balance.compareTo(payment.amount()) < 0) {
+                unreserved.add(payment);
+            } else {
+                available.put(payment.accountId(), balance.subtract(payment.amount()));
+                debits.merge(payment.accountId(), payment.amount(), BigDecimal::add);
+            }
+        }
+        if (!debits.isEmpty()) {
+            List<Map.Entry<Long, BigDecimal>> entries = new ArrayList<>(debits.entrySet());
+            int[][] debited = jdbcTemplate.batchUpdate(RESERVE_SQL, entries, entries.size(), (ps, debit) -> {
+                ps.setBigDecimal(1, debit.getValue());
+                ps.setLong(2, debit.getKey());
+                ps.setBigDecimal(3, debit.getValue());
+            });
+            for (int count : debited[0]) {
+                if (count == 0) {
+                    throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(RESERVE_SQL, 1, 0);
+                }
+            }
+        }
+        return unreserved;
+    }
+
+    /**
+     * Apply the settlements of reserved payments as batched statements: payment status,
+     * status history, audit entries and, for FAILED ones, the release of their reservation in
+     * one credit per account. Returns the settlements that were applied; a payment that left
+     * PROCESSING meanwhile is skipped and its reservation left alone.
+     */
+    public List<Settlement> settle(List<Settlement> settlements, String changedBy, String correlationId) {
+        List<Settlement> applied = apply(settlements, changedBy, correlationId);
+        Map<Long, BigDecimal> releases = new LinkedHashMap<>();
+        for (Settlement settlement : applied) {
+            if (settlement.status() == Payment.PaymentStatus.FAILED) {
+                releases.merge(settlement.payment().accountId(), settlement.payment().amount(), BigDecimal::add);
+            }
+        }
+        if (!releases.isEmpty()) {
+            List<Map.Entry<Long, BigDecimal>> entries = new ArrayList<>(releases.entrySet());
+            jdbcTemplate.batchUpdate(RELEASE_SQL, entries, entries.size(), (ps, release) -> {
+                ps.setBigDecimal(1, release.getValue());
+                ps.setLong(2, release.getKey());
+            });
+        }
+        return applied;
+    }
+
+    /**
+     * Apply the settlements of payments that were never reserved, like {@link #settle} but
+     * leaving balances alone
+     */
+    public List<Settlement> reject(List<Settlement> settlements, String changedBy, String correlationId) {
+        return apply(settlements, changedBy, correlationId);
+    }
+
+    private List<Settlement> apply(List<Settlement> settlements, String changedBy, String correlationId) {
+        if (settlements.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.from(OffsetDateTime.now().toInstant());
+        int[][] updated = jdbcTemplate.batchUpdate(SETTLE_PAYMENT_SQL, settlements, settlements.size(),
+                (ps, settlement) -> {
+                    ps.setString(1, settlement.status().name());
+                    ps.setTimestamp(2, settlement.status() == Payment.PaymentStatus.COMPLETED ? now : null);
+                    ps.setLong(3, settlement.payment().id());
+                });
+
+        List<Settlement> applied = new ArrayList<>(settlements.size());
+        for (int i = 0; i < settlements.size(); i++) {
+            // The driver may report SUCCESS_NO_INFO (-2) for batched statements
+            if (updated[0][i] != 0) {
+                applied.add(settlements.get(i));
+            }
+        }
+        if (applied.isEmpty()) {
+            return applied;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, applied, applied.size(), (ps, settlement) -> {
+            ps.setLong(1, settlement.payment().id());
+            ps.setString(2, settlement.status().name());
+            ps.setString(3, settlement.reason());
+            ps.setString(4, changedBy);
+        });
+        jdbcTemplate.batchUpdate(INSERT_AUDIT_SQL, applied, applied.size(), (ps, settlement) -> {
+            ps.setLong(1, settlement.payment().id());
+            ps.setString(2, settlement.auditAction());
+            ps.setString(3, toJson(settlement.auditValues()));
+            ps.setString(4, correlationId);
+        });
+        return applied;
+    }
+
+    /**
+     * Batch-eligible payments still waiting for submission, oldest first
+     */
+    public List<BatchPayment> findPendingBatchEligible(int limit) {
+        return jdbcTemplate.query(PENDING_BATCH_ELIGIBLE_SQL, (rs, rowNum) -> batchPayment(rs), limit);
+    }
+
+    private static BatchPayment batchPayment(ResultSet rs) throws SQLException {
+        return new BatchPayment(rs.getLong("id"), rs.getLong("account_id"), rs.getString("payment_reference"),
+                rs.getBigDecimal("amount"), rs.getString("currency_code"));
+    }
+
+    private String toJson(Map<String, Object> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Audit values are not serializable", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.entity.Payment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch inserts for bulk payment creation. Payment ids are allocated up front from
+ * {@code payments_id_seq}, so history and audit rows can reference them without reading
+ * generated keys back; callers provide the transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentBulkRepository {
+
+    /** Must match the INCREMENT BY of payments_id_seq (V4) and the allocationSize of {@link Payment}'s id */
+    public static final int PAYMENT_ID_BLOCK = 50;
+
+    private static final String NEXT_PAYMENT_ID_BLOCKS_SQL =
+            "SELECT nextval('payments_id_seq') FROM generate_series(1, ?)";
+
+    private static final String INSERT_PAYMENT_SQL = """
+            INSERT INTO payments (id, payment_reference, account_id, payment_method_id, amount, currency_code,
+                                  description, status, merchant_reference, callback_url, success_url, failure_url,
+                                  metadata, risk_score, expires_at, batch_eligible, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, CAST(? AS payment_status), ?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_HISTORY_SQL = """
+            INSERT INTO payment_status_history (payment_id, to_status, reason, changed_by, changed_at)
+            VALUES (?, CAST(? AS payment_status), ?, ?, ?)
+            """;
+
+    private static final String INSERT_AUDIT_SQL = """
+            INSERT INTO audit_logs (entity_type, entity_id, action, new_values, correlation_id)
+            VALUES ('PAYMENT', ?, ?, CAST(? AS jsonb), ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * An audit entry of a bulk-created payment
+     */
+    public record AuditEntry(long paymentId, String action, Map<String, Object> newValues) {
+    }
+
+    /**
+     * Reserve {@code count} payment ids in one round trip: each sequence value stands for a
+     * block of {@value #PAYMENT_ID_BLOCK} ids starting at it
+     */
+    public List<Long> allocatePaymentIds(int count) {
+        int blocks = (count + PAYMENT_ID_BLOCK - 1) / PAYMENT_ID_BLOCK;
+        List<Long> starts = jdbcTemplate.queryForList(NEXT_PAYMENT_ID_BLOCKS_SQL, Long.class, blocks);
+        List<Long> ids = new ArrayList<>(count);
+        for (Long start : starts) {
+            for (int i = 0; i < PAYMENT_ID_BLOCK && ids.size() < count; i++) {
+                ids.add(start + i);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Insert payments whose id, reference and timestamps are already set
+     */
+    public void insertPayments(List<Payment> payments, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_PAYMENT_SQL, payments, batchSize, (ps, payment) -> {
+            ps.setLong(1, payment.getId());
+            ps.setString(2, payment.getPaymentReference());
+            ps.setLong(3, payment.getAccount().getId());
+            if (payment.getPaymentMethod() != null) {
+                ps.setLong(4, payment.getPaymentMethod().getId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            ps.setBigDecimal(5, payment.getAmount());
+            ps.setString(6, payment.getCurrencyCode());
+            ps.setString(7, payment.getDescription());
+            ps.setString(8, payment.getStatus().name());
+            ps.setString(9, payment.getMerchantReference());
+            ps.setString(10, payment.getCallbackUrl());
+            ps.setString(11, payment.getSuccessUrl());
+            ps.setString(12, payment.getFailureUrl());
+            ps.setString(13, payment.getMetadata() != null ? toJson(payment.getMetadata()) : null);
+            ps.setBigDecimal(14, payment.getRiskScore());
+            ps.setObject(15, payment.getExpiresAt());
+            ps.setBoolean(16, Boolean.TRUE.equals(payment.getBatchEligible()));
+            ps.setObject(17, payment.getCreatedAt());
+            ps.setObject(18, payment.getUpdatedAt());
+        });
+    }
+
+    /**
+     * Record each payment's initial status
+     */
+    public void insertStatusHistory(List<Payment> payments, String reason, String changedBy, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, payments, batchSize, (ps, payment) -> {
+            ps.setLong(1, payment.getId());
+            ps.setString(2, payment.getStatus().name());
+            ps.setString(3, reason);
+            ps.setString(4, changedBy);
+            ps.setObject(5, payment.getCreatedAt());
+        });
+    }
+
+    public void insertAuditLogs(List<AuditEntry> entries, String correlationId, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_AUDIT_SQL, entries, batchSize, (ps, entry) -> {
+            ps.setLong(1, entry.paymentId());
+            ps.setString(2, entry.action());
+            ps.setString(3, toJson(entry.newValues()));
+            ps.setString(4, correlationId);
+        });
+    }
+
+    private String toJson(Map<String, Object> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Value is not serializable to JSON", e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.enterprise.payment.entity.Account;
 import com.enterprise.payment.entity.PaymentMethod;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,6 +19,10 @@ public interface PaymentMethodRepository extends JpaRepository<PaymentMethod, Lo
 
     List<PaymentMethod> findByAccountId(Long accountId);
     
+    // PaymentMethodResponse carries an account summary: fetched with the payment method in one select
+    @EntityGraph(attributePaths = "account")
+    Optional<PaymentMethod> findWithAccountById(Long id);
+    
     Page<PaymentMethod> findByAccountIdOrderByCreatedAtDesc(Long accountId, Pageable pageable);
     
     List<PaymentMethod> findByType(PaymentMethod.PaymentMethodType type);
@@ -115,16 +120,19 @@ public interface PaymentMethodRepository extends JpaRepository<PaymentMethod, Lo
     
     boolean existsByAccountIdAndIsDefaultAndIsActive(Long accountId, Boolean isDefault, Boolean isActive);
     
+    // One probe of idx_payment_methods_account_card_fingerprint
+    boolean existsByAccountIdAndCardFingerprintAndIsActive(Long accountId, byte[] cardFingerprint, Boolean isActive);
+    
     // Additional methods needed by PaymentMethodService
     Page<PaymentMethod> findByAccountAndIsActiveOrderByCreatedAtDesc(Account account, Boolean isActive, Pageable pageable);
     
+    @EntityGraph(attributePaths = "account")
     Page<PaymentMethod> findByTypeAndIsActiveOrderByCreatedAtDesc(PaymentMethod.PaymentMethodType type, Boolean isActive, Pageable pageable);
     
-    Long countByAccountAndTypeAndIsActive(Account account, PaymentMethod.PaymentMethodType type, Boolean isActive);
-    
-    Long countByAccountAndIsActiveAndCreatedAtAfter(Account account, Boolean isActive, OffsetDateTime createdAfter);
-    
-    // Add missing method
-    @Query("SELECT COUNT(pm) FROM PaymentMethod pm WHERE pm.account = :account AND pm.isActive = :isActive")
-    Long countByAccountAndIsActive(@Param("account") Account account, @Param("isActive") Boolean isActive);
+    // Active payment methods of an account per type, and those created after :since, in one query
+    // (see GroupedCounts); no row when the account does not exist
+    @Query("SELECT pm.type, COUNT(pm.id), COUNT(pm.id) FILTER (WHERE pm.createdAt > :since) " +
+           "FROM Account a LEFT JOIN PaymentMethod pm ON pm.account = a AND pm.isActive = true " +
+           "WHERE a.id = :accountId GROUP BY pm.type")
+    List<Object[]> countActiveByTypeForAccount(@Param("accountId") Long accountId, @Param("since") OffsetDateTime since);
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.entity.Transaction;
+import com.enterprise.payment.pagination.Cursor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC read path for payment and transaction lookups that are only mapped to a response:
+ * rows go straight into immutable records, with no entity, persistence context or dirty
+ * checking snapshot behind them. JSON columns are not even selected unless asked for, and
+ * are parsed only then.
+ *
+ * Read-only transactions of the caller send these queries to a replica like any other.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentReadRepository {
+
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private static final String PAYMENT_COLUMNS = """
+            id, account_id, payment_reference, amount, currency_code, description, status, merchant_reference,
+            risk_score, processed_at, expires_at, created_at, updated_at
+            """;
+
+    private static final String ACCOUNT_ID_SQL = "SELECT id FROM accounts WHERE account_number = ?";
+
+    private static final String PAYMENT_BY_REFERENCE_SQL =
+            "SELECT " + PAYMENT_COLUMNS + ", %s FROM payments WHERE payment_reference = ?";
+
+    private static final String PAYMENT_PAGE_BY_ACCOUNT_SQL = "SELECT " + PAYMENT_COLUMNS + ", %s FROM payments "
+            + "WHERE account_id = ? ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?";
+
+    private static final String PAYMENT_COUNT_BY_ACCOUNT_SQL = "SELECT COUNT(*) FROM payments WHERE account_id = ?";
+
+    private static final String PAYMENT_KEYSET_BY_ACCOUNT_SQL = "SELECT " + PAYMENT_COLUMNS + ", %s FROM payments "
+            + "WHERE account_id = ? ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private static final String PAYMENT_KEYSET_BY_ACCOUNT_AFTER_SQL = "SELECT " + PAYMENT_COLUMNS + ", %s FROM payments "
+            + "WHERE account_id = ? AND created_at <= ? AND (created_at < ? OR id < ?) "
+            + "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private static final String TRANSACTION_BY_ID_SQL = """
+            SELECT t.id, t.transaction_reference, p.payment_reference, t.type, t.amount, t.currency_code,
+                   t.description, t.status, t.gateway_transaction_id, t.gateway_response, t.processing_fee,
+                   t.processed_at, t.created_at, t.updated_at
+            FROM transactions t JOIN payments p ON p.id = t.payment_id
+            WHERE t.id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * A payment as read for a response; {@code metadata} is null unless it was asked for
+     */
+    public record PaymentView(long id, long accountId, String paymentReference, BigDecimal amount,
+                              String currencyCode, String description, Payment.PaymentStatus status, String merchantReference,
+                              BigDecimal riskScore, OffsetDateTime processedAt, OffsetDateTime expiresAt,
+                              OffsetDateTime createdAt, OffsetDateTime updatedAt, Map<String, Object> metadata) {
+    }
+
+    /**
+     * A transaction as read for a response, with the reference of its payment
+     */
+    public record TransactionView(long id, String transactionReference, String paymentReference,
+                                  Transaction.TransactionType type, BigDecimal amount, String currencyCode,
+                                  String description, Payment.PaymentStatus status, String gatewayTransactionId,
+                                  Map<String, Object> gatewayResponse, BigDecimal processingFee,
+                                  OffsetDateTime processedAt, OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+    }
+
+    public Optional<Long> findAccountId(String accountNumber) {
+        return jdbcTemplate.query(ACCOUNT_ID_SQL, (rs, rowNum) -> rs.getLong(1), accountNumber).stream().findFirst();
+    }
+
+    public Optional<PaymentView> findPaymentByReference(String paymentReference, boolean withMetadata) {
+        return jdbcTemplate.query(paymentSql(PAYMENT_BY_REFERENCE_SQL, withMetadata), paymentView(),
+                paymentReference).stream().findFirst();
+    }
+
+    /**
+     * An OFFSET page of the account's payments, newest first; the count is skipped when the
+     * page shows there is nothing beyond it
+     */
+    public Page<PaymentView> findPaymentsByAccountId(long accountId, Pageable pageable, boolean withMetadata) {
+        List<PaymentView> payments = jdbcTemplate.query(paymentSql(PAYMENT_PAGE_BY_ACCOUNT_SQL, withMetadata),
+                paymentView(), accountId, pageable.getPageSize(), pageable.getOffset());
+        return PageableExecutionUtils.getPage(payments, pageable,
+                () -> jdbcTemplate.queryForObject(PAYMENT_COUNT_BY_ACCOUNT_SQL, Long.class, accountId));
+    }
+
+    /**
+     * A keyset page of the account's payments, newest first, starting after {@code after}
+     * (from the first one when null)
+     */
+    public List<PaymentView> findPaymentKeysetByAccountId(long accountId, Cursor after, int limit,
+                                                          boolean withMetadata) {
+        if (after == null) {
+            return jdbcTemplate.query(paymentSql(PAYMENT_KEYSET_BY_ACCOUNT_SQL, withMetadata), paymentView(),
+                    accountId, limit);
+        }
+        return jdbcTemplate.query(paymentSql(PAYMENT_KEYSET_BY_ACCOUNT_AFTER_SQL, withMetadata), paymentView(),
+                accountId, after.createdAt(), after.createdAt(), after.id(), limit);
+    }
+
+    public Optional<TransactionView> findTransactionById(long transactionId) {
+        return jdbcTemplate.query(TRANSACTION_BY_ID_SQL, (rs, rowNum) -> new TransactionView(rs.getLong(1),
+                rs.getString(2), rs.getString(3), Transaction.TransactionType.valueOf(rs.getString(4)),
+                rs.getBigDecimal(5), rs.getString(6), rs.getString(7), Payment.PaymentStatus.valueOf(rs.getString(8)),
+                rs.getString(9), parseJson(rs.getString(10)), rs.getBigDecimal(11),
+                rs.getObject(12, OffsetDateTime.class), rs.getObject(13, OffsetDateTime.class),
+                rs.getObject(14, OffsetDateTime.class)), transactionId).stream().findFirst();
+    }
+
+    private static String paymentSql(String sql, boolean withMetadata) {
+        return sql.formatted(withMetadata ? "metadata" : "NULL AS metadata");
+    }
+
+    private RowMapper<PaymentView> paymentView() {
+        return (rs, rowNum) -> new PaymentView(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getBigDecimal(4),
+                rs.getString(5), rs.getString(6), Payment.PaymentStatus.valueOf(rs.getString(7)), rs.getString(8),
+                rs.getBigDecimal(9), rs.getObject(10, OffsetDateTime.class), rs.getObject(11, OffsetDateTime.class),
+                rs.getObject(12, OffsetDateTime.class), rs.getObject(13, OffsetDateTime.class),
+                parseJson(rs.getString(14)));
+    }
+
+    private Map<String, Object> parseJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, JSON_OBJECT);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored JSON is not an object: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.enterprise.payment.repository;
 
 import com.enterprise.payment.entity.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,15 +17,73 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     Optional<Payment> findByPaymentReference(String paymentReference);
     
+    // Processing checks and debits the account balance: fetched with the payment in one select
+    @EntityGraph(attributePaths = "account")
+    Optional<Payment> findWithAccountById(Long id);
+    
     Page<Payment> findByAccountIdOrderByCreatedAtDesc(Long accountId, Pageable pageable);
     
     Page<Payment> findByStatusOrderByCreatedAtDesc(Payment.PaymentStatus status, Pageable pageable);
+
+    // Keyset pages, newest first: the first page, then the rows after a (createdAt, id) cursor
+
+    @Query("SELECT p FROM Payment p WHERE p.account.id = :accountId ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findKeysetByAccountId(@Param("accountId") Long accountId, Limit limit);
+
+    @Query("SELECT p FROM Payment p WHERE p.account.id = :accountId " +
+           "AND p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findKeysetByAccountIdAfter(@Param("accountId") Long accountId,
+                                             @Param("createdAt") OffsetDateTime createdAt,
+                                             @Param("id") Long id, Limit limit);
+
+    @Query("SELECT p FROM Payment p WHERE p.status = :status ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findKeysetByStatus(@Param("status") Payment.PaymentStatus status, Limit limit);
+
+    @Query("SELECT p FROM Payment p WHERE p.status = :status " +
+           "AND p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findKeysetByStatusAfter(@Param("status") Payment.PaymentStatus status,
+                                          @Param("createdAt") OffsetDateTime createdAt,
+                                          @Param("id") Long id, Limit limit);
+
+    @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM payments WHERE account_id = :accountId LIMIT :cap) capped",
+           nativeQuery = true)
+    long countByAccountIdUpTo(@Param("accountId") Long accountId, @Param("cap") int cap);
+
+    @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM payments WHERE status = CAST(:status AS payment_status) " +
+                   "LIMIT :cap) capped", nativeQuery = true)
+    long countByStatusUpTo(@Param("status") String status, @Param("cap") int cap);
+
+    // Export streams, oldest first: rows created before :endDate that follow the (createdAt, id) cursor.
+    // Read through a JDBC cursor 1000 rows at a time and not tracked for dirty checking.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p JOIN FETCH p.account WHERE p.createdAt < :endDate " +
+           "AND p.createdAt >= :createdAt AND (p.createdAt > :createdAt OR p.id > :id) " +
+           "ORDER BY p.createdAt, p.id")
+    Stream<Payment> streamForExport(@Param("createdAt") OffsetDateTime createdAt, @Param("id") Long id,
+                                    @Param("endDate") OffsetDateTime endDate);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p JOIN FETCH p.account WHERE p.account.id = :accountId " +
+           "AND p.createdAt < :endDate AND p.createdAt >= :createdAt AND (p.createdAt > :createdAt OR p.id > :id) " +
+           "ORDER BY p.createdAt, p.id")
+    Stream<Payment> streamForExportByAccountId(@Param("accountId") Long accountId,
+                                               @Param("createdAt") OffsetDateTime createdAt, @Param("id") Long id,
+                                               @Param("endDate") OffsetDateTime endDate);
     
     List<Payment> findByAccountIdAndStatus(Long accountId, Payment.PaymentStatus status);
     
@@ -11,13 +11,10 @@ import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    Optional<RefreshToken> findByToken(String token);
-    
     List<RefreshToken> findByUserId(Long userId);
     
     Page<RefreshToken> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
@@ -32,9 +29,6 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     @Query("SELECT rt FROM RefreshToken rt WHERE rt.user.id = :userId AND rt.isRevoked = false ORDER BY rt.createdAt DESC")
     Page<RefreshToken> findActiveByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId, Pageable pageable);
     
-    @Query("SELECT rt FROM RefreshToken rt WHERE rt.token = :token AND rt.isRevoked = false")
-    Optional<RefreshToken> findActiveByToken(@Param("token") String token);
-    
     @Query("SELECT rt FROM RefreshToken rt WHERE rt.expiresAt < :now")
     List<RefreshToken> findExpiredTokens(@Param("now") OffsetDateTime now);
     
@@ -67,10 +61,6 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     @Query("UPDATE RefreshToken rt SET rt.isRevoked = true WHERE rt.user.id = :userId AND rt.isRevoked = false")
     int revokeAllByUserId(@Param("userId") Long userId);
     
-    @Modifying
-    @Query("UPDATE RefreshToken rt SET rt.isRevoked = true WHERE rt.token = :token")
-    int revokeByToken(@Param("token") String token);
-    
     @Modifying
     @Query("UPDATE RefreshToken rt SET rt.isRevoked = true WHERE rt.expiresAt < :now AND rt.isRevoked = false")
     int revokeExpiredTokens(@Param("now") OffsetDateTime now);
@@ -111,8 +101,6 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
            "FROM RefreshToken rt")
     Object[] getTokenStatistics(@Param("now") OffsetDateTime now);
     
-    boolean existsByToken(String token);
-    
     boolean existsByUserIdAndIsRevoked(Long userId, Boolean isRevoked);
     
     // Additional methods needed by AuthenticationService
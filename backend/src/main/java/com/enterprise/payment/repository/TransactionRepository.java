@@ -2,10 +2,15 @@ package com.enterprise.payment.repository;
 
 import com.enterprise.payment.entity.Payment;
 import com.enterprise.payment.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -13,12 +18,18 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
     Optional<Transaction> findByTransactionReference(String transactionReference);
     
+    // Listings and lookups that map to TransactionResponse fetch the payment in the same select,
+    // for its reference, instead of one select per transaction
+    @EntityGraph(attributePaths = "payment")
+    Optional<Transaction> findWithPaymentById(Long id);
+    
     List<Transaction> findByPaymentId(Long paymentId);
     
     Page<Transaction> findByPaymentIdOrderByCreatedAtDesc(Long paymentId, Pageable pageable);
@@ -26,20 +37,77 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT t FROM Transaction t WHERE t.payment = :payment ORDER BY t.createdAt DESC")
     Page<Transaction> findByPaymentOrderByCreatedAtDesc(@Param("payment") com.enterprise.payment.entity.Payment payment, Pageable pageable);
     
+    @EntityGraph(attributePaths = "payment")
     @Query("SELECT t FROM Transaction t WHERE t.payment.account = :account ORDER BY t.createdAt DESC")
     Page<Transaction> findByPayment_AccountOrderByCreatedAtDesc(@Param("account") com.enterprise.payment.entity.Account account, Pageable pageable);
     
+    @EntityGraph(attributePaths = "payment")
     @Query("SELECT t FROM Transaction t WHERE t.createdAt BETWEEN :startDate AND :endDate ORDER BY t.createdAt DESC")
     Page<Transaction> findByCreatedAtBetweenOrderByCreatedAtDesc(@Param("startDate") OffsetDateTime startDate, @Param("endDate") OffsetDateTime endDate, Pageable pageable);
-    
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.payment.account = :account")
-    long countByPayment_Account(@Param("account") com.enterprise.payment.entity.Account account);
+
+    // Keyset pages, newest first: the first page, then the rows after a (createdAt, id) cursor
+
+    @Query("SELECT t FROM Transaction t WHERE t.payment.id = :paymentId ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findKeysetByPaymentId(@Param("paymentId") Long paymentId, Limit limit);
+
+    @Query("SELECT t FROM Transaction t WHERE t.payment.id = :paymentId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findKeysetByPaymentIdAfter(@Param("paymentId") Long paymentId,
+                                                 @Param("createdAt") OffsetDateTime createdAt,
+                                                 @Param("id") Long id, Limit limit);
+
+    @EntityGraph(attributePaths = "payment")
+    @Query("SELECT t FROM Transaction t WHERE t.payment.account.id = :accountId ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findKeysetByAccountId(@Param("accountId") Long accountId, Limit limit);
+
+    @EntityGraph(attributePaths = "payment")
+    @Query("SELECT t FROM Transaction t WHERE t.payment.account.id = :accountId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findKeysetByAccountIdAfter(@Param("accountId") Long accountId,
+                                                 @Param("createdAt") OffsetDateTime createdAt,
+                                                 @Param("id") Long id, Limit limit);
+
+    @EntityGraph(attributePaths = "payment")
+    @Query("SELECT t FROM Transaction t WHERE t.type = :type ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findKeysetByType(@Param("type") Transaction.TransactionType type, Limit limit);
+
+    @EntityGraph(attributePaths = "payment")
+    @Query("SELECT t FROM Transaction t WHERE t.type = :type " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findKeysetByTypeAfter(@Param("type") Transaction.TransactionType type,
+                                            @Param("createdAt") OffsetDateTime createdAt,
+                                            @Param("id") Long id, Limit limit);
+
+    // The cursor of a date range listing only ever narrows the upper bound
+    @EntityGraph(attributePaths = "payment")
+    @Query("SELECT t FROM Transaction t WHERE t.createdAt >= :startDate " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findKeysetByCreatedAtBetween(@Param("startDate") OffsetDateTime startDate,
+                                                   @Param("createdAt") OffsetDateTime createdAt,
+                                                   @Param("id") Long id, Limit limit);
+
+    // Export stream, oldest first: rows created before :endDate that follow the (createdAt, id) cursor.
+    // Read through a JDBC cursor 1000 rows at a time and not tracked for dirty checking.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.payment WHERE t.createdAt < :endDate " +
+           "AND t.createdAt >= :createdAt AND (t.createdAt > :createdAt OR t.id > :id) " +
+           "ORDER BY t.createdAt, t.id")
+    Stream<Transaction> streamForExport(@Param("createdAt") OffsetDateTime createdAt, @Param("id") Long id,
+                                        @Param("endDate") OffsetDateTime endDate);
     
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.createdAt BETWEEN :startDate AND :endDate")
     long countByCreatedAtBetween(@Param("startDate") OffsetDateTime startDate, @Param("endDate") OffsetDateTime endDate);
     
     List<Transaction> findByType(Transaction.TransactionType type);
     
+    @EntityGraph(attributePaths = "payment")
     Page<Transaction> findByTypeOrderByCreatedAtDesc(Transaction.TransactionType type, Pageable pageable);
     
     List<Transaction> findByStatus(Payment.PaymentStatus status);
@@ -145,14 +213,12 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     boolean existsByGatewayTransactionId(String gatewayTransactionId);
     
     // Additional methods for TransactionService
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.payment.account = :account AND t.type = :type")
-    Long countByPayment_AccountAndType(@Param("account") com.enterprise.payment.entity.Account account, @Param("type") Transaction.TransactionType type);
-    
-    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.payment.account = :account")
-    BigDecimal sumAmountByPayment_Account(@Param("account") com.enterprise.payment.entity.Account account);
-    
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.payment.account = :account AND t.createdAt > :createdAt")
-    Long countByPayment_AccountAndCreatedAtAfter(@Param("account") com.enterprise.payment.entity.Account account, @Param("createdAt") OffsetDateTime createdAt);
+    // Transactions of an account per type, those created after :since and their amount, in one query
+    // (see GroupedCounts); no row when the account does not exist
+    @Query("SELECT t.type, COUNT(t.id), COUNT(t.id) FILTER (WHERE t.createdAt > :since), SUM(t.amount) " +
+           "FROM Account a LEFT JOIN Payment p ON p.account = a LEFT JOIN Transaction t ON t.payment = p " +
+           "WHERE a.accountNumber = :accountNumber GROUP BY t.type")
+    List<Object[]> countByTypeForAccount(@Param("accountNumber") String accountNumber, @Param("since") OffsetDateTime since);
     
     @Query("SELECT t FROM Transaction t WHERE t.payment.account = :account AND t.createdAt > :createdAt ORDER BY t.createdAt DESC")
     List<Transaction> findByPayment_AccountAndCreatedAtAfterOrderByCreatedAtDesc(@Param("account") com.enterprise.payment.entity.Account account, @Param("createdAt") OffsetDateTime createdAt);
@@ -3,6 +3,7 @@ package com.enterprise.payment.repository;
 import com.enterprise.payment.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -17,6 +18,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
     
+    // UserResponse carries an account summary: listings fetch the account in the same select
+    @Override
+    @EntityGraph(attributePaths = "account")
+    Page<User> findAll(Pageable pageable);
+    
     Optional<User> findByEmail(String email);
     
     List<User> findByAccountId(Long accountId);
@@ -25,6 +31,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findByRole(User.UserRole role);
     
+    @EntityGraph(attributePaths = "account")
     Page<User> findByRoleOrderByCreatedAtDesc(User.UserRole role, Pageable pageable);
     
     List<User> findByIsActive(Boolean isActive);
@@ -0,0 +1,50 @@
+package com.enterprise.payment.security;
+
+import com.enterprise.payment.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whether the current caller may act on an account's payments: administrators on every
+ * account, anyone else only on the account they belong to
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountAccess {
+
+    private final UserRepository userRepository;
+
+    /**
+     * @throws AccessDeniedException when the caller may not act on the account
+     */
+    public void requireAccess(Long accountId, String message) {
+        if (!canAccess(accountId)) {
+            throw new AccessDeniedException(message);
+        }
+    }
+
+    public boolean canAccess(Long accountId) {
+        Authentication caller = SecurityContextHolder.getContext().getAuthentication();
+        if (isAdmin(caller)) {
+            return true;
+        }
+        return caller != null && caller.isAuthenticated() && accountId != null
+                && userRepository.existsByUsernameAndAccountId(caller.getName(), accountId);
+    }
+
+    public static boolean isAdmin(Authentication caller) {
+        if (caller == null || !caller.isAuthenticated()) {
+            return false;
+        }
+        for (GrantedAuthority authority : caller.getAuthorities()) {
+            if ("ROLE_ADMIN".equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.enterprise.payment.security;
 
+import com.enterprise.payment.monitoring.CorrelationIdFilter;
 import com.enterprise.payment.service.JwtService;
 import com.enterprise.payment.service.UserService;
 import io.jsonwebtoken.ExpiredJwtException;
@@ -11,6 +12,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -34,12 +36,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                                   FilterChain filterChain) throws ServletException, IOException {
         
         final String requestTokenHeader = request.getHeader("Authorization");
-        final String correlationId = request.getHeader("X-Correlation-ID");
+        final String correlationId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
         
         String username = null;
         String jwtToken = null;
 
-        if (StringUtils.hasText(requestTokenHeader) && requestTokenHeader.startsWith("Bearer ")) {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            // Already authenticated, e.g. the metrics scraper by its own token
+            log.debug("Request already authenticated - Path: {}", request.getRequestURI());
+        } else if (StringUtils.hasText(requestTokenHeader) && requestTokenHeader.startsWith("Bearer ")) {
             jwtToken = requestTokenHeader.substring(7);
             try {
                 username = jwtService.getUsernameFromToken(jwtToken);
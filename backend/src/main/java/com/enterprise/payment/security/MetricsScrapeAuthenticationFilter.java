@@ -0,0 +1,62 @@
+package com.enterprise.payment.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Authenticates the Prometheus scraper on {@code /actuator/prometheus} by the static bearer token
+ * in {@code payment.monitoring.prometheus.scrape-token}, as {@code ROLE_METRICS}; a scraper
+ * cannot renew expiring JWTs. Without a token configured, only administrators can read metrics.
+ * The well-known {@value #DEV_SCRAPE_TOKEN} is accepted only under the {@code dev} profile.
+ */
+@Component
+public class MetricsScrapeAuthenticationFilter extends OncePerRequestFilter {
+
+    static final String PROMETHEUS_PATH = "/actuator/prometheus";
+    static final String SCRAPER = "prometheus";
+    static final String DEV_SCRAPE_TOKEN = "dev-scrape-token";
+
+    private final byte[] scrapeToken;
+
+    public MetricsScrapeAuthenticationFilter(
+            @Value("${payment.monitoring.prometheus.scrape-token:}") String scrapeToken, Environment environment) {
+        if (DEV_SCRAPE_TOKEN.equals(scrapeToken) && !environment.acceptsProfiles(Profiles.of("dev"))) {
+            throw new IllegalStateException(
+                    "The development Prometheus scrape token is only allowed with the dev profile; "
+                            + "set PROMETHEUS_SCRAPE_TOKEN to a secret value");
+        }
+        this.scrapeToken = scrapeToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")
+                && MessageDigest.isEqual(scrapeToken, header.substring(7).getBytes(StandardCharsets.UTF_8))) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(SCRAPER,
+                    null, List.of(new SimpleGrantedAuthority("ROLE_METRICS"))));
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return scrapeToken.length == 0 || !PROMETHEUS_PATH.equals(request.getServletPath());
+    }
+}
@@ -1,6 +1,7 @@
 package com.enterprise.payment.security;
 
 import com.enterprise.payment.service.UserService;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,6 +32,7 @@ public class SecurityConfig {
 
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtRequestFilter jwtRequestFilter;
+    private final MetricsScrapeAuthenticationFilter metricsScrapeAuthenticationFilter;
     private final UserService userService;
 
     @Bean
@@ -56,6 +58,9 @@ public class SecurityConfig {
         http.csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(authz -> authz
+                // Completion of a streamed response (exports) that was authorized when it started
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // Public endpoints
                 .requestMatchers("/auth/login", "/auth/register", "/auth/refresh").permitAll()
                 .requestMatchers("/actuator/health", "/actuator/info").permitAll()
@@ -64,17 +69,22 @@ public class SecurityConfig {
                 
                 // Admin-only endpoints
                 .requestMatchers("/admin/**").hasRole("ADMIN")
+                // The scraper's token or an administrator's session
+                .requestMatchers("/actuator/prometheus").hasAnyRole("ADMIN", "METRICS")
                 .requestMatchers("/users/*/role", "/users/*/status").hasRole("ADMIN")
                 .requestMatchers("/accounts/*/status").hasRole("ADMIN")
                 .requestMatchers("/audit/**").hasRole("ADMIN")
+                .requestMatchers("/exports/audit-logs", "/exports/transactions").hasRole("ADMIN")
                 
                 // Merchant endpoints
                 .requestMatchers("/payments/*/refund").hasAnyRole("ADMIN", "MERCHANT")
                 .requestMatchers("/analytics/**").hasAnyRole("ADMIN", "MERCHANT")
+                // Scoped to the caller's own account by ExportService
+                .requestMatchers("/exports/**").hasAnyRole("ADMIN", "MERCHANT")
                 
                 // User endpoints
                 .requestMatchers("/payments", "/payments/**").hasAnyRole("ADMIN", "MERCHANT", "USER")
-                .requestMatchers("/accounts/me", "/accounts/*/payments").hasAnyRole("ADMIN", "MERCHANT", "USER")
+                .requestMatchers("/accounts/me", "/accounts/*/payments", "/accounts/*/payments/cursor").hasAnyRole("ADMIN", "MERCHANT", "USER")
                 .requestMatchers("/users/me", "/users/me/**").hasAnyRole("ADMIN", "MERCHANT", "USER")
                 .requestMatchers("/payment-methods", "/payment-methods/**").hasAnyRole("ADMIN", "MERCHANT", "USER")
                 .requestMatchers("/transactions", "/transactions/**").hasAnyRole("ADMIN", "MERCHANT", "USER")
@@ -92,6 +102,7 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
         http.addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(metricsScrapeAuthenticationFilter, JwtRequestFilter.class);
         
         return http.build();
     }
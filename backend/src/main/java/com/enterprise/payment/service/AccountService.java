@@ -6,6 +6,8 @@ import com.enterprise.payment.entity.Account;
 import com.enterprise.payment.exception.AccountNotFoundException;
 import com.enterprise.payment.exception.InsufficientFundsException;
 import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.Instrumented;
+import com.enterprise.payment.monitoring.PaymentMetrics;
 import com.enterprise.payment.repository.AccountRepository;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
@@ -38,23 +40,16 @@ public class AccountService extends BaseService {
      */
     @Transactional
     public AccountResponse createAccount(CreateAccountRequest request) {
-        logMethodEntry("createAccount", request);
-        
         validateCreateAccountRequest(request);
         validateAccountUniqueness(request.getEmail());
         
         Account account = createAccountEntity(request);
         account = accountRepository.save(account);
         
-        Map<String, Object> metadata = new HashMap<>();
-        metadata.put("initialBalance", account.getBalance());
-        
         auditLog("ACCOUNT_CREATED", "ACCOUNT", account.getId(), 
-                "Account created with initial balance: " + account.getBalance(), metadata);
+                "Account created", "initialBalance", account.getBalance());
         
-        AccountResponse response = mapToAccountResponse(account);
-        logMethodExit("createAccount", response);
-        return response;
+        return mapToAccountResponse(account);
     }
 
     /**
@@ -62,14 +57,10 @@ public class AccountService extends BaseService {
      */
     @Cacheable(value = "accounts", key = "#accountNumber")
     public AccountResponse getAccountByNumber(String accountNumber) {
-        logMethodEntry("getAccountByNumber", accountNumber);
-        
         Account account = accountRepository.findByAccountNumber(accountNumber)
             .orElseThrow(() -> new AccountNotFoundException(accountNumber));
             
-        AccountResponse response = mapToAccountResponse(account);
-        logMethodExit("getAccountByNumber", response);
-        return response;
+        return mapToAccountResponse(account);
     }
 
     /**
@@ -77,39 +68,31 @@ public class AccountService extends BaseService {
      */
     @Cacheable(value = "accounts", key = "#accountId")
     public AccountResponse getAccountById(Long accountId) {
-        logMethodEntry("getAccountById", accountId);
-        
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> AccountNotFoundException.byId(accountId));
             
-        AccountResponse response = mapToAccountResponse(account);
-        logMethodExit("getAccountById", response);
-        return response;
+        return mapToAccountResponse(account);
     }
 
     /**
      * Get all accounts with pagination
      */
+    @Transactional(readOnly = true)
     public Page<AccountResponse> getAllAccounts(Pageable pageable) {
-        logMethodEntry("getAllAccounts", pageable);
-        
         Page<Account> accounts = accountRepository.findAll(pageable);
         Page<AccountResponse> response = accounts.map(this::mapToAccountResponse);
         
-        logMethodExit("getAllAccounts", response.getTotalElements());
         return response;
     }
 
     /**
      * Get accounts by status
      */
+    @Transactional(readOnly = true)
     public Page<AccountResponse> getAccountsByStatus(Account.AccountStatus status, Pageable pageable) {
-        logMethodEntry("getAccountsByStatus", status, pageable);
-        
         Page<Account> accounts = accountRepository.findByStatusOrderByCreatedAtDesc(status, pageable);
         Page<AccountResponse> response = accounts.map(this::mapToAccountResponse);
         
-        logMethodExit("getAccountsByStatus", response.getTotalElements());
         return response;
     }
 
@@ -119,8 +102,6 @@ public class AccountService extends BaseService {
     @Transactional
     @CacheEvict(value = "accounts", key = "#accountNumber")
     public AccountResponse updateAccountStatus(String accountNumber, Account.AccountStatus newStatus) {
-        logMethodEntry("updateAccountStatus", accountNumber, newStatus);
-        
         Account account = accountRepository.findByAccountNumber(accountNumber)
             .orElseThrow(() -> new AccountNotFoundException(accountNumber));
             
@@ -136,9 +117,7 @@ public class AccountService extends BaseService {
         
         log.info("Account status updated: {} from {} to {}", accountNumber, oldStatus, newStatus);
         
-        AccountResponse response = mapToAccountResponse(account);
-        logMethodExit("updateAccountStatus", response);
-        return response;
+        return mapToAccountResponse(account);
     }
 
     /**
@@ -147,9 +126,8 @@ public class AccountService extends BaseService {
     @Transactional
     @CacheEvict(value = "accounts", key = "#accountNumber")
     @CircuitBreaker(name = "balance-operations", fallbackMethod = "balanceOperationFallback")
+    @Instrumented
     public AccountResponse creditBalance(String accountNumber, BigDecimal amount, String description) {
-        logMethodEntry("creditBalance", accountNumber, amount, description);
-        
         validateAmount(amount, "Credit amount");
         
         Account account = accountRepository.findByAccountNumber(accountNumber)
@@ -164,7 +142,7 @@ public class AccountService extends BaseService {
         account.setUpdatedBy(getCurrentUsername());
         account.setUpdatedAt(OffsetDateTime.now());
         
-        account = accountRepository.save(account);
+        account = saveBalance(accountRepository, account, PaymentMetrics.BalanceOperation.CREDIT);
         
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("oldBalance", oldBalance);
@@ -179,9 +157,7 @@ public class AccountService extends BaseService {
         log.info("Account balance credited: {} amount: {} new balance: {}", 
                 accountNumber, amount, newBalance);
         
-        AccountResponse response = mapToAccountResponse(account);
-        logMethodExit("creditBalance", response);
-        return response;
+        return mapToAccountResponse(account);
     }
 
     /**
@@ -190,9 +166,8 @@ public class AccountService extends BaseService {
     @Transactional
     @CacheEvict(value = "accounts", key = "#accountNumber")
     @CircuitBreaker(name = "balance-operations", fallbackMethod = "balanceOperationFallback")
+    @Instrumented
     public AccountResponse debitBalance(String accountNumber, BigDecimal amount, String description) {
-        logMethodEntry("debitBalance", accountNumber, amount, description);
-        
         validateAmount(amount, "Debit amount");
         
         Account account = accountRepository.findByAccountNumber(accountNumber)
@@ -212,7 +187,7 @@ public class AccountService extends BaseService {
         account.setUpdatedBy(getCurrentUsername());
         account.setUpdatedAt(OffsetDateTime.now());
         
-        account = accountRepository.save(account);
+        account = saveBalance(accountRepository, account, PaymentMetrics.BalanceOperation.DEBIT);
         
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("oldBalance", oldBalance);
@@ -227,19 +202,16 @@ public class AccountService extends BaseService {
         log.info("Account balance debited: {} amount: {} new balance: {}", 
                 accountNumber, amount, newBalance);
         
-        AccountResponse response = mapToAccountResponse(account);
-        logMethodExit("debitBalance", response);
-        return response;
+        return mapToAccountResponse(account);
     }
 
     /**
      * Transfer funds between accounts
      */
     @Transactional
+    @Instrumented
     public Map<String, AccountResponse> transferFunds(String fromAccountNumber, String toAccountNumber, 
                                                      BigDecimal amount, String description) {
-        logMethodEntry("transferFunds", fromAccountNumber, toAccountNumber, amount, description);
-        
         validateAmount(amount, "Transfer amount");
         
         if (fromAccountNumber.equals(toAccountNumber)) {
@@ -272,7 +244,6 @@ public class AccountService extends BaseService {
         result.put("fromAccount", fromAccount);
         result.put("toAccount", toAccount);
         
-        logMethodExit("transferFunds", result);
         return result;
     }
 
@@ -281,26 +252,19 @@ public class AccountService extends BaseService {
      */
     @Cacheable(value = "account-balances", key = "#accountNumber")
     public BigDecimal getAccountBalance(String accountNumber) {
-        logMethodEntry("getAccountBalance", accountNumber);
-        
         Account account = accountRepository.findByAccountNumber(accountNumber)
             .orElseThrow(() -> new AccountNotFoundException(accountNumber));
             
-        BigDecimal balance = account.getBalance();
-        logMethodExit("getAccountBalance", balance);
-        return balance;
+        return account.getBalance();
     }
 
     /**
      * Validate account balance for payment
      */
     public boolean validateBalanceForPayment(String accountNumber, BigDecimal amount) {
-        logMethodEntry("validateBalanceForPayment", accountNumber, amount);
-        
         BigDecimal balance = getAccountBalance(accountNumber);
         boolean hasBalance = balance.compareTo(amount) >= 0;
         
-        logMethodExit("validateBalanceForPayment", hasBalance);
         return hasBalance;
     }
 
@@ -310,8 +274,6 @@ public class AccountService extends BaseService {
     @Transactional
     @CacheEvict(value = "accounts", key = "#accountNumber")
     public AccountResponse updateAccount(String accountNumber, String accountName, String phone) {
-        logMethodEntry("updateAccount", accountNumber, accountName, phone);
-        
         Account account = accountRepository.findByAccountNumber(accountNumber)
             .orElseThrow(() -> new AccountNotFoundException(accountNumber));
             
@@ -331,9 +293,7 @@ public class AccountService extends BaseService {
         auditLog("ACCOUNT_UPDATED", "ACCOUNT", account.getId(), 
                 "Account information updated");
         
-        AccountResponse response = mapToAccountResponse(account);
-        logMethodExit("updateAccount", response);
-        return response;
+        return mapToAccountResponse(account);
     }
 
     // Private helper methods
@@ -1,16 +1,24 @@
 package com.enterprise.payment.service;
 
+import com.enterprise.payment.auth.RefreshTokenProperties;
+import com.enterprise.payment.auth.RefreshTokenStore;
+import com.enterprise.payment.auth.RefreshTokens;
+import com.enterprise.payment.auth.RevokedRefreshToken;
+import com.enterprise.payment.auth.StoredRefreshToken;
+import com.enterprise.payment.deadline.DeadlineScheduler;
+import com.enterprise.payment.deadline.DeadlineType;
 import com.enterprise.payment.dto.request.LoginRequest;
 import com.enterprise.payment.dto.request.RegisterRequest;
 import com.enterprise.payment.dto.response.AuthResponse;
 import com.enterprise.payment.dto.response.UserResponse;
-import com.enterprise.payment.entity.RefreshToken;
 import com.enterprise.payment.entity.User;
 import com.enterprise.payment.exception.AuthenticationException;
 import com.enterprise.payment.exception.UserNotFoundException;
 import com.enterprise.payment.exception.ValidationException;
 import com.enterprise.payment.exception.DuplicateResourceException;
-import com.enterprise.payment.repository.RefreshTokenRepository;
+import com.enterprise.payment.monitoring.Instrumented;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.SensitiveArguments;
 import com.enterprise.payment.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,31 +28,34 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Service for handling authentication operations including login, logout, and token management
  */
 @Service
+@SensitiveArguments
 @RequiredArgsConstructor
 @Slf4j
 public class AuthenticationService extends BaseService {
 
     private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
+    private final RefreshTokenProperties refreshTokenProperties;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final UserService userService;
+    private final DeadlineScheduler deadlineScheduler;
+    private final PaymentMetrics paymentMetrics;
 
     /**
      * Authenticate user and generate tokens
      */
     @Transactional
+    @Instrumented(percentiles = true)
     public AuthResponse login(LoginRequest request) {
-        logMethodEntry("login", request.getUsernameOrEmail());
-        
         validateRequired(request.getUsernameOrEmail(), "usernameOrEmail");
         validateRequired(request.getPassword(), "password");
         
@@ -92,7 +103,6 @@ public class AuthenticationService extends BaseService {
                 "User logged in successfully", metadata);
         
         log.info("User authenticated successfully: {}", user.getUsername());
-        logMethodExit("login", "success");
         return response;
     }
 
@@ -100,9 +110,8 @@ public class AuthenticationService extends BaseService {
      * Register new user
      */
     @Transactional
+    @Instrumented
     public AuthResponse register(RegisterRequest request) {
-        logMethodEntry("register", request.getUserInfo().getUsername());
-        
         validateRequired(request.getUserInfo(), "userInfo");
         validateRequired(request.getUserInfo().getUsername(), "username");
         validateRequired(request.getUserInfo().getEmail(), "email");
@@ -139,51 +148,70 @@ public class AuthenticationService extends BaseService {
                 "User registered successfully", metadata);
         
         log.info("User registered successfully: {}", user.getUsername());
-        logMethodExit("register", "success");
         return response;
     }
 
     /**
-     * Refresh access token using refresh token
+     * Exchange a refresh token for a new access token and a new refresh token of the same
+     * family. The presented token is revoked; presenting it again revokes the whole family, as
+     * one of its holders is not the user.
      */
-    @Transactional
+    @Transactional(noRollbackFor = AuthenticationException.class)
     public AuthResponse refreshToken(String refreshTokenValue) {
-        logMethodEntry("refreshToken", "***");
-        
         validateRequired(refreshTokenValue, "refreshToken");
         
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(refreshTokenValue)
-            .orElseThrow(() -> new AuthenticationException("Invalid refresh token"));
+        long started = System.nanoTime();
+        PaymentMetrics.RefreshOutcome outcome = PaymentMetrics.RefreshOutcome.REJECTED;
+        try {
+            byte[] digest = RefreshTokens.digest(refreshTokenValue);
+            StoredRefreshToken refreshToken = refreshTokenStore.find(digest);
+            if (refreshToken == null) {
+                throw new AuthenticationException("Invalid refresh token");
+            }
             
-        // Check if refresh token is expired
-        if (refreshToken.isExpired()) {
-            refreshTokenRepository.delete(refreshToken);
-            throw new AuthenticationException("Refresh token expired");
-        }
-        
-        User user = refreshToken.getUser();
-        
-        // Check if user is still active
-        if (!user.getIsActive()) {
-            throw new AuthenticationException("User account is inactive");
+            // Check if refresh token is expired, revoked or not
+            if (refreshToken.isExpired(OffsetDateTime.now())) {
+                throw new AuthenticationException("Refresh token expired");
+            }
+            
+            if (refreshToken.revoked()) {
+                outcome = PaymentMetrics.RefreshOutcome.REUSED;
+                revokeFamily(refreshToken);
+                throw new AuthenticationException("Invalid refresh token");
+            }
+            
+            User user = userRepository.findById(refreshToken.userId())
+                .orElseThrow(() -> new AuthenticationException("Invalid refresh token"));
+            
+            // Check if user is still active
+            if (!user.getIsActive()) {
+                throw new AuthenticationException("User account is inactive");
+            }
+            
+            // Another refresh with the same token got there first
+            if (!refreshTokenStore.revoke(digest, refreshToken.id())) {
+                outcome = PaymentMetrics.RefreshOutcome.REUSED;
+                revokeFamily(refreshToken);
+                throw new AuthenticationException("Invalid refresh token");
+            }
+            deadlineScheduler.cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, refreshToken.id());
+            
+            // Generate new tokens
+            String newAccessToken = jwtService.generateAccessToken(user);
+            String newRefreshToken = issueRefreshToken(user, refreshToken.familyId());
+            
+            // Create response
+            AuthResponse response = createAuthResponse(user, newAccessToken, newRefreshToken);
+            
+            auditLog("TOKEN_REFRESHED", "USER", user.getId(), 
+                    "Access token refreshed successfully");
+            
+            log.info("Token refreshed for user: {}", user.getUsername());
+            outcome = PaymentMetrics.RefreshOutcome.ROTATED;
+            return response;
+        } finally {
+            paymentMetrics.recordRefresh(outcome, System.nanoTime() - started);
         }
-        
-        // Generate new access token
-        String newAccessToken = jwtService.generateAccessToken(user);
-        
-        // Update refresh token expiry (extend by 30 days)
-        refreshToken.setExpiresAt(OffsetDateTime.now().plusDays(30));
-        refreshTokenRepository.save(refreshToken);
-        
-        // Create response
-        AuthResponse response = createAuthResponse(user, newAccessToken, refreshTokenValue);
-        
-        auditLog("TOKEN_REFRESHED", "USER", user.getId(), 
-                "Access token refreshed successfully");
-        
-        log.info("Token refreshed for user: {}", user.getUsername());
-        logMethodExit("refreshToken", "success");
-        return response;
     }
 
     /**
@@ -191,22 +219,18 @@ public class AuthenticationService extends BaseService {
      */
     @Transactional
     public void logout(String refreshTokenValue) {
-        logMethodEntry("logout", "***");
-        
         if (refreshTokenValue != null && !refreshTokenValue.trim().isEmpty()) {
-            Optional<RefreshToken> refreshToken = refreshTokenRepository.findByToken(refreshTokenValue);
-            if (refreshToken.isPresent()) {
-                User user = refreshToken.get().getUser();
-                refreshTokenRepository.delete(refreshToken.get());
-                
-                auditLog("USER_LOGOUT", "USER", user.getId(), 
+            byte[] digest = RefreshTokens.digest(refreshTokenValue);
+            StoredRefreshToken refreshToken = refreshTokenStore.find(digest);
+            if (refreshToken != null && refreshTokenStore.revoke(digest, refreshToken.id())) {
+                deadlineScheduler.cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, refreshToken.id());
+                auditLog("USER_LOGOUT", "USER", refreshToken.userId(), 
                         "User logged out successfully");
                 
-                log.info("User logged out: {}", user.getUsername());
+                log.info("User logged out: {}", refreshToken.userId());
             }
         }
         
-        logMethodExit("logout");
     }
 
     /**
@@ -214,18 +238,15 @@ public class AuthenticationService extends BaseService {
      */
     @Transactional
     public void revokeAllTokens(String username) {
-        logMethodEntry("revokeAllTokens", username);
-        
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UserNotFoundException(username));
             
-        refreshTokenRepository.deleteByUser(user);
+        int revoked = cancelExpiries(refreshTokenStore.revokeAllForUser(user.getId()));
         
         auditLog("ALL_TOKENS_REVOKED", "USER", user.getId(), 
-                "All refresh tokens revoked");
+                "All refresh tokens revoked", "revoked", revoked);
         
         log.info("All tokens revoked for user: {}", username);
-        logMethodExit("revokeAllTokens");
     }
 
     /**
@@ -233,8 +254,6 @@ public class AuthenticationService extends BaseService {
      */
     @Transactional
     public void changePassword(String username, String currentPassword, String newPassword) {
-        logMethodEntry("changePassword", username, "***", "***");
-        
         validateRequired(currentPassword, "currentPassword");
         validateRequired(newPassword, "newPassword");
         
@@ -255,13 +274,12 @@ public class AuthenticationService extends BaseService {
         userRepository.save(user);
         
         // Revoke all existing refresh tokens to force re-login
-        refreshTokenRepository.deleteByUser(user);
+        cancelExpiries(refreshTokenStore.revokeAllForUser(user.getId()));
         
         auditLog("PASSWORD_CHANGED", "USER", user.getId(), 
                 "Password changed successfully");
         
         log.info("Password changed for user: {}", username);
-        logMethodExit("changePassword");
     }
 
     /**
@@ -269,8 +287,6 @@ public class AuthenticationService extends BaseService {
      */
     @Transactional
     public void resetPassword(String resetToken, String newPassword, String clientIp) {
-        logMethodEntry("resetPassword", "***", "***", clientIp);
-        
         validateRequired(resetToken, "resetToken");
         validateRequired(newPassword, "newPassword");
         
@@ -286,8 +302,6 @@ public class AuthenticationService extends BaseService {
         // 5. Update user password
         // 6. Invalidate the reset token
         // 7. Log the password reset event
-        
-        // logMethodExit("resetPassword");
     }
 
     // Private helper methods
@@ -316,21 +330,36 @@ public class AuthenticationService extends BaseService {
 
 
     private String generateRefreshToken(User user) {
-        // Clean up expired tokens for this user
-        refreshTokenRepository.deleteByUserAndExpiresAtBefore(user, OffsetDateTime.now());
-        
-        String tokenValue = UUID.randomUUID().toString();
-        OffsetDateTime expiresAt = OffsetDateTime.now().plusDays(30); // 30 days expiry
+        return issueRefreshToken(user, UUID.randomUUID());
+    }
+
+    private String issueRefreshToken(User user, UUID familyId) {
+        String tokenValue = RefreshTokens.newToken();
+        StoredRefreshToken refreshToken = refreshTokenStore.insert(RefreshTokens.digest(tokenValue), user.getId(),
+                familyId, OffsetDateTime.now().plus(refreshTokenProperties.getTtl()));
+        deadlineScheduler.schedule(DeadlineType.REFRESH_TOKEN_EXPIRY, refreshToken.id(), refreshToken.expiresAt());
         
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setToken(tokenValue);
-        refreshToken.setUser(user);
-        refreshToken.setExpiresAt(expiresAt);
-        refreshToken.setCreatedAt(OffsetDateTime.now());
+        return tokenValue;
+    }
+
+    private void revokeFamily(StoredRefreshToken refreshToken) {
+        int revoked = cancelExpiries(refreshTokenStore.revokeFamily(refreshToken.familyId()));
         
-        refreshTokenRepository.save(refreshToken);
+        auditLog("REFRESH_TOKEN_REUSED", "USER", refreshToken.userId(), 
+                "Revoked refresh token presented again; token family revoked", "revoked", revoked);
         
-        return tokenValue;
+        log.warn("Refresh token {} of user {} presented again, revoked {} tokens of its family",
+                refreshToken.id(), refreshToken.userId(), revoked);
+    }
+
+    /**
+     * Drop the expiry deadlines of revoked tokens; returns how many there were
+     */
+    private int cancelExpiries(List<RevokedRefreshToken> revoked) {
+        for (RevokedRefreshToken token : revoked) {
+            deadlineScheduler.cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, token.id());
+        }
+        return revoked.size();
     }
 
     private User createUserFromRegisterRequest(RegisterRequest request) {
@@ -356,7 +385,7 @@ public class AuthenticationService extends BaseService {
         // Create AuthResponse with tokens and user data
         AuthResponse response = new AuthResponse(accessToken, refreshToken, userResponse);
         response.setExpiresIn(jwtService.getAccessTokenExpiration());
-        response.setRefreshExpiresIn(30 * 24 * 60 * 60L); // 30 days in seconds
+        response.setRefreshExpiresIn(refreshTokenProperties.getTtl().toSeconds());
         
         return response;
     }
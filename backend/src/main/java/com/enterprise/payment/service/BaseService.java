@@ -1,17 +1,27 @@
 package com.enterprise.payment.service;
 
+import com.enterprise.payment.entity.Account;
 import com.enterprise.payment.entity.AuditLog;
+import com.enterprise.payment.monitoring.CorrelationIdFilter;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.repository.AccountRepository;
 import com.enterprise.payment.repository.AuditLogRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -24,6 +34,9 @@ public abstract class BaseService {
     @Autowired
     private AuditLogRepository auditLogRepository;
 
+    @Autowired(required = false)
+    private PaymentMetrics paymentMetrics;
+
     /**
      * Get the current authenticated user's username
      */
@@ -35,18 +48,60 @@ public abstract class BaseService {
         return "system";
     }
 
+    /**
+     * Save an account whose balance changed. Flushed so that a balance written concurrently (its
+     * version moved on) fails here, where it is counted as contention, rather than at commit
+     */
+    protected Account saveBalance(AccountRepository accountRepository, Account account,
+                                  PaymentMetrics.BalanceOperation operation) {
+        try {
+            return accountRepository.saveAndFlush(account);
+        } catch (ConcurrencyFailureException e) {
+            if (paymentMetrics != null) {
+                paymentMetrics.balanceUpdateContention(operation);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Run the action once the current transaction commits, or right away outside a transaction.
+     * Nothing runs if the transaction rolls back
+     */
+    protected static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     /**
      * Create audit log entry
      */
     @Transactional
     protected void auditLog(String action, String entityType, Long entityId, 
                           String details, Map<String, Object> metadata) {
+        saveAuditLog(action, entityType, entityId, Collections.singletonMap("details", details), metadata);
+    }
+
+    private void saveAuditLog(String action, String entityType, Long entityId,
+                              Map<String, Object> newValues, Map<String, Object> metadata) {
+        if (paymentMetrics != null) {
+            paymentMetrics.auditWriteStarted();
+        }
         try {
             AuditLog auditLog = new AuditLog();
             auditLog.setAction(action);
             auditLog.setEntityType(entityType);
             auditLog.setEntityId(entityId);
-            auditLog.setNewValues(Map.of("details", details));
+            auditLog.setCorrelationId(MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY));
+            auditLog.setNewValues(newValues);
             if (metadata != null) {
                 auditLog.setOldValues(metadata);
             }
@@ -56,6 +111,10 @@ public abstract class BaseService {
         } catch (Exception e) {
             log.error("Failed to create audit log: {} - {} - {}", action, entityType, entityId, e);
             // Don't throw exception as audit logging shouldn't break business operations
+        } finally {
+            if (paymentMetrics != null) {
+                paymentMetrics.auditWriteFinished();
+            }
         }
     }
 
@@ -66,6 +125,42 @@ public abstract class BaseService {
         auditLog(action, entityType, entityId, details, null);
     }
 
+    /**
+     * Create audit log entry carrying one structured value next to a constant message,
+     * so callers don't concatenate strings on the hot path
+     */
+    protected void auditLog(String action, String entityType, Long entityId, String details,
+                            String key, Object value) {
+        Map<String, Object> newValues = new HashMap<>(4);
+        newValues.put("details", details);
+        newValues.put(key, value);
+        saveAuditLog(action, entityType, entityId, newValues, null);
+    }
+
+    /**
+     * Create audit log entry carrying two structured values next to a constant message
+     */
+    protected void auditLog(String action, String entityType, Long entityId, String details,
+                            String key1, Object value1, String key2, Object value2) {
+        Map<String, Object> newValues = new HashMap<>(4);
+        newValues.put("details", details);
+        newValues.put(key1, value1);
+        newValues.put(key2, value2);
+        saveAuditLog(action, entityType, entityId, newValues, null);
+    }
+
+    /**
+     * Create audit log entry carrying one structured value next to a constant message,
+     * plus metadata
+     */
+    protected void auditLog(String action, String entityType, Long entityId, String details,
+                            String key, Object value, Map<String, Object> metadata) {
+        Map<String, Object> newValues = new HashMap<>(4);
+        newValues.put("details", details);
+        newValues.put(key, value);
+        saveAuditLog(action, entityType, entityId, newValues, metadata);
+    }
+
     /**
      * Create pageable object with default sorting
      */
@@ -99,33 +194,4 @@ public abstract class BaseService {
             throw new IllegalArgumentException(fieldName + " is required");
         }
     }
-
-    /**
-     * Log method entry with parameters
-     */
-    protected void logMethodEntry(String methodName, Object... params) {
-        if (log.isDebugEnabled()) {
-            log.debug("Entering {}.{} with params: {}", 
-                     this.getClass().getSimpleName(), methodName, params);
-        }
-    }
-
-    /**
-     * Log method exit with result
-     */
-    protected void logMethodExit(String methodName, Object result) {
-        if (log.isDebugEnabled()) {
-            log.debug("Exiting {}.{} with result: {}", 
-                     this.getClass().getSimpleName(), methodName, result);
-        }
-    }
-
-    /**
-     * Log method exit without result
-     */
-    protected void logMethodExit(String methodName) {
-        if (log.isDebugEnabled()) {
-            log.debug("Exiting {}.{}", this.getClass().getSimpleName(), methodName);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -1,15 +1,13 @@
 package com.enterprise.payment.service;
 
+import com.enterprise.payment.crypto.EnvelopeEncryption;
 import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.SensitiveArguments;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
-import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -19,51 +17,30 @@ import java.util.Base64;
  * Service for data encryption and decryption for sensitive data
  */
 @Service
+@SensitiveArguments
 @Slf4j
 public class EncryptionService extends BaseService {
 
     private static final String ALGORITHM = "AES";
-    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
-    private static final int GCM_IV_LENGTH = 12;
-    private static final int GCM_TAG_LENGTH = 16;
-
-    @Value("${app.encryption.key:mySecretEncryptionKey1234567890123456}")
-    private String encryptionKey;
 
+    private final EnvelopeEncryption envelopeEncryption;
     private final SecureRandom secureRandom = new SecureRandom();
 
+    public EncryptionService(EnvelopeEncryption envelopeEncryption) {
+        this.envelopeEncryption = envelopeEncryption;
+    }
+
     /**
-     * Encrypt sensitive data
+     * Encrypt sensitive data with the active data key
      */
     public String encrypt(String plaintext) {
-        logMethodEntry("encrypt", "***");
-        
         if (plaintext == null || plaintext.isEmpty()) {
             throw new ValidationException("Plaintext cannot be null or empty");
         }
         
         try {
-            SecretKey secretKey = getSecretKey();
-            
-            // Generate random IV
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            secureRandom.nextBytes(iv);
-            
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
-            
-            byte[] encryptedData = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
-            
-            // Combine IV and encrypted data
-            byte[] encryptedWithIv = new byte[GCM_IV_LENGTH + encryptedData.length];
-            System.arraycopy(iv, 0, encryptedWithIv, 0, GCM_IV_LENGTH);
-            System.arraycopy(encryptedData, 0, encryptedWithIv, GCM_IV_LENGTH, encryptedData.length);
-            
-            String encrypted = Base64.getEncoder().encodeToString(encryptedWithIv);
-            
+            String encrypted = envelopeEncryption.encrypt(plaintext);
             log.debug("Data encrypted successfully");
-            logMethodExit("encrypt", "encrypted");
             return encrypted;
             
         } catch (Exception e) {
@@ -73,35 +50,16 @@ public class EncryptionService extends BaseService {
     }
 
     /**
-     * Decrypt sensitive data
+     * Decrypt sensitive data, whichever data key version encrypted it
      */
     public String decrypt(String encryptedData) {
-        logMethodEntry("decrypt", "***");
-        
         if (encryptedData == null || encryptedData.isEmpty()) {
             throw new ValidationException("Encrypted data cannot be null or empty");
         }
         
         try {
-            SecretKey secretKey = getSecretKey();
-            
-            byte[] decodedData = Base64.getDecoder().decode(encryptedData);
-            
-            // Extract IV and encrypted data
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            byte[] encrypted = new byte[decodedData.length - GCM_IV_LENGTH];
-            System.arraycopy(decodedData, 0, iv, 0, GCM_IV_LENGTH);
-            System.arraycopy(decodedData, GCM_IV_LENGTH, encrypted, 0, encrypted.length);
-            
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
-            
-            byte[] decryptedData = cipher.doFinal(encrypted);
-            String decrypted = new String(decryptedData, StandardCharsets.UTF_8);
-            
+            String decrypted = envelopeEncryption.decrypt(encryptedData);
             log.debug("Data decrypted successfully");
-            logMethodExit("decrypt", "decrypted");
             return decrypted;
             
         } catch (Exception e) {
@@ -114,14 +72,11 @@ public class EncryptionService extends BaseService {
      * Encrypt payment method data (card numbers, etc.)
      */
     public String encryptPaymentData(String paymentData) {
-        logMethodEntry("encryptPaymentData", "***");
-        
         String encrypted = encrypt(paymentData);
         
         auditLog("PAYMENT_DATA_ENCRYPTED", "SECURITY", null, 
                 "Payment data encrypted");
         
-        logMethodExit("encryptPaymentData", "encrypted");
         return encrypted;
     }
 
@@ -129,23 +84,19 @@ public class EncryptionService extends BaseService {
      * Decrypt payment method data
      */
     public String decryptPaymentData(String encryptedPaymentData) {
-        logMethodEntry("decryptPaymentData", "***");
-        
         String decrypted = decrypt(encryptedPaymentData);
         
         auditLog("PAYMENT_DATA_DECRYPTED", "SECURITY", null, 
                 "Payment data decrypted");
         
-        logMethodExit("decryptPaymentData", "decrypted");
         return decrypted;
     }
 
     /**
-     * Hash sensitive data (one-way)
+     * Hash sensitive data (one-way); unkeyed, so not for card numbers, which
+     * {@link com.enterprise.payment.crypto.CardFingerprint} fingerprints
      */
     public String hashData(String data) {
-        logMethodEntry("hashData", "***");
-        
         if (data == null || data.isEmpty()) {
             throw new ValidationException("Data to hash cannot be null or empty");
         }
@@ -156,7 +107,6 @@ public class EncryptionService extends BaseService {
             String hashed = Base64.getEncoder().encodeToString(hashedBytes);
             
             log.debug("Data hashed successfully");
-            logMethodExit("hashData", "hashed");
             return hashed;
             
         } catch (Exception e) {
@@ -169,8 +119,6 @@ public class EncryptionService extends BaseService {
      * Generate secure random key for encryption
      */
     public String generateSecureKey() {
-        logMethodEntry("generateSecureKey");
-        
         try {
             KeyGenerator keyGenerator = KeyGenerator.getInstance(ALGORITHM);
             keyGenerator.init(256); // AES-256
@@ -178,7 +126,6 @@ public class EncryptionService extends BaseService {
             String key = Base64.getEncoder().encodeToString(secretKey.getEncoded());
             
             log.info("Secure key generated");
-            logMethodExit("generateSecureKey", "key_generated");
             return key;
             
         } catch (NoSuchAlgorithmException e) {
@@ -224,8 +171,6 @@ public class EncryptionService extends BaseService {
      * Generate secure random token
      */
     public String generateSecureToken(int length) {
-        logMethodEntry("generateSecureToken", length);
-        
         if (length <= 0) {
             throw new ValidationException("Token length must be positive");
         }
@@ -235,7 +180,6 @@ public class EncryptionService extends BaseService {
         String token = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
         
         log.debug("Secure token generated with length: {}", length);
-        logMethodExit("generateSecureToken", "token_generated");
         return token;
     }
 
@@ -256,24 +200,4 @@ public class EncryptionService extends BaseService {
         
         return secureRandom.nextInt(max - min) + min;
     }
-
-    // Private helper methods
-
-    private SecretKey getSecretKey() {
-        // Ensure key is exactly 32 bytes for AES-256
-        byte[] keyBytes = encryptionKey.getBytes(StandardCharsets.UTF_8);
-        byte[] key = new byte[32];
-        
-        if (keyBytes.length >= 32) {
-            System.arraycopy(keyBytes, 0, key, 0, 32);
-        } else {
-            System.arraycopy(keyBytes, 0, key, 0, keyBytes.length);
-            // Pad with zeros if key is shorter
-            for (int i = keyBytes.length; i < 32; i++) {
-                key[i] = 0;
-            }
-        }
-        
-        return new SecretKeySpec(key, ALGORITHM);
-    }
-}
\ No newline at end of file
+}
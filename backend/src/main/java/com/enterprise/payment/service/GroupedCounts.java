@@ -0,0 +1,94 @@
+package com.enterprise.payment.service;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts per constant of an enum, read from one grouped aggregation instead of a count query
+ * per constant.
+ *
+ * Each row is {@code [constant, count, filtered count]}, optionally followed by a sum: the
+ * {@code GROUP BY} column, {@code COUNT(...)}, {@code COUNT(...) FILTER (WHERE ...)} and
+ * {@code SUM(...)}. Constants without a row count zero. The queries left-join from the owning
+ * row, so an owner with nothing to count still yields one row with a null constant, and no row
+ * at all means the owner does not exist.
+ */
+public final class GroupedCounts<E extends Enum<E>> {
+
+    private final Class<E> type;
+    private final Map<E, Long> counts;
+    private final Map<E, Long> filtered;
+    private final boolean found;
+    private long total;
+    private long filteredTotal;
+    private BigDecimal sum = BigDecimal.ZERO;
+
+    private GroupedCounts(Class<E> type, boolean found) {
+        this.type = type;
+        this.counts = new EnumMap<>(type);
+        this.filtered = new EnumMap<>(type);
+        this.found = found;
+    }
+
+    public static <E extends Enum<E>> GroupedCounts<E> of(Class<E> type, List<Object[]> rows) {
+        GroupedCounts<E> grouped = new GroupedCounts<>(type, !rows.isEmpty());
+        for (Object[] row : rows) {
+            if (row[0] == null) {
+                continue;
+            }
+            E constant = type.cast(row[0]);
+            long count = ((Number) row[1]).longValue();
+            long filteredCount = ((Number) row[2]).longValue();
+            grouped.counts.merge(constant, count, Long::sum);
+            grouped.filtered.merge(constant, filteredCount, Long::sum);
+            grouped.total += count;
+            grouped.filteredTotal += filteredCount;
+            if (row.length > 3 && row[3] != null) {
+                grouped.sum = grouped.sum.add((BigDecimal) row[3]);
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * Whether the query returned any row, that is whether the owner of the counts exists
+     */
+    public boolean found() {
+        return found;
+    }
+
+    public long count(E constant) {
+        return counts.getOrDefault(constant, 0L);
+    }
+
+    public long filtered(E constant) {
+        return filtered.getOrDefault(constant, 0L);
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public long filteredTotal() {
+        return filteredTotal;
+    }
+
+    /**
+     * Total of the sum column; zero when the rows have none
+     */
+    public BigDecimal sum() {
+        return sum;
+    }
+
+    /**
+     * Put the count of every constant, zero included, under its lower-case name followed by
+     * {@code suffix}
+     */
+    public void putCounts(Map<String, Object> stats, String suffix) {
+        for (E constant : type.getEnumConstants()) {
+            stats.put(constant.name().toLowerCase() + suffix, count(constant));
+        }
+    }
+}
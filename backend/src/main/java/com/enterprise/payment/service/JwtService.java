@@ -2,6 +2,7 @@ package com.enterprise.payment.service;
 
 import com.enterprise.payment.entity.User;
 import com.enterprise.payment.exception.AuthenticationException;
+import com.enterprise.payment.monitoring.SensitiveArguments;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +22,7 @@ import java.util.function.Function;
  * Service for JWT token creation, validation, and refresh
  */
 @Service
+@SensitiveArguments
 @Slf4j
 public class JwtService extends BaseService {
 
@@ -41,8 +43,6 @@ public class JwtService extends BaseService {
      * Generate access token for user
      */
     public String generateAccessToken(User user) {
-        logMethodEntry("generateAccessToken", user.getUsername());
-        
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
         claims.put("email", user.getEmail());
@@ -56,7 +56,6 @@ public class JwtService extends BaseService {
                 "Access token generated");
         
         log.debug("Access token generated for user: {}", user.getUsername());
-        logMethodExit("generateAccessToken", "token_generated");
         return token;
     }
 
@@ -64,8 +63,6 @@ public class JwtService extends BaseService {
      * Generate access token with custom claims
      */
     public String generateAccessToken(User user, Map<String, Object> extraClaims) {
-        logMethodEntry("generateAccessToken", user.getUsername(), extraClaims);
-        
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
         claims.put("email", user.getEmail());
@@ -83,7 +80,6 @@ public class JwtService extends BaseService {
                 "Access token generated with custom claims");
         
         log.debug("Access token generated with custom claims for user: {}", user.getUsername());
-        logMethodExit("generateAccessToken", "token_generated");
         return token;
     }
 
@@ -280,21 +276,18 @@ public class JwtService extends BaseService {
      * Note: In a production system, you might want to maintain a blacklist of invalidated tokens
      */
     public void invalidateToken(String token) {
-        logMethodEntry("invalidateToken", "***");
-        
         try {
             String username = extractUsername(token);
             Long userId = extractUserId(token);
             
             auditLog("TOKEN_INVALIDATED", "USER", userId, 
-                    "Token invalidated for user: " + username);
+                    "Token invalidated for user", "username", username);
             
             log.info("Token invalidated for user: {}", username);
         } catch (Exception e) {
             log.warn("Failed to extract user info from token during invalidation", e);
         }
         
-        logMethodExit("invalidateToken");
     }
 
     /**
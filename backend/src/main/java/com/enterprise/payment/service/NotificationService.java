@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Service for managing real-time notifications
@@ -17,6 +18,8 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class NotificationService extends BaseService {
 
+    private final Executor taskExecutor;
+
     /**
      * Send payment success notification
      */
@@ -24,20 +27,17 @@ public class NotificationService extends BaseService {
     public CompletableFuture<Void> sendPaymentSuccessNotification(Payment payment) {
         return CompletableFuture.runAsync(() -> {
             try {
-                logMethodEntry("sendPaymentSuccessNotification", payment.getPaymentReference());
-                
                 // TODO: Implement actual notification logic (email, SMS, push notification)
                 log.info("Payment success notification sent for payment: {}", payment.getPaymentReference());
                 
                 auditLog("NOTIFICATION_SENT", "PAYMENT", payment.getId(), 
                         "Payment success notification sent");
                 
-                logMethodExit("sendPaymentSuccessNotification");
             } catch (Exception e) {
                 log.error("Failed to send payment success notification for payment: {}", 
                          payment.getPaymentReference(), e);
             }
-        });
+        }, taskExecutor);
     }
 
     /**
@@ -47,21 +47,18 @@ public class NotificationService extends BaseService {
     public CompletableFuture<Void> sendPaymentRefundNotification(Payment payment, BigDecimal refundAmount) {
         return CompletableFuture.runAsync(() -> {
             try {
-                logMethodEntry("sendPaymentRefundNotification", payment.getPaymentReference(), refundAmount);
-                
                 // TODO: Implement actual notification logic
                 log.info("Payment refund notification sent for payment: {} amount: {}", 
                         payment.getPaymentReference(), refundAmount);
                 
                 auditLog("NOTIFICATION_SENT", "PAYMENT", payment.getId(), 
-                        "Payment refund notification sent for amount: " + refundAmount);
+                        "Payment refund notification sent", "amount", refundAmount);
                 
-                logMethodExit("sendPaymentRefundNotification");
             } catch (Exception e) {
                 log.error("Failed to send payment refund notification for payment: {}", 
                          payment.getPaymentReference(), e);
             }
-        });
+        }, taskExecutor);
     }
 
     /**
@@ -71,19 +68,16 @@ public class NotificationService extends BaseService {
     public CompletableFuture<Void> sendPaymentCancelledNotification(Payment payment) {
         return CompletableFuture.runAsync(() -> {
             try {
-                logMethodEntry("sendPaymentCancelledNotification", payment.getPaymentReference());
-                
                 // TODO: Implement actual notification logic
                 log.info("Payment cancelled notification sent for payment: {}", payment.getPaymentReference());
                 
                 auditLog("NOTIFICATION_SENT", "PAYMENT", payment.getId(), 
                         "Payment cancelled notification sent");
                 
-                logMethodExit("sendPaymentCancelledNotification");
             } catch (Exception e) {
                 log.error("Failed to send payment cancelled notification for payment: {}", 
                          payment.getPaymentReference(), e);
             }
-        });
+        }, taskExecutor);
     }
 }
\ No newline at end of file
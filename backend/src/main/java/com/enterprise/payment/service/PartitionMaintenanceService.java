@@ -0,0 +1,82 @@
+package com.enterprise.payment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Keeps the monthly partitions of audit_logs and webhook_deliveries ahead of time: creates
+ * those for the current and the next {@code payment.partitions.months-ahead} months, and drops
+ * months older than a table's retention when one is set. Runs at startup and daily on every
+ * instance; the database functions lock each table while they work, so concurrent runs take
+ * turns and the later ones find nothing left to do.
+ *
+ * There is no catch-all partition: once the job has not run for {@code months-ahead} months,
+ * audit entries and webhook deliveries fail to insert until it runs again.
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceService {
+
+    static final String AUDIT_LOGS = "audit_logs";
+    static final String WEBHOOK_DELIVERIES = "webhook_deliveries";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final Map<String, Integer> retentionMonths;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       @Value("${payment.partitions.enabled:true}") boolean enabled,
+                                       @Value("${payment.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${payment.partitions.audit-log-retention-months:0}") int auditLogRetention,
+                                       @Value("${payment.partitions.webhook-delivery-retention-months:0}")
+                                       int webhookDeliveryRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = Map.of(AUDIT_LOGS, auditLogRetention, WEBHOOK_DELIVERIES, webhookDeliveryRetention);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${payment.partitions.cron:0 15 3 * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        for (Map.Entry<String, Integer> table : retentionMonths.entrySet()) {
+            try {
+                maintain(table.getKey(), table.getValue());
+            } catch (DataAccessException e) {
+                log.error("Partition maintenance of {} failed", table.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Create the missing partitions of a table and drop those past its retention (none when
+     * {@code retentionMonths} is not positive)
+     */
+    void maintain(String table, int retentionMonths) {
+        Integer created = jdbcTemplate.queryForObject("SELECT create_monthly_partitions(?, ?)", Integer.class,
+                table, monthsAhead);
+        if (created != null && created > 0) {
+            log.info("Created {} monthly partitions of {}", created, table);
+        }
+        if (retentionMonths > 0) {
+            Integer dropped = jdbcTemplate.queryForObject("SELECT drop_monthly_partitions(?, ?)", Integer.class,
+                    table, retentionMonths);
+            if (dropped != null && dropped > 0) {
+                log.info("Dropped {} monthly partitions of {} older than {} months", dropped, table,
+                        retentionMonths);
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.exception.GatewayUnavailableException;
+import com.enterprise.payment.gateway.GatewayProperties;
+import com.enterprise.payment.gateway.GatewayRequest;
+import com.enterprise.payment.gateway.GatewayResponse;
+import com.enterprise.payment.gateway.GatewayRouter;
+import com.enterprise.payment.gateway.MicroBatcher;
+import com.enterprise.payment.monitoring.CorrelationIdFilter;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentMetrics.FailureReason;
+import com.enterprise.payment.monitoring.PaymentMetrics.GatewayOperation;
+import com.enterprise.payment.monitoring.PaymentMetrics.GatewayOutcome;
+import com.enterprise.payment.monitoring.PaymentTracing;
+import com.enterprise.payment.repository.PaymentBatchRepository;
+import com.enterprise.payment.repository.PaymentBatchRepository.BatchPayment;
+import com.enterprise.payment.repository.PaymentBatchRepository.Settlement;
+import com.enterprise.payment.repository.PaymentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Micro-batched gateway submission for batch-eligible payments (bulk payouts, marketplace
+ * settlement runs).
+ *
+ * Payments are queued per (preferred gateway, currency) and flushed by size or linger time.
+ * A flush claims its payments (PENDING to PROCESSING) in one statement, submits them in one
+ * gateway call and settles all of them in one transaction of batched statements, so per
+ * payment cost is a share of a few round trips instead of a transaction with its own gateway
+ * call. Outcomes match {@link PaymentService#processPayment}: the claim reserves each amount
+ * by debiting its account, approved payments complete, and declines and gateway errors fail
+ * and release the reservation; payments their account cannot cover fail at the claim. A
+ * batch call whose outcome is unknown (ambiguous error, wrong number of results) leaves its
+ * payments PROCESSING, and so does a single item of it whose outcome is unknown.
+ *
+ * A claim is a lease: payments still PROCESSING when it runs out, because their worker died
+ * or could not settle them, are settled from the gateways' records by
+ * {@link #reconcileStale}.
+ */
+@Service
+@Slf4j
+public class PaymentBatchService extends BaseService {
+
+    private final GatewayRouter gatewayRouter;
+    private final PaymentBatchRepository paymentBatchRepository;
+    private final PaymentRepository paymentRepository;
+    private final NotificationService notificationService;
+    private final WebhookService webhookService;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentTracing paymentTracing;
+    private final TransactionTemplate transactionTemplate;
+    private final GatewayProperties.Batching batching;
+    private final MicroBatcher<BatchKey, Long> batcher;
+
+    record BatchKey(String connector, String currencyCode) {
+    }
+
+    /**
+     * What {@link #submit} did with a payment
+     */
+    public enum Submission {
+        /** Queued for a micro-batch */
+        QUEUED,
+        /** The batcher is full; the payment stays PENDING until {@link #requeueWhenIdle} */
+        FULL,
+        /** Batching is off or no gateway takes the currency; the payment is processed on its own */
+        NOT_BATCHED
+    }
+
+    public PaymentBatchService(GatewayRouter gatewayRouter, PaymentBatchRepository paymentBatchRepository,
+                               PaymentRepository paymentRepository, NotificationService notificationService,
+                               WebhookService webhookService, PaymentMetrics paymentMetrics,
+                               PaymentTracing paymentTracing, TransactionTemplate transactionTemplate,
+                               GatewayProperties gatewayProperties, Executor taskExecutor) {
+        this.gatewayRouter = gatewayRouter;
+        this.paymentBatchRepository = paymentBatchRepository;
+        this.paymentRepository = paymentRepository;
+        this.notificationService = notificationService;
+        this.webhookService = webhookService;
+        this.paymentMetrics = paymentMetrics;
+        this.paymentTracing = paymentTracing;
+        this.transactionTemplate = transactionTemplate;
+        this.batching = gatewayProperties.getBatching();
+        this.batcher = new MicroBatcher<>(batching.getMaxSize(), batching.getLinger(), batching.getMaxPending(),
+                taskExecutor, this::processBatch);
+    }
+
+    /**
+     * Queue a committed PENDING payment for batched submission
+     */
+    public Submission submit(Payment payment) {
+        if (!batching.isEnabled()) {
+            return Submission.NOT_BATCHED;
+        }
+        return enqueue(payment.getId(), payment.getPaymentReference(), payment.getAmount(), payment.getCurrencyCode());
+    }
+
+    /**
+     * Re-queue batch-eligible payments left PENDING by a previous run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void requeuePending() {
+        if (!batching.isEnabled()) {
+            return;
+        }
+        List<BatchPayment> pending = paymentBatchRepository.findPendingBatchEligible(batching.getMaxPending());
+        int queued = 0;
+        for (BatchPayment payment : pending) {
+            if (enqueue(payment.id(), payment.paymentReference(), payment.amount(), payment.currencyCode())
+                    == Submission.QUEUED) {
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            log.info("Re-queued {} pending batch-eligible payments", queued);
+        }
+    }
+
+    /**
+     * Pick up batch-eligible payments the batcher had no room for (e.g. a large bulk
+     * creation), once it has drained
+     */
+    @Scheduled(fixedDelayString = "${payment.gateway.batching.requeue-interval:PT30S}",
+               initialDelayString = "${payment.gateway.batching.requeue-interval:PT30S}")
+    public void requeueWhenIdle() {
+        if (batcher.pending() == 0) {
+            requeuePending();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batcher.close();
+    }
+
+    private Submission enqueue(Long paymentId, String paymentReference, BigDecimal amount, String currencyCode) {
+        String connector = gatewayRouter.preferredConnector(new GatewayRequest(GatewayRequest.Operation.PAYMENT,
+                paymentReference, amount, currencyCode, paymentReference));
+        if (connector == null) {
+            return Submission.NOT_BATCHED;
+        }
+        return batcher.offer(new BatchKey(connector, currencyCode), paymentId) ? Submission.QUEUED : Submission.FULL;
+    }
+
+    /**
+     * Claim, submit and settle one micro-batch
+     */
+    void processBatch(BatchKey key, List<Long> paymentIds) {
+        long started = System.nanoTime();
+        String changedBy = getCurrentUsername();
+        String correlationId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+        Map<Long, FailureReason> failureReasons = new HashMap<>();
+        List<Settlement> applied = new ArrayList<>();
+
+        // Claim the payments and reserve their amounts in one transaction, so every payment
+        // that reaches the gateway has its funds held; the ones their account cannot cover
+        // fail right away
+        List<BatchPayment> submitted = transactionTemplate.execute(status -> {
+            List<BatchPayment> claimed = paymentBatchRepository.claimPending(paymentIds, changedBy);
+            if (claimed.isEmpty()) {
+                return claimed;
+            }
+            List<BatchPayment> unreserved = paymentBatchRepository.reserve(claimed);
+            List<Settlement> rejections = new ArrayList<>(unreserved.size());
+            for (BatchPayment payment : unreserved) {
+                rejections.add(new Settlement(payment, Payment.PaymentStatus.FAILED,
+                        "Payment processing error: Insufficient funds", "PAYMENT_FAILED",
+                        Map.of("details", "Insufficient funds")));
+                failureReasons.put(payment.id(), FailureReason.PROCESSING_ERROR);
+            }
+            applied.addAll(paymentBatchRepository.reject(rejections, changedBy, correlationId));
+            List<BatchPayment> reserved = new ArrayList<>(claimed);
+            reserved.removeAll(unreserved);
+            return reserved;
+        });
+        if (submitted == null || (submitted.isEmpty() && applied.isEmpty())) {
+            return;
+        }
+
+        List<Settlement> settlements = new ArrayList<>(submitted.size());
+        if (!submitted.isEmpty()) {
+            submit(key, submitted, settlements, failureReasons);
+        }
+        List<Settlement> settled = transactionTemplate.execute(
+                status -> paymentBatchRepository.settle(settlements, changedBy, correlationId));
+        if (settled != null) {
+            applied.addAll(settled);
+        }
+        int completed = announce(applied, failureReasons);
+        log.info("Processed batch of {} {} payments via {}: {} completed, {} failed, {} unsettled in {} ms",
+                paymentIds.size(), key.currencyCode(), key.connector(), completed,
+                applied.size() - completed, paymentIds.size() - applied.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Settle payments still PROCESSING past their claim lease, batched or processed on their
+     * own, whose worker died, failed to settle them or could not tell the gateway's answer, with what the gateways recorded for them.
+     * A payment no gateway received fails; one whose gateways cannot be asked now waits for
+     * the next lease.
+     */
+    @Scheduled(fixedDelayString = "${payment.gateway.batching.reconcile-interval:PT1M}",
+               initialDelayString = "${payment.gateway.batching.reconcile-interval:PT1M}")
+    public void reconcileStale() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(batching.getClaimLease());
+        List<BatchPayment> stale;
+        do {
+            stale = transactionTemplate.execute(
+                    status -> paymentBatchRepository.reclaimStale(cutoff, batching.getMaxSize()));
+            if (stale != null && !stale.isEmpty()) {
+                reconcile(stale);
+            }
+        } while (stale != null && stale.size() == batching.getMaxSize());
+    }
+
+    private void reconcile(List<BatchPayment> payments) {
+        String changedBy = getCurrentUsername();
+        List<Settlement> settlements = new ArrayList<>(payments.size());
+        Map<Long, FailureReason> failureReasons = new HashMap<>();
+        for (BatchPayment payment : payments) {
+            GatewayResponse response;
+            try {
+                response = gatewayRouter.lookup(gatewayRequest(payment));
+            } catch (RuntimeException e) {
+                log.warn("Could not reconcile payment {} with the gateways, retrying after its lease: {}",
+                        payment.paymentReference(), e.getMessage());
+                continue;
+            }
+            if (response != null) {
+                settlements.add(settlement(payment, response, failureReasons));
+            } else {
+                settlements.add(new Settlement(payment, Payment.PaymentStatus.FAILED,
+                        "Payment processing error: Not received by the gateway", "PAYMENT_FAILED",
+                        Map.of("details", "Not received by the gateway")));
+                failureReasons.put(payment.id(), FailureReason.PROCESSING_ERROR);
+            }
+        }
+        List<Settlement> applied = transactionTemplate.execute(status -> paymentBatchRepository.settle(settlements,
+                changedBy, MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY)));
+        if (applied == null) {
+            return;
+        }
+        int completed = announce(applied, failureReasons);
+        log.info("Reconciled {} payments past their claim lease: {} completed, {} failed, {} unresolved",
+                payments.size(), completed, applied.size() - completed, payments.size() - applied.size());
+    }
+
+    /**
+     * Record the metrics of applied settlements and notify the completed payments; returns
+     * how many completed
+     */
+    private int announce(List<Settlement> applied, Map<Long, FailureReason> failureReasons) {
+        List<Long> completed = new ArrayList<>();
+        for (Settlement settlement : applied) {
+            paymentMetrics.paymentProcessed(settlement.status(), settlement.payment().currencyCode());
+            if (settlement.status() == Payment.PaymentStatus.COMPLETED) {
+                completed.add(settlement.payment().id());
+            } else {
+                paymentMetrics.paymentFailed(failureReasons.get(settlement.payment().id()),
+                        settlement.payment().currencyCode());
+            }
+        }
+        if (!completed.isEmpty()) {
+            for (Payment payment : paymentRepository.findAllById(completed)) {
+                notificationService.sendPaymentSuccessNotification(payment);
+                webhookService.sendPaymentWebhook(payment, "payment.completed");
+            }
+        }
+        return completed.size();
+    }
+
+    private void submit(BatchKey key, List<BatchPayment> payments, List<Settlement> settlements,
+                        Map<Long, FailureReason> failureReasons) {
+        List<GatewayRequest> requests = new ArrayList<>(payments.size());
+        for (BatchPayment payment : payments) {
+            requests.add(gatewayRequest(payment));
+        }
+
+        paymentMetrics.recordGatewayBatch(requests.size());
+        long start = System.nanoTime();
+        List<GatewayResponse> responses;
+        try {
+            responses = paymentTracing.inSpan("payment.gateway.batch", null,
+                    () -> gatewayRouter.submitBatch(key.connector(), requests));
+        } catch (GatewayUnavailableException e) {
+            // No gateway took the batch
+            paymentMetrics.recordGatewayLatency(GatewayOperation.BATCH, GatewayOutcome.ERROR, System.nanoTime() - start);
+            log.error("Gateway batch of {} {} payments via {} failed", payments.size(), key.currencyCode(),
+                    key.connector(), e);
+            for (BatchPayment payment : payments) {
+                settlements.add(new Settlement(payment, Payment.PaymentStatus.FAILED,
+                        "Payment processing error: " + e.getMessage(), "PAYMENT_FAILED",
+                        Map.of("details", "Payment gateway error")));
+                failureReasons.put(payment.id(), FailureReason.PROCESSING_ERROR);
+            }
+            return;
+        } catch (RuntimeException e) {
+            // The gateway may have settled some or all of them: leave them PROCESSING for
+            // reconciliation rather than failing payments it approved
+            paymentMetrics.recordGatewayLatency(GatewayOperation.BATCH, GatewayOutcome.ERROR, System.nanoTime() - start);
+            log.error("Outcome of gateway batch of {} {} payments via {} is unknown; they stay PROCESSING until "
+                    + "reconciled", payments.size(), key.currencyCode(), key.connector(), e);
+            return;
+        }
+        if (responses.size() != requests.size()) {
+            paymentMetrics.recordGatewayLatency(GatewayOperation.BATCH, GatewayOutcome.ERROR, System.nanoTime() - start);
+            log.error("Gateway batch of {} {} payments via {} returned {} responses; they stay PROCESSING until "
+                    + "reconciled", payments.size(), key.currencyCode(), key.connector(), responses.size());
+            return;
+        }
+        paymentMetrics.recordGatewayLatency(GatewayOperation.BATCH, GatewayOutcome.SUCCESS, System.nanoTime() - start);
+        int unknown = 0;
+        for (int i = 0; i < payments.size(); i++) {
+            GatewayResponse response = responses.get(i);
+            if (response == null) {
+                // Outcome unknown: the payment keeps its claim until reconciled
+                unknown++;
+                continue;
+            }
+            settlements.add(settlement(payments.get(i), response, failureReasons));
+        }
+        if (unknown > 0) {
+            log.error("Outcome of {} of a gateway batch of {} {} payments via {} is unknown; they stay PROCESSING "
+                    + "until reconciled", unknown, payments.size(), key.currencyCode(), key.connector());
+        }
+    }
+
+    private static GatewayRequest gatewayRequest(BatchPayment payment) {
+        return new GatewayRequest(GatewayRequest.Operation.PAYMENT, payment.paymentReference(), payment.amount(),
+                payment.currencyCode(), payment.paymentReference());
+    }
+
+    private static Settlement settlement(BatchPayment payment, GatewayResponse response,
+                                         Map<Long, FailureReason> failureReasons) {
+        if (response.approved()) {
+            return new Settlement(payment, Payment.PaymentStatus.COMPLETED,
+                    "Payment processed successfully", "PAYMENT_PROCESSED",
+                    Map.of("details", "Payment processed successfully", "gateway", response.connector(),
+                            "gatewayReference", String.valueOf(response.gatewayReference())));
+        }
+        failureReasons.put(payment.id(), FailureReason.GATEWAY_DECLINED);
+        return new Settlement(payment, Payment.PaymentStatus.FAILED,
+                "Payment processing failed", "PAYMENT_FAILED",
+                Map.of("details", "Payment processing failed", "gateway", response.connector(),
+                        "declineReason", String.valueOf(response.declineReason())));
+    }
+}
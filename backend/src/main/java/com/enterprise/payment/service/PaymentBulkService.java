@@ -0,0 +1,275 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.deadline.DeadlineScheduler;
+import com.enterprise.payment.deadline.DeadlineType;
+import com.enterprise.payment.dto.request.BulkCreatePaymentRequest;
+import com.enterprise.payment.dto.request.CreatePaymentRequest;
+import com.enterprise.payment.dto.response.ApiResponse.ErrorDetail;
+import com.enterprise.payment.dto.response.BulkCreatePaymentResponse;
+import com.enterprise.payment.dto.response.BulkCreatePaymentResponse.ItemResult;
+import com.enterprise.payment.entity.Account;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.entity.PaymentMethod;
+import com.enterprise.payment.monitoring.CorrelationIdFilter;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.PaymentBulkRepository;
+import com.enterprise.payment.repository.PaymentBulkRepository.AuditEntry;
+import com.enterprise.payment.repository.PaymentMethodRepository;
+import com.enterprise.payment.security.AccountAccess;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk payment creation (payout files, marketplace settlement runs).
+ *
+ * The whole request is validated before anything is written; accounts and payment methods
+ * are resolved with one IN query each, payment ids come in blocks from the pooled payment
+ * sequence and payments, status history and audit entries are written as JDBC batches in one
+ * transaction. Invalid items, and items for accounts the caller does not belong to, are
+ * reported per item and the rest are created. Each payment gets the same risk assessment as
+ * {@link PaymentService#createPayment}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentBulkService extends BaseService {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final PaymentMethodRepository paymentMethodRepository;
+    private final PaymentBulkRepository paymentBulkRepository;
+    private final PaymentService paymentService;
+    private final PaymentBatchService paymentBatchService;
+    private final RiskAssessmentService riskAssessmentService;
+    private final PaymentMetrics paymentMetrics;
+    private final Validator validator;
+    private final AccountAccess accountAccess;
+    private final DeadlineScheduler deadlineScheduler;
+
+    /**
+     * Create the valid payments of the request and report every item's outcome
+     */
+    @Transactional
+    public BulkCreatePaymentResponse createPayments(BulkCreatePaymentRequest request) {
+        long started = System.nanoTime();
+        List<CreatePaymentRequest> items = request.getPayments();
+        List<List<ErrorDetail>> errors = new ArrayList<>(items.size());
+        Set<Long> accountIds = new HashSet<>();
+        Set<Long> paymentMethodIds = new HashSet<>();
+        for (CreatePaymentRequest item : items) {
+            List<ErrorDetail> itemErrors = validateItem(item);
+            errors.add(itemErrors);
+            if (itemErrors.isEmpty()) {
+                accountIds.add(item.getAccountId());
+                if (item.getPaymentMethodId() != null) {
+                    paymentMethodIds.add(item.getPaymentMethodId());
+                }
+            }
+        }
+
+        Map<Long, Account> accounts = accountRepository.findAllById(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        Set<Long> accessible = accounts.keySet().stream()
+                .filter(accountAccess::canAccess)
+                .collect(Collectors.toSet());
+        Map<Long, PaymentMethod> paymentMethods = paymentMethodIds.isEmpty() ? Map.of()
+                : paymentMethodRepository.findAllById(paymentMethodIds).stream()
+                        .collect(Collectors.toMap(PaymentMethod::getId, Function.identity()));
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Payment> payments = new ArrayList<>(items.size());
+        List<Integer> paymentIndexes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            CreatePaymentRequest item = items.get(i);
+            if (!errors.get(i).isEmpty()) {
+                continue;
+            }
+            Account account = accounts.get(item.getAccountId());
+            PaymentMethod paymentMethod = item.getPaymentMethodId() != null
+                    ? paymentMethods.get(item.getPaymentMethodId()) : null;
+            if (!resolveReferences(item, account, accessible.contains(item.getAccountId()), paymentMethod,
+                    errors.get(i))) {
+                continue;
+            }
+            Payment payment = paymentService.createPaymentEntity(item, account, paymentMethod);
+            if (item.getBatchEligible() == null) {
+                payment.setBatchEligible(!Boolean.FALSE.equals(request.getBatchEligible()));
+            }
+            payment.setCreatedAt(now);
+            payment.setUpdatedAt(now);
+            payments.add(payment);
+            paymentIndexes.add(i);
+        }
+
+        List<AuditEntry> auditEntries = new ArrayList<>(payments.size() * 2);
+        int rejected = 0;
+        if (!payments.isEmpty()) {
+            List<Long> ids = paymentBulkRepository.allocatePaymentIds(payments.size());
+            for (int i = 0; i < payments.size(); i++) {
+                Payment payment = payments.get(i);
+                payment.setId(ids.get(i));
+                rejected += assessRisk(payment, auditEntries) ? 0 : 1;
+            }
+
+            paymentBulkRepository.insertPayments(payments, INSERT_BATCH_SIZE);
+            paymentBulkRepository.insertStatusHistory(payments, "Payment created", getCurrentUsername(),
+                    INSERT_BATCH_SIZE);
+            paymentBulkRepository.insertAuditLogs(auditEntries, MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY),
+                    INSERT_BATCH_SIZE);
+
+            for (Payment payment : payments) {
+                paymentMetrics.paymentCreated(payment.getStatus(), payment.getCurrencyCode());
+            }
+        }
+
+        List<ItemResult> results = new ArrayList<>(items.size());
+        int next = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (next < paymentIndexes.size() && paymentIndexes.get(next) == i) {
+                Payment payment = payments.get(next++);
+                results.add(new ItemResult(i, payment.getId(), payment.getPaymentReference(),
+                        payment.getMerchantReference(), payment.getStatus(), null));
+            } else {
+                CreatePaymentRequest item = items.get(i);
+                results.add(new ItemResult(i, null, null, item != null ? item.getMerchantReference() : null, null,
+                        errors.get(i)));
+            }
+        }
+
+        log.info("Bulk payment creation: {} requested, {} created ({} rejected), {} invalid in {} ms",
+                items.size(), payments.size(), rejected, items.size() - payments.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        BulkCreatePaymentResponse response = new BulkCreatePaymentResponse(items.size(), payments.size(), rejected,
+                items.size() - payments.size(), 0, 0, results);
+        if (!payments.isEmpty()) {
+            afterCommit(() -> dispatch(payments, response));
+        }
+        return response;
+    }
+
+    private List<ErrorDetail> validateItem(CreatePaymentRequest item) {
+        List<ErrorDetail> errors = new ArrayList<>(0);
+        if (item == null) {
+            errors.add(new ErrorDetail("Payment is required"));
+            return errors;
+        }
+        for (ConstraintViolation<CreatePaymentRequest> violation : validator.validate(item)) {
+            errors.add(new ErrorDetail(violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        if (item.getAccountId() == null) {
+            errors.add(new ErrorDetail("accountId", "Account ID is required"));
+        }
+        return errors;
+    }
+
+    private boolean resolveReferences(CreatePaymentRequest item, Account account, boolean accessible,
+                                      PaymentMethod paymentMethod, List<ErrorDetail> errors) {
+        if (account == null) {
+            errors.add(new ErrorDetail("accountId", "Account not found with ID: " + item.getAccountId()));
+        } else if (!accessible) {
+            errors.add(new ErrorDetail("accountId", "Cannot create payments for account ID: " + item.getAccountId()));
+            return false;
+        } else if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            errors.add(new ErrorDetail("accountId", "Account is not active: " + account.getStatus()));
+        }
+        if (item.getPaymentMethodId() != null && (paymentMethod == null
+                || !paymentMethod.getAccount().getId().equals(item.getAccountId()))) {
+            errors.add(new ErrorDetail("paymentMethodId", "Invalid payment method ID"));
+        }
+        return errors.isEmpty();
+    }
+
+    /**
+     * Score the payment and queue its audit entries; returns false when it is rejected
+     */
+    private boolean assessRisk(Payment payment, List<AuditEntry> auditEntries) {
+        BigDecimal riskScore = riskAssessmentService.scorePaymentRisk(payment);
+        payment.setRiskScore(riskScore);
+        paymentMetrics.recordRiskScore(riskScore);
+        auditEntries.add(new AuditEntry(payment.getId(), "RISK_ASSESSMENT",
+                auditValues("Risk assessment completed", "riskScore", riskScore)));
+        auditEntries.add(new AuditEntry(payment.getId(), "PAYMENT_CREATED",
+                auditValues("Payment created", "amount", payment.getAmount())));
+        if (riskScore.compareTo(PaymentService.RISK_REJECTION_THRESHOLD) > 0) {
+            payment.setStatus(Payment.PaymentStatus.FAILED);
+            paymentMetrics.paymentFailed(PaymentMetrics.FailureReason.RISK_REJECTED, payment.getCurrencyCode());
+            auditEntries.add(new AuditEntry(payment.getId(), "PAYMENT_REJECTED",
+                    auditValues("Payment rejected due to high risk score", "riskScore", riskScore)));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Schedule the expiry of committed PENDING payments, as {@link PaymentService#createPayment}
+     * does, and hand them to gateway processing without waiting for it. Batch-eligible payments
+     * join micro-batches; the others, and all of them when batching is off or no gateway takes
+     * the currency, go to the async pool. Payments the batcher or the pool has no room for stay
+     * PENDING rather than holding the request thread: the batch requeue picks up batch-eligible
+     * ones once the batcher drains, and any left when their deadline passes expire. The counts
+     * are recorded on the response.
+     */
+    private void dispatch(List<Payment> payments, BulkCreatePaymentResponse response) {
+        int accepted = 0;
+        int individually = 0;
+        int queued = 0;
+        for (Payment payment : payments) {
+            if (payment.getStatus() != Payment.PaymentStatus.PENDING) {
+                continue;
+            }
+            deadlineScheduler.schedule(DeadlineType.PAYMENT_EXPIRY, payment.getId(), payment.getExpiresAt());
+            if (Boolean.TRUE.equals(payment.getBatchEligible())) {
+                PaymentBatchService.Submission submission = paymentBatchService.submit(payment);
+                if (submission == PaymentBatchService.Submission.QUEUED) {
+                    accepted++;
+                    continue;
+                }
+                if (submission == PaymentBatchService.Submission.FULL) {
+                    queued++;
+                    continue;
+                }
+            }
+            try {
+                paymentService.processPaymentAsync(payment.getId());
+                accepted++;
+                individually++;
+            } catch (RejectedExecutionException e) {
+                queued++;
+            }
+        }
+        if (individually > 0) {
+            log.info("Processing {} bulk-created payments individually", individually);
+        }
+        if (queued > 0) {
+            log.warn("No room to process {} bulk-created payments now; they stay PENDING", queued);
+        }
+        response.setAccepted(accepted);
+        response.setQueued(queued);
+    }
+
+    private static Map<String, Object> auditValues(String details, String key, Object value) {
+        Map<String, Object> values = new HashMap<>(4);
+        values.put("details", details);
+        values.put(key, value);
+        return values;
+    }
+}
@@ -0,0 +1,144 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.deadline.DeadlineHandler;
+import com.enterprise.payment.deadline.DeadlineType;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.monitoring.CorrelationIdFilter;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.repository.PaymentBatchRepository;
+import com.enterprise.payment.repository.PaymentBatchRepository.ExpiredPayment;
+import com.enterprise.payment.repository.PaymentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Cancels PENDING payments past their {@code expiresAt}, which could never be processed any
+ * more but kept every scan of pending payments busy.
+ *
+ * A sweep walks the expired payments in keyset batches on the partial index of pending
+ * expiries; each batch is one statement that cancels the payments and records their status
+ * history and audit entries, committed on its own, after which the cancellation events go
+ * out. Batches lock their rows with SKIP LOCKED, so sweeps on several instances, and payments
+ * being cancelled or claimed meanwhile, never block or double-cancel one another.
+ *
+ * Payments are cancelled as their deadlines fall due, by id with the same statement; the
+ * periodic sweep only catches payments whose deadline was never scheduled, such as those
+ * created in bulk.
+ */
+@Service
+@Slf4j
+public class PaymentExpiryService implements DeadlineHandler {
+
+    static final String CHANGED_BY = "system";
+
+    private final PaymentBatchRepository paymentBatchRepository;
+    private final PaymentRepository paymentRepository;
+    private final NotificationService notificationService;
+    private final WebhookService webhookService;
+    private final PaymentMetrics paymentMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public PaymentExpiryService(PaymentBatchRepository paymentBatchRepository, PaymentRepository paymentRepository,
+                                NotificationService notificationService, WebhookService webhookService,
+                                PaymentMetrics paymentMetrics, TransactionTemplate transactionTemplate,
+                                @Value("${payment.expiry.enabled:true}") boolean enabled,
+                                @Value("${payment.expiry.batch-size:500}") int batchSize) {
+        this.paymentBatchRepository = paymentBatchRepository;
+        this.paymentRepository = paymentRepository;
+        this.notificationService = notificationService;
+        this.webhookService = webhookService;
+        this.paymentMetrics = paymentMetrics;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.expiry.sweep-interval:PT10M}",
+               initialDelayString = "${payment.expiry.sweep-interval:PT10M}")
+    public void sweepExpired() {
+        if (enabled) {
+            sweep(OffsetDateTime.now());
+        }
+    }
+
+    @Override
+    public DeadlineType type() {
+        return DeadlineType.PAYMENT_EXPIRY;
+    }
+
+    /**
+     * Cancel the payments whose deadline fell due, unless they left PENDING or had their
+     * expiry moved meanwhile
+     */
+    @Override
+    public void handle(List<Long> ids) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        String correlationId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+        List<ExpiredPayment> expired = transactionTemplate.execute(
+                status -> paymentBatchRepository.expireDue(ids, CHANGED_BY, correlationId));
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+        publish(expired);
+        paymentMetrics.expirySwept(expired.size(), System.nanoTime() - started);
+        log.debug("Expired {} of {} payments whose deadline fell due", expired.size(), ids.size());
+    }
+
+    /**
+     * Cancel every PENDING payment that expired before {@code cutoff}
+     */
+    SweepResult sweep(OffsetDateTime cutoff) {
+        long started = System.nanoTime();
+        String correlationId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+        int expired = 0;
+        int batches = 0;
+        ExpiredPayment after = null;
+        List<ExpiredPayment> batch;
+        do {
+            ExpiredPayment cursor = after;
+            batch = transactionTemplate.execute(status -> paymentBatchRepository.expirePending(cutoff, cursor,
+                    batchSize, CHANGED_BY, correlationId));
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            batches++;
+            expired += batch.size();
+            after = batch.get(batch.size() - 1);
+            publish(batch);
+        } while (batch.size() == batchSize);
+
+        SweepResult result = new SweepResult(expired, batches, System.nanoTime() - started);
+        paymentMetrics.expirySwept(expired, result.elapsedNanos());
+        if (expired > 0) {
+            log.info("Expired {} pending payments in {} batches in {} ms ({} payments/s)", expired, batches,
+                    result.elapsedNanos() / 1_000_000, result.paymentsPerSecond());
+        }
+        return result;
+    }
+
+    private void publish(List<ExpiredPayment> batch) {
+        for (Payment payment : paymentRepository.findAllById(batch.stream().map(ExpiredPayment::id).toList())) {
+            notificationService.sendPaymentCancelledNotification(payment);
+            webhookService.sendPaymentWebhook(payment, "payment.cancelled");
+        }
+    }
+
+    record SweepResult(int expired, int batches, long elapsedNanos) {
+
+        long paymentsPerSecond() {
+            return elapsedNanos > 0 ? expired * 1_000_000_000L / elapsedNanos : 0;
+        }
+    }
+}
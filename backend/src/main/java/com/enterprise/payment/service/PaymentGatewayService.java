@@ -1,9 +1,17 @@
 package com.enterprise.payment.service;
 
 import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.exception.GatewayUnavailableException;
 import com.enterprise.payment.exception.PaymentProcessingException;
+import com.enterprise.payment.gateway.GatewayRequest;
+import com.enterprise.payment.gateway.GatewayResponse;
+import com.enterprise.payment.gateway.GatewayRouter;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentMetrics.GatewayOperation;
+import com.enterprise.payment.monitoring.PaymentMetrics.GatewayOutcome;
+import com.enterprise.payment.monitoring.PaymentTracing;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -11,97 +19,116 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 
 /**
- * Service for integrating with external payment gateways
+ * Service for integrating with external payment gateways. Gateway selection, per-gateway
+ * isolation, timeouts and hedging live in {@link GatewayRouter}; this service adds auditing,
+ * metrics and the overall {@code payment-gateway} circuit breaker. There is no retry on top:
+ * the router already fails over between gateways, and a payment none of them took is declined
+ * by the fallback.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentGatewayService extends BaseService {
 
+    private final GatewayRouter gatewayRouter;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentTracing paymentTracing;
+
     /**
      * Process payment through external gateway
      */
     @CircuitBreaker(name = "payment-gateway", fallbackMethod = "processPaymentFallback")
-    @Retry(name = "payment-gateway")
     public boolean processPayment(Payment payment) {
-        logMethodEntry("processPayment", payment.getPaymentReference());
-        
+        return paymentTracing.inSpan("payment.gateway.process", payment.getPaymentReference(),
+                () -> submitPayment(payment));
+    }
+
+    /**
+     * Process refund through external gateway
+     */
+    @CircuitBreaker(name = "payment-gateway", fallbackMethod = "refundPaymentFallback")
+    public boolean refundPayment(Payment payment, BigDecimal refundAmount) {
+        return paymentTracing.inSpan("payment.gateway.refund", payment.getPaymentReference(),
+                () -> submitRefund(payment, refundAmount));
+    }
+
+    private boolean submitPayment(Payment payment) {
+        long start = System.nanoTime();
         try {
-            // TODO: Implement actual payment gateway integration
-            // This is a mock implementation for demonstration
-            
             log.info("Processing payment through gateway: {} amount: {}", 
                     payment.getPaymentReference(), payment.getAmount());
             
-            // Simulate processing delay
-            Thread.sleep(1000);
-            
-            // Mock success rate of 95%
-            boolean success = Math.random() > 0.05;
+            GatewayResponse response = gatewayRouter.submit(new GatewayRequest(GatewayRequest.Operation.PAYMENT,
+                    payment.getPaymentReference(), payment.getAmount(), payment.getCurrencyCode(),
+                    payment.getPaymentReference()));
+            boolean success = response.approved();
             
             if (success) {
-                log.info("Payment processed successfully through gateway: {}", 
-                        payment.getPaymentReference());
+                log.info("Payment processed successfully through gateway {}: {}", 
+                        response.connector(), payment.getPaymentReference());
                 
                 auditLog("GATEWAY_PAYMENT_SUCCESS", "PAYMENT", payment.getId(), 
-                        "Payment processed successfully through gateway");
+                        "Payment processed successfully through gateway", 
+                        "gateway", response.connector(), "gatewayReference", response.gatewayReference());
             } else {
-                log.warn("Payment processing failed through gateway: {}", 
-                        payment.getPaymentReference());
+                log.warn("Payment declined by gateway {}: {}", 
+                        response.connector(), payment.getPaymentReference());
                 
                 auditLog("GATEWAY_PAYMENT_FAILED", "PAYMENT", payment.getId(), 
-                        "Payment processing failed through gateway");
+                        "Payment processing failed through gateway", 
+                        "gateway", response.connector(), "declineReason", response.declineReason());
             }
             
-            logMethodExit("processPayment", success);
+            paymentMetrics.recordGatewayLatency(GatewayOperation.PROCESS,
+                    success ? GatewayOutcome.SUCCESS : GatewayOutcome.DECLINED, System.nanoTime() - start);
             return success;
             
+        } catch (GatewayUnavailableException e) {
+            // Not processed by any gateway: declined by the fallback
+            paymentMetrics.recordGatewayLatency(GatewayOperation.PROCESS, GatewayOutcome.ERROR, System.nanoTime() - start);
+            throw e;
         } catch (Exception e) {
+            paymentMetrics.recordGatewayLatency(GatewayOperation.PROCESS, GatewayOutcome.ERROR, System.nanoTime() - start);
             log.error("Payment gateway processing error for payment: {}", 
                      payment.getPaymentReference(), e);
             throw new PaymentProcessingException("Payment gateway error", e);
         }
     }
 
-    /**
-     * Process refund through external gateway
-     */
-    @CircuitBreaker(name = "payment-gateway", fallbackMethod = "refundPaymentFallback")
-    @Retry(name = "payment-gateway")
-    public boolean refundPayment(Payment payment, BigDecimal refundAmount) {
-        logMethodEntry("refundPayment", payment.getPaymentReference(), refundAmount);
-        
+    private boolean submitRefund(Payment payment, BigDecimal refundAmount) {
+        long start = System.nanoTime();
         try {
-            // TODO: Implement actual refund gateway integration
-            // This is a mock implementation for demonstration
-            
             log.info("Processing refund through gateway: {} amount: {}", 
                     payment.getPaymentReference(), refundAmount);
             
-            // Simulate processing delay
-            Thread.sleep(500);
-            
-            // Mock success rate of 98% for refunds
-            boolean success = Math.random() > 0.02;
+            GatewayResponse response = gatewayRouter.submit(new GatewayRequest(GatewayRequest.Operation.REFUND,
+                    payment.getPaymentReference(), refundAmount, payment.getCurrencyCode(),
+                    payment.getPaymentReference() + ":refund:" + refundAmount.toPlainString()));
+            boolean success = response.approved();
             
             if (success) {
-                log.info("Refund processed successfully through gateway: {} amount: {}", 
-                        payment.getPaymentReference(), refundAmount);
+                log.info("Refund processed successfully through gateway {}: {} amount: {}", 
+                        response.connector(), payment.getPaymentReference(), refundAmount);
                 
                 auditLog("GATEWAY_REFUND_SUCCESS", "PAYMENT", payment.getId(), 
-                        "Refund processed successfully through gateway for amount: " + refundAmount);
+                        "Refund processed successfully through gateway", "amount", refundAmount, "gateway", response.connector());
             } else {
-                log.warn("Refund processing failed through gateway: {} amount: {}", 
-                        payment.getPaymentReference(), refundAmount);
+                log.warn("Refund declined by gateway {}: {} amount: {}", 
+                        response.connector(), payment.getPaymentReference(), refundAmount);
                 
                 auditLog("GATEWAY_REFUND_FAILED", "PAYMENT", payment.getId(), 
-                        "Refund processing failed through gateway for amount: " + refundAmount);
+                        "Refund processing failed through gateway", "amount", refundAmount, "gateway", response.connector());
             }
             
-            logMethodExit("refundPayment", success);
+            paymentMetrics.recordGatewayLatency(GatewayOperation.REFUND,
+                    success ? GatewayOutcome.SUCCESS : GatewayOutcome.DECLINED, System.nanoTime() - start);
             return success;
             
+        } catch (GatewayUnavailableException e) {
+            paymentMetrics.recordGatewayLatency(GatewayOperation.REFUND, GatewayOutcome.ERROR, System.nanoTime() - start);
+            throw e;
         } catch (Exception e) {
+            paymentMetrics.recordGatewayLatency(GatewayOperation.REFUND, GatewayOutcome.ERROR, System.nanoTime() - start);
             log.error("Payment gateway refund error for payment: {} amount: {}", 
                      payment.getPaymentReference(), refundAmount, e);
             throw new PaymentProcessingException("Payment gateway refund error", e);
@@ -109,9 +136,12 @@ public class PaymentGatewayService extends BaseService {
     }
 
     /**
-     * Fallback method for payment processing
+     * Fallback method for payment processing, while the circuit breaker is open. Only failures
+     * proving the payment never reached a gateway fall back to a decline; any other failure
+     * (a timeout, an error after the request was sent) propagates, since a gateway may have
+     * approved it, and the payment is left for reconciliation.
      */
-    public boolean processPaymentFallback(Payment payment, Exception ex) {
+    public boolean processPaymentFallback(Payment payment, CallNotPermittedException ex) {
         log.error("Circuit breaker activated for payment processing: {}", 
                  payment.getPaymentReference(), ex);
         
@@ -121,6 +151,18 @@ public class PaymentGatewayService extends BaseService {
         return false;
     }
 
+    /**
+     * Fallback method for payment processing, when no gateway took the payment
+     */
+    public boolean processPaymentFallback(Payment payment, GatewayUnavailableException ex) {
+        log.error("No payment gateway available for payment: {}", payment.getPaymentReference(), ex);
+        
+        auditLog("GATEWAY_UNAVAILABLE", "PAYMENT", payment.getId(), 
+                "No payment gateway available", "reason", ex.getMessage());
+        
+        return false;
+    }
+
     /**
      * Fallback method for refund processing
      */
@@ -129,7 +171,7 @@ public class PaymentGatewayService extends BaseService {
                  payment.getPaymentReference(), refundAmount, ex);
         
         auditLog("GATEWAY_CIRCUIT_BREAKER", "PAYMENT", payment.getId(), 
-                "Refund gateway circuit breaker activated for amount: " + refundAmount);
+                "Refund gateway circuit breaker activated", "amount", refundAmount);
         
         return false;
     }
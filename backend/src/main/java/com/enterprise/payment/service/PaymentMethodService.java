@@ -1,18 +1,26 @@
 package com.enterprise.payment.service;
 
+import com.enterprise.payment.crypto.CardFingerprint;
 import com.enterprise.payment.dto.request.CreatePaymentMethodRequest;
 import com.enterprise.payment.dto.response.PaymentMethodResponse;
 import com.enterprise.payment.entity.Account;
 import com.enterprise.payment.entity.PaymentMethod;
 import com.enterprise.payment.exception.AccountNotFoundException;
+import com.enterprise.payment.exception.DuplicateResourceException;
 import com.enterprise.payment.exception.PaymentNotFoundException;
 import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.SensitiveArguments;
 import com.enterprise.payment.repository.AccountRepository;
 import com.enterprise.payment.repository.PaymentMethodRepository;
+import com.enterprise.payment.tokenization.TokenVault;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -26,21 +34,26 @@ import java.util.Map;
  * Service for managing payment methods including encryption/decryption of sensitive data
  */
 @Service
+@SensitiveArguments
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentMethodService extends BaseService {
 
+    private static final String STATISTICS_CACHE = "payment-method-stats";
+    private static final String CARD_FINGERPRINT_INDEX = "idx_payment_methods_account_card_fingerprint";
+
     private final PaymentMethodRepository paymentMethodRepository;
     private final AccountRepository accountRepository;
     private final EncryptionService encryptionService;
+    private final TokenVault tokenVault;
+    private final CardFingerprint cardFingerprint;
+    private final CacheManager cacheManager;
 
     /**
      * Create a new payment method
      */
     @Transactional
     public PaymentMethodResponse createPaymentMethod(CreatePaymentMethodRequest request) {
-        logMethodEntry("createPaymentMethod", request);
-        
         validateCreatePaymentMethodRequest(request);
         
         Account account = accountRepository.findById(request.getAccountId())
@@ -48,8 +61,25 @@ public class PaymentMethodService extends BaseService {
             
         validateAccountForPaymentMethod(account);
         
+        byte[] fingerprint = isCard(request.getType()) ? cardFingerprint.of(request.getCardNumber()) : null;
+        if (fingerprint != null && paymentMethodRepository
+                .existsByAccountIdAndCardFingerprintAndIsActive(account.getId(), fingerprint, true)) {
+            throw new DuplicateResourceException("This card is already a payment method of the account");
+        }
+        
         PaymentMethod paymentMethod = createPaymentMethodEntity(request, account);
-        paymentMethod = paymentMethodRepository.save(paymentMethod);
+        paymentMethod.setCardFingerprint(fingerprint);
+        try {
+            // Flushed here so that the same card added concurrently fails on the unique index now
+            paymentMethod = paymentMethodRepository.saveAndFlush(paymentMethod);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && CARD_FINGERPRINT_INDEX.equals(violation.getConstraintName())) {
+                throw new DuplicateResourceException("This card is already a payment method of the account", e);
+            }
+            throw e;
+        }
+        evictStatistics(account.getId());
         
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("type", paymentMethod.getType());
@@ -57,11 +87,9 @@ public class PaymentMethodService extends BaseService {
         metadata.put("accountId", account.getId());
         
         auditLog("PAYMENT_METHOD_CREATED", "PAYMENT_METHOD", paymentMethod.getId(), 
-                "Payment method created for account: " + account.getAccountNumber(), metadata);
+                "Payment method created", "accountNumber", account.getAccountNumber(), metadata);
         
-        PaymentMethodResponse response = mapToPaymentMethodResponse(paymentMethod);
-        logMethodExit("createPaymentMethod", response);
-        return response;
+        return mapToPaymentMethodResponse(paymentMethod);
     }
 
     /**
@@ -69,22 +97,17 @@ public class PaymentMethodService extends BaseService {
      */
     @Cacheable(value = "payment-methods", key = "#paymentMethodId")
     public PaymentMethodResponse getPaymentMethodById(Long paymentMethodId) {
-        logMethodEntry("getPaymentMethodById", paymentMethodId);
-        
-        PaymentMethod paymentMethod = paymentMethodRepository.findById(paymentMethodId)
+        PaymentMethod paymentMethod = paymentMethodRepository.findWithAccountById(paymentMethodId)
             .orElseThrow(() -> PaymentNotFoundException.byId(paymentMethodId));
             
-        PaymentMethodResponse response = mapToPaymentMethodResponse(paymentMethod);
-        logMethodExit("getPaymentMethodById", response);
-        return response;
+        return mapToPaymentMethodResponse(paymentMethod);
     }
 
     /**
      * Get payment methods for account
      */
+    @Transactional(readOnly = true)
     public Page<PaymentMethodResponse> getPaymentMethodsForAccount(Long accountId, Pageable pageable) {
-        logMethodEntry("getPaymentMethodsForAccount", accountId, pageable);
-        
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> AccountNotFoundException.byId(accountId));
             
@@ -92,22 +115,19 @@ public class PaymentMethodService extends BaseService {
             .findByAccountAndIsActiveOrderByCreatedAtDesc(account, true, pageable);
         Page<PaymentMethodResponse> response = paymentMethods.map(this::mapToPaymentMethodResponse);
         
-        logMethodExit("getPaymentMethodsForAccount", response.getTotalElements());
         return response;
     }
 
     /**
      * Get payment methods by type
      */
+    @Transactional(readOnly = true)
     public Page<PaymentMethodResponse> getPaymentMethodsByType(PaymentMethod.PaymentMethodType type, 
                                                              Pageable pageable) {
-        logMethodEntry("getPaymentMethodsByType", type, pageable);
-        
         Page<PaymentMethod> paymentMethods = paymentMethodRepository
             .findByTypeAndIsActiveOrderByCreatedAtDesc(type, true, pageable);
         Page<PaymentMethodResponse> response = paymentMethods.map(this::mapToPaymentMethodResponse);
         
-        logMethodExit("getPaymentMethodsByType", response.getTotalElements());
         return response;
     }
 
@@ -117,16 +137,15 @@ public class PaymentMethodService extends BaseService {
     @Transactional
     @CacheEvict(value = "payment-methods", key = "#paymentMethodId")
     public PaymentMethodResponse updatePaymentMethodStatus(Long paymentMethodId, boolean isActive) {
-        logMethodEntry("updatePaymentMethodStatus", paymentMethodId, isActive);
-        
         PaymentMethod paymentMethod = paymentMethodRepository.findById(paymentMethodId)
-            .orElseThrow(() -> new PaymentNotFoundException(paymentMethodId));
+            .orElseThrow(() -> new PaymentNotFoundException("Payment method not found with ID: " + paymentMethodId));
             
         Boolean oldStatus = paymentMethod.getIsActive();
         paymentMethod.setIsActive(isActive);
         paymentMethod.setUpdatedAt(OffsetDateTime.now());
         
         paymentMethod = paymentMethodRepository.save(paymentMethod);
+        evictStatistics(paymentMethod.getAccount().getId());
         
         auditLog("PAYMENT_METHOD_STATUS_UPDATED", "PAYMENT_METHOD", paymentMethod.getId(), 
                 String.format("Status updated from %s to %s", oldStatus, isActive));
@@ -134,9 +153,7 @@ public class PaymentMethodService extends BaseService {
         log.info("Payment method status updated: {} from {} to {}", 
                 paymentMethodId, oldStatus, isActive);
         
-        PaymentMethodResponse response = mapToPaymentMethodResponse(paymentMethod);
-        logMethodExit("updatePaymentMethodStatus", response);
-        return response;
+        return mapToPaymentMethodResponse(paymentMethod);
     }
 
     /**
@@ -145,37 +162,32 @@ public class PaymentMethodService extends BaseService {
     @Transactional
     @CacheEvict(value = "payment-methods", key = "#paymentMethodId")
     public void deletePaymentMethod(Long paymentMethodId) {
-        logMethodEntry("deletePaymentMethod", paymentMethodId);
-        
         PaymentMethod paymentMethod = paymentMethodRepository.findById(paymentMethodId)
-            .orElseThrow(() -> new PaymentNotFoundException(paymentMethodId));
+            .orElseThrow(() -> new PaymentNotFoundException("Payment method not found with ID: " + paymentMethodId));
             
         paymentMethod.setIsActive(false);
         paymentMethod.setUpdatedAt(OffsetDateTime.now());
         
         paymentMethodRepository.save(paymentMethod);
+        evictStatistics(paymentMethod.getAccount().getId());
         
         auditLog("PAYMENT_METHOD_DELETED", "PAYMENT_METHOD", paymentMethod.getId(), 
                 "Payment method soft deleted");
         
         log.info("Payment method soft deleted: {}", paymentMethodId);
-        logMethodExit("deletePaymentMethod");
     }
 
     /**
      * Validate payment method for processing
      */
     public boolean validatePaymentMethod(Long paymentMethodId) {
-        logMethodEntry("validatePaymentMethod", paymentMethodId);
-        
         PaymentMethod paymentMethod = paymentMethodRepository.findById(paymentMethodId)
-            .orElseThrow(() -> new PaymentNotFoundException(paymentMethodId));
+            .orElseThrow(() -> new PaymentNotFoundException("Payment method not found with ID: " + paymentMethodId));
             
         boolean isValid = paymentMethod.getIsActive() && 
                          (paymentMethod.getExpiresAt() == null || 
                           paymentMethod.getExpiresAt().isAfter(OffsetDateTime.now()));
         
-        logMethodExit("validatePaymentMethod", isValid);
         return isValid;
     }
 
@@ -184,10 +196,8 @@ public class PaymentMethodService extends BaseService {
      */
     @Transactional
     public Map<String, String> getDecryptedPaymentMethodDetails(Long paymentMethodId) {
-        logMethodEntry("getDecryptedPaymentMethodDetails", paymentMethodId);
-        
         PaymentMethod paymentMethod = paymentMethodRepository.findById(paymentMethodId)
-            .orElseThrow(() -> new PaymentNotFoundException(paymentMethodId));
+            .orElseThrow(() -> new PaymentNotFoundException("Payment method not found with ID: " + paymentMethodId));
             
         Map<String, String> decryptedDetails = new HashMap<>();
         
@@ -201,7 +211,6 @@ public class PaymentMethodService extends BaseService {
                 "Payment method details decrypted and accessed");
         
         log.info("Payment method details decrypted for method: {}", paymentMethodId);
-        logMethodExit("getDecryptedPaymentMethodDetails", "details_decrypted");
         return decryptedDetails;
     }
 
@@ -212,10 +221,8 @@ public class PaymentMethodService extends BaseService {
     @CacheEvict(value = "payment-methods", key = "#paymentMethodId")
     public PaymentMethodResponse updatePaymentMethodDetails(Long paymentMethodId, 
                                                            Map<String, String> sensitiveDetails) {
-        logMethodEntry("updatePaymentMethodDetails", paymentMethodId, "***");
-        
         PaymentMethod paymentMethod = paymentMethodRepository.findById(paymentMethodId)
-            .orElseThrow(() -> new PaymentNotFoundException(paymentMethodId));
+            .orElseThrow(() -> new PaymentNotFoundException("Payment method not found with ID: " + paymentMethodId));
             
         // Encrypt sensitive details
         String encryptedDetails = encryptionService.encryptPaymentData(
@@ -231,40 +238,28 @@ public class PaymentMethodService extends BaseService {
         
         log.info("Payment method details updated with encryption: {}", paymentMethodId);
         
-        PaymentMethodResponse response = mapToPaymentMethodResponse(paymentMethod);
-        logMethodExit("updatePaymentMethodDetails", response);
-        return response;
+        return mapToPaymentMethodResponse(paymentMethod);
     }
 
     /**
      * Get payment method statistics for account
      */
-    @Cacheable(value = "payment-method-stats", key = "#accountId")
+    @Cacheable(value = STATISTICS_CACHE, key = "#accountId")
+    @Transactional(readOnly = true)
     public Map<String, Object> getPaymentMethodStatistics(Long accountId) {
-        logMethodEntry("getPaymentMethodStatistics", accountId);
-        
-        Account account = accountRepository.findById(accountId)
-            .orElseThrow(() -> AccountNotFoundException.byId(accountId));
-            
-        Map<String, Object> stats = new HashMap<>();
-        
-        // Get total count
-        Long totalCount = paymentMethodRepository.countByAccountAndIsActive(account, true);
-        stats.put("totalPaymentMethods", totalCount);
-        
-        // Get count by type
-        for (PaymentMethod.PaymentMethodType type : PaymentMethod.PaymentMethodType.values()) {
-            Long count = paymentMethodRepository.countByAccountAndTypeAndIsActive(account, type, true);
-            stats.put(type.name().toLowerCase() + "Methods", count);
+        // Counts per type and recent count in one grouped query
+        OffsetDateTime thirtyDaysAgo = OffsetDateTime.now().minusDays(30);
+        GroupedCounts<PaymentMethod.PaymentMethodType> counts = GroupedCounts.of(PaymentMethod.PaymentMethodType.class,
+            paymentMethodRepository.countActiveByTypeForAccount(accountId, thirtyDaysAgo));
+        if (!counts.found()) {
+            throw AccountNotFoundException.byId(accountId);
         }
         
-        // Get recent additions (last 30 days)
-        OffsetDateTime thirtyDaysAgo = OffsetDateTime.now().minusDays(30);
-        Long recentCount = paymentMethodRepository
-            .countByAccountAndIsActiveAndCreatedAtAfter(account, true, thirtyDaysAgo);
-        stats.put("recentPaymentMethods", recentCount);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalPaymentMethods", counts.total());
+        counts.putCounts(stats, "Methods");
+        stats.put("recentPaymentMethods", counts.filteredTotal());
         
-        logMethodExit("getPaymentMethodStatistics", stats);
         return stats;
     }
 
@@ -301,10 +296,10 @@ public class PaymentMethodService extends BaseService {
         paymentMethod.setIsActive(true);
         
         // Handle sensitive data encryption
-        if (request.getType() == PaymentMethod.PaymentMethodType.CREDIT_CARD || 
-            request.getType() == PaymentMethod.PaymentMethodType.DEBIT_CARD) {
+        if (isCard(request.getType())) {
             Map<String, String> sensitiveData = new HashMap<>();
-            sensitiveData.put("cardNumber", request.getCardNumber());
+            // The card number itself lives in the vault
+            sensitiveData.put("cardToken", tokenVault.tokenize(request.getCardNumber()));
             sensitiveData.put("cardholderName", request.getCardholderName());
             sensitiveData.put("cvv", request.getCvv());
             
@@ -326,6 +321,22 @@ public class PaymentMethodService extends BaseService {
         return paymentMethod;
     }
 
+    /**
+     * Drop the account's cached statistics once the change is committed, so that a concurrent
+     * read cannot cache the counts from before it again
+     */
+    private void evictStatistics(Long accountId) {
+        Cache cache = cacheManager.getCache(STATISTICS_CACHE);
+        if (cache == null) {
+            return;
+        }
+        afterCommit(() -> cache.evict(accountId));
+    }
+
+    private boolean isCard(PaymentMethod.PaymentMethodType type) {
+        return type == PaymentMethod.PaymentMethodType.CREDIT_CARD || type == PaymentMethod.PaymentMethodType.DEBIT_CARD;
+    }
+
     private void validateCardNumber(String cardNumber) {
         if (cardNumber == null || cardNumber.length() < 13 || cardNumber.length() > 19) {
             throw new ValidationException("Invalid card number length");
@@ -1,8 +1,11 @@
 package com.enterprise.payment.service;
 
+import com.enterprise.payment.deadline.DeadlineScheduler;
+import com.enterprise.payment.deadline.DeadlineType;
 import com.enterprise.payment.dto.request.CreatePaymentRequest;
 import com.enterprise.payment.dto.request.RefundPaymentRequest;
 import com.enterprise.payment.dto.request.UpdatePaymentStatusRequest;
+import com.enterprise.payment.dto.response.CursorPage;
 import com.enterprise.payment.dto.response.PaymentResponse;
 import com.enterprise.payment.entity.Account;
 import com.enterprise.payment.entity.Payment;
@@ -13,27 +16,38 @@ import com.enterprise.payment.exception.InsufficientFundsException;
 import com.enterprise.payment.exception.PaymentNotFoundException;
 import com.enterprise.payment.exception.PaymentProcessingException;
 import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.CorrelationIdFilter;
+import com.enterprise.payment.monitoring.Instrumented;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentTracing;
+import com.enterprise.payment.pagination.Cursor;
+import com.enterprise.payment.pagination.Keyset;
 import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.PaymentBatchRepository;
+import com.enterprise.payment.repository.PaymentBatchRepository.BatchPayment;
+import com.enterprise.payment.repository.PaymentBatchRepository.Settlement;
 import com.enterprise.payment.repository.PaymentMethodRepository;
+import com.enterprise.payment.repository.PaymentReadRepository;
+import com.enterprise.payment.repository.PaymentReadRepository.PaymentView;
 import com.enterprise.payment.repository.PaymentRepository;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import com.enterprise.payment.security.AccountAccess;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.slf4j.MDC;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service for managing payment lifecycle including creation, processing, and refunds
@@ -43,25 +57,39 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class PaymentService extends BaseService {
 
+    /** Payments scoring above this are rejected at creation */
+    static final BigDecimal RISK_REJECTION_THRESHOLD = BigDecimal.valueOf(70);
+
     private final PaymentRepository paymentRepository;
+    private final PaymentReadRepository paymentReadRepository;
     private final AccountRepository accountRepository;
     private final PaymentMethodRepository paymentMethodRepository;
     private final PaymentGatewayService paymentGatewayService;
+    private final PaymentBatchService paymentBatchService;
+    private final PaymentBatchRepository paymentBatchRepository;
     private final RiskAssessmentService riskAssessmentService;
     private final NotificationService notificationService;
     private final WebhookService webhookService;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentTracing paymentTracing;
+    private final ReferenceGenerator referenceGenerator;
+    private final Executor taskExecutor;
+    private final DeadlineScheduler deadlineScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountAccess accountAccess;
 
     /**
      * Create a new payment
      */
     @Transactional
+    @Instrumented(percentiles = true)
     public PaymentResponse createPayment(CreatePaymentRequest request) {
-        logMethodEntry("createPayment", request);
-        
         validateCreatePaymentRequest(request);
         
         Account account = accountRepository.findById(request.getAccountId())
             .orElseThrow(() -> new AccountNotFoundException("Account not found with ID: " + request.getAccountId()));
+        accountAccess.requireAccess(account.getId(),
+            "Cannot create payments for account " + account.getAccountNumber());
             
         validateAccountStatus(account);
         
@@ -72,116 +100,182 @@ public class PaymentService extends BaseService {
         }
         
         Payment payment = createPaymentEntity(request, account, paymentMethod);
+        paymentTracing.tagPaymentReference(payment.getPaymentReference());
         
         // Perform risk assessment
         BigDecimal riskScore = riskAssessmentService.assessPaymentRisk(payment);
         payment.setRiskScore(riskScore);
         
         // Check if payment should be auto-approved based on risk score
-        if (riskScore.compareTo(BigDecimal.valueOf(70)) > 0) {
+        if (riskScore.compareTo(RISK_REJECTION_THRESHOLD) > 0) {
             payment.setStatus(Payment.PaymentStatus.FAILED);
             auditLog("PAYMENT_REJECTED", "PAYMENT", payment.getId(), 
-                    "Payment rejected due to high risk score: " + riskScore);
+                    "Payment rejected due to high risk score", "riskScore", riskScore);
         }
         
         payment = paymentRepository.save(payment);
         
+        paymentMetrics.recordRiskScore(riskScore);
+        paymentMetrics.paymentCreated(payment.getStatus(), payment.getCurrencyCode());
+        if (payment.getStatus() == Payment.PaymentStatus.FAILED) {
+            paymentMetrics.paymentFailed(PaymentMetrics.FailureReason.RISK_REJECTED, payment.getCurrencyCode());
+        }
+        
         // Create status history
         createStatusHistory(payment, Payment.PaymentStatus.PENDING, "Payment created");
         
         auditLog("PAYMENT_CREATED", "PAYMENT", payment.getId(), 
-                "Payment created for amount: " + payment.getAmount());
-        
-        // Async processing
-        processPaymentAsync(payment.getId());
+                "Payment created", "amount", payment.getAmount());
+        
+        // Async processing, once the payment row is visible to the worker's connection.
+        // Batch-eligible payments join a gateway micro-batch unless the batcher is full.
+        Payment created = payment;
+        afterCommit(() -> {
+            if (created.getStatus() == Payment.PaymentStatus.PENDING) {
+                deadlineScheduler.schedule(DeadlineType.PAYMENT_EXPIRY, created.getId(), created.getExpiresAt());
+            }
+            if (!Boolean.TRUE.equals(created.getBatchEligible())
+                    || created.getStatus() != Payment.PaymentStatus.PENDING
+                    || paymentBatchService.submit(created) != PaymentBatchService.Submission.QUEUED) {
+                try {
+                    processPaymentAsync(created.getId());
+                } catch (RejectedExecutionException e) {
+                    log.warn("Async pool full, failing payment {}", created.getPaymentReference());
+                    handlePaymentProcessingFailure(created.getId(), "Payment processing is at capacity");
+                }
+            }
+        });
         
-        PaymentResponse response = mapToPaymentResponse(payment);
-        logMethodExit("createPayment", response);
-        return response;
+        return mapToPaymentResponse(payment);
     }
 
     /**
-     * Process payment asynchronously
+     * Process payment on the task pool, in one hop. Failures while processing are handled by
+     * {@link #processPaymentOrFail}, so the future only completes normally; a full pool throws
+     * {@link RejectedExecutionException} here, to the caller, with the payment still PENDING.
      */
-    @Async
-    @CircuitBreaker(name = "payment-processing", fallbackMethod = "processPaymentFallback")
-    @Retry(name = "payment-processing")
     public CompletableFuture<Void> processPaymentAsync(Long paymentId) {
-        return CompletableFuture.runAsync(() -> {
-            try {
+        return CompletableFuture.runAsync(() -> processPaymentOrFail(paymentId), taskExecutor);
+    }
+
+    /**
+     * Process payment; a payment whose processing throws while still PENDING is marked FAILED
+     */
+    private void processPaymentOrFail(Long paymentId) {
+        try {
+            paymentTracing.inSpan("payment.process", null, () -> {
                 processPayment(paymentId);
-            } catch (Exception e) {
-                log.error("Failed to process payment asynchronously: {}", paymentId, e);
-                handlePaymentProcessingFailure(paymentId, e.getMessage());
-            }
-        });
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Failed to process payment: {}", paymentId, e);
+            handlePaymentProcessingFailure(paymentId, e.getMessage());
+        }
     }
 
     /**
-     * Process payment synchronously
+     * Process payment synchronously. Like a micro-batch of one: the payment is claimed and its
+     * amount reserved in a short transaction, the gateway is called outside any transaction,
+     * and the outcome is settled in a second one, so the account row is only locked for the
+     * debit. A payment whose outcome is unknown stays PROCESSING, its amount reserved, until
+     * {@link PaymentBatchService#reconcileStale} settles it from the gateways' records.
      */
-    @Transactional
     public void processPayment(Long paymentId) {
-        logMethodEntry("processPayment", paymentId);
-        
-        Payment payment = paymentRepository.findById(paymentId)
+        Payment payment = paymentRepository.findWithAccountById(paymentId)
             .orElseThrow(() -> new PaymentNotFoundException(paymentId.toString()));
+        paymentTracing.tagPaymentReference(payment.getPaymentReference());
             
         if (!payment.canBeProcessed()) {
             throw new PaymentProcessingException("Payment cannot be processed in current state: " + payment.getStatus());
         }
         
+        String changedBy = getCurrentUsername();
+        String correlationId = MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY);
+        Claim claim = transactionTemplate.execute(status -> claim(paymentId, changedBy, correlationId));
+        if (claim == null) {
+            throw new PaymentProcessingException("Payment was taken by another worker or expired: "
+                    + payment.getPaymentReference());
+        }
+        if (claim.shortfall() != null) {
+            paymentMetrics.paymentProcessed(Payment.PaymentStatus.FAILED, payment.getCurrencyCode());
+            paymentMetrics.paymentFailed(PaymentMetrics.FailureReason.PROCESSING_ERROR, payment.getCurrencyCode());
+            throw new PaymentProcessingException("Payment processing failed", claim.shortfall());
+        }
+        
+        // Process through gateway
+        boolean processed;
         try {
-            // Update status to processing
-            updatePaymentStatus(payment, Payment.PaymentStatus.PROCESSING, "Payment processing started");
-            
-            // Check account balance if needed
-            if (payment.getAccount().getBalance().compareTo(payment.getAmount()) < 0) {
-                throw new InsufficientFundsException(payment.getAmount(), payment.getAccount().getBalance());
-            }
-            
-            // Process through gateway
-            boolean processed = paymentGatewayService.processPayment(payment);
-            
-            if (processed) {
-                updatePaymentStatus(payment, Payment.PaymentStatus.COMPLETED, "Payment processed successfully");
-                payment.setProcessedAt(OffsetDateTime.now());
-                
-                // Update account balance
-                Account account = payment.getAccount();
-                account.setBalance(account.getBalance().subtract(payment.getAmount()));
-                accountRepository.save(account);
-                
-                auditLog("PAYMENT_PROCESSED", "PAYMENT", payment.getId(), 
-                        "Payment processed successfully");
-                
-                // Send notifications
-                notificationService.sendPaymentSuccessNotification(payment);
-                webhookService.sendPaymentWebhook(payment, "payment.completed");
-            } else {
-                updatePaymentStatus(payment, Payment.PaymentStatus.FAILED, "Payment processing failed");
-                auditLog("PAYMENT_FAILED", "PAYMENT", payment.getId(), 
-                        "Payment processing failed");
-            }
+            processed = paymentGatewayService.processPayment(payment);
+        } catch (RuntimeException e) {
+            log.error("Outcome of payment {} is unknown; it stays PROCESSING until reconciled",
+                    payment.getPaymentReference(), e);
+            throw new PaymentProcessingException("Payment gateway outcome unknown", e);
+        }
+        
+        Settlement settlement = processed
+            ? new Settlement(claim.payment(), Payment.PaymentStatus.COMPLETED, "Payment processed successfully",
+                    "PAYMENT_PROCESSED", Map.of("details", "Payment processed successfully"))
+            : new Settlement(claim.payment(), Payment.PaymentStatus.FAILED, "Payment processing failed",
+                    "PAYMENT_FAILED", Map.of("details", "Payment processing failed"));
+        List<Settlement> applied = transactionTemplate.execute(
+                status -> paymentBatchRepository.settle(List.of(settlement), changedBy, correlationId));
+        if (applied == null || applied.isEmpty()) {
+            log.warn("Payment {} was settled by reconciliation first", payment.getPaymentReference());
+            return;
+        }
+        
+        paymentMetrics.paymentProcessed(settlement.status(), payment.getCurrencyCode());
+        if (processed) {
+            payment.setStatus(Payment.PaymentStatus.COMPLETED);
+            payment.setProcessedAt(OffsetDateTime.now());
             
-        } catch (Exception e) {
-            log.error("Payment processing failed for payment: {}", paymentId, e);
-            updatePaymentStatus(payment, Payment.PaymentStatus.FAILED, "Payment processing error: " + e.getMessage());
-            throw new PaymentProcessingException("Payment processing failed", e);
+            // Send notifications
+            notificationService.sendPaymentSuccessNotification(payment);
+            webhookService.sendPaymentWebhook(payment, "payment.completed");
+        } else {
+            payment.setStatus(Payment.PaymentStatus.FAILED);
+            paymentMetrics.paymentFailed(PaymentMetrics.FailureReason.GATEWAY_DECLINED, payment.getCurrencyCode());
+        }
+    }
+
+    /**
+     * Move the payment to PROCESSING and reserve its amount with a conditional debit, so
+     * neither concurrent payments nor batches can overdraw the account. One its account cannot
+     * cover fails right away. Returns null when the payment is no longer PENDING.
+     */
+    private Claim claim(Long paymentId, String changedBy, String correlationId) {
+        List<BatchPayment> claimed = paymentBatchRepository.claimPending(List.of(paymentId), changedBy);
+        if (claimed.isEmpty()) {
+            return null;
+        }
+        BatchPayment payment = claimed.get(0);
+        if (accountRepository.debitIfSufficient(payment.accountId(), payment.amount()) > 0) {
+            return new Claim(payment, null);
         }
         
-        logMethodExit("processPayment");
+        InsufficientFundsException shortfall = new InsufficientFundsException(
+            accountRepository.findBalanceById(payment.accountId()), payment.amount());
+        paymentBatchRepository.reject(List.of(new Settlement(payment, Payment.PaymentStatus.FAILED,
+                "Payment processing error: " + shortfall.getMessage(), "PAYMENT_FAILED",
+                Map.of("details", "Insufficient funds"))), changedBy, correlationId);
+        return new Claim(payment, shortfall);
+    }
+
+    /**
+     * A claimed payment, and why its amount could not be reserved when it was not
+     */
+    private record Claim(BatchPayment payment, InsufficientFundsException shortfall) {
     }
 
     /**
      * Refund a payment
      */
     @Transactional
+    @Instrumented
     public PaymentResponse refundPayment(String paymentReference, RefundPaymentRequest request) {
-        logMethodEntry("refundPayment", paymentReference, request);
-        
         Payment payment = paymentRepository.findByPaymentReference(paymentReference)
             .orElseThrow(() -> new PaymentNotFoundException(paymentReference));
+        requirePaymentAccess(payment.getAccount().getId(), paymentReference);
             
         if (!payment.canBeRefunded()) {
             throw new PaymentProcessingException("Payment cannot be refunded in current state: " + payment.getStatus());
@@ -200,10 +294,10 @@ public class PaymentService extends BaseService {
                 // Update account balance
                 Account account = payment.getAccount();
                 account.setBalance(account.getBalance().add(request.getAmount()));
-                accountRepository.save(account);
+                saveBalance(accountRepository, account, PaymentMetrics.BalanceOperation.CREDIT);
                 
                 auditLog("PAYMENT_REFUNDED", "PAYMENT", payment.getId(), 
-                        "Payment refunded amount: " + request.getAmount() + ", reason: " + request.getReason());
+                        "Payment refunded", "amount", request.getAmount(), "reason", request.getReason());
                 
                 // Send notifications
                 notificationService.sendPaymentRefundNotification(payment, request.getAmount());
@@ -217,9 +311,7 @@ public class PaymentService extends BaseService {
             throw new PaymentProcessingException("Payment refund failed", e);
         }
         
-        PaymentResponse response = mapToPaymentResponse(payment);
-        logMethodExit("refundPayment", response);
-        return response;
+        return mapToPaymentResponse(payment);
     }
 
     /**
@@ -227,8 +319,6 @@ public class PaymentService extends BaseService {
      */
     @Transactional
     public PaymentResponse updatePaymentStatus(String paymentReference, UpdatePaymentStatusRequest request) {
-        logMethodEntry("updatePaymentStatus", paymentReference, request);
-        
         Payment payment = paymentRepository.findByPaymentReference(paymentReference)
             .orElseThrow(() -> new PaymentNotFoundException(paymentReference));
             
@@ -236,83 +326,122 @@ public class PaymentService extends BaseService {
         updatePaymentStatus(payment, newStatus, request.getReason());
         
         auditLog("PAYMENT_STATUS_UPDATED", "PAYMENT", payment.getId(), 
-                "Status updated to: " + newStatus + ", reason: " + request.getReason());
+                "Status updated", "status", newStatus, "reason", request.getReason());
         
-        PaymentResponse response = mapToPaymentResponse(payment);
-        logMethodExit("updatePaymentStatus", response);
-        return response;
+        return mapToPaymentResponse(payment);
     }
 
     /**
-     * Get payment by reference
+     * Get payment by reference. Not cached: whether the caller may see the payment depends on
+     * its account, read with the row, so a cache hit would still need that read.
      */
-    @Cacheable(value = "payments", key = "#paymentReference")
     public PaymentResponse getPaymentByReference(String paymentReference) {
-        logMethodEntry("getPaymentByReference", paymentReference);
-        
-        Payment payment = paymentRepository.findByPaymentReference(paymentReference)
+        PaymentView payment = paymentReadRepository.findPaymentByReference(paymentReference, true)
             .orElseThrow(() -> new PaymentNotFoundException(paymentReference));
-            
-        PaymentResponse response = mapToPaymentResponse(payment);
-        logMethodExit("getPaymentByReference", response);
-        return response;
+        requirePaymentAccess(payment.accountId(), paymentReference);
+
+        return mapToPaymentResponse(payment);
     }
 
     /**
      * Get payments for account
+     *
+     * @param includeMetadata read and parse each payment's metadata, which is left out otherwise
      */
-    public Page<PaymentResponse> getPaymentsForAccount(String accountNumber, Pageable pageable) {
-        logMethodEntry("getPaymentsForAccount", accountNumber, pageable);
-        
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+    @Transactional(readOnly = true)
+    public Page<PaymentResponse> getPaymentsForAccount(String accountNumber, Pageable pageable,
+                                                       boolean includeMetadata) {
+        long accountId = paymentReadRepository.findAccountId(accountNumber)
             .orElseThrow(() -> new AccountNotFoundException(accountNumber));
-            
-        Page<Payment> payments = paymentRepository.findByAccountIdOrderByCreatedAtDesc(account.getId(), pageable);
-        Page<PaymentResponse> response = payments.map(this::mapToPaymentResponse);
-        
-        logMethodExit("getPaymentsForAccount", response.getTotalElements());
-        return response;
+        accountAccess.requireAccess(accountId, "Cannot list the payments of account " + accountNumber);
+
+        return paymentReadRepository.findPaymentsByAccountId(accountId, pageable, includeMetadata)
+            .map(this::mapToPaymentResponse);
+    }
+
+    /**
+     * Get payments for account, one keyset page at a time
+     *
+     * @param cursor          {@link CursorPage#getNextCursor()} of the previous page; null for the first
+     * @param includeTotal    also count the account's payments, up to {@link Keyset#COUNT_CAP}
+     * @param includeMetadata read and parse each payment's metadata, which is left out otherwise
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PaymentResponse> getPaymentsForAccount(String accountNumber, String cursor, int limit,
+                                                             boolean includeTotal, boolean includeMetadata) {
+        long accountId = paymentReadRepository.findAccountId(accountNumber)
+            .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        accountAccess.requireAccess(accountId, "Cannot list the payments of account " + accountNumber);
+        List<PaymentView> payments = paymentReadRepository.findPaymentKeysetByAccountId(accountId,
+            Cursor.decode(cursor), Keyset.fetchLimit(limit).max(), includeMetadata);
+        CursorPage<PaymentResponse> page = Keyset.page(payments, limit,
+            payment -> new Cursor(payment.createdAt(), payment.id()), this::mapToPaymentResponse);
+        return includeTotal
+            ? Keyset.withTotal(page, () -> paymentRepository.countByAccountIdUpTo(accountId, Keyset.COUNT_CAP + 1))
+            : page;
     }
 
     /**
      * Get payments by status
      */
+    @Transactional(readOnly = true)
     public Page<PaymentResponse> getPaymentsByStatus(Payment.PaymentStatus status, Pageable pageable) {
-        logMethodEntry("getPaymentsByStatus", status, pageable);
-        
         Page<Payment> payments = paymentRepository.findByStatusOrderByCreatedAtDesc(status, pageable);
         Page<PaymentResponse> response = payments.map(this::mapToPaymentResponse);
         
-        logMethodExit("getPaymentsByStatus", response.getTotalElements());
         return response;
     }
 
+    /**
+     * Get payments by status, one keyset page at a time
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PaymentResponse> getPaymentsByStatus(Payment.PaymentStatus status, String cursor, int limit,
+                                                           boolean includeTotal) {
+        Cursor after = Cursor.decode(cursor);
+        List<Payment> payments = after == null
+            ? paymentRepository.findKeysetByStatus(status, Keyset.fetchLimit(limit))
+            : paymentRepository.findKeysetByStatusAfter(status, after.createdAt(), after.id(), Keyset.fetchLimit(limit));
+        CursorPage<PaymentResponse> page = Keyset.page(payments, limit, PaymentService::cursorOf,
+            this::mapToPaymentResponse);
+        return includeTotal
+            ? Keyset.withTotal(page, () -> paymentRepository.countByStatusUpTo(status.name(), Keyset.COUNT_CAP + 1))
+            : page;
+    }
+
+    private static Cursor cursorOf(Payment payment) {
+        return new Cursor(payment.getCreatedAt(), payment.getId());
+    }
+
     /**
      * Cancel payment
      */
     @Transactional
+    @Instrumented
     public PaymentResponse cancelPayment(String paymentReference, String reason) {
-        logMethodEntry("cancelPayment", paymentReference, reason);
-        
         Payment payment = paymentRepository.findByPaymentReference(paymentReference)
             .orElseThrow(() -> new PaymentNotFoundException(paymentReference));
+        requirePaymentAccess(payment.getAccount().getId(), paymentReference);
             
         if (!payment.canBeCancelled()) {
             throw new PaymentProcessingException("Payment cannot be cancelled in current state: " + payment.getStatus());
         }
         
+        if (payment.getStatus() == Payment.PaymentStatus.PROCESSING) {
+            // Its amount is reserved and its gateway submission may still approve it
+            throw new PaymentProcessingException("Payment is being submitted to the gateway and cannot be cancelled");
+        }
+        
         updatePaymentStatus(payment, Payment.PaymentStatus.CANCELLED, reason);
         
         auditLog("PAYMENT_CANCELLED", "PAYMENT", payment.getId(), 
-                "Payment cancelled, reason: " + reason);
+                "Payment cancelled", "reason", reason);
         
         // Send notifications
         notificationService.sendPaymentCancelledNotification(payment);
         webhookService.sendPaymentWebhook(payment, "payment.cancelled");
         
-        PaymentResponse response = mapToPaymentResponse(payment);
-        logMethodExit("cancelPayment", response);
-        return response;
+        return mapToPaymentResponse(payment);
     }
 
     // Private helper methods
@@ -327,15 +456,23 @@ public class PaymentService extends BaseService {
         }
     }
 
+    /**
+     * @throws org.springframework.security.access.AccessDeniedException unless the caller may act
+     *         on the payment's account
+     */
+    private void requirePaymentAccess(Long accountId, String paymentReference) {
+        accountAccess.requireAccess(accountId, "Cannot access payment " + paymentReference);
+    }
+
     private void validateAccountStatus(Account account) {
         if (account.getStatus() != Account.AccountStatus.ACTIVE) {
             throw new ValidationException("Account is not active: " + account.getStatus());
         }
     }
 
-    private Payment createPaymentEntity(CreatePaymentRequest request, Account account, PaymentMethod paymentMethod) {
+    Payment createPaymentEntity(CreatePaymentRequest request, Account account, PaymentMethod paymentMethod) {
         Payment payment = new Payment();
-        payment.setPaymentReference(generatePaymentReference());
+        payment.setPaymentReference(referenceGenerator.nextPaymentReference());
         payment.setAccount(account);
         payment.setPaymentMethod(paymentMethod);
         payment.setAmount(request.getAmount());
@@ -346,6 +483,7 @@ public class PaymentService extends BaseService {
         payment.setSuccessUrl(request.getSuccessUrl());
         payment.setFailureUrl(request.getFailureUrl());
         payment.setMetadata(request.getMetadata());
+        payment.setBatchEligible(Boolean.TRUE.equals(request.getBatchEligible()));
         payment.setStatus(Payment.PaymentStatus.PENDING);
         
         // Set expiration time (24 hours from now)
@@ -354,10 +492,6 @@ public class PaymentService extends BaseService {
         return payment;
     }
 
-    private String generatePaymentReference() {
-        return "PAY_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
-    }
-
     private void createStatusHistory(Payment payment, Payment.PaymentStatus status, String reason) {
         PaymentStatusHistory history = new PaymentStatusHistory();
         history.setPayment(payment);
@@ -377,6 +511,9 @@ public class PaymentService extends BaseService {
         Payment.PaymentStatus oldStatus = payment.getStatus();
         payment.setStatus(newStatus);
         payment.setUpdatedAt(OffsetDateTime.now());
+        if (oldStatus == Payment.PaymentStatus.PENDING && newStatus != Payment.PaymentStatus.PENDING) {
+            deadlineScheduler.cancel(DeadlineType.PAYMENT_EXPIRY, payment.getId());
+        }
         
         createStatusHistory(payment, newStatus, reason);
         paymentRepository.save(payment);
@@ -395,10 +532,14 @@ public class PaymentService extends BaseService {
         }
     }
 
+    /**
+     * Fail a payment that never got as far as the gateway. One already PROCESSING holds a
+     * reservation and may have been approved, so it is left to settlement or reconciliation.
+     */
     private void handlePaymentProcessingFailure(Long paymentId, String errorMessage) {
         try {
             Payment payment = paymentRepository.findById(paymentId).orElse(null);
-            if (payment != null) {
+            if (payment != null && payment.getStatus() == Payment.PaymentStatus.PENDING) {
                 updatePaymentStatus(payment, Payment.PaymentStatus.FAILED, 
                                   "Async processing failed: " + errorMessage);
             }
@@ -407,13 +548,7 @@ public class PaymentService extends BaseService {
         }
     }
 
-    public CompletableFuture<Void> processPaymentFallback(Long paymentId, Exception ex) {
-        log.error("Circuit breaker activated for payment processing: {}", paymentId, ex);
-        handlePaymentProcessingFailure(paymentId, "Circuit breaker activated");
-        return CompletableFuture.completedFuture(null);
-    }
-
-    private PaymentResponse mapToPaymentResponse(Payment payment) {
+    PaymentResponse mapToPaymentResponse(Payment payment) {
         PaymentResponse response = new PaymentResponse();
         response.setId(payment.getId());
         response.setPaymentReference(payment.getPaymentReference());
@@ -432,4 +567,22 @@ public class PaymentService extends BaseService {
         response.setMetadata(payment.getMetadata());
         return response;
     }
+
+    PaymentResponse mapToPaymentResponse(PaymentView payment) {
+        PaymentResponse response = new PaymentResponse();
+        response.setId(payment.id());
+        response.setPaymentReference(payment.paymentReference());
+        response.setAmount(payment.amount());
+        response.setCurrencyCode(payment.currencyCode());
+        response.setDescription(payment.description());
+        response.setStatus(payment.status());
+        response.setMerchantReference(payment.merchantReference());
+        response.setRiskScore(payment.riskScore());
+        response.setProcessedAt(payment.processedAt());
+        response.setExpiresAt(payment.expiresAt());
+        response.setCreatedAt(payment.createdAt());
+        response.setUpdatedAt(payment.updatedAt());
+        response.setMetadata(payment.metadata());
+        return response;
+    }
 }
\ No newline at end of file
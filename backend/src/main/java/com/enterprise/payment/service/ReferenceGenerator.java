@@ -0,0 +1,151 @@
+package com.enterprise.payment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered, node-aware payment and transaction references.
+ *
+ * A reference is the prefix followed by 24 Crockford base32 characters (120 bits):
+ * <pre>
+ *   42 bits  milliseconds since 2020-01-01
+ *   10 bits  node id
+ *   21 bits  sequence within the millisecond
+ *   47 bits  random
+ * </pre>
+ * Timestamp and sequence come from one lock-free counter, so references of a node are strictly
+ * increasing even when the wall clock steps back or more than 2M are drawn in a millisecond
+ * (the counter then runs ahead of the clock). Nodes with distinct node ids cannot collide.
+ * Without {@code payment.reference.node-id} the id is a 10-bit hash of host name and process
+ * id, so some two of n such nodes share one with a probability of about n(n-1) / 2048 (one in
+ * six at 20 nodes); their references then only differ in the 47 random bits when drawn in the same
+ * millisecond with the same sequence. Set an explicit id per instance in production. References
+ * of all nodes sort roughly by creation time, so inserts land at the right edge of the reference
+ * indexes instead of on random pages.
+ */
+@Component
+@Slf4j
+public class ReferenceGenerator {
+
+    public static final String PAYMENT_PREFIX = "PAY_";
+    public static final String TRANSACTION_PREFIX = "TXN_";
+
+    static final long EPOCH_MILLIS = 1_577_836_800_000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 21;
+    static final int RANDOM_BITS = 47;
+    static final int ENCODED_LENGTH = 24;
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LOW_SEQUENCE_BITS = 13;
+
+    private final int nodeId;
+    private final LongSupplier clock;
+    /** (milliseconds since epoch << SEQUENCE_BITS) | sequence of the last reference issued */
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public ReferenceGenerator(@Value("${payment.reference.node-id:-1}") int nodeId) {
+        this(nodeId >= 0 ? nodeId : derivedNodeId(), System::currentTimeMillis);
+        if (nodeId < 0) {
+            log.warn("payment.reference.node-id is not set; derived node id {} from host name and process id. "
+                    + "Instances may share it, set a distinct id per instance", this.nodeId);
+        } else {
+            log.info("Reference generator node id {}", this.nodeId);
+        }
+    }
+
+    public ReferenceGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + ((1 << NODE_BITS) - 1));
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public String nextPaymentReference() {
+        return next(PAYMENT_PREFIX);
+    }
+
+    public String nextTransactionReference() {
+        return next(TRANSACTION_PREFIX);
+    }
+
+    /**
+     * Next reference with the given prefix
+     */
+    public String next(String prefix) {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long tick = state.accumulateAndGet(now, ReferenceGenerator::advance);
+        long millis = tick >>> SEQUENCE_BITS;
+        long sequence = tick & ((1L << SEQUENCE_BITS) - 1);
+        long random = ThreadLocalRandom.current().nextLong() & ((1L << RANDOM_BITS) - 1);
+
+        // Two 60-bit halves of 12 characters each
+        long high = millis << (NODE_BITS + SEQUENCE_BITS - LOW_SEQUENCE_BITS)
+                | (long) nodeId << (SEQUENCE_BITS - LOW_SEQUENCE_BITS)
+                | sequence >>> LOW_SEQUENCE_BITS;
+        long low = (sequence & ((1L << LOW_SEQUENCE_BITS) - 1)) << RANDOM_BITS | random;
+
+        int offset = prefix.length();
+        char[] chars = new char[offset + ENCODED_LENGTH];
+        prefix.getChars(0, offset, chars, 0);
+        encode(high, chars, offset);
+        encode(low, chars, offset + ENCODED_LENGTH / 2);
+        return new String(chars);
+    }
+
+    /**
+     * Milliseconds since the Unix epoch encoded in a reference produced by this class
+     */
+    public static long timestampOf(String reference, String prefix) {
+        long high = 0;
+        for (int i = 0; i < ENCODED_LENGTH / 2; i++) {
+            high = high << 5 | decode(reference.charAt(prefix.length() + i));
+        }
+        return (high >>> (NODE_BITS + SEQUENCE_BITS - LOW_SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    private static long advance(long previous, long now) {
+        return Math.max(previous + 1, now);
+    }
+
+    private static void encode(long value, char[] chars, int offset) {
+        for (int i = ENCODED_LENGTH / 2 - 1; i >= 0; i--) {
+            chars[offset + i] = CROCKFORD[(int) (value & 31)];
+            value >>>= 5;
+        }
+    }
+
+    private static int decode(char c) {
+        for (int i = 0; i < CROCKFORD.length; i++) {
+            if (CROCKFORD[i] == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Not a Crockford base32 character: " + c);
+    }
+
+    /**
+     * Node id hashed from host name and process id; unlike configured ids, two nodes can get
+     * the same one
+     */
+    private static int derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        int hash = (host + ':' + ProcessHandle.current().pid()).hashCode();
+        return (hash ^ hash >>> 16) & ((1 << NODE_BITS) - 1);
+    }
+}
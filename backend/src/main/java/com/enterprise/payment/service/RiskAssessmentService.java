@@ -1,6 +1,7 @@
 package com.enterprise.payment.service;
 
 import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.monitoring.PaymentTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
@@ -17,23 +18,23 @@ import java.math.RoundingMode;
 @Slf4j
 public class RiskAssessmentService extends BaseService {
 
+    private final PaymentTracing paymentTracing;
+
     /**
      * Assess payment risk and return risk score (0-100)
      */
     @Cacheable(value = "risk-scores", key = "#payment.id")
     public BigDecimal assessPaymentRisk(Payment payment) {
-        logMethodEntry("assessPaymentRisk", payment.getPaymentReference());
-        
         try {
-            BigDecimal riskScore = calculateRiskScore(payment);
+            BigDecimal riskScore = paymentTracing.inSpan("payment.risk.assess", payment.getPaymentReference(),
+                    () -> calculateRiskScore(payment));
             
             log.info("Risk assessment completed for payment: {} score: {}", 
                     payment.getPaymentReference(), riskScore);
             
             auditLog("RISK_ASSESSMENT", "PAYMENT", payment.getId(), 
-                    "Risk assessment completed with score: " + riskScore);
+                    "Risk assessment completed", "riskScore", riskScore);
             
-            logMethodExit("assessPaymentRisk", riskScore);
             return riskScore;
             
         } catch (Exception e) {
@@ -43,6 +44,19 @@ public class RiskAssessmentService extends BaseService {
         }
     }
 
+    /**
+     * Score a payment without the per-payment audit entry and cache; bulk creation audits
+     * the scores in batches
+     */
+    public BigDecimal scorePaymentRisk(Payment payment) {
+        try {
+            return calculateRiskScore(payment);
+        } catch (Exception e) {
+            log.error("Risk assessment failed for payment: {}", payment.getPaymentReference(), e);
+            return BigDecimal.valueOf(50.0);
+        }
+    }
+
     private BigDecimal calculateRiskScore(Payment payment) {
         BigDecimal score = BigDecimal.ZERO;
         
@@ -1,12 +1,18 @@
 package com.enterprise.payment.service;
 
+import com.enterprise.payment.dto.response.CursorPage;
 import com.enterprise.payment.dto.response.TransactionResponse;
 import com.enterprise.payment.entity.Account;
 import com.enterprise.payment.entity.Payment;
 import com.enterprise.payment.entity.Transaction;
 import com.enterprise.payment.exception.AccountNotFoundException;
 import com.enterprise.payment.exception.PaymentNotFoundException;
+import com.enterprise.payment.monitoring.Instrumented;
+import com.enterprise.payment.pagination.Cursor;
+import com.enterprise.payment.pagination.Keyset;
 import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.PaymentReadRepository;
+import com.enterprise.payment.repository.PaymentReadRepository.TransactionView;
 import com.enterprise.payment.repository.PaymentRepository;
 import com.enterprise.payment.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
@@ -22,7 +28,6 @@ import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Service for managing transaction processing and analytics
@@ -34,7 +39,9 @@ public class TransactionService extends BaseService {
 
     private final TransactionRepository transactionRepository;
     private final PaymentRepository paymentRepository;
+    private final PaymentReadRepository paymentReadRepository;
     private final AccountRepository accountRepository;
+    private final ReferenceGenerator referenceGenerator;
 
     /**
      * Create a new transaction
@@ -42,8 +49,6 @@ public class TransactionService extends BaseService {
     @Transactional
     public TransactionResponse createTransaction(String paymentReference, Transaction.TransactionType type,
                                                BigDecimal amount, String description) {
-        logMethodEntry("createTransaction", paymentReference, type, amount, description);
-        
         Payment payment = paymentRepository.findByPaymentReference(paymentReference)
             .orElseThrow(() -> new PaymentNotFoundException(paymentReference));
             
@@ -56,11 +61,9 @@ public class TransactionService extends BaseService {
         metadata.put("paymentReference", paymentReference);
         
         auditLog("TRANSACTION_CREATED", "TRANSACTION", transaction.getId(), 
-                "Transaction created for payment: " + paymentReference, metadata);
+                "Transaction created", "paymentReference", paymentReference, metadata);
         
-        TransactionResponse response = mapToTransactionResponse(transaction);
-        logMethodExit("createTransaction", response);
-        return response;
+        return mapToTransactionResponse(transaction);
     }
 
     /**
@@ -68,118 +71,159 @@ public class TransactionService extends BaseService {
      */
     @Cacheable(value = "transactions", key = "#transactionId")
     public TransactionResponse getTransactionById(Long transactionId) {
-        logMethodEntry("getTransactionById", transactionId);
-        
-        Transaction transaction = transactionRepository.findById(transactionId)
+        TransactionView transaction = paymentReadRepository.findTransactionById(transactionId)
             .orElseThrow(() -> new RuntimeException("Transaction not found with ID: " + transactionId));
-            
-        TransactionResponse response = mapToTransactionResponse(transaction);
-        logMethodExit("getTransactionById", response);
-        return response;
+
+        return mapToTransactionResponse(transaction);
     }
 
     /**
      * Get transactions for payment
      */
+    @Transactional(readOnly = true)
     public Page<TransactionResponse> getTransactionsForPayment(String paymentReference, Pageable pageable) {
-        logMethodEntry("getTransactionsForPayment", paymentReference, pageable);
-        
         Payment payment = paymentRepository.findByPaymentReference(paymentReference)
             .orElseThrow(() -> new PaymentNotFoundException(paymentReference));
             
         Page<Transaction> transactions = transactionRepository.findByPaymentOrderByCreatedAtDesc(payment, pageable);
         Page<TransactionResponse> response = transactions.map(this::mapToTransactionResponse);
         
-        logMethodExit("getTransactionsForPayment", response.getTotalElements());
         return response;
     }
 
     /**
      * Get transactions for account
      */
+    @Transactional(readOnly = true)
     public Page<TransactionResponse> getTransactionsForAccount(String accountNumber, Pageable pageable) {
-        logMethodEntry("getTransactionsForAccount", accountNumber, pageable);
-        
         Account account = accountRepository.findByAccountNumber(accountNumber)
             .orElseThrow(() -> new AccountNotFoundException(accountNumber));
             
         Page<Transaction> transactions = transactionRepository.findByPayment_AccountOrderByCreatedAtDesc(account, pageable);
         Page<TransactionResponse> response = transactions.map(this::mapToTransactionResponse);
         
-        logMethodExit("getTransactionsForAccount", response.getTotalElements());
         return response;
     }
 
+    /**
+     * Get transactions for payment, one keyset page at a time
+     *
+     * @param cursor {@link CursorPage#getNextCursor()} of the previous page; null for the first
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionResponse> getTransactionsForPayment(String paymentReference, String cursor,
+                                                                     int limit) {
+        Payment payment = paymentRepository.findByPaymentReference(paymentReference)
+            .orElseThrow(() -> new PaymentNotFoundException(paymentReference));
+        Cursor after = Cursor.decode(cursor);
+        List<Transaction> transactions = after == null
+            ? transactionRepository.findKeysetByPaymentId(payment.getId(), Keyset.fetchLimit(limit))
+            : transactionRepository.findKeysetByPaymentIdAfter(payment.getId(), after.createdAt(), after.id(),
+                Keyset.fetchLimit(limit));
+        return Keyset.page(transactions, limit, TransactionService::cursorOf, this::mapToTransactionResponse);
+    }
+
+    /**
+     * Get transactions for account, one keyset page at a time
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionResponse> getTransactionsForAccount(String accountNumber, String cursor,
+                                                                     int limit) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+            .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        Cursor after = Cursor.decode(cursor);
+        List<Transaction> transactions = after == null
+            ? transactionRepository.findKeysetByAccountId(account.getId(), Keyset.fetchLimit(limit))
+            : transactionRepository.findKeysetByAccountIdAfter(account.getId(), after.createdAt(), after.id(),
+                Keyset.fetchLimit(limit));
+        return Keyset.page(transactions, limit, TransactionService::cursorOf, this::mapToTransactionResponse);
+    }
+
     /**
      * Get transactions by type
      */
+    @Transactional(readOnly = true)
     public Page<TransactionResponse> getTransactionsByType(Transaction.TransactionType type, Pageable pageable) {
-        logMethodEntry("getTransactionsByType", type, pageable);
-        
         Page<Transaction> transactions = transactionRepository.findByTypeOrderByCreatedAtDesc(type, pageable);
         Page<TransactionResponse> response = transactions.map(this::mapToTransactionResponse);
         
-        logMethodExit("getTransactionsByType", response.getTotalElements());
         return response;
     }
 
     /**
      * Get transactions by date range
      */
+    @Transactional(readOnly = true)
     public Page<TransactionResponse> getTransactionsByDateRange(OffsetDateTime startDate, OffsetDateTime endDate, 
                                                               Pageable pageable) {
-        logMethodEntry("getTransactionsByDateRange", startDate, endDate, pageable);
-        
         Page<Transaction> transactions = transactionRepository
             .findByCreatedAtBetweenOrderByCreatedAtDesc(startDate, endDate, pageable);
         Page<TransactionResponse> response = transactions.map(this::mapToTransactionResponse);
         
-        logMethodExit("getTransactionsByDateRange", response.getTotalElements());
         return response;
     }
 
+    /**
+     * Get transactions by type, one keyset page at a time
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionResponse> getTransactionsByType(Transaction.TransactionType type, String cursor,
+                                                                 int limit) {
+        Cursor after = Cursor.decode(cursor);
+        List<Transaction> transactions = after == null
+            ? transactionRepository.findKeysetByType(type, Keyset.fetchLimit(limit))
+            : transactionRepository.findKeysetByTypeAfter(type, after.createdAt(), after.id(), Keyset.fetchLimit(limit));
+        return Keyset.page(transactions, limit, TransactionService::cursorOf, this::mapToTransactionResponse);
+    }
+
+    /**
+     * Get transactions by date range (both ends inclusive), one keyset page at a time
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionResponse> getTransactionsByDateRange(OffsetDateTime startDate, OffsetDateTime endDate,
+                                                                      String cursor, int limit) {
+        Cursor after = Cursor.decode(cursor);
+        if (after == null) {
+            // Starting right after (endDate, MAX) includes every row at endDate itself
+            after = new Cursor(endDate, Long.MAX_VALUE);
+        }
+        List<Transaction> transactions = transactionRepository.findKeysetByCreatedAtBetween(startDate,
+            after.createdAt(), after.id(), Keyset.fetchLimit(limit));
+        return Keyset.page(transactions, limit, TransactionService::cursorOf, this::mapToTransactionResponse);
+    }
+
+    private static Cursor cursorOf(Transaction transaction) {
+        return new Cursor(transaction.getCreatedAt(), transaction.getId());
+    }
+
     /**
      * Get transaction statistics for account
      */
     @Cacheable(value = "transaction-stats", key = "#accountNumber")
+    @Transactional(readOnly = true)
     public Map<String, Object> getTransactionStatistics(String accountNumber) {
-        logMethodEntry("getTransactionStatistics", accountNumber);
-        
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-            .orElseThrow(() -> new AccountNotFoundException(accountNumber));
-            
-        Map<String, Object> stats = new HashMap<>();
-        
-        // Get total transaction count
-        Long totalCount = transactionRepository.countByPayment_Account(account);
-        stats.put("totalTransactions", totalCount);
-        
-        // Get transaction count by type
-        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
-            Long count = transactionRepository.countByPayment_AccountAndType(account, type);
-            stats.put(type.name().toLowerCase() + "Transactions", count);
+        // Counts per type, recent count and total amount in one grouped query
+        OffsetDateTime thirtyDaysAgo = OffsetDateTime.now().minusDays(30);
+        GroupedCounts<Transaction.TransactionType> counts = GroupedCounts.of(Transaction.TransactionType.class,
+            transactionRepository.countByTypeForAccount(accountNumber, thirtyDaysAgo));
+        if (!counts.found()) {
+            throw new AccountNotFoundException(accountNumber);
         }
         
-        // Get total transaction amounts
-        BigDecimal totalAmount = transactionRepository.sumAmountByPayment_Account(account);
-        stats.put("totalAmount", totalAmount != null ? totalAmount : BigDecimal.ZERO);
-        
-        // Get recent transactions count (last 30 days)
-        OffsetDateTime thirtyDaysAgo = OffsetDateTime.now().minusDays(30);
-        Long recentCount = transactionRepository
-            .countByPayment_AccountAndCreatedAtAfter(account, thirtyDaysAgo);
-        stats.put("recentTransactions", recentCount);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalTransactions", counts.total());
+        counts.putCounts(stats, "Transactions");
+        stats.put("totalAmount", counts.sum());
+        stats.put("recentTransactions", counts.filteredTotal());
         
-        logMethodExit("getTransactionStatistics", stats);
         return stats;
     }
 
     /**
      * Get daily transaction summary
      */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getDailyTransactionSummary(String accountNumber, int days) {
-        logMethodEntry("getDailyTransactionSummary", accountNumber, days);
-        
         Account account = accountRepository.findByAccountNumber(accountNumber)
             .orElseThrow(() -> new AccountNotFoundException(accountNumber));
             
@@ -209,24 +253,20 @@ public class TransactionService extends BaseService {
                         ((BigDecimal) dayStats.get("totalAmount")).add(transaction.getAmount()));
         }
         
-        List<Map<String, Object>> result = List.copyOf(dailySummary.values());
-        logMethodExit("getDailyTransactionSummary", result.size());
-        return result;
+        return List.copyOf(dailySummary.values());
     }
 
     /**
      * Process refund transaction
      */
     @Transactional
+    @Instrumented
     public TransactionResponse processRefund(String paymentReference, BigDecimal refundAmount, String reason) {
-        logMethodEntry("processRefund", paymentReference, refundAmount, reason);
-        
         TransactionResponse response = createTransaction(paymentReference, 
                                                        Transaction.TransactionType.REFUND, 
                                                        refundAmount, 
                                                        "Refund: " + reason);
         
-        logMethodExit("processRefund", response);
         return response;
     }
 
@@ -235,7 +275,7 @@ public class TransactionService extends BaseService {
     private Transaction createTransactionEntity(Payment payment, Transaction.TransactionType type, 
                                               BigDecimal amount, String description) {
         Transaction transaction = new Transaction();
-        transaction.setTransactionReference(generateTransactionReference());
+        transaction.setTransactionReference(referenceGenerator.nextTransactionReference());
         transaction.setPayment(payment);
         transaction.setType(type);
         transaction.setAmount(amount);
@@ -249,10 +289,6 @@ public class TransactionService extends BaseService {
         return transaction;
     }
 
-    private String generateTransactionReference() {
-        return "TXN_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
-    }
-
     private TransactionResponse mapToTransactionResponse(Transaction transaction) {
         TransactionResponse response = new TransactionResponse();
         response.setId(transaction.getId());
@@ -287,4 +323,36 @@ public class TransactionService extends BaseService {
         
         return response;
     }
-}
\ No newline at end of file
+
+    private TransactionResponse mapToTransactionResponse(TransactionView transaction) {
+        TransactionResponse response = new TransactionResponse();
+        response.setId(transaction.id());
+        response.setTransactionReference(transaction.transactionReference());
+        response.setPaymentReference(transaction.paymentReference());
+        response.setType(transaction.type().toString());
+        response.setAmount(transaction.amount());
+        response.setCurrencyCode(transaction.currencyCode());
+        response.setDescription(transaction.description());
+        response.setStatus(transaction.status().toString());
+        response.setGatewayTransactionId(transaction.gatewayTransactionId());
+        response.setGatewayResponse(transaction.gatewayResponse());
+        response.setProcessingFee(transaction.processingFee());
+        response.setNetAmount(transaction.amount().subtract(
+            transaction.processingFee() != null ? transaction.processingFee() : BigDecimal.ZERO));
+        response.setProcessedAt(transaction.processedAt());
+        response.setCreatedAt(transaction.createdAt());
+        response.setUpdatedAt(transaction.updatedAt());
+
+        Payment.PaymentStatus status = transaction.status();
+        response.setIsSuccessful(status == Payment.PaymentStatus.COMPLETED);
+        response.setIsFailed(status == Payment.PaymentStatus.FAILED);
+        response.setIsPending(status == Payment.PaymentStatus.PENDING || status == Payment.PaymentStatus.PROCESSING);
+
+        if (transaction.processedAt() != null && transaction.createdAt() != null) {
+            response.setProcessingTimeMs(
+                java.time.Duration.between(transaction.createdAt(), transaction.processedAt()).toMillis());
+        }
+
+        return response;
+    }
+}
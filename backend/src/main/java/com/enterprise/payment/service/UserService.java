@@ -7,6 +7,7 @@ import com.enterprise.payment.entity.User;
 import com.enterprise.payment.exception.AccountNotFoundException;
 import com.enterprise.payment.exception.UserNotFoundException;
 import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.SensitiveArguments;
 import com.enterprise.payment.repository.AccountRepository;
 import com.enterprise.payment.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -30,6 +31,7 @@ import java.util.Map;
  * Service for managing user operations including authentication support
  */
 @Service
+@SensitiveArguments
 @RequiredArgsConstructor
 @Slf4j
 public class UserService extends BaseService implements UserDetailsService {
@@ -43,12 +45,9 @@ public class UserService extends BaseService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        logMethodEntry("loadUserByUsername", username);
-        
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
             
-        logMethodExit("loadUserByUsername", user.getUsername());
         return user; // User entity implements UserDetails
     }
 
@@ -57,8 +56,6 @@ public class UserService extends BaseService implements UserDetailsService {
      */
     @Transactional
     public UserResponse createUser(CreateUserRequest request) {
-        logMethodEntry("createUser", request);
-        
         validateCreateUserRequest(request);
         validateUserUniqueness(request.getUsername(), request.getEmail());
         
@@ -76,11 +73,9 @@ public class UserService extends BaseService implements UserDetailsService {
         metadata.put("accountId", account != null ? account.getId() : null);
         
         auditLog("USER_CREATED", "USER", user.getId(), 
-                "User created with role: " + user.getRole(), metadata);
+                "User created", "role", user.getRole(), metadata);
         
-        UserResponse response = mapToUserResponse(user);
-        logMethodExit("createUser", response);
-        return response;
+        return mapToUserResponse(user);
     }
 
     /**
@@ -88,14 +83,10 @@ public class UserService extends BaseService implements UserDetailsService {
      */
     @Cacheable(value = "users", key = "#username")
     public UserResponse getUserByUsername(String username) {
-        logMethodEntry("getUserByUsername", username);
-        
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UserNotFoundException(username));
             
-        UserResponse response = mapToUserResponse(user);
-        logMethodExit("getUserByUsername", response);
-        return response;
+        return mapToUserResponse(user);
     }
 
     /**
@@ -103,69 +94,55 @@ public class UserService extends BaseService implements UserDetailsService {
      */
     @Cacheable(value = "users", key = "#userId")
     public UserResponse getUserById(Long userId) {
-        logMethodEntry("getUserById", userId);
-        
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new UserNotFoundException(userId));
             
-        UserResponse response = mapToUserResponse(user);
-        logMethodExit("getUserById", response);
-        return response;
+        return mapToUserResponse(user);
     }
 
     /**
      * Get user by email
      */
     public UserResponse getUserByEmail(String email) {
-        logMethodEntry("getUserByEmail", email);
-        
         User user = userRepository.findByEmail(email)
             .orElseThrow(() -> new UserNotFoundException("email: " + email));
             
-        UserResponse response = mapToUserResponse(user);
-        logMethodExit("getUserByEmail", response);
-        return response;
+        return mapToUserResponse(user);
     }
 
     /**
      * Get all users with pagination
      */
+    @Transactional(readOnly = true)
     public Page<UserResponse> getAllUsers(Pageable pageable) {
-        logMethodEntry("getAllUsers", pageable);
-        
         Page<User> users = userRepository.findAll(pageable);
         Page<UserResponse> response = users.map(this::mapToUserResponse);
         
-        logMethodExit("getAllUsers", response.getTotalElements());
         return response;
     }
 
     /**
      * Get users by role
      */
+    @Transactional(readOnly = true)
     public Page<UserResponse> getUsersByRole(User.UserRole role, Pageable pageable) {
-        logMethodEntry("getUsersByRole", role, pageable);
-        
         Page<User> users = userRepository.findByRoleOrderByCreatedAtDesc(role, pageable);
         Page<UserResponse> response = users.map(this::mapToUserResponse);
         
-        logMethodExit("getUsersByRole", response.getTotalElements());
         return response;
     }
 
     /**
      * Get users by account
      */
+    @Transactional(readOnly = true)
     public Page<UserResponse> getUsersByAccount(String accountNumber, Pageable pageable) {
-        logMethodEntry("getUsersByAccount", accountNumber, pageable);
-        
         Account account = accountRepository.findByAccountNumber(accountNumber)
             .orElseThrow(() -> AccountNotFoundException.byAccountNumber(accountNumber));
             
         Page<User> users = userRepository.findByAccountIdOrderByCreatedAtDesc(account.getId(), pageable);
         Page<UserResponse> response = users.map(this::mapToUserResponse);
         
-        logMethodExit("getUsersByAccount", response.getTotalElements());
         return response;
     }
 
@@ -175,8 +152,6 @@ public class UserService extends BaseService implements UserDetailsService {
     @Transactional
     @CacheEvict(value = "users", key = "#username")
     public UserResponse updateUserStatus(String username, boolean isActive) {
-        logMethodEntry("updateUserStatus", username, isActive);
-        
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UserNotFoundException(username));
             
@@ -197,9 +172,7 @@ public class UserService extends BaseService implements UserDetailsService {
         
         log.info("User status updated: {} from {} to {}", username, oldStatus, isActive);
         
-        UserResponse response = mapToUserResponse(user);
-        logMethodExit("updateUserStatus", response);
-        return response;
+        return mapToUserResponse(user);
     }
 
     /**
@@ -208,8 +181,6 @@ public class UserService extends BaseService implements UserDetailsService {
     @Transactional
     @CacheEvict(value = "users", key = "#username")
     public UserResponse updateUserRole(String username, User.UserRole newRole) {
-        logMethodEntry("updateUserRole", username, newRole);
-        
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UserNotFoundException(username));
             
@@ -224,9 +195,7 @@ public class UserService extends BaseService implements UserDetailsService {
         
         log.info("User role updated: {} from {} to {}", username, oldRole, newRole);
         
-        UserResponse response = mapToUserResponse(user);
-        logMethodExit("updateUserRole", response);
-        return response;
+        return mapToUserResponse(user);
     }
 
     /**
@@ -235,8 +204,6 @@ public class UserService extends BaseService implements UserDetailsService {
     @Transactional
     @CacheEvict(value = "users", key = "#username")
     public void updateUserPassword(String username, String newPassword) {
-        logMethodEntry("updateUserPassword", username, "***");
-        
         validateRequired(newPassword, "newPassword");
         validatePasswordStrength(newPassword);
         
@@ -252,7 +219,6 @@ public class UserService extends BaseService implements UserDetailsService {
         auditLog("USER_PASSWORD_UPDATED", "USER", user.getId(), "Password updated");
         
         log.info("User password updated: {}", username);
-        logMethodExit("updateUserPassword");
     }
 
     /**
@@ -261,8 +227,6 @@ public class UserService extends BaseService implements UserDetailsService {
     @Transactional
     @CacheEvict(value = "users", key = "#username")
     public UserResponse updateUserProfile(String username, String firstName, String lastName, String email) {
-        logMethodEntry("updateUserProfile", username, firstName, lastName, email);
-        
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UserNotFoundException(username));
             
@@ -288,9 +252,7 @@ public class UserService extends BaseService implements UserDetailsService {
         
         auditLog("USER_PROFILE_UPDATED", "USER", user.getId(), "Profile information updated");
         
-        UserResponse response = mapToUserResponse(user);
-        logMethodExit("updateUserProfile", response);
-        return response;
+        return mapToUserResponse(user);
     }
 
     /**
@@ -299,11 +261,8 @@ public class UserService extends BaseService implements UserDetailsService {
     @Transactional
     @CacheEvict(value = "users", key = "#username")
     public void recordLoginAttempt(String username, boolean successful) {
-        logMethodEntry("recordLoginAttempt", username, successful);
-        
         User user = userRepository.findByUsername(username).orElse(null);
         if (user == null) {
-            logMethodExit("recordLoginAttempt", "User not found");
             return;
         }
         
@@ -321,31 +280,26 @@ public class UserService extends BaseService implements UserDetailsService {
             if (failedAttempts >= 5) {
                 user.setLockedUntil(OffsetDateTime.now().plusMinutes(30));
                 auditLog("USER_ACCOUNT_LOCKED", "USER", user.getId(), 
-                        "Account locked due to failed login attempts: " + failedAttempts);
+                        "Account locked due to failed login attempts", "failedAttempts", failedAttempts);
             } else {
                 auditLog("USER_LOGIN_FAILED", "USER", user.getId(), 
-                        "Failed login attempt: " + failedAttempts);
+                        "Failed login attempt", "failedAttempts", failedAttempts);
             }
         }
         
         userRepository.save(user);
-        logMethodExit("recordLoginAttempt");
     }
 
     /**
      * Check if user account is locked
      */
     public boolean isAccountLocked(String username) {
-        logMethodEntry("isAccountLocked", username);
-        
         User user = userRepository.findByUsername(username).orElse(null);
         if (user == null) {
             return false;
         }
         
-        boolean locked = !user.isAccountNonLocked();
-        logMethodExit("isAccountLocked", locked);
-        return locked;
+        return !user.isAccountNonLocked();
     }
 
     /**
@@ -354,8 +308,6 @@ public class UserService extends BaseService implements UserDetailsService {
     @Transactional
     @CacheEvict(value = "users", key = "#username")
     public UserResponse unlockAccount(String username) {
-        logMethodEntry("unlockAccount", username);
-        
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UserNotFoundException(username));
             
@@ -369,9 +321,7 @@ public class UserService extends BaseService implements UserDetailsService {
         
         log.info("User account unlocked: {}", username);
         
-        UserResponse response = mapToUserResponse(user);
-        logMethodExit("unlockAccount", response);
-        return response;
+        return mapToUserResponse(user);
     }
 
     /**
@@ -380,8 +330,6 @@ public class UserService extends BaseService implements UserDetailsService {
     @Transactional
     @CacheEvict(value = "users", key = "#username")
     public void deleteUser(String username) {
-        logMethodEntry("deleteUser", username);
-        
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UserNotFoundException(username));
             
@@ -393,7 +341,6 @@ public class UserService extends BaseService implements UserDetailsService {
         auditLog("USER_DELETED", "USER", user.getId(), "User soft deleted");
         
         log.info("User soft deleted: {}", username);
-        logMethodExit("deleteUser");
     }
 
     // Private helper methods
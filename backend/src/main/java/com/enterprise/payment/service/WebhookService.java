@@ -3,6 +3,8 @@ package com.enterprise.payment.service;
 import com.enterprise.payment.entity.Payment;
 import com.enterprise.payment.entity.Webhook;
 import com.enterprise.payment.entity.WebhookDelivery;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentTracing;
 import com.enterprise.payment.repository.WebhookDeliveryRepository;
 import com.enterprise.payment.repository.WebhookRepository;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
@@ -16,6 +18,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Service for managing webhook delivery
@@ -27,6 +30,9 @@ public class WebhookService extends BaseService {
 
     private final WebhookRepository webhookRepository;
     private final WebhookDeliveryRepository webhookDeliveryRepository;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentTracing paymentTracing;
+    private final Executor taskExecutor;
 
     /**
      * Send payment webhook
@@ -35,30 +41,31 @@ public class WebhookService extends BaseService {
     @CircuitBreaker(name = "webhook-delivery", fallbackMethod = "webhookDeliveryFallback")
     @Retry(name = "webhook-delivery")
     public CompletableFuture<Void> sendPaymentWebhook(Payment payment, String eventType) {
+        long raisedAt = System.nanoTime();
         return CompletableFuture.runAsync(() -> {
             try {
-                logMethodEntry("sendPaymentWebhook", payment.getPaymentReference(), eventType);
-                
                 List<Webhook> webhooks = webhookRepository.findActiveByAccountId(payment.getAccount().getId());
                 
                 for (Webhook webhook : webhooks) {
                     if (webhook.getEvents().contains(eventType)) {
-                        deliverWebhook(webhook, payment, eventType);
+                        paymentTracing.inSpan("payment.webhook.deliver", payment.getPaymentReference(), () -> {
+                            deliverWebhook(webhook, payment, eventType, raisedAt);
+                            return null;
+                        });
                     }
                 }
                 
                 auditLog("WEBHOOK_SENT", "PAYMENT", payment.getId(), 
-                        "Webhook sent for event: " + eventType);
+                        "Webhook sent", "event", eventType);
                 
-                logMethodExit("sendPaymentWebhook");
             } catch (Exception e) {
                 log.error("Failed to send webhook for payment: {} event: {}", 
                          payment.getPaymentReference(), eventType, e);
             }
-        });
+        }, taskExecutor);
     }
 
-    private void deliverWebhook(Webhook webhook, Payment payment, String eventType) {
+    private void deliverWebhook(Webhook webhook, Payment payment, String eventType, long raisedAt) {
         try {
             // TODO: Implement actual webhook delivery logic
             log.info("Delivering webhook to: {} for payment: {} event: {}", 
@@ -80,6 +87,7 @@ public class WebhookService extends BaseService {
             delivery.setPayload(payload);
             
             webhookDeliveryRepository.save(delivery);
+            paymentMetrics.recordWebhookDeliveryLag(System.nanoTime() - raisedAt);
             
         } catch (Exception e) {
             log.error("Failed to deliver webhook to: {} for payment: {}", 
@@ -0,0 +1,186 @@
+package com.enterprise.payment.tokenization;
+
+import com.enterprise.payment.crypto.BulkCryptoPipeline.JobStatus;
+import com.enterprise.payment.crypto.CardFingerprint;
+import com.enterprise.payment.crypto.CryptoJobCheckpoint;
+import com.enterprise.payment.crypto.CryptoJobCheckpoint.BatchResult;
+import com.enterprise.payment.crypto.CryptoJobCheckpointStore;
+import com.enterprise.payment.crypto.EncryptedDetails;
+import com.enterprise.payment.crypto.EncryptionProperties;
+import com.enterprise.payment.crypto.EnvelopeEncryption;
+import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.tokenization.CardFingerprintStore.Fingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sets the card fingerprint of payment methods created before fingerprints existed.
+ *
+ * Rows without a fingerprint are read in id order, a batch at a time; each card number is
+ * resolved from its token in the vault (or from the details, for rows not tokenized yet),
+ * fingerprinted and written back with one JDBC batch per batch of rows. Progress is
+ * checkpointed like the bulk crypto jobs, so an interrupted run resumes where it stopped, and
+ * like them it runs on a thread of its own rather than one of the shared task executor. A
+ * card already fingerprinted on another active payment method of the same account is a
+ * duplicate from before the check existed: it is left without a fingerprint and counted as
+ * failed, for someone to deactivate one of the two; a later run fingerprints it then.
+ */
+@Service
+@Slf4j
+public class CardFingerprintBackfill {
+
+    public static final String JOB = "card-fingerprints";
+
+    private static final Pattern CARD_TOKEN = Pattern.compile("cardToken=([^,}\\s]+)");
+    private static final Pattern CARD_NUMBER = Pattern.compile("cardNumber=(\\d{12,19})");
+
+    private final CardFingerprintStore store;
+    private final CryptoJobCheckpointStore checkpointStore;
+    private final EnvelopeEncryption envelopeEncryption;
+    private final TokenVault tokenVault;
+    private final CardFingerprint cardFingerprint;
+    private final Executor backfillExecutor;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public CardFingerprintBackfill(CardFingerprintStore store, CryptoJobCheckpointStore checkpointStore,
+                                   EnvelopeEncryption envelopeEncryption, TokenVault tokenVault,
+                                   CardFingerprint cardFingerprint, EncryptionProperties properties) {
+        this(store, checkpointStore, envelopeEncryption, tokenVault, cardFingerprint,
+                CardFingerprintBackfill::startThread, properties);
+    }
+
+    CardFingerprintBackfill(CardFingerprintStore store, CryptoJobCheckpointStore checkpointStore,
+                            EnvelopeEncryption envelopeEncryption, TokenVault tokenVault,
+                            CardFingerprint cardFingerprint, Executor backfillExecutor,
+                            EncryptionProperties properties) {
+        this.store = store;
+        this.checkpointStore = checkpointStore;
+        this.envelopeEncryption = envelopeEncryption;
+        this.tokenVault = tokenVault;
+        this.cardFingerprint = cardFingerprint;
+        this.backfillExecutor = backfillExecutor;
+        this.batchSize = properties.getBulk().getBatchSize();
+    }
+
+    /**
+     * Start the backfill in the background, resuming from its checkpoint unless {@code restart}
+     *
+     * @return false when it is running already
+     */
+    public boolean start(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            backfillExecutor.execute(() -> {
+                try {
+                    run(restart);
+                } catch (RuntimeException e) {
+                    log.error("Card fingerprint backfill stopped; starting it again resumes after the last checkpoint", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public JobStatus status() {
+        return new JobStatus(running.get(), checkpointStore.find(JOB));
+    }
+
+    /**
+     * Run the backfill to the end on the calling thread; a finished one runs again from the start
+     */
+    CryptoJobCheckpoint run(boolean restart) {
+        CryptoJobCheckpoint checkpoint = restart ? null : checkpointStore.find(JOB);
+        if (checkpoint == null || checkpoint.finished()) {
+            checkpoint = CryptoJobCheckpoint.start(JOB, OffsetDateTime.now());
+            checkpointStore.save(checkpoint);
+            log.info("Card fingerprint backfill started");
+        } else {
+            log.info("Card fingerprint backfill resumed after payment method {}", checkpoint.lastId());
+        }
+
+        List<EncryptedDetails> batch;
+        while (!(batch = store.readUnfingerprinted(checkpoint.lastId(), batchSize)).isEmpty()) {
+            checkpoint = checkpoint.advance(process(batch), OffsetDateTime.now());
+            checkpointStore.save(checkpoint);
+        }
+
+        checkpoint = checkpoint.finish(OffsetDateTime.now());
+        checkpointStore.save(checkpoint);
+        log.info("Card fingerprint backfill finished: {} payment methods scanned, {} fingerprinted, {} failed "
+                        + "or duplicate ({} rows/s)", checkpoint.scanned(), checkpoint.changed(), checkpoint.failed(),
+                checkpoint.rowsPerSecond());
+        return checkpoint;
+    }
+
+    BatchResult process(List<EncryptedDetails> batch) {
+        List<Fingerprint> fingerprints = new ArrayList<>(batch.size());
+        int unresolved = 0;
+        for (EncryptedDetails row : batch) {
+            byte[] fingerprint = fingerprint(row);
+            if (fingerprint != null) {
+                fingerprints.add(new Fingerprint(row.id(), fingerprint));
+            } else {
+                unresolved++;
+            }
+        }
+        int filled = store.fill(fingerprints);
+        if (filled < fingerprints.size()) {
+            log.warn("{} payment methods duplicate a card already on their account and were left without a fingerprint",
+                    fingerprints.size() - filled);
+        }
+        return new BatchResult(batch.get(batch.size() - 1).id(), batch.size(), filled,
+                unresolved + fingerprints.size() - filled);
+    }
+
+    /**
+     * The fingerprint of the row's card number, or null when there is no card number to be found
+     */
+    private byte[] fingerprint(EncryptedDetails row) {
+        String details;
+        try {
+            details = envelopeEncryption.decrypt(row.encryptedDetails());
+        } catch (IllegalArgumentException e) {
+            log.warn("Payment method {} could not be decrypted, left without a fingerprint", row.id());
+            return null;
+        }
+        Matcher token = CARD_TOKEN.matcher(details);
+        if (token.find()) {
+            try (DetokenizedPan pan = tokenVault.detokenize(token.group(1))) {
+                return cardFingerprint.of(pan.digits());
+            } catch (ValidationException e) {
+                log.warn("Payment method {} holds a token unknown to the vault, left without a fingerprint", row.id());
+                return null;
+            }
+        }
+        Matcher number = CARD_NUMBER.matcher(details);
+        if (number.find()) {
+            return cardFingerprint.of(number.group(1));
+        }
+        log.warn("Payment method {} has no card number in its details, left without a fingerprint", row.id());
+        return null;
+    }
+
+    private static void startThread(Runnable task) {
+        Thread thread = new Thread(task, "bulk-crypto-" + JOB);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
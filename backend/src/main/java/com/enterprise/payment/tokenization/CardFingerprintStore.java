@@ -0,0 +1,28 @@
+package com.enterprise.payment.tokenization;
+
+import com.enterprise.payment.crypto.EncryptedDetails;
+
+import java.util.List;
+
+/**
+ * Batch access to card payment methods that have no fingerprint yet, for the backfill
+ */
+public interface CardFingerprintStore {
+
+    /**
+     * Up to {@code limit} card payment methods without a fingerprint with an id above
+     * {@code afterId}, in id order
+     */
+    List<EncryptedDetails> readUnfingerprinted(long afterId, int limit);
+
+    /**
+     * Set each row's fingerprint in one transaction, unless another active payment method of the
+     * same account already has it
+     *
+     * @return how many rows were set
+     */
+    int fill(List<Fingerprint> fingerprints);
+
+    record Fingerprint(long id, byte[] fingerprint) {
+    }
+}
@@ -0,0 +1,131 @@
+package com.enterprise.payment.tokenization;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived in-process cache of detokenized card numbers, so repeated charges on a card skip
+ * the vault read and the decryption. Every card number leaving the cache, by expiry, eviction
+ * or {@link #clear()}, is overwritten in memory; callers get their own copy, which they zero
+ * themselves. When full, expired entries are dropped first and then arbitrary ones down to 90%
+ * of the capacity.
+ */
+final class DetokenizationCache {
+
+    /**
+     * Reads copy and removals zero the digits under the entry's lock, so a reader never sees a
+     * half-zeroed card number
+     */
+    private static final class Entry {
+
+        private final char[] digits;
+        private final long expiresAt;
+        private boolean cleared;
+
+        private Entry(char[] digits, long expiresAt) {
+            this.digits = digits;
+            this.expiresAt = expiresAt;
+        }
+
+        synchronized char[] copy() {
+            return cleared ? null : digits.clone();
+        }
+
+        synchronized void clear() {
+            Arrays.fill(digits, '\0');
+            cleared = true;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    DetokenizationCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * A copy of the cached card number, or null
+     */
+    char[] get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (nanoClock.getAsLong() - entry.expiresAt > 0) {
+            remove(token, entry);
+            return null;
+        }
+        return entry.copy();
+    }
+
+    /**
+     * Cache a copy of {@code digits}; the caller keeps ownership of its array
+     */
+    void put(String token, char[] digits) {
+        if (maxSize <= 0) {
+            return;
+        }
+        Entry previous = entries.put(token, new Entry(digits.clone(), nanoClock.getAsLong() + ttlNanos));
+        if (previous != null) {
+            previous.clear();
+        }
+        if (entries.size() > maxSize && evicting.compareAndSet(false, true)) {
+            try {
+                evict(maxSize - maxSize / 10);
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Zero and drop the expired entries
+     */
+    void evictExpired() {
+        evict(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Zero and drop every entry
+     */
+    void clear() {
+        evict(0);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict(int target) {
+        long now = nanoClock.getAsLong();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (now - entry.getValue().expiresAt > 0) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+        iterator = entries.entrySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void remove(String token, Entry entry) {
+        if (entries.remove(token, entry)) {
+            entry.clear();
+        }
+    }
+}
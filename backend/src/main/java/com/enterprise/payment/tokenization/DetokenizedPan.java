@@ -0,0 +1,37 @@
+package com.enterprise.payment.tokenization;
+
+import java.util.Arrays;
+
+/**
+ * A card number out of the vault, as characters that {@link #close()} overwrites; use it in a
+ * try-with-resources block and never turn it into a {@code String}
+ */
+public final class DetokenizedPan implements AutoCloseable {
+
+    private final char[] digits;
+
+    DetokenizedPan(char[] digits) {
+        this.digits = digits;
+    }
+
+    /**
+     * The card number's digits; valid until {@link #close()}
+     */
+    public char[] digits() {
+        return digits;
+    }
+
+    public String lastFour() {
+        return new String(digits, digits.length - 4, 4);
+    }
+
+    @Override
+    public void close() {
+        Arrays.fill(digits, '\0');
+    }
+
+    @Override
+    public String toString() {
+        return "****" + lastFour();
+    }
+}
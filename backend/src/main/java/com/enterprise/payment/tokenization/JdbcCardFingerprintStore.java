@@ -0,0 +1,66 @@
+package com.enterprise.payment.tokenization;
+
+import com.enterprise.payment.crypto.EncryptedDetails;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keyset reads and JDBC batched updates of {@code payment_methods.card_fingerprint}. A row whose
+ * card is already fingerprinted on another active payment method of its account is left NULL
+ * instead of failing the batch on the unique index; each probe is one lookup of that index.
+ */
+@Repository
+public class JdbcCardFingerprintStore implements CardFingerprintStore {
+
+    private static final String SELECT_BATCH = """
+            SELECT id, encrypted_details FROM payment_methods
+            WHERE id > ? AND card_fingerprint IS NULL AND type IN ('CREDIT_CARD', 'DEBIT_CARD')
+            ORDER BY id LIMIT ?
+            """;
+    private static final String FILL = """
+            UPDATE payment_methods p SET card_fingerprint = ?
+            WHERE p.id = ? AND p.card_fingerprint IS NULL
+              AND (NOT p.is_active OR NOT EXISTS (
+                  SELECT 1 FROM payment_methods o
+                  WHERE o.account_id = p.account_id AND o.card_fingerprint = ? AND o.is_active))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcCardFingerprintStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public List<EncryptedDetails> readUnfingerprinted(long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_BATCH,
+                (rs, rowNum) -> new EncryptedDetails(rs.getLong(1), rs.getString(2)), afterId, limit);
+    }
+
+    @Override
+    public int fill(List<Fingerprint> fingerprints) {
+        if (fingerprints.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(FILL, fingerprints,
+                fingerprints.size(), (ps, fingerprint) -> {
+                    ps.setBytes(1, fingerprint.fingerprint());
+                    ps.setLong(2, fingerprint.id());
+                    ps.setBytes(3, fingerprint.fingerprint());
+                }));
+        int filled = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // The driver may report SUCCESS_NO_INFO (-2) for a batched statement
+                filled += count == -2 ? 1 : count;
+            }
+        }
+        return filled;
+    }
+}
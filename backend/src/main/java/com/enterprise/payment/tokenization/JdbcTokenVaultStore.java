@@ -0,0 +1,39 @@
+package com.enterprise.payment.tokenization;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Tokens in the {@code card_tokens} table
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcTokenVaultStore implements TokenVaultStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String findToken(byte[] panHash) {
+        List<String> tokens = jdbcTemplate.queryForList("SELECT token FROM card_tokens WHERE pan_hash = ?",
+                String.class, (Object) panHash);
+        return tokens.isEmpty() ? null : tokens.get(0);
+    }
+
+    @Override
+    public String findEncryptedPan(String token) {
+        List<String> pans = jdbcTemplate.queryForList("SELECT encrypted_pan FROM card_tokens WHERE token = ?",
+                String.class, token);
+        return pans.isEmpty() ? null : pans.get(0);
+    }
+
+    @Override
+    public boolean insert(String token, byte[] panHash, String encryptedPan, String lastFour) {
+        return jdbcTemplate.update("""
+                INSERT INTO card_tokens (token, pan_hash, encrypted_pan, last_four) VALUES (?, ?, ?, ?)
+                ON CONFLICT DO NOTHING
+                """, token, panHash, encryptedPan, lastFour) == 1;
+    }
+}
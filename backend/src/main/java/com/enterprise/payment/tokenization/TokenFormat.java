@@ -0,0 +1,14 @@
+package com.enterprise.payment.tokenization;
+
+/**
+ * Shape of the tokens the vault issues
+ */
+public enum TokenFormat {
+    /** {@code tok_} and 22 random Base64url characters */
+    RANDOM,
+    /**
+     * Digits only, as long as the card number and ending in its last four, for systems that
+     * validate card number shape; never passes the Luhn check, so it cannot be mistaken for a card
+     */
+    FORMAT_PRESERVING
+}
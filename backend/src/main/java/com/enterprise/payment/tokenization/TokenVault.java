@@ -0,0 +1,159 @@
+package com.enterprise.payment.tokenization;
+
+import com.enterprise.payment.crypto.EnvelopeEncryption;
+import com.enterprise.payment.crypto.KeyedHash;
+import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentMetrics.Detokenization;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Card tokenization vault: swaps card numbers for tokens that are safe to store and pass around,
+ * and back when a card is actually charged.
+ *
+ * Card numbers are kept envelope-encrypted in {@code card_tokens}, apart from the payment
+ * methods, indexed by a keyed hash of the number: tokenizing a card seen before is one index
+ * probe that returns its existing token, with nothing decrypted. Detokenized numbers are cached
+ * in memory for {@code cacheTtl} and overwritten when they leave the cache.
+ */
+@Service
+@Slf4j
+public class TokenVault implements DisposableBean {
+
+    private static final String RANDOM_PREFIX = "tok_";
+    private static final int RANDOM_BYTES = 16;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final Pattern PAN = Pattern.compile("\\d{12,19}");
+
+    private final TokenVaultStore store;
+    private final EnvelopeEncryption envelopeEncryption;
+    private final KeyedHash keyedHash;
+    private final PaymentMetrics paymentMetrics;
+    private final TokenFormat format;
+    private final DetokenizationCache cache;
+    private final SecureRandom random = new SecureRandom();
+
+    public TokenVault(TokenVaultStore store, EnvelopeEncryption envelopeEncryption, KeyedHash keyedHash,
+                      PaymentMetrics paymentMetrics, TokenizationProperties properties) {
+        this.store = store;
+        this.envelopeEncryption = envelopeEncryption;
+        this.keyedHash = keyedHash;
+        this.paymentMetrics = paymentMetrics;
+        this.format = properties.getFormat();
+        this.cache = new DetokenizationCache(properties.getCacheSize(), properties.getCacheTtl(), System::nanoTime);
+    }
+
+    /**
+     * The token of a card number, issuing one the first time the card is seen
+     */
+    public String tokenize(String pan) {
+        if (pan == null || !PAN.matcher(pan).matches()) {
+            throw new ValidationException("Card number must be 12 to 19 digits");
+        }
+        byte[] panBytes = pan.getBytes(StandardCharsets.US_ASCII);
+        byte[] panHash = keyedHash.hash(panBytes);
+        try {
+            String existing = store.findToken(panHash);
+            if (existing != null) {
+                return existing;
+            }
+            String encryptedPan = Base64.getEncoder().encodeToString(envelopeEncryption.encrypt(panBytes));
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                String token = newToken(pan);
+                if (store.insert(token, panHash, encryptedPan, pan.substring(pan.length() - 4))) {
+                    return token;
+                }
+                // Either the card was tokenized concurrently, or the token is taken
+                existing = store.findToken(panHash);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            throw new IllegalStateException("No free token after " + MAX_ATTEMPTS + " attempts");
+        } finally {
+            Arrays.fill(panBytes, (byte) 0);
+        }
+    }
+
+    /**
+     * The card number behind a token; close the result as soon as it has been used
+     */
+    public DetokenizedPan detokenize(String token) {
+        char[] cached = cache.get(token);
+        if (cached != null) {
+            paymentMetrics.detokenized(Detokenization.CACHE);
+            return new DetokenizedPan(cached);
+        }
+        String encryptedPan = token != null ? store.findEncryptedPan(token) : null;
+        if (encryptedPan == null) {
+            paymentMetrics.detokenized(Detokenization.UNKNOWN_TOKEN);
+            throw new ValidationException("Unknown card token");
+        }
+        byte[] panBytes = envelopeEncryption.decrypt(Base64.getDecoder().decode(encryptedPan));
+        char[] digits = new char[panBytes.length];
+        for (int i = 0; i < panBytes.length; i++) {
+            digits[i] = (char) panBytes[i];
+        }
+        Arrays.fill(panBytes, (byte) 0);
+        cache.put(token, digits);
+        paymentMetrics.detokenized(Detokenization.VAULT);
+        return new DetokenizedPan(digits);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.tokenization.cache-ttl:PT30S}")
+    public void evictExpired() {
+        cache.evictExpired();
+    }
+
+    @Override
+    public void destroy() {
+        cache.clear();
+    }
+
+    private String newToken(String pan) {
+        if (format == TokenFormat.RANDOM) {
+            byte[] bytes = new byte[RANDOM_BYTES];
+            random.nextBytes(bytes);
+            return RANDOM_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        }
+        char[] token = new char[pan.length()];
+        for (int i = 0; i < token.length - 4; i++) {
+            token[i] = (char) ('0' + random.nextInt(10));
+        }
+        pan.getChars(pan.length() - 4, pan.length(), token, token.length - 4);
+        String candidate = new String(token);
+        if (isValidLuhn(candidate)) {
+            // Changing any one digit changes the Luhn sum, so the token can never be a valid card number
+            int i = token.length - 5;
+            token[i] = (char) ('0' + (token[i] - '0' + 1) % 10);
+            candidate = new String(token);
+        }
+        return candidate;
+    }
+
+    static boolean isValidLuhn(String digits) {
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+}
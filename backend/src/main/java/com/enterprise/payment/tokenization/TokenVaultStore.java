@@ -0,0 +1,24 @@
+package com.enterprise.payment.tokenization;
+
+/**
+ * Where tokens and the encrypted card numbers they stand for are kept
+ */
+public interface TokenVaultStore {
+
+    /**
+     * The token issued for the card number with this keyed hash, or null
+     */
+    String findToken(byte[] panHash);
+
+    /**
+     * The encrypted card number a token stands for, or null for an unknown token
+     */
+    String findEncryptedPan(String token);
+
+    /**
+     * Store a new token unless its token or card number hash exists already
+     *
+     * @return whether this call stored it
+     */
+    boolean insert(String token, byte[] panHash, String encryptedPan, String lastFour);
+}
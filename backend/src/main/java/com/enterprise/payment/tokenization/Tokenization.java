@@ -0,0 +1,41 @@
+package com.enterprise.payment.tokenization;
+
+import com.enterprise.payment.crypto.BulkCryptoOperation;
+import com.enterprise.payment.crypto.EnvelopeEncryption;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Moves the card numbers of existing payment methods into the vault: each stored
+ * {@code cardNumber} is replaced by a {@code cardToken} and the details are re-encrypted.
+ * Payment methods without a card number, or tokenized already, are left as they are.
+ */
+@Component
+@RequiredArgsConstructor
+public class Tokenization implements BulkCryptoOperation {
+
+    public static final String JOB = "tokenization";
+
+    private static final Pattern CARD_NUMBER = Pattern.compile("cardNumber=(\\d{12,19})");
+
+    private final TokenVault tokenVault;
+    private final EnvelopeEncryption envelopeEncryption;
+
+    @Override
+    public String name() {
+        return JOB;
+    }
+
+    @Override
+    public String apply(long paymentMethodId, String details) {
+        Matcher matcher = CARD_NUMBER.matcher(details);
+        if (!matcher.find()) {
+            return null;
+        }
+        String token = tokenVault.tokenize(matcher.group(1));
+        return envelopeEncryption.encrypt(matcher.replaceFirst("cardToken=" + token));
+    }
+}
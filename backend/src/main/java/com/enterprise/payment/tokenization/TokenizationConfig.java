@@ -0,0 +1,12 @@
+package com.enterprise.payment.tokenization;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Card tokenization vault settings
+ */
+@Configuration
+@EnableConfigurationProperties(TokenizationProperties.class)
+public class TokenizationConfig {
+}
@@ -0,0 +1,23 @@
+package com.enterprise.payment.tokenization;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Card tokenization vault, bound from {@code payment.tokenization}
+ */
+@Data
+@ConfigurationProperties(prefix = "payment.tokenization")
+public class TokenizationProperties {
+
+    /** Shape of newly issued tokens */
+    private TokenFormat format = TokenFormat.RANDOM;
+
+    /** How long a detokenized card number stays in memory; zeroed when it expires or is evicted */
+    private Duration cacheTtl = Duration.ofSeconds(30);
+
+    /** Most card numbers held in memory at once; 0 disables the cache */
+    private int cacheSize = 10_000;
+}
@@ -0,0 +1,4 @@
+-- Scans both tables; VALIDATE only takes a SHARE UPDATE EXCLUSIVE lock, so inserts and
+-- updates carry on meanwhile
+ALTER TABLE audit_logs VALIDATE CONSTRAINT audit_logs_before_partitioning;
+ALTER TABLE webhook_deliveries VALIDATE CONSTRAINT webhook_deliveries_before_partitioning;
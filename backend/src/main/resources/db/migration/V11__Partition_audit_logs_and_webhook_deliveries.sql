@@ -0,0 +1,145 @@
+-- audit_logs and webhook_deliveries become range-partitioned by month of created_at, so
+-- queries on a date range read only the months in it and old months can be dropped whole
+-- instead of deleted row by row.
+--
+-- Each existing table is attached, in place, as the partition for everything before the
+-- bound V9 put on it; later months get partitions of their own, created ahead of time by
+-- create_monthly_partitions (called here and by the application's PartitionMaintenance
+-- job). Partitioned tables need the partition key in their primary key, hence
+-- (id, created_at); ids still come from the same sequences and stay unique.
+--
+-- There is no DEFAULT partition: a row dated past the last partition created fails to insert.
+-- Rows are dated now(), and the job keeps months ahead of it, so that only happens when the
+-- job has not run for that long. A DEFAULT partition would instead make each new month's
+-- partition fail to create once it held rows of that month.
+--
+-- Both functions take a transaction-scoped advisory lock on the parent table, so runs from
+-- several instances at once take turns instead of racing to create or drop the same month.
+--
+-- payments and transactions are left unpartitioned: other tables reference payments(id)
+-- by foreign key, and payment_reference and transaction_reference must stay unique across
+-- all rows. PostgreSQL enforces neither across partitions unless created_at is part of the
+-- key.
+
+-- Create the monthly partitions of a table for this month and the next months_ahead months
+-- (UTC) that do not exist yet; returns how many were created
+CREATE OR REPLACE FUNCTION create_monthly_partitions(parent TEXT, months_ahead INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    first_month TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC');
+    month_start TIMESTAMP;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(parent::regclass::oid::BIGINT);
+    FOR i IN 0..months_ahead LOOP
+        month_start := first_month + make_interval(months => i);
+        partition_name := parent || '_' || to_char(month_start, 'YYYY_MM');
+        CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+        BEGIN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, parent, month_start AT TIME ZONE 'UTC',
+                           (month_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+            created := created + 1;
+        EXCEPTION
+            WHEN invalid_object_definition THEN
+                -- Overlaps the partition of the rows from before partitioning
+                NULL;
+            WHEN duplicate_table THEN
+                -- Created by a session that does not take the lock
+                NULL;
+        END;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drop the monthly partitions of a table older than this month and the keep_months months
+-- before it (UTC); returns how many were dropped
+CREATE OR REPLACE FUNCTION drop_monthly_partitions(parent TEXT, keep_months INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    oldest_kept TEXT := parent || '_' || to_char(date_trunc('month', now() AT TIME ZONE 'UTC')
+                                                 - make_interval(months => keep_months), 'YYYY_MM');
+    partition_name TEXT;
+    dropped INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(parent::regclass::oid::BIGINT);
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent::regclass
+          AND c.relname ~ ('^' || parent || '_[0-9]{4}_[0-9]{2}$')
+          AND c.relname < oldest_kept
+    LOOP
+        EXECUTE format('DROP TABLE IF EXISTS %I', partition_name);
+        dropped := dropped + 1;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    audit_bound TIMESTAMPTZ;
+    delivery_bound TIMESTAMPTZ;
+BEGIN
+    SELECT substring(pg_get_constraintdef(oid) FROM '''([^'']+)''')::TIMESTAMPTZ INTO audit_bound
+    FROM pg_constraint WHERE conname = 'audit_logs_before_partitioning';
+    SELECT substring(pg_get_constraintdef(oid) FROM '''([^'']+)''')::TIMESTAMPTZ INTO delivery_bound
+    FROM pg_constraint WHERE conname = 'webhook_deliveries_before_partitioning';
+
+    -- audit_logs
+    ALTER TABLE audit_logs RENAME TO audit_logs_legacy;
+    ALTER TABLE audit_logs_legacy DROP CONSTRAINT audit_logs_pkey;
+    ALTER TABLE audit_logs_legacy ADD CONSTRAINT audit_logs_legacy_pkey PRIMARY KEY USING INDEX audit_logs_id_created_key;
+    ALTER INDEX idx_audit_logs_entity_created RENAME TO audit_logs_legacy_entity_created;
+    ALTER INDEX idx_audit_logs_created RENAME TO audit_logs_legacy_created;
+    ALTER INDEX idx_audit_logs_correlation_id RENAME TO audit_logs_legacy_correlation_id;
+    ALTER INDEX idx_audit_logs_user_id RENAME TO audit_logs_legacy_user_id;
+
+    CREATE TABLE audit_logs (
+        LIKE audit_logs_legacy INCLUDING DEFAULTS,
+        PRIMARY KEY (id, created_at),
+        FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL
+    ) PARTITION BY RANGE (created_at);
+    -- Same definitions as the legacy table's indexes, which attaching then adopts as they are
+    CREATE INDEX idx_audit_logs_entity_created ON audit_logs (entity_type, entity_id, created_at DESC, id DESC);
+    CREATE INDEX idx_audit_logs_created ON audit_logs (created_at DESC, id DESC);
+    CREATE INDEX idx_audit_logs_correlation_id ON audit_logs (correlation_id);
+    CREATE INDEX idx_audit_logs_user_id ON audit_logs (user_id);
+    ALTER SEQUENCE audit_logs_id_seq OWNED BY audit_logs.id;
+    -- Skips scanning the legacy table: its validated CHECK constraint implies the bound
+    EXECUTE format('ALTER TABLE audit_logs ATTACH PARTITION audit_logs_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   audit_bound);
+
+    -- webhook_deliveries
+    ALTER TABLE webhook_deliveries RENAME TO webhook_deliveries_legacy;
+    ALTER TABLE webhook_deliveries_legacy DROP CONSTRAINT webhook_deliveries_pkey;
+    ALTER TABLE webhook_deliveries_legacy ADD CONSTRAINT webhook_deliveries_legacy_pkey
+        PRIMARY KEY USING INDEX webhook_deliveries_id_created_key;
+    ALTER INDEX idx_webhook_deliveries_webhook_id RENAME TO webhook_deliveries_legacy_webhook_id;
+    ALTER INDEX idx_webhook_deliveries_payment_id RENAME TO webhook_deliveries_legacy_payment_id;
+    ALTER INDEX idx_webhook_deliveries_event RENAME TO webhook_deliveries_legacy_event;
+    ALTER INDEX idx_webhook_deliveries_created_at RENAME TO webhook_deliveries_legacy_created_at;
+    ALTER INDEX idx_webhook_deliveries_retry RENAME TO webhook_deliveries_legacy_retry;
+
+    CREATE TABLE webhook_deliveries (
+        LIKE webhook_deliveries_legacy INCLUDING DEFAULTS,
+        PRIMARY KEY (id, created_at),
+        FOREIGN KEY (webhook_id) REFERENCES webhooks(id) ON DELETE CASCADE,
+        FOREIGN KEY (payment_id) REFERENCES payments(id) ON DELETE SET NULL
+    ) PARTITION BY RANGE (created_at);
+    CREATE INDEX idx_webhook_deliveries_webhook_id ON webhook_deliveries (webhook_id);
+    CREATE INDEX idx_webhook_deliveries_payment_id ON webhook_deliveries (payment_id);
+    CREATE INDEX idx_webhook_deliveries_event ON webhook_deliveries (event);
+    CREATE INDEX idx_webhook_deliveries_created_at ON webhook_deliveries (created_at);
+    CREATE INDEX idx_webhook_deliveries_retry ON webhook_deliveries (next_retry_at) WHERE delivered_at IS NULL;
+    ALTER SEQUENCE webhook_deliveries_id_seq OWNED BY webhook_deliveries.id;
+    EXECUTE format('ALTER TABLE webhook_deliveries ATTACH PARTITION webhook_deliveries_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', delivery_bound);
+END $$;
+
+SELECT create_monthly_partitions('audit_logs', 3);
+SELECT create_monthly_partitions('webhook_deliveries', 3);
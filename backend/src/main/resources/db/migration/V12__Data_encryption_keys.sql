@@ -0,0 +1,9 @@
+-- Data keys for envelope encryption of sensitive columns (payment_methods.encrypted_details).
+-- Each version's AES-256 key is stored wrapped (AES-GCM) with the master key, which never
+-- reaches the database; ciphertexts name the version that encrypted them. The highest
+-- version is the one new data is encrypted with.
+CREATE TABLE data_encryption_keys (
+    version INTEGER PRIMARY KEY,
+    wrapped_key BYTEA NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,13 @@
+-- Progress of bulk jobs over payment_methods.encrypted_details (re-encryption, tokenization).
+-- Rows are processed in id order; last_id is the highest id below which every row is done,
+-- so an interrupted run resumes right after it.
+CREATE TABLE crypto_job_checkpoints (
+    job VARCHAR(50) PRIMARY KEY,
+    last_id BIGINT NOT NULL,
+    scanned BIGINT NOT NULL,
+    changed BIGINT NOT NULL,
+    failed BIGINT NOT NULL,
+    started_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    finished_at TIMESTAMP WITH TIME ZONE
+);
@@ -0,0 +1,14 @@
+-- Card tokenization vault. Card numbers are stored envelope-encrypted, apart from
+-- payment_methods, which only keep the token. pan_hash is an HMAC-SHA256 of the card number
+-- under a key the database never sees: finding the token of a card seen before is one probe on
+-- its unique index, without decrypting anything.
+CREATE TABLE card_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    token VARCHAR(32) NOT NULL,
+    pan_hash BYTEA NOT NULL,
+    encrypted_pan TEXT NOT NULL,
+    last_four VARCHAR(4) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT card_tokens_token_key UNIQUE (token),
+    CONSTRAINT card_tokens_pan_hash_key UNIQUE (pan_hash)
+);
@@ -0,0 +1,4 @@
+-- Keyed fingerprint of each card payment method's card number: HMAC-SHA256 under a key the
+-- database never sees, set when the payment method is created. Existing rows stay NULL until
+-- the fingerprint backfill job reaches them.
+ALTER TABLE payment_methods ADD COLUMN card_fingerprint BYTEA;
@@ -0,0 +1,8 @@
+-- One active payment method per card and account: checking for a duplicate card is a single
+-- probe of this index. Rows without a fingerprint (other types, or not backfilled yet) and
+-- deactivated ones are left out.
+-- CONCURRENTLY keeps payment_methods writable while the index builds; Flyway runs this
+-- statement outside a transaction, so it lives apart from the column it indexes.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_payment_methods_account_card_fingerprint
+    ON payment_methods (account_id, card_fingerprint)
+    WHERE card_fingerprint IS NOT NULL AND is_active;
@@ -0,0 +1,17 @@
+-- Refresh tokens are kept as the SHA-256 digest of the token, never the token itself: a copy of
+-- the table grants no sessions, and each refresh probes a fixed 32-byte unique key instead of a
+-- VARCHAR(500). Existing tokens are hashed in place and stay valid.
+-- family_id ties the token issued at login to every token it is rotated into; presenting a
+-- rotated-out token again revokes the whole family. Existing tokens each start a family.
+ALTER TABLE refresh_tokens ADD COLUMN token_hash BYTEA;
+ALTER TABLE refresh_tokens ADD COLUMN family_id UUID;
+
+UPDATE refresh_tokens SET token_hash = sha256(convert_to(token, 'UTF8')), family_id = gen_random_uuid();
+
+ALTER TABLE refresh_tokens
+    ALTER COLUMN token_hash SET NOT NULL,
+    ALTER COLUMN family_id SET NOT NULL,
+    DROP COLUMN token,
+    ADD CONSTRAINT refresh_tokens_token_hash_key UNIQUE (token_hash);
+
+CREATE INDEX idx_refresh_tokens_family_id ON refresh_tokens (family_id);
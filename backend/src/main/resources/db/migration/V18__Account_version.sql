@@ -0,0 +1,4 @@
+-- Optimistic lock for account balances: JPA updates check and bump it, and the JDBC balance
+-- updates bump it too, so a read-modify-write that raced one of them fails instead of
+-- overwriting its balance. Adding a column with a constant default does not rewrite the table.
+ALTER TABLE accounts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- When a batch or a single payment worker claimed the payment (PENDING to PROCESSING). A
+-- payment still PROCESSING long after its claim lost its worker between the claim and the
+-- settlement, and is settled from the gateways' records. Batch payments already PROCESSING
+-- count it from their last update; the others were never reserved and are left alone.
+ALTER TABLE payments ADD COLUMN claimed_at TIMESTAMP WITH TIME ZONE;
+
+UPDATE payments SET claimed_at = updated_at WHERE status = 'PROCESSING' AND batch_eligible;
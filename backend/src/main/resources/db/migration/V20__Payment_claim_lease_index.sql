@@ -0,0 +1,6 @@
+-- Claims past their lease, oldest first: a range scan over the few payments in flight.
+-- CONCURRENTLY keeps payments writable while the index builds; Flyway runs this statement
+-- outside a transaction, so it lives apart from the column it indexes.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payments_processing_claimed_at
+    ON payments (claimed_at)
+    WHERE status = 'PROCESSING';
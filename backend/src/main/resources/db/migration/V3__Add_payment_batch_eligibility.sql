@@ -0,0 +1,5 @@
+-- Payments that may be submitted to the gateway in micro-batches (bulk payouts, settlement runs)
+ALTER TABLE payments ADD COLUMN batch_eligible BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Batch-eligible payments still waiting for submission, re-queued on startup
+CREATE INDEX idx_payments_batch_pending ON payments(id) WHERE batch_eligible AND status = 'PENDING';
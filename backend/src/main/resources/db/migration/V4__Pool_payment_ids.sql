@@ -0,0 +1,4 @@
+-- Bulk payment creation allocates payment ids in blocks: each nextval reserves itself and the
+-- next 49 values (pooled-lo). Inserts relying on the column default take a single value, so
+-- both can share the sequence.
+ALTER SEQUENCE payments_id_seq INCREMENT BY 50;
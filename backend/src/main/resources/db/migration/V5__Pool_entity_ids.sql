@@ -0,0 +1,20 @@
+-- Entities take ids from their table's sequence in blocks of 50 (Hibernate pooled-lo), which
+-- lets Hibernate batch inserts; with IDENTITY it has to insert rows one by one to read each id.
+-- The BIGSERIAL column defaults stay: plain SQL and JDBC batch inserts keep taking single
+-- values, which pooled-lo never hands out twice. payments_id_seq was switched in V4.
+-- Each sequence is also moved past the highest existing id, so rows inserted with explicit
+-- ids cannot collide with a block.
+DO $$
+DECLARE
+    t TEXT;
+    seq TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['accounts', 'users', 'payment_methods', 'payments', 'transactions',
+                             'payment_status_history', 'audit_logs', 'refresh_tokens', 'api_keys',
+                             'webhooks', 'webhook_deliveries'] LOOP
+        seq := pg_get_serial_sequence(t, 'id');
+        EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', seq);
+        EXECUTE format('SELECT setval(%L, GREATEST((SELECT last_value FROM %s), (SELECT COALESCE(MAX(id), 0) FROM %I)))',
+                       seq, seq, t);
+    END LOOP;
+END $$;
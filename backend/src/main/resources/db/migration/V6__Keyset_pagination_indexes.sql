@@ -0,0 +1,28 @@
+-- Listings page by keyset on (created_at DESC, id DESC) within their filter, so each page is
+-- one range scan of an index in exactly that order. The single-column indexes these replace
+-- are prefixes of the new ones and only cost writes from now on.
+-- CONCURRENTLY keeps the tables writable while the indexes build; Flyway runs these
+-- statements outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payments_account_created
+    ON payments (account_id, created_at DESC, id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payments_status_created
+    ON payments (status, created_at DESC, id DESC);
+DROP INDEX CONCURRENTLY IF EXISTS idx_payments_account_id;
+DROP INDEX CONCURRENTLY IF EXISTS idx_payments_status;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_payment_created
+    ON transactions (payment_id, created_at DESC, id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_type_created
+    ON transactions (type, created_at DESC, id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_created
+    ON transactions (created_at DESC, id DESC);
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_payment_id;
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_type;
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_created_at;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_audit_logs_entity_created
+    ON audit_logs (entity_type, entity_id, created_at DESC, id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_audit_logs_created
+    ON audit_logs (created_at DESC, id DESC);
+DROP INDEX CONCURRENTLY IF EXISTS idx_audit_logs_entity_type_id;
+DROP INDEX CONCURRENTLY IF EXISTS idx_audit_logs_created_at;
@@ -0,0 +1,5 @@
+-- Exports stream payments of a date range in (created_at, id) order, across all accounts.
+-- The (created_at) index this replaces would leave ties on created_at to be sorted.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payments_created
+    ON payments (created_at DESC, id DESC);
+DROP INDEX CONCURRENTLY IF EXISTS idx_payments_created_at;
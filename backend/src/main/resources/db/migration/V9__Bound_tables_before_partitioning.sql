@@ -0,0 +1,14 @@
+-- First step of partitioning audit_logs and webhook_deliveries by month (V9 to V11).
+-- The existing tables become the partitions for everything before next month. To attach
+-- them without a scan under lock, they first get a CHECK constraint proving that bound:
+-- added NOT VALID here, which is instant, and validated in V10, which reads the table without
+-- blocking writes.
+DO $$
+DECLARE
+    boundary TIMESTAMPTZ := (date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '1 month') AT TIME ZONE 'UTC';
+BEGIN
+    EXECUTE format('ALTER TABLE audit_logs ADD CONSTRAINT audit_logs_before_partitioning '
+                   'CHECK (created_at < %L) NOT VALID', boundary);
+    EXECUTE format('ALTER TABLE webhook_deliveries ADD CONSTRAINT webhook_deliveries_before_partitioning '
+                   'CHECK (created_at < %L) NOT VALID', boundary);
+END $$;
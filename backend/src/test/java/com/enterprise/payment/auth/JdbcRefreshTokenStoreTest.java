@@ -0,0 +1,148 @@
+package com.enterprise.payment.auth;
+
+import com.enterprise.payment.repository.PostgresRepositoryTest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rotation, family revocation and batched cleanup of refresh tokens against the Flyway schema,
+ * plus the latency of a refresh (lookup, revoke, insert) under concurrent load; skipped
+ * without Docker.
+ */
+@Import(JdbcRefreshTokenStore.class)
+@Slf4j
+class JdbcRefreshTokenStoreTest extends PostgresRepositoryTest {
+
+    private static final int THREADS = 16;
+    private static final int REFRESHES_PER_THREAD = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JdbcRefreshTokenStore store;
+
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        String username = "refresh-" + UUID.randomUUID().toString().substring(0, 8);
+        userId = jdbcTemplate.queryForObject("""
+                INSERT INTO users (username, email, password_hash, first_name, last_name)
+                VALUES (?, ?, 'hash', 'Refresh', 'Test') RETURNING id
+                """, Long.class, username, username + "@example.com");
+    }
+
+    @Test
+    void revoke_SucceedsOnceAndKeepsTheTokenForReuseDetection() {
+        byte[] digest = RefreshTokens.digest(RefreshTokens.newToken());
+        StoredRefreshToken token = store.insert(digest, userId, UUID.randomUUID(),
+                OffsetDateTime.now().plusDays(30));
+
+        assertEquals(token.id(), store.find(digest).id());
+        assertTrue(store.revoke(digest, token.id()));
+        assertFalse(store.revoke(digest, token.id()));
+        assertTrue(store.find(digest).revoked());
+        assertNull(store.find(RefreshTokens.digest(RefreshTokens.newToken())));
+    }
+
+    @Test
+    void revokeFamily_RevokesOnlyTheLiveTokensOfTheFamily() {
+        UUID family = UUID.randomUUID();
+        byte[] rotated = insert(family, 30);
+        store.revoke(rotated, store.find(rotated).id());
+        byte[] current = insert(family, 30);
+        byte[] otherFamily = insert(UUID.randomUUID(), 30);
+
+        List<RevokedRefreshToken> revoked = store.revokeFamily(family);
+
+        assertEquals(1, revoked.size());
+        assertEquals(store.find(current).id(), revoked.get(0).id());
+        assertArrayEquals(current, revoked.get(0).digest());
+        assertTrue(store.find(current).revoked());
+        assertFalse(store.find(otherFamily).revoked());
+        assertEquals(1, store.revokeAllForUser(userId).size());
+    }
+
+    @Test
+    void deleteExpired_DeletesAtMostTheLimitOldestFirst() {
+        byte[] oldest = insert(UUID.randomUUID(), -30);
+        insert(UUID.randomUUID(), -20);
+        insert(UUID.randomUUID(), -10);
+        byte[] live = insert(UUID.randomUUID(), 30);
+        OffsetDateTime cutoff = OffsetDateTime.now().minusDays(5);
+
+        assertEquals(2, store.deleteExpired(cutoff, 2));
+        assertNull(store.find(oldest));
+        assertEquals(1, store.deleteExpired(cutoff, 2));
+        assertEquals(0, store.deleteExpired(cutoff, 2));
+        assertNotNull(store.find(live));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void refresh_LatencyUnderConcurrentLoad() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<long[]>> clients = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            clients.add(() -> {
+                UUID family = UUID.randomUUID();
+                byte[] digest = RefreshTokens.digest(RefreshTokens.newToken());
+                store.insert(digest, userId, family, OffsetDateTime.now().plusDays(30));
+                long[] latencies = new long[REFRESHES_PER_THREAD];
+                for (int n = 0; n < REFRESHES_PER_THREAD; n++) {
+                    long started = System.nanoTime();
+                    StoredRefreshToken token = store.find(digest);
+                    assertTrue(store.revoke(digest, token.id()));
+                    digest = RefreshTokens.digest(RefreshTokens.newToken());
+                    store.insert(digest, userId, family, OffsetDateTime.now().plusDays(30));
+                    latencies[n] = System.nanoTime() - started;
+                }
+                return latencies;
+            });
+        }
+
+        long started = System.nanoTime();
+        List<long[]> results = new ArrayList<>();
+        for (Future<long[]> future : executor.invokeAll(clients)) {
+            results.add(future.get());
+        }
+        long elapsed = System.nanoTime() - started;
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        long[] all = results.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        log.debug("Refresh (lookup, revoke, insert) with {} clients: p50 {} us, p99 {} us, max {} us, "
+                        + "{} refreshes/s", THREADS, all[all.length / 2] / 1000,
+                all[(int) (all.length * 0.99)] / 1000, all[all.length - 1] / 1000,
+                all.length * 1_000_000_000L / elapsed);
+        assertEquals(THREADS * (REFRESHES_PER_THREAD + 1), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE user_id = ?", Integer.class, userId));
+        assertEquals(THREADS, store.revokeAllForUser(userId).size());
+    }
+
+    private byte[] insert(UUID family, int expiresInDays) {
+        byte[] digest = RefreshTokens.digest(RefreshTokens.newToken());
+        store.insert(digest, userId, family, OffsetDateTime.now().plusDays(expiresInDays));
+        return digest;
+    }
+}
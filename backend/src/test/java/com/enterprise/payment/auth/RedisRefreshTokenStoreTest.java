@@ -0,0 +1,148 @@
+package com.enterprise.payment.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisRefreshTokenStoreTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final UUID FAMILY = UUID.fromString("6f1c2a7e-3b4d-4e5f-8a9b-0c1d2e3f4a5b");
+
+    @Mock
+    private RefreshTokenStore database;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final byte[] digest = RefreshTokens.digest("token");
+    private RedisRefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        store = new RedisRefreshTokenStore(database, redisTemplate, () -> NOW);
+    }
+
+    @Test
+    void find_ServesLiveTokensFromRedis() {
+        StoredRefreshToken token = token(false);
+        when(valueOperations.get(RedisRefreshTokenStore.key(digest))).thenReturn(RedisRefreshTokenStore.write(token));
+
+        assertEquals(token, store.find(digest));
+        verifyNoInteractions(database);
+    }
+
+    @Test
+    void find_ReadsTheDatabaseOnAMissAndCachesLiveTokensUntilTheyExpire() {
+        StoredRefreshToken token = token(false);
+        when(database.find(digest)).thenReturn(token);
+
+        assertEquals(token, store.find(digest));
+        verify(valueOperations).set(RedisRefreshTokenStore.key(digest), RedisRefreshTokenStore.write(token),
+                Duration.ofDays(30));
+    }
+
+    @Test
+    void find_DoesNotCacheRevokedTokens() {
+        when(database.find(digest)).thenReturn(token(true));
+
+        assertTrue(store.find(digest).revoked());
+        verify(valueOperations, never()).set(any(), any(), any(Duration.class));
+    }
+
+    @Test
+    void find_FallsBackToTheDatabaseWhenRedisIsDown() {
+        StoredRefreshToken token = token(false);
+        when(valueOperations.get(any())).thenThrow(new RedisConnectionFailureException("down"));
+        when(database.find(digest)).thenReturn(token);
+
+        assertEquals(token, store.find(digest));
+    }
+
+    @Test
+    void revokeFamily_EvictsTheTokensTheDatabaseRevoked() {
+        byte[] other = RefreshTokens.digest("other");
+        when(database.revokeFamily(FAMILY)).thenReturn(List.of(new RevokedRefreshToken(7L, digest),
+                new RevokedRefreshToken(8L, other)));
+
+        assertEquals(2, store.revokeFamily(FAMILY).size());
+        verify(redisTemplate).delete(List.of(RedisRefreshTokenStore.key(digest), RedisRefreshTokenStore.key(other)));
+    }
+
+    @Test
+    void revoke_ReturnsTheDatabaseOutcomeAndEvicts() {
+        when(database.revoke(digest, 7L)).thenReturn(false);
+
+        assertFalse(store.revoke(digest, 7L));
+        verify(redisTemplate).delete(List.of(RedisRefreshTokenStore.key(digest)));
+    }
+
+    @Test
+    void insert_AndRevoke_WriteRedisOnlyOnceTheTransactionCommits() {
+        StoredRefreshToken token = token(false);
+        when(database.insert(digest, 3L, FAMILY, token.expiresAt())).thenReturn(token);
+        when(database.revoke(digest, 7L)).thenReturn(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.insert(digest, 3L, FAMILY, token.expiresAt());
+            store.revoke(digest, 7L);
+            verifyNoInteractions(redisTemplate);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        InOrder inOrder = inOrder(valueOperations, redisTemplate);
+        inOrder.verify(valueOperations).set(RedisRefreshTokenStore.key(digest), RedisRefreshTokenStore.write(token),
+                Duration.ofDays(30));
+        inOrder.verify(redisTemplate).delete(List.of(RedisRefreshTokenStore.key(digest)));
+    }
+
+    @Test
+    void insert_DoesNotCacheWhenTheTransactionRollsBack() {
+        StoredRefreshToken token = token(false);
+        when(database.insert(digest, 3L, FAMILY, token.expiresAt())).thenReturn(token);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.insert(digest, 3L, FAMILY, token.expiresAt());
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private static StoredRefreshToken token(boolean revoked) {
+        OffsetDateTime expiresAt = OffsetDateTime.ofInstant(Instant.ofEpochMilli(NOW), ZoneOffset.UTC).plusDays(30);
+        return new StoredRefreshToken(7L, 3L, FAMILY, expiresAt, revoked);
+    }
+}
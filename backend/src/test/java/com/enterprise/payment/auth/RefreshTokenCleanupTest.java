@@ -0,0 +1,40 @@
+package com.enterprise.payment.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenCleanupTest {
+
+    private static final OffsetDateTime CUTOFF = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+
+    @Mock
+    private JdbcRefreshTokenStore store;
+
+    @Test
+    void deleteExpiredBefore_DeletesBatchesUntilOneComesBackShort() {
+        RefreshTokenProperties properties = new RefreshTokenProperties();
+        properties.setCleanupBatchSize(100);
+        when(store.deleteExpired(CUTOFF, 100)).thenReturn(100, 100, 42);
+
+        assertEquals(242, new RefreshTokenCleanup(store, properties).deleteExpiredBefore(CUTOFF));
+        verify(store, times(3)).deleteExpired(CUTOFF, 100);
+    }
+
+    @Test
+    void deleteExpiredBefore_StopsAtAnEmptyBatch() {
+        RefreshTokenProperties properties = new RefreshTokenProperties();
+        properties.setCleanupBatchSize(100);
+        when(store.deleteExpired(CUTOFF, 100)).thenReturn(100, 0);
+
+        assertEquals(100, new RefreshTokenCleanup(store, properties).deleteExpiredBefore(CUTOFF));
+        verify(store, times(2)).deleteExpired(CUTOFF, 100);
+    }
+}
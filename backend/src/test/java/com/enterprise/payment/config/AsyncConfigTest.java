@@ -0,0 +1,127 @@
+package com.enterprise.payment.config;
+
+import brave.Tracing;
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import com.enterprise.payment.entity.AuditLog;
+import com.enterprise.payment.monitoring.CorrelationIdFilter;
+import com.enterprise.payment.repository.AuditLogRepository;
+import com.enterprise.payment.service.BaseService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.brave.bridge.BraveBaggageManager;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The submitting thread's MDC and trace follow tasks onto the {@code taskExecutor} pool
+ */
+class AsyncConfigTest {
+
+    private final AsyncConfig asyncConfig = new AsyncConfig();
+    private Tracing tracing;
+    private Tracer tracer;
+    private ObservationRegistry observationRegistry;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        ThreadLocalCurrentTraceContext currentTraceContext = ThreadLocalCurrentTraceContext.newBuilder().build();
+        tracing = Tracing.newBuilder().currentTraceContext(currentTraceContext).build();
+        tracer = new BraveTracer(tracing.tracer(), new BraveCurrentTraceContext(currentTraceContext),
+                new BraveBaggageManager());
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+
+        executor = asyncConfig.taskExecutor(asyncConfig.contextPropagatingTaskDecorator(), 1, 1, 10);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        tracing.close();
+        MDC.clear();
+    }
+
+    @Test
+    void taskExecutor_CarriesTheSubmittersMdc() throws Exception {
+        MDC.put(CorrelationIdFilter.CORRELATION_ID_MDC_KEY, "corr-1");
+
+        String seen = executor.submitCompletable(() -> MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("corr-1", seen);
+    }
+
+    @Test
+    void taskExecutor_RestoresThePoolThreadsMdcAfterTheTask() throws Exception {
+        MDC.put(CorrelationIdFilter.CORRELATION_ID_MDC_KEY, "corr-1");
+        executor.submitCompletable(() -> null).get(5, TimeUnit.SECONDS);
+        MDC.clear();
+
+        // The single pool thread ran the first task; nothing of its MDC is left behind
+        String seen = executor.submitCompletable(() -> MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY))
+                .get(5, TimeUnit.SECONDS);
+
+        assertNull(seen);
+    }
+
+    @Test
+    void taskExecutor_CarriesTheSubmittersTrace() throws Exception {
+        Observation observation = Observation.start("payment.process", observationRegistry);
+        Span submitted;
+        CompletableFuture<Span> task;
+        try (Observation.Scope ignored = observation.openScope()) {
+            submitted = tracer.currentSpan();
+            task = executor.submitCompletable(tracer::currentSpan);
+        } finally {
+            observation.stop();
+        }
+
+        Span seen = task.get(5, TimeUnit.SECONDS);
+
+        assertNotNull(submitted);
+        assertNotNull(seen);
+        assertEquals(submitted.context().traceId(), seen.context().traceId());
+        assertEquals(submitted.context().spanId(), seen.context().spanId());
+        assertNull(tracer.currentSpan());
+    }
+
+    @Test
+    void taskExecutor_AuditRowsWrittenOnThePoolCarryTheCorrelationId() throws Exception {
+        AuditLogRepository auditLogRepository = mock(AuditLogRepository.class);
+        AuditingService service = new AuditingService();
+        ReflectionTestUtils.setField(service, "auditLogRepository", auditLogRepository);
+        MDC.put(CorrelationIdFilter.CORRELATION_ID_MDC_KEY, "corr-2");
+
+        executor.submitCompletable(service::record).get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<AuditLog> saved = ArgumentCaptor.forClass(AuditLog.class);
+        verify(auditLogRepository).save(saved.capture());
+        assertEquals("corr-2", saved.getValue().getCorrelationId());
+    }
+
+    static class AuditingService extends BaseService {
+
+        Void record() {
+            auditLog("PAYMENT_PROCESSED", "Payment", 1L, "Processed on the pool");
+            return null;
+        }
+    }
+}
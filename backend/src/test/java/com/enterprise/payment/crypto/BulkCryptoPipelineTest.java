@@ -0,0 +1,195 @@
+package com.enterprise.payment.crypto;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkCryptoPipelineTest {
+
+    private static final int ROWS = 1000;
+
+    private final EnvelopeEncryption encryption = new EnvelopeEncryption(
+            new EnvelopeEncryptionTest.InMemoryDataKeyStore(),
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8), null);
+    private final InMemoryDetailsStore detailsStore = new InMemoryDetailsStore();
+    private final InMemoryCheckpointStore checkpointStore = new InMemoryCheckpointStore();
+    private BulkCryptoPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= ROWS; id++) {
+            detailsStore.rows.put(id, encryption.encrypt("card-" + id));
+        }
+        // Not a ciphertext, like the seed data
+        detailsStore.rows.put(500L, "encrypted_card_data_1");
+
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.getBulk().setBatchSize(50);
+        properties.getBulk().setParallelism(4);
+        properties.getBulk().setMaxBatchesInFlight(3);
+        pipeline = new BulkCryptoPipeline(encryption, detailsStore, checkpointStore, job -> Runnable::run, properties);
+    }
+
+    @Test
+    void run_ProcessesEveryRowInParallelAndCountsUndecryptableOnes() {
+        encryption.rotate();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        CryptoJobCheckpoint checkpoint = pipeline.run(operation(threads, -1), false);
+
+        assertTrue(checkpoint.finished());
+        assertEquals(ROWS, checkpoint.scanned());
+        assertEquals(ROWS - 1, checkpoint.changed());
+        assertEquals(1, checkpoint.failed());
+        assertEquals(ROWS, checkpoint.lastId());
+        assertTrue(threads.size() > 1, threads::toString);
+        detailsStore.rows.forEach((id, details) -> {
+            if (id != 500L) {
+                assertEquals(2, encryption.keyVersion(details));
+                assertEquals("card-" + id, encryption.decrypt(details));
+            }
+        });
+    }
+
+    @Test
+    void run_ReadsAtMostMaxBatchesAhead() {
+        pipeline.run(operation(ConcurrentHashMap.newKeySet(), -1), false);
+
+        assertTrue(detailsStore.maxUnwritten.get() <= 3 * 50 + 50, () -> "" + detailsStore.maxUnwritten.get());
+    }
+
+    @Test
+    void interruptedRun_ResumesAfterTheLastCheckpointWithoutSkippingRows() {
+        encryption.rotate();
+        BulkCryptoOperation failing = operation(ConcurrentHashMap.newKeySet(), 730);
+
+        assertThrows(IllegalStateException.class, () -> pipeline.run(failing, false));
+
+        CryptoJobCheckpoint interrupted = checkpointStore.find("test");
+        assertFalse(interrupted.finished());
+        assertTrue(interrupted.lastId() < 730, () -> "" + interrupted.lastId());
+        assertEquals(0, interrupted.lastId() % 50);
+
+        CryptoJobCheckpoint resumed = pipeline.run(operation(ConcurrentHashMap.newKeySet(), -1), false);
+
+        assertTrue(resumed.finished());
+        assertEquals(ROWS, resumed.scanned());
+        assertEquals(interrupted.startedAt(), resumed.startedAt());
+        detailsStore.rows.forEach((id, details) -> {
+            if (id != 500L) {
+                assertEquals(2, encryption.keyVersion(details), "row " + id);
+            }
+        });
+    }
+
+    @Test
+    void start_RunsOneInstanceOfAJobAtATime() {
+        List<Runnable> queued = new ArrayList<>();
+        Executor deferred = queued::add;
+        EncryptionProperties properties = new EncryptionProperties();
+        BulkCryptoPipeline background = new BulkCryptoPipeline(encryption, detailsStore, checkpointStore,
+                job -> deferred, properties);
+        BulkCryptoOperation operation = operation(ConcurrentHashMap.newKeySet(), -1);
+
+        assertTrue(background.start(operation, false));
+        assertFalse(background.start(operation, false));
+        assertTrue(background.status("test").running());
+
+        queued.get(0).run();
+
+        assertFalse(background.status("test").running());
+        assertTrue(background.status("test").checkpoint().finished());
+    }
+
+    /**
+     * Re-encrypts rows not on the active key, recording the worker threads; fails at {@code failAt}
+     */
+    private BulkCryptoOperation operation(Set<String> threads, long failAt) {
+        return new BulkCryptoOperation() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public boolean accepts(String encryptedDetails) {
+                return encryption.keyVersion(encryptedDetails) != encryption.activeVersion();
+            }
+
+            @Override
+            public String apply(long paymentMethodId, String details) {
+                if (paymentMethodId == failAt) {
+                    throw new IllegalStateException("Failed at " + failAt);
+                }
+                threads.add(Thread.currentThread().getName());
+                return encryption.encrypt(details);
+            }
+        };
+    }
+
+    static final class InMemoryDetailsStore implements EncryptedDetailsStore {
+
+        final NavigableMap<Long, String> rows = new ConcurrentSkipListMap<>();
+        final AtomicInteger unwritten = new AtomicInteger();
+        final AtomicInteger maxUnwritten = new AtomicInteger();
+
+        @Override
+        public List<EncryptedDetails> readAfter(long afterId, int limit) {
+            List<EncryptedDetails> batch = new ArrayList<>();
+            for (Map.Entry<Long, String> row : rows.tailMap(afterId, false).entrySet()) {
+                if (batch.size() == limit) {
+                    break;
+                }
+                batch.add(new EncryptedDetails(row.getKey(), row.getValue()));
+            }
+            maxUnwritten.accumulateAndGet(unwritten.addAndGet(batch.size()), Math::max);
+            return batch;
+        }
+
+        @Override
+        public int replace(List<Replacement> replacements) {
+            int replaced = 0;
+            for (Replacement replacement : replacements) {
+                if (rows.replace(replacement.id(), replacement.expected(), replacement.replacement())) {
+                    replaced++;
+                }
+            }
+            return replaced;
+        }
+
+        void written(int rows) {
+            unwritten.addAndGet(-rows);
+        }
+    }
+
+    final class InMemoryCheckpointStore implements CryptoJobCheckpointStore {
+
+        private final Map<String, CryptoJobCheckpoint> checkpoints = new ConcurrentHashMap<>();
+
+        @Override
+        public CryptoJobCheckpoint find(String job) {
+            return checkpoints.get(job);
+        }
+
+        @Override
+        public void save(CryptoJobCheckpoint checkpoint) {
+            CryptoJobCheckpoint previous = checkpoints.put(checkpoint.job(), checkpoint);
+            long before = previous != null && previous.startedAt().equals(checkpoint.startedAt())
+                    ? previous.scanned() : 0;
+            // Rows checkpointed are no longer held by the pipeline
+            detailsStore.written((int) (checkpoint.scanned() - before));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.enterprise.payment.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionConfigTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Test
+    void requireKey_RefusesAMissingKey() {
+        assertThrows(IllegalStateException.class, () -> EncryptionConfig.requireKey(
+                "payment.encryption.master-key", "", EncryptionConfig.DEV_MASTER_KEY, environment("dev")));
+    }
+
+    @Test
+    void requireKey_RefusesTheDevKeyOutsideTheDevProfile() {
+        assertThrows(IllegalStateException.class, () -> EncryptionConfig.requireKey(
+                "payment.encryption.hash-key", EncryptionConfig.DEV_HASH_KEY, EncryptionConfig.DEV_HASH_KEY,
+                environment("docker")));
+    }
+
+    @Test
+    void requireKey_AcceptsTheDevKeyUnderTheDevProfile() {
+        assertEquals(32, EncryptionConfig.requireKey("payment.encryption.fingerprint-key",
+                EncryptionConfig.DEV_FINGERPRINT_KEY, EncryptionConfig.DEV_FINGERPRINT_KEY,
+                environment("dev")).length);
+    }
+
+    @Test
+    void requireKey_AcceptsARealKeyUnderAnyProfile() {
+        assertArrayEquals(new byte[32], EncryptionConfig.requireKey("payment.encryption.master-key", KEY,
+                EncryptionConfig.DEV_MASTER_KEY, environment("aws")));
+    }
+
+    private static MockEnvironment environment(String profile) {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(profile);
+        return environment;
+    }
+}
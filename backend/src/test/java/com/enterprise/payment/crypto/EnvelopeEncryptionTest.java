@@ -0,0 +1,201 @@
+package com.enterprise.payment.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnvelopeEncryptionTest {
+
+    private static final byte[] MASTER_KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final String LEGACY_KEY = "mySecretEncryptionKey1234567890123456";
+
+    private final InMemoryDataKeyStore store = new InMemoryDataKeyStore();
+    private final EnvelopeEncryption encryption = new EnvelopeEncryption(store, MASTER_KEY,
+            EnvelopeEncryption.legacyKey(LEGACY_KEY));
+
+    @Test
+    void encrypt_RoundTripsWithTheFirstVersion() {
+        String ciphertext = encryption.encrypt("4111111111111111|12/30");
+
+        assertEquals("4111111111111111|12/30", encryption.decrypt(ciphertext));
+        assertEquals(1, encryption.keyVersion(ciphertext));
+        assertEquals(1, store.keys.size());
+        assertNotEquals(ciphertext, encryption.encrypt("4111111111111111|12/30"));
+    }
+
+    @Test
+    void legacyCiphertexts_StillDecrypt() throws Exception {
+        String legacy = legacyEncrypt("4000056655665556");
+
+        assertEquals(EnvelopeEncryption.LEGACY_VERSION, encryption.keyVersion(legacy));
+        assertEquals("4000056655665556", encryption.decrypt(legacy));
+    }
+
+    @Test
+    void rotation_KeepsOlderVersionsReadable() {
+        String before = encryption.encrypt("before");
+
+        assertEquals(2, encryption.rotate());
+        String after = encryption.encrypt("after");
+
+        assertEquals(1, encryption.keyVersion(before));
+        assertEquals(2, encryption.keyVersion(after));
+        assertEquals("before", encryption.decrypt(before));
+        assertEquals("after", encryption.decrypt(after));
+    }
+
+    @Test
+    void otherInstances_DecryptWithTheStoredKeysAndPickUpRotations() {
+        EnvelopeEncryption other = new EnvelopeEncryption(store, MASTER_KEY, null);
+        String ciphertext = encryption.encrypt("shared");
+        assertEquals("shared", other.decrypt(ciphertext));
+        assertEquals(1, other.activeVersion());
+
+        encryption.rotate();
+        other.refresh();
+
+        assertEquals(2, other.keyVersion(other.encrypt("shared")));
+    }
+
+    @Test
+    void racingForTheFirstVersion_UsesTheKeyTheOtherInstanceCreated() {
+        EnvelopeEncryption other = new EnvelopeEncryption(store, MASTER_KEY, null);
+        // The other instance creates version 1 after this one found the store empty
+        DataKeyStore racing = new DataKeyStore() {
+            private boolean raced;
+
+            @Override
+            public byte[] find(int version) {
+                return store.find(version);
+            }
+
+            @Override
+            public OptionalInt latestVersion() {
+                if (!raced) {
+                    raced = true;
+                    other.encrypt("first");
+                    return OptionalInt.empty();
+                }
+                return store.latestVersion();
+            }
+
+            @Override
+            public boolean insert(int version, byte[] wrappedKey) {
+                return store.insert(version, wrappedKey);
+            }
+        };
+        EnvelopeEncryption late = new EnvelopeEncryption(racing, MASTER_KEY, null);
+
+        assertEquals(1, late.activeVersion());
+        assertEquals(Map.of(1, store.keys.get(1)), store.keys);
+        assertEquals("late", other.decrypt(late.encrypt("late")));
+    }
+
+    @Test
+    void tamperedHeaderOrCiphertext_IsRejected() {
+        byte[] ciphertext = Base64.getDecoder().decode(encryption.encrypt("amount=100"));
+        EnvelopeEncryption withoutLegacyKey = new EnvelopeEncryption(store, MASTER_KEY, null);
+
+        byte[] otherVersion = ciphertext.clone();
+        otherVersion[5] = 2;
+        encryption.rotate();
+        byte[] flippedBit = ciphertext.clone();
+        flippedBit[flippedBit.length - 20] ^= 1;
+
+        assertThrows(IllegalArgumentException.class, () -> withoutLegacyKey.decrypt(otherVersion));
+        assertThrows(IllegalArgumentException.class, () -> encryption.decrypt(flippedBit));
+    }
+
+    @Test
+    void wrongMasterKey_CannotUnwrapStoredKeys() {
+        String ciphertext = encryption.encrypt("secret");
+        EnvelopeEncryption wrongMaster = new EnvelopeEncryption(store,
+                "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8), null);
+
+        assertThrows(IllegalStateException.class, () -> wrongMaster.decrypt(ciphertext));
+    }
+
+    @Test
+    void concurrentUse_NeverRepeatsAnIv() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    List<String> ciphertexts = new ArrayList<>();
+                    for (int i = 0; i < 500; i++) {
+                        String ciphertext = encryption.encrypt("card-" + i);
+                        assertEquals("card-" + i, encryption.decrypt(ciphertext));
+                        ciphertexts.add(ciphertext);
+                    }
+                    return ciphertexts;
+                }));
+            }
+            Map<String, Boolean> ivs = new ConcurrentHashMap<>();
+            for (Future<List<String>> result : results) {
+                for (String ciphertext : result.get()) {
+                    byte[] bytes = Base64.getDecoder().decode(ciphertext);
+                    String iv = Base64.getEncoder().encodeToString(
+                            Arrays.copyOfRange(bytes, EnvelopeEncryption.HEADER_LENGTH,
+                                    EnvelopeEncryption.HEADER_LENGTH + EnvelopeEncryption.IV_LENGTH));
+                    assertNull(ivs.put(iv, true));
+                }
+            }
+            assertEquals(1, store.keys.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The format written before key versioning
+     */
+    private static String legacyEncrypt(String plaintext) throws Exception {
+        SecretKey key = EnvelopeEncryption.legacyKey(LEGACY_KEY);
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+        byte[] out = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, out, 0, iv.length);
+        System.arraycopy(encrypted, 0, out, iv.length, encrypted.length);
+        return Base64.getEncoder().encodeToString(out);
+    }
+
+    static final class InMemoryDataKeyStore implements DataKeyStore {
+
+        final Map<Integer, byte[]> keys = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] find(int version) {
+            return keys.get(version);
+        }
+
+        @Override
+        public OptionalInt latestVersion() {
+            return keys.keySet().stream().mapToInt(Integer::intValue).max();
+        }
+
+        @Override
+        public boolean insert(int version, byte[] wrappedKey) {
+            return keys.putIfAbsent(version, wrappedKey) == null;
+        }
+    }
+}
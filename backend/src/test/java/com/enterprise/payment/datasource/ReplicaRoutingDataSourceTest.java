@@ -0,0 +1,154 @@
+package com.enterprise.payment.datasource;
+
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private DataSource replicaDataSource;
+    private ReadYourWrites readYourWrites;
+    private ReadReplicas readReplicas;
+    private ReadReplicas.Replica replica;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        replicaDataSource = mock(DataSource.class);
+        when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+
+        readYourWrites = new ReadYourWrites(clock::get);
+        replica = new ReadReplicas.Replica("replica-1", replicaDataSource);
+        readReplicas = new ReadReplicas(List.of(replica), readYourWrites,
+                new PaymentMetrics(new SimpleMeterRegistry()), Duration.ofSeconds(5), Duration.ofSeconds(1),
+                clock::get);
+        readReplicas.recordLag(replica, 0, clock.get());
+        dataSource = new ReplicaRoutingDataSource(primary, readReplicas);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactions_ReadFromTheReplica() throws SQLException {
+        assertSame(replicaConnection, inTransaction(true));
+    }
+
+    @Test
+    void writesAndNonTransactionalAccess_UseThePrimary() throws SQLException {
+        assertSame(primaryConnection, inTransaction(false));
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void suspendedTransactions_KeepTheirOwnRoute() throws SQLException {
+        TransactionRouting.begin(false);
+        try {
+            // A read-only REQUIRES_NEW transaction inside a write transaction
+            assertSame(replicaConnection, inTransaction(true));
+            assertSame(primaryConnection, dataSource.getConnection());
+        } finally {
+            TransactionRouting.end();
+        }
+    }
+
+    @Test
+    void laggingReplica_IsSkippedUntilItCatchesUp() throws SQLException {
+        readReplicas.recordLag(replica, 6_000, clock.get());
+        assertSame(primaryConnection, inTransaction(true));
+
+        readReplicas.recordLag(replica, 100, clock.get());
+        assertSame(replicaConnection, inTransaction(true));
+    }
+
+    @Test
+    void readsAfterAWrite_WaitForTheReplicaToReplayIt() throws SQLException {
+        clock.addAndGet(10);
+        readYourWrites.recordWrite();
+        assertSame(primaryConnection, inTransaction(true));
+
+        clock.addAndGet(500);
+        readReplicas.recordLag(replica, 200, clock.get());
+        assertSame(replicaConnection, inTransaction(true));
+    }
+
+    @Test
+    void readsAfterAWrite_StayOnThePrimaryForTheSamePrincipalOnOtherThreads() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("merchant", null, List.of()));
+        clock.addAndGet(10);
+        readYourWrites.recordWrite();
+
+        Connection[] otherThread = new Connection[1];
+        Thread thread = new Thread(() -> {
+            SecurityContextHolder.getContext().setAuthentication(
+                    UsernamePasswordAuthenticationToken.authenticated("merchant", null, List.of()));
+            try {
+                otherThread[0] = inTransaction(true);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertSame(primaryConnection, otherThread[0]);
+    }
+
+    @Test
+    void failingReplica_FallsBackToThePrimaryUntilACheckSucceeds() throws SQLException {
+        when(replicaDataSource.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+        assertSame(primaryConnection, inTransaction(true));
+
+        doReturn(replicaConnection).when(replicaDataSource).getConnection();
+        assertSame(primaryConnection, inTransaction(true));
+
+        readReplicas.recordLag(replica, 0, clock.get());
+        assertSame(replicaConnection, inTransaction(true));
+    }
+
+    @Test
+    void forgottenWrites_NoLongerPinThePrincipal() {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("merchant", null, List.of()));
+        readYourWrites.recordWrite();
+        assertEquals(1, readYourWrites.trackedPrincipals());
+
+        readYourWrites.forgetBefore(clock.get() + 1);
+
+        assertEquals(0, readYourWrites.trackedPrincipals());
+    }
+
+    private Connection inTransaction(boolean readOnly) throws SQLException {
+        TransactionRouting.begin(readOnly);
+        try {
+            return dataSource.getConnection();
+        } finally {
+            TransactionRouting.end();
+        }
+    }
+}
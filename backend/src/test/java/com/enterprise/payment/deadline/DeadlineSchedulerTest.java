@@ -0,0 +1,88 @@
+package com.enterprise.payment.deadline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineSchedulerTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(START);
+    private final Map<DeadlineType, List<List<Long>>> handled = new EnumMap<>(DeadlineType.class);
+    private final Map<DeadlineType, Map<Long, OffsetDateTime>> rows = new EnumMap<>(DeadlineType.class);
+    private DeadlineScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        rows.put(DeadlineType.PAYMENT_EXPIRY, Map.of(1L, at(10_000), 2L, at(10_500), 3L, at(-5_000)));
+        rows.put(DeadlineType.REFRESH_TOKEN_EXPIRY, Map.of(7L, at(10_000)));
+        rows.put(DeadlineType.API_KEY_EXPIRY, Map.of(9L, at(10_000)));
+        DeadlineStore store = (type, consumer) -> rows.get(type).forEach(consumer::accept);
+        List<DeadlineHandler> handlers = List.of(handler(DeadlineType.PAYMENT_EXPIRY),
+                handler(DeadlineType.REFRESH_TOKEN_EXPIRY));
+        scheduler = new DeadlineScheduler(store, handlers, Runnable::run, new DeadlineProperties(), now::get);
+    }
+
+    @Test
+    void rebuild_LoadsThePendingDeadlinesOfHandledTypes() {
+        assertEquals(4, scheduler.rebuild());
+        assertEquals(4, scheduler.pending());
+    }
+
+    @Test
+    void tick_DispatchesDueDeadlinesGroupedByType() {
+        scheduler.rebuild();
+
+        advanceTo(1_000);
+        assertEquals(Map.of(DeadlineType.PAYMENT_EXPIRY, List.of(List.of(3L))), handled);
+
+        handled.clear();
+        advanceTo(11_000);
+        assertEquals(List.of(List.of(1L, 2L)), sorted(handled.get(DeadlineType.PAYMENT_EXPIRY)));
+        assertEquals(List.of(List.of(7L)), handled.get(DeadlineType.REFRESH_TOKEN_EXPIRY));
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    void cancel_AndReschedule_ReplaceTheDeadline() {
+        scheduler.schedule(DeadlineType.PAYMENT_EXPIRY, 1L, at(5_000));
+        scheduler.schedule(DeadlineType.PAYMENT_EXPIRY, 2L, at(5_000));
+        scheduler.schedule(DeadlineType.PAYMENT_EXPIRY, 2L, at(20_000));
+        scheduler.cancel(DeadlineType.PAYMENT_EXPIRY, 1L);
+        scheduler.schedule(DeadlineType.API_KEY_EXPIRY, 9L, at(5_000));
+
+        assertEquals(1, scheduler.pending());
+        advanceTo(10_000);
+        assertTrue(handled.isEmpty());
+        advanceTo(20_000);
+        assertEquals(Map.of(DeadlineType.PAYMENT_EXPIRY, List.of(List.of(2L))), handled);
+    }
+
+    private void advanceTo(long offsetMillis) {
+        now.set(START + offsetMillis);
+        scheduler.tick();
+    }
+
+    private DeadlineHandler handler(DeadlineType type) {
+        return DeadlineHandler.of(type, ids -> handled.computeIfAbsent(type, t -> new ArrayList<>()).add(ids));
+    }
+
+    private static OffsetDateTime at(long offsetMillis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(START + offsetMillis), ZoneOffset.UTC);
+    }
+
+    private static List<List<Long>> sorted(List<List<Long>> batches) {
+        return batches.stream().map(ids -> ids.stream().sorted().toList()).toList();
+    }
+}
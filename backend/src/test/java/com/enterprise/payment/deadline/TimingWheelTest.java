@@ -0,0 +1,114 @@
+package com.enterprise.payment.deadline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(1000, START);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    void advance_FiresOnTheTickOfTheDeadlineAndNotBefore() {
+        wheel.schedule(START + 5_000, "a");
+        wheel.schedule(START + 5_500, "b");
+
+        wheel.advance(START + 4_999, fired::add);
+        assertEquals(List.of(), fired);
+
+        wheel.advance(START + 5_000, fired::add);
+        assertEquals(List.of("a"), fired);
+
+        wheel.advance(START + 6_000, fired::add);
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_FiresDeadlinesOnEveryLevelOnTime() {
+        long[] offsets = {1, 255, 256, 257, 65_535, 65_536, 65_537, 1_000_000, 16_777_216, 20_000_000};
+        for (long offset : offsets) {
+            wheel.schedule(START + offset * 1000, Long.toString(offset));
+        }
+        Map<String, Long> firedAt = new HashMap<>();
+        for (long second = 1; second <= 20_000_000; second++) {
+            long now = START + second * 1000;
+            wheel.advance(now, task -> firedAt.put(task, now));
+        }
+
+        for (long offset : offsets) {
+            assertEquals(START + offset * 1000, firedAt.get(Long.toString(offset)), "offset " + offset);
+        }
+    }
+
+    @Test
+    void advance_FiresRandomDeadlinesOnTheirTickWhenTimeJumps() {
+        Random random = new Random(42);
+        Map<String, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = START + (long) (random.nextDouble() * 3_000_000_000L);
+            deadlines.put("t" + i, deadline);
+            wheel.schedule(deadline, "t" + i);
+        }
+        long now = START;
+        while (wheel.size() > 0) {
+            long previous = now;
+            now += 1000 + random.nextInt(50_000_000);
+            long advancedTo = now;
+            wheel.advance(now, task -> {
+                long deadline = deadlines.get(task);
+                assertTrue(deadline > previous - 1000 && deadline <= advancedTo, task);
+                fired.add(task);
+            });
+        }
+
+        assertEquals(10_000, fired.size());
+    }
+
+    @Test
+    void cancel_UnlinksThePendingTimeout() {
+        TimingWheel.Timeout<String> cancelled = wheel.schedule(START + 70_000_000, "cancelled");
+        wheel.schedule(START + 70_000_000, "kept");
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertFalse(cancelled.isPending());
+        assertEquals(1, wheel.size());
+
+        wheel.advance(START + 70_000_000, fired::add);
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    void schedule_FiresPassedDeadlineOnTheNextTick() {
+        wheel.schedule(START - 60_000, "late");
+
+        wheel.advance(START + 999, fired::add);
+        assertEquals(List.of(), fired);
+        wheel.advance(START + 1000, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void advance_LetsTheCallbackScheduleAgain() {
+        TimingWheel.Timeout<String> timeout = wheel.schedule(START + 1000, "repeat");
+
+        wheel.advance(START + 2000, task -> {
+            fired.add(task);
+            wheel.schedule(START - 1, task);
+        });
+
+        assertFalse(timeout.isPending());
+        assertEquals(List.of("repeat", "repeat"), fired);
+        assertEquals(1, wheel.size());
+    }
+}
@@ -0,0 +1,136 @@
+package com.enterprise.payment.export;
+
+import com.enterprise.payment.entity.Account;
+import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.AuditLogRepository;
+import com.enterprise.payment.repository.PaymentRepository;
+import com.enterprise.payment.repository.TransactionRepository;
+import com.enterprise.payment.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Who may export what; the exports themselves are covered by {@link ExportServiceTest}
+ */
+@ExtendWith(MockitoExtension.class)
+class ExportAccessTest {
+
+    private static final OffsetDateTime FROM = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime TO = FROM.plusMonths(1);
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AuditLogRepository auditLogRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService(paymentRepository, transactionRepository, auditLogRepository,
+                accountRepository, userRepository, entityManager, transactionManager, new ObjectMapper());
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void paymentExport_MerchantCannotExportAnotherAccount() {
+        authenticate("merchant", "ROLE_MERCHANT");
+        when(accountRepository.findByAccountNumber("ACC000002")).thenReturn(Optional.of(account(2L)));
+        when(userRepository.existsByUsernameAndAccountId("merchant", 2L)).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class,
+                () -> exportService.paymentExport("ACC000002", FROM, TO, null, ExportFormat.CSV));
+
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void paymentExport_MerchantCannotExportEveryAccount() {
+        authenticate("merchant", "ROLE_MERCHANT");
+
+        assertThrows(AccessDeniedException.class,
+                () -> exportService.paymentExport(null, FROM, TO, null, ExportFormat.CSV));
+
+        verifyNoInteractions(accountRepository, paymentRepository);
+    }
+
+    @Test
+    void paymentExport_MerchantExportsItsOwnAccount() {
+        authenticate("merchant", "ROLE_MERCHANT");
+        when(accountRepository.findByAccountNumber("ACC000001")).thenReturn(Optional.of(account(1L)));
+        when(userRepository.existsByUsernameAndAccountId("merchant", 1L)).thenReturn(true);
+
+        assertNotNull(exportService.paymentExport("ACC000001", FROM, TO, null, ExportFormat.CSV));
+    }
+
+    @Test
+    void paymentExport_AdminExportsAnyAccount() {
+        authenticate("admin", "ROLE_ADMIN");
+        when(accountRepository.findByAccountNumber("ACC000002")).thenReturn(Optional.of(account(2L)));
+
+        assertNotNull(exportService.paymentExport("ACC000002", FROM, TO, null, ExportFormat.CSV));
+        assertNotNull(exportService.paymentExport(null, FROM, TO, null, ExportFormat.CSV));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void transactionExport_IsForAdministratorsOnly() {
+        authenticate("merchant", "ROLE_MERCHANT");
+
+        assertThrows(AccessDeniedException.class,
+                () -> exportService.transactionExport(FROM, TO, null, ExportFormat.NDJSON));
+
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private static void authenticate(String username, String authority) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null,
+                List.of(new SimpleGrantedAuthority(authority))));
+    }
+
+    private static Account account(Long id) {
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+}
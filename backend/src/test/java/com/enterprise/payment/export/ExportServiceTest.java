@@ -0,0 +1,123 @@
+package com.enterprise.payment.export;
+
+import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.pagination.Cursor;
+import com.enterprise.payment.repository.PostgresRepositoryTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports read from PostgreSQL with the Flyway schema, resumed part way; skipped without Docker
+ */
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ExportService.class)
+class ExportServiceTest extends PostgresRepositoryTest {
+
+    private static final int ROWS = 5_000;
+    private static final OffsetDateTime FROM = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime TO = FROM.plusMonths(1);
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        // Exports of every account are for administrators
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        Long accountId = jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE account_number = 'ACC000002'",
+                Long.class);
+        // Several rows share each timestamp
+        jdbcTemplate.update("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, status, metadata,
+                                      created_at)
+                SELECT 'PAY_EXPORT_' || n, ?, 10.00, 'USD', 'COMPLETED', '{"batch": "export"}',
+                       ? + (n / 3) * INTERVAL '1 second'
+                FROM generate_series(0, ?) n
+                """, accountId, FROM, ROWS - 1);
+        // Just outside the range on either side
+        jdbcTemplate.update("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, status, created_at)
+                SELECT 'PAY_OUTSIDE_' || n, ?, 10.00, 'USD', 'COMPLETED',
+                       CASE WHEN n % 2 = 0 THEN ? - INTERVAL '1 microsecond' ELSE ? END
+                FROM generate_series(1, 20) n
+                """, accountId, FROM, TO);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void paymentExport_StreamsTheRangeOldestFirst() throws IOException {
+        List<JsonNode> rows = export(null);
+
+        assertEquals(ROWS, rows.size());
+        assertEquals("PAY_EXPORT_0", rows.get(0).get("payment_reference").asText());
+        assertEquals("PAY_EXPORT_" + (ROWS - 1), rows.get(ROWS - 1).get("payment_reference").asText());
+        assertEquals("ACC000002", rows.get(0).get("account_number").asText());
+        assertEquals("export", rows.get(0).get("metadata").get("batch").asText());
+    }
+
+    @Test
+    void paymentExport_ResumesAfterTheLastRowReceived() throws IOException {
+        List<JsonNode> all = export(null);
+        String cursor = all.get(1_999).get("cursor").asText();
+
+        List<JsonNode> resumed = export(cursor);
+
+        assertEquals(ROWS - 2_000, resumed.size());
+        assertEquals(all.get(2_000).get("id").asLong(), resumed.get(0).get("id").asLong());
+        assertEquals(all.get(ROWS - 1).get("id").asLong(), resumed.get(resumed.size() - 1).get("id").asLong());
+    }
+
+    @Test
+    void paymentExport_RejectsACursorOutsideTheRange() {
+        String cursor = new Cursor(FROM.minusDays(1), 1L).encode();
+
+        assertThrows(ValidationException.class,
+                () -> exportService.paymentExport(null, FROM, TO, cursor, ExportFormat.NDJSON));
+        assertThrows(ValidationException.class,
+                () -> exportService.paymentExport(null, TO, FROM, null, ExportFormat.NDJSON));
+    }
+
+    private List<JsonNode> export(String cursor) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.paymentExport("ACC000002", FROM, TO, cursor, ExportFormat.NDJSON).writeTo(out);
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                rows.add(objectMapper.readTree(line));
+            }
+        }
+        return rows;
+    }
+}
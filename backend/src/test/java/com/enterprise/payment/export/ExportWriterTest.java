@@ -0,0 +1,108 @@
+package com.enterprise.payment.export;
+
+import com.enterprise.payment.entity.Account;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.pagination.Cursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportWriterTest {
+
+    private static final OffsetDateTime CREATED_AT = OffsetDateTime.of(2024, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void csv_WritesAHeaderAndQuotesOnlyWhatNeedsIt() throws IOException {
+        String csv = export(ExportFormat.CSV, payment(1L, "Order 1, \"gift\"", Map.of("channel", "web")));
+
+        String[] lines = csv.split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,payment_reference,account_number,amount,currency_code,status,"));
+        assertTrue(lines[0].endsWith(",metadata,cursor"));
+        assertTrue(lines[1].startsWith("1,PAY_1,ACC000001,149.90,USD,COMPLETED,\"Order 1, \"\"gift\"\"\","));
+        assertTrue(lines[1].contains(",\"{\"\"channel\"\":\"\"web\"\"}\","));
+        assertTrue(lines[1].endsWith("," + new Cursor(CREATED_AT, 1L).encode()));
+    }
+
+    @Test
+    void csv_DefusesSpreadsheetFormulas() throws IOException {
+        String csv = export(ExportFormat.CSV, payment(1L, "=HYPERLINK(\"http://evil\")", null));
+
+        assertTrue(csv.contains(",\"'=HYPERLINK(\"\"http://evil\"\")\","));
+    }
+
+    @Test
+    void ndjson_WritesOneObjectPerLine() throws IOException {
+        String ndjson = export(ExportFormat.NDJSON, payment(1L, "Line\nbreak", Map.of("channel", "web")),
+                payment(2L, null, null));
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("PAY_1", first.get("payment_reference").asText());
+        assertEquals("Line\nbreak", first.get("description").asText());
+        assertEquals(149.90, first.get("amount").asDouble());
+        assertEquals("web", first.get("metadata").get("channel").asText());
+        assertEquals(new Cursor(CREATED_AT, 1L), Cursor.decode(first.get("cursor").asText()));
+        assertTrue(objectMapper.readTree(lines[1]).get("description").isNull());
+    }
+
+    @Test
+    void copy_ClearsThePersistenceContextEveryInterval() throws IOException {
+        AtomicInteger clears = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter<Payment> writer = ExportWriter.create(ExportFormat.CSV, ExportService.PAYMENT_COLUMNS, out,
+                objectMapper);
+
+        long rows = ExportService.copy(LongStream.rangeClosed(1, 2500).mapToObj(id -> payment(id, null, null)),
+                writer, payment -> new Cursor(payment.getCreatedAt(), payment.getId()), clears::incrementAndGet);
+
+        assertEquals(2500, rows);
+        assertEquals(2500 / ExportService.CLEAR_INTERVAL, clears.get());
+        assertEquals(2501, out.toString(StandardCharsets.UTF_8).split("\r\n").length);
+    }
+
+    private String export(ExportFormat format, Payment... payments) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter<Payment> writer = ExportWriter.create(format, ExportService.PAYMENT_COLUMNS, out, objectMapper);
+        ExportService.copy(Stream.of(payments), writer, payment -> new Cursor(payment.getCreatedAt(), payment.getId()),
+                () -> { });
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Payment payment(long id, String description, Map<String, Object> metadata) {
+        Account account = new Account();
+        account.setAccountNumber("ACC000001");
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setPaymentReference("PAY_" + id);
+        payment.setAccount(account);
+        payment.setAmount(new BigDecimal("149.90"));
+        payment.setCurrencyCode("USD");
+        payment.setStatus(Payment.PaymentStatus.COMPLETED);
+        payment.setDescription(description);
+        payment.setMetadata(metadata);
+        payment.setCreatedAt(CREATED_AT);
+        payment.setUpdatedAt(CREATED_AT);
+        return payment;
+    }
+}
@@ -0,0 +1,395 @@
+package com.enterprise.payment.gateway;
+
+import com.enterprise.payment.exception.GatewayUnavailableException;
+import com.enterprise.payment.exception.PaymentProcessingException;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayRouterTest {
+
+    private ExecutorService executor;
+    private MeterRegistry registry;
+    private GatewayRouter router;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (router != null) {
+            router.destroy();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void submit_PrefersConnectorWithLowestRecentP95() {
+        FakeConnector slow = new FakeConnector("primary", Duration.ofMillis(60));
+        FakeConnector fast = new FakeConnector("secondary", Duration.ofMillis(5));
+        router = router(routing(GatewayProperties.Strategy.LOWEST_P95, false), slow, fast);
+
+        // No samples yet: configuration order
+        assertEquals("primary", router.submit(payment()).connector());
+        // primary now has a p95, secondary still none
+        assertEquals("secondary", router.submit(payment()).connector());
+        router.submit(payment());
+
+        assertEquals(List.of("secondary", "primary"), router.candidates(payment()));
+        assertEquals(1, slow.calls.get());
+        assertEquals(2, fast.calls.get());
+    }
+
+    @Test
+    void submit_DoesNotRankAFastFailingConnectorFirst() throws InterruptedException {
+        FakeConnector steady = new FakeConnector("primary", Duration.ofMillis(20));
+        steady.currencies = Set.of("USD");
+        FakeConnector flaky = new FakeConnector("secondary", Duration.ofMillis(40));
+        router = router(routing(GatewayProperties.Strategy.LOWEST_P95, false), steady, flaky);
+        router.submit(payment());
+        router.submit(payment());
+        assertEquals(List.of("primary", "secondary"), router.candidates(payment()));
+
+        // secondary now errors at once; only it takes EUR
+        flaky.latency = Duration.ZERO;
+        flaky.failure = new GatewayUnavailableException("503");
+        GatewayRequest euro = new GatewayRequest(GatewayRequest.Operation.PAYMENT, "PAY_2", new BigDecimal("10.00"),
+                "EUR", "PAY_2");
+        for (int i = 0; i < 40; i++) {
+            assertThrows(PaymentProcessingException.class, () -> router.submit(euro));
+        }
+        // Past the latency window's snapshot interval
+        Thread.sleep(150);
+
+        assertEquals(List.of("primary", "secondary"), router.candidates(payment()));
+    }
+
+    @Test
+    void submit_PriorityStrategyKeepsConfigurationOrder() {
+        FakeConnector slow = new FakeConnector("primary", Duration.ofMillis(30));
+        FakeConnector fast = new FakeConnector("secondary", Duration.ZERO);
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, false), slow, fast);
+
+        router.submit(payment());
+        router.submit(payment());
+
+        assertEquals(List.of("primary", "secondary"), router.candidates(payment()));
+        assertEquals(0, fast.calls.get());
+    }
+
+    @Test
+    void submit_HedgesSlowPrimaryAndVoidsLosingApproval() throws InterruptedException {
+        FakeConnector slow = new FakeConnector("primary", Duration.ofMillis(300));
+        FakeConnector fast = new FakeConnector("secondary", Duration.ofMillis(5));
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, true), slow, fast);
+
+        GatewayResponse response = router.submit(payment());
+
+        assertEquals("secondary", response.connector());
+        assertTrue(slow.voided.await(2, TimeUnit.SECONDS), "losing approval should be voided");
+        assertEquals(1, fast.voided.getCount(), "winning approval must not be voided");
+        assertEquals(1.0, registry.get("payment.gateway.hedged").tag("connector", "secondary").counter().count());
+    }
+
+    @Test
+    void submit_VoidsTheLateApprovalOfATimedOutPrimary() throws InterruptedException {
+        FakeConnector slow = new FakeConnector("primary", Duration.ofMillis(400));
+        FakeConnector backup = new FakeConnector("secondary", Duration.ofMillis(60));
+        GatewayProperties.Routing routing = routing(GatewayProperties.Strategy.PRIORITY, true);
+        // The backup goes out at 90 ms and answers after the primary timed out at 100 ms
+        routing.getHedging().setMinDelay(Duration.ofMillis(90));
+        router = router(routing, Duration.ofMillis(100), slow, backup);
+
+        GatewayResponse response = router.submit(payment());
+
+        assertEquals("secondary", response.connector());
+        assertTrue(slow.voided.await(2, TimeUnit.SECONDS), "late approval of the timed out primary should be voided");
+        assertEquals(1, backup.voided.getCount(), "winning approval must not be voided");
+    }
+
+    @Test
+    void submit_LooksUpAndVoidsAPrimaryThatFailedAmbiguously() throws InterruptedException {
+        FakeConnector broken = new FakeConnector("primary", Duration.ofMillis(50));
+        broken.executeFailure = new PaymentProcessingException("Connection reset");
+        broken.recorded = GatewayResponse.approved("primary", "PRIMARY_1");
+        FakeConnector backup = new FakeConnector("secondary", Duration.ofMillis(100));
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, true), broken, backup);
+
+        GatewayResponse response = router.submit(payment());
+
+        assertEquals("secondary", response.connector());
+        assertTrue(broken.voided.await(2, TimeUnit.SECONDS), "approval recorded by the primary should be voided");
+    }
+
+    @Test
+    void submit_LeavesAnAmbiguousPrimaryAloneWhenNoCallWins() throws InterruptedException {
+        FakeConnector broken = new FakeConnector("primary", Duration.ofMillis(50));
+        broken.executeFailure = new PaymentProcessingException("Connection reset");
+        broken.recorded = GatewayResponse.approved("primary", "PRIMARY_1");
+        FakeConnector alsoBroken = new FakeConnector("secondary", Duration.ofMillis(100));
+        alsoBroken.executeFailure = new PaymentProcessingException("Connection reset");
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, true), broken, alsoBroken);
+
+        assertThrows(PaymentProcessingException.class, () -> router.submit(payment()));
+
+        // Settled from the gateways' records instead
+        assertFalse(broken.voided.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void submit_NeverHedgesRefunds() {
+        FakeConnector slow = new FakeConnector("primary", Duration.ofMillis(100));
+        FakeConnector fast = new FakeConnector("secondary", Duration.ZERO);
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, true), slow, fast);
+
+        GatewayResponse response = router.submit(new GatewayRequest(GatewayRequest.Operation.REFUND,
+                "PAY_1", new BigDecimal("10.00"), "USD", "PAY_1:refund:10.00"));
+
+        assertEquals("primary", response.connector());
+        assertEquals(0, fast.calls.get());
+    }
+
+    @Test
+    void submit_FailsOverWhenGatewayUnavailable() {
+        FakeConnector down = new FakeConnector("primary", Duration.ZERO);
+        down.failure = new GatewayUnavailableException("503");
+        FakeConnector up = new FakeConnector("secondary", Duration.ZERO);
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, false), down, up);
+
+        assertEquals("secondary", router.submit(payment()).connector());
+    }
+
+    @Test
+    void submit_DoesNotFailOverAmbiguousFailures() {
+        FakeConnector broken = new FakeConnector("primary", Duration.ZERO);
+        broken.failure = new PaymentProcessingException("Connection reset");
+        FakeConnector up = new FakeConnector("secondary", Duration.ZERO);
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, false), broken, up);
+
+        PaymentProcessingException thrown = assertThrows(PaymentProcessingException.class,
+                () -> router.submit(payment()));
+
+        assertEquals("Connection reset", thrown.getMessage());
+        assertEquals(0, up.calls.get());
+    }
+
+    @Test
+    void submit_SkipsConnectorsNotSupportingCurrency() {
+        FakeConnector euroOnly = new FakeConnector("primary", Duration.ZERO);
+        euroOnly.currencies = Set.of("EUR");
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, false), euroOnly);
+
+        assertThrows(GatewayUnavailableException.class, () -> router.submit(payment()));
+    }
+
+    @Test
+    void submitBatch_UsesPreferredConnectorAndKeepsOrder() {
+        FakeConnector primary = new FakeConnector("primary", Duration.ZERO);
+        FakeConnector secondary = new FakeConnector("secondary", Duration.ZERO);
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, true), primary, secondary);
+
+        List<GatewayResponse> responses = router.submitBatch("secondary", List.of(payment(), payment(), payment()));
+
+        assertEquals(3, responses.size());
+        assertTrue(responses.stream().allMatch(response -> "secondary".equals(response.connector())));
+        assertEquals(List.of("SECONDARY_1", "SECONDARY_2", "SECONDARY_3"),
+                responses.stream().map(GatewayResponse::gatewayReference).toList());
+        assertEquals(0, primary.calls.get());
+    }
+
+    @Test
+    void submitBatch_FailsOverWholeBatchWhenGatewayUnavailable() {
+        FakeConnector down = new FakeConnector("primary", Duration.ZERO) {
+            @Override
+            public List<GatewayResponse> executeBatch(List<GatewayRequest> requests) {
+                throw new GatewayUnavailableException("503");
+            }
+        };
+        FakeConnector up = new FakeConnector("secondary", Duration.ZERO);
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, false), down, up);
+
+        List<GatewayResponse> responses = router.submitBatch("primary", List.of(payment(), payment()));
+
+        assertEquals(List.of("secondary", "secondary"), responses.stream().map(GatewayResponse::connector).toList());
+    }
+
+    @Test
+    void executeBatch_DefaultDeclinesOnlyItemsTheGatewayDidNotTake() {
+        FakeConnector flaky = new FakeConnector("primary", Duration.ZERO) {
+            @Override
+            public GatewayResponse execute(GatewayRequest request) {
+                if ("PAY_2".equals(request.paymentReference())) {
+                    throw new GatewayUnavailableException("503");
+                }
+                return super.execute(request);
+            }
+        };
+
+        List<GatewayResponse> responses = flaky.executeBatch(List.of(payment(),
+                new GatewayRequest(GatewayRequest.Operation.PAYMENT, "PAY_2", BigDecimal.TEN, "USD", "PAY_2")));
+
+        assertTrue(responses.get(0).approved());
+        assertFalse(responses.get(1).approved());
+        assertEquals("gateway_unavailable", responses.get(1).declineReason());
+    }
+
+    @Test
+    void submitBatch_LeavesAnItemThatTimedOutUnsettled() {
+        FakeConnector primary = new FakeConnector("primary", Duration.ZERO) {
+            @Override
+            public GatewayResponse execute(GatewayRequest request) {
+                if ("PAY_2".equals(request.paymentReference())) {
+                    throw new PaymentProcessingException("Read timed out", new SocketTimeoutException());
+                }
+                return super.execute(request);
+            }
+        };
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, false), primary);
+
+        List<GatewayResponse> responses = router.submitBatch("primary", List.of(payment(),
+                new GatewayRequest(GatewayRequest.Operation.PAYMENT, "PAY_2", BigDecimal.TEN, "USD", "PAY_2"),
+                payment()));
+
+        assertEquals(3, responses.size());
+        assertTrue(responses.get(0).approved());
+        assertNull(responses.get(1));
+        assertTrue(responses.get(2).approved());
+    }
+
+    @Test
+    void lookup_PrefersAnApprovalRecordedByAnyCandidate() {
+        FakeConnector primary = new FakeConnector("primary", Duration.ZERO);
+        primary.recorded = GatewayResponse.declined("primary", "do_not_honor");
+        FakeConnector secondary = new FakeConnector("secondary", Duration.ZERO);
+        secondary.recorded = GatewayResponse.approved("secondary", "SECONDARY_9");
+        FakeConnector unaware = new FakeConnector("tertiary", Duration.ZERO);
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, false), primary, secondary, unaware);
+
+        assertEquals("SECONDARY_9", router.lookup(payment()).gatewayReference());
+
+        secondary.recorded = null;
+        assertEquals("do_not_honor", router.lookup(payment()).declineReason());
+
+        primary.recorded = null;
+        assertNull(router.lookup(payment()));
+    }
+
+    @Test
+    void lookup_FailsWhenACandidateCannotBeAsked() {
+        FakeConnector primary = new FakeConnector("primary", Duration.ZERO);
+        FakeConnector down = new FakeConnector("secondary", Duration.ZERO);
+        down.failure = new GatewayUnavailableException("503");
+        router = router(routing(GatewayProperties.Strategy.PRIORITY, false), primary, down);
+
+        assertThrows(GatewayUnavailableException.class, () -> router.lookup(payment()));
+    }
+
+    private GatewayRouter router(GatewayProperties.Routing routing, GatewayConnector... connectors) {
+        return new GatewayRouter(List.of(connectors), routing, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults(), executor, new PaymentMetrics(registry));
+    }
+
+    private GatewayRouter router(GatewayProperties.Routing routing, Duration timeout, GatewayConnector... connectors) {
+        return new GatewayRouter(List.of(connectors), routing, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(timeout).build()), executor,
+                new PaymentMetrics(registry));
+    }
+
+    private static GatewayProperties.Routing routing(GatewayProperties.Strategy strategy, boolean hedging) {
+        GatewayProperties.Routing routing = new GatewayProperties.Routing();
+        routing.setStrategy(strategy);
+        routing.getHedging().setEnabled(hedging);
+        routing.getHedging().setMinDelay(Duration.ofMillis(20));
+        return routing;
+    }
+
+    private static GatewayRequest payment() {
+        return new GatewayRequest(GatewayRequest.Operation.PAYMENT, "PAY_1", new BigDecimal("10.00"), "USD", "PAY_1");
+    }
+
+    private static class FakeConnector implements GatewayConnector {
+
+        private final String name;
+        private volatile Duration latency;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch voided = new CountDownLatch(1);
+        private volatile RuntimeException failure;
+        private volatile RuntimeException executeFailure;
+        private volatile Set<String> currencies = Set.of();
+        private volatile GatewayResponse recorded;
+
+        FakeConnector(String name, Duration latency) {
+            this.name = name;
+            this.latency = latency;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean supports(GatewayRequest request) {
+            return currencies.isEmpty() || currencies.contains(request.currencyCode());
+        }
+
+        @Override
+        public GatewayResponse execute(GatewayRequest request) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (executeFailure != null) {
+                throw executeFailure;
+            }
+            return GatewayResponse.approved(name, name.toUpperCase() + "_" + calls.get());
+        }
+
+        @Override
+        public boolean supportsLookup() {
+            return true;
+        }
+
+        @Override
+        public GatewayResponse lookup(GatewayRequest request) {
+            if (failure != null) {
+                throw failure;
+            }
+            return recorded;
+        }
+
+        @Override
+        public void voidAuthorization(GatewayRequest request, GatewayResponse response) {
+            voided.countDown();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.enterprise.payment.gateway;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatcherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final List<String> flushes = Collections.synchronizedList(new ArrayList<>());
+    private MicroBatcher<String, Integer> batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void offer_FlushesFullBatchImmediately() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        batcher = new MicroBatcher<>(3, Duration.ofMinutes(1), 100, executor, (key, items) -> {
+            flushes.add(key + items);
+            flushed.countDown();
+        });
+
+        batcher.offer("USD", 1);
+        batcher.offer("USD", 2);
+        batcher.offer("USD", 3);
+
+        assertTrue(flushed.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("USD[1, 2, 3]"), flushes);
+    }
+
+    @Test
+    void offer_FlushesPartialBatchAfterLinger() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        batcher = new MicroBatcher<>(100, Duration.ofMillis(30), 100, executor, (key, items) -> {
+            flushes.add(key + items);
+            flushed.countDown();
+        });
+
+        long start = System.nanoTime();
+        batcher.offer("USD", 1);
+        batcher.offer("USD", 2);
+
+        assertTrue(flushed.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertEquals(List.of("USD[1, 2]"), flushes);
+    }
+
+    @Test
+    void offer_KeepsKeysInSeparateBatches() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(2);
+        batcher = new MicroBatcher<>(2, Duration.ofMinutes(1), 100, executor, (key, items) -> {
+            flushes.add(key + items);
+            flushed.countDown();
+        });
+
+        batcher.offer("USD", 1);
+        batcher.offer("EUR", 2);
+        batcher.offer("EUR", 3);
+        batcher.offer("USD", 4);
+
+        assertTrue(flushed.await(1, TimeUnit.SECONDS));
+        assertTrue(flushes.containsAll(List.of("USD[1, 4]", "EUR[2, 3]")));
+    }
+
+    @Test
+    void offer_RefusesItemsBeyondMaxPending() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new MicroBatcher<>(2, Duration.ofMinutes(1), 4, executor, (key, items) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(batcher.offer("USD", i));
+        }
+        assertFalse(batcher.offer("USD", 4));
+        assertEquals(4, batcher.pending());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (batcher.pending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(batcher.offer("USD", 5));
+    }
+
+    @Test
+    void close_FlushesQueuedItems() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        batcher = new MicroBatcher<>(100, Duration.ofMinutes(1), 100, executor, (key, items) -> {
+            flushes.add(key + items);
+            flushed.countDown();
+        });
+
+        batcher.offer("USD", 1);
+        batcher.close();
+
+        assertTrue(flushed.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("USD[1]"), flushes);
+        assertFalse(batcher.offer("USD", 2));
+    }
+}
@@ -0,0 +1,236 @@
+package com.enterprise.payment.idempotency;
+
+import com.enterprise.payment.dto.request.RefundPaymentRequest;
+import com.enterprise.payment.dto.response.PaymentResponse;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.exception.IdempotencyConflictException;
+import com.enterprise.payment.exception.IdempotencyKeyReusedException;
+import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private InMemoryStore store;
+    private IdempotencyProperties properties;
+    private IdempotencyService idempotencyService;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryStore();
+        properties = new IdempotencyProperties();
+        properties.setWaitTimeout(Duration.ofSeconds(5));
+        idempotencyService = newService(store);
+    }
+
+    @Test
+    void execute_WithoutKeyAlwaysRunsTheAction() {
+        idempotencyService.execute(null, "createPayment", request("10.00"), PaymentResponse.class, this::createPayment);
+        idempotencyService.execute(null, "createPayment", request("10.00"), PaymentResponse.class, this::createPayment);
+
+        assertEquals(2, executions.get());
+        assertTrue(store.records.isEmpty());
+    }
+
+    @Test
+    void execute_ReplaysTheStoredResponseToRetries() {
+        IdempotencyService.Result<PaymentResponse> first = idempotencyService.execute("key-1", "createPayment",
+                request("10.00"), PaymentResponse.class, this::createPayment);
+        IdempotencyService.Result<PaymentResponse> retry = idempotencyService.execute("key-1", "createPayment",
+                request("10.00"), PaymentResponse.class, this::createPayment);
+
+        assertEquals(1, executions.get());
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.value().getPaymentReference(), retry.value().getPaymentReference());
+        assertEquals(first.value().getStatus(), retry.value().getStatus());
+    }
+
+    @Test
+    void execute_ReplaysFromTheSharedStoreOnAnotherInstance() {
+        idempotencyService.execute("key-1", "createPayment", request("10.00"), PaymentResponse.class,
+                this::createPayment);
+
+        IdempotencyService.Result<PaymentResponse> retry = newService(store).execute("key-1", "createPayment",
+                request("10.00"), PaymentResponse.class, this::createPayment);
+
+        assertEquals(1, executions.get());
+        assertTrue(retry.replayed());
+    }
+
+    @Test
+    void execute_RejectsAKeyReusedForADifferentRequest() {
+        idempotencyService.execute("key-1", "createPayment", request("10.00"), PaymentResponse.class,
+                this::createPayment);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute("key-1",
+                "createPayment", request("11.00"), PaymentResponse.class, this::createPayment));
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute("key-1",
+                "refundPayment:PAY_1", request("10.00"), PaymentResponse.class, this::createPayment));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_RunsConcurrentDuplicatesOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<IdempotencyService.Result<PaymentResponse>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                IdempotencyService service = i % 2 == 0 ? idempotencyService : newService(store);
+                results.add(executor.submit(() -> service.execute("key-1", "createPayment", request("10.00"),
+                        PaymentResponse.class, () -> {
+                            await(release);
+                            return createPayment();
+                        })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            int replayed = 0;
+            for (Future<IdempotencyService.Result<PaymentResponse>> result : results) {
+                replayed += result.get(5, TimeUnit.SECONDS).replayed() ? 1 : 0;
+            }
+            assertEquals(1, executions.get());
+            assertEquals(7, replayed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_AnswersConflictWhenTheFirstRequestOutlastsTheWait() {
+        properties.setWaitTimeout(Duration.ofMillis(50));
+        IdempotencyService otherInstance = newService(store);
+        store.claim("9:anonymous:key-1", IdempotencyRecord.inProgress(
+                otherInstance.fingerprint("createPayment", request("10.00")), "other"), Duration.ofSeconds(30));
+
+        assertThrows(IdempotencyConflictException.class, () -> idempotencyService.execute("key-1",
+                "createPayment", request("10.00"), PaymentResponse.class, this::createPayment));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void execute_ReleasesTheKeyWhenTheActionFails() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-1", "createPayment",
+                request("10.00"), PaymentResponse.class, () -> {
+                    throw new IllegalStateException("Gateway down");
+                }));
+
+        IdempotencyService.Result<PaymentResponse> retry = idempotencyService.execute("key-1", "createPayment",
+                request("10.00"), PaymentResponse.class, this::createPayment);
+
+        assertFalse(retry.replayed());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_FallsBackToInProcessDeduplicationWhenTheStoreIsDown() {
+        store.available = false;
+
+        idempotencyService.execute("key-1", "createPayment", request("10.00"), PaymentResponse.class,
+                this::createPayment);
+        IdempotencyService.Result<PaymentResponse> retry = idempotencyService.execute("key-1", "createPayment",
+                request("10.00"), PaymentResponse.class, this::createPayment);
+
+        assertTrue(retry.replayed());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_RejectsMalformedKeys() {
+        assertThrows(ValidationException.class, () -> idempotencyService.execute("", "createPayment",
+                request("10.00"), PaymentResponse.class, this::createPayment));
+        assertThrows(ValidationException.class, () -> idempotencyService.execute("has space", "createPayment",
+                request("10.00"), PaymentResponse.class, this::createPayment));
+        assertThrows(ValidationException.class, () -> idempotencyService.execute("k".repeat(256),
+                "createPayment", request("10.00"), PaymentResponse.class, this::createPayment));
+    }
+
+    private IdempotencyService newService(IdempotencyStore store) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new IdempotencyService(store, properties, objectMapper, new PaymentMetrics(new SimpleMeterRegistry()));
+    }
+
+    private PaymentResponse createPayment() {
+        PaymentResponse response = new PaymentResponse();
+        response.setPaymentReference("PAY_" + executions.incrementAndGet());
+        response.setAmount(new BigDecimal("10.00"));
+        response.setStatus(Payment.PaymentStatus.PENDING);
+        return response;
+    }
+
+    private static RefundPaymentRequest request(String amount) {
+        RefundPaymentRequest request = new RefundPaymentRequest();
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stand-in for Redis with the same claim semantics (no expiry)
+     */
+    static class InMemoryStore implements IdempotencyStore {
+
+        final Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+        volatile boolean available = true;
+
+        @Override
+        public IdempotencyRecord claim(String key, IdempotencyRecord inProgress, Duration lockTimeout) {
+            checkAvailable();
+            return records.putIfAbsent(key, inProgress);
+        }
+
+        @Override
+        public IdempotencyRecord get(String key) {
+            checkAvailable();
+            return records.get(key);
+        }
+
+        @Override
+        public void complete(String key, IdempotencyRecord inProgress, IdempotencyRecord completed, Duration ttl) {
+            checkAvailable();
+            records.replace(key, inProgress, completed);
+        }
+
+        @Override
+        public void release(String key, IdempotencyRecord inProgress) {
+            checkAvailable();
+            records.remove(key, inProgress);
+        }
+
+        private void checkAvailable() {
+            if (!available) {
+                throw new QueryTimeoutException("Redis is down");
+            }
+        }
+    }
+}
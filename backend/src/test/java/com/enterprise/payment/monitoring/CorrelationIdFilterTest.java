@@ -0,0 +1,92 @@
+package com.enterprise.payment.monitoring;
+
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CorrelationIdFilterTest {
+
+    @Mock
+    private Tracer tracer;
+
+    private CorrelationIdFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("tracer", tracer);
+        filter = new CorrelationIdFilter(new PaymentTracing(beans.getBeanProvider(Tracer.class)));
+    }
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void doFilter_UsesTheCallersCorrelationIdAndEchoesIt() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CorrelationIdFilter.CORRELATION_ID_HEADER, "order-42.retry:1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String seen = filter(request, response);
+
+        assertEquals("order-42.retry:1", seen);
+        assertEquals("order-42.retry:1", response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER));
+        verify(tracer).createBaggageInScope(PaymentTracing.CORRELATION_ID_BAGGAGE, "order-42.retry:1");
+    }
+
+    @Test
+    void doFilter_GeneratesACorrelationIdWhenNoneIsSent() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String seen = filter(new MockHttpServletRequest(), response);
+
+        assertNotNull(UUID.fromString(seen));
+        assertEquals(seen, response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER));
+        verify(tracer).createBaggageInScope(PaymentTracing.CORRELATION_ID_BAGGAGE, seen);
+    }
+
+    @Test
+    void doFilter_ReplacesAMalformedCorrelationId() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CorrelationIdFilter.CORRELATION_ID_HEADER, "evil\r\nSet-Cookie: session=1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String seen = filter(request, response);
+
+        assertNotNull(UUID.fromString(seen));
+        assertEquals(seen, response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER));
+    }
+
+    @Test
+    void doFilter_RemovesTheCorrelationIdFromTheMdcAfterwards() throws Exception {
+        filter(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        assertNull(MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY));
+    }
+
+    /**
+     * Run the filter and return the correlation id the rest of the chain saw in the MDC
+     */
+    private String filter(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicReference<String> seen = new AtomicReference<>();
+        filter.doFilter(request, response, (req, res) -> seen.set(MDC.get(CorrelationIdFilter.CORRELATION_ID_MDC_KEY)));
+        return seen.get();
+    }
+}
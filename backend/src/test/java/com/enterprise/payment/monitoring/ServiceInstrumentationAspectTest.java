@@ -0,0 +1,281 @@
+package com.enterprise.payment.monitoring;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ServiceInstrumentationAspectTest {
+
+    private MeterRegistry registry;
+    private ServiceInstrumentationAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        aspect = new ServiceInstrumentationAspect(registry,
+                new PaymentTracing(new StaticListableBeanFactory().getBeanProvider(Tracer.class)));
+    }
+
+    @Test
+    void instrument_RecordsLatencyPerMethod() throws Throwable {
+        StubJoinPoint joinPoint = new StubJoinPoint(SampleService.class.getMethod("process", Long.class), null);
+
+        Object result = aspect.instrument(joinPoint);
+        aspect.instrument(joinPoint);
+
+        assertEquals("ok", result);
+        Timer timer = registry.get(ServiceInstrumentationAspect.TIMER_NAME)
+                .tag("class", "SampleService")
+                .tag("method", "process")
+                .timer();
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void instrument_CountsErrorsByExceptionType() throws Exception {
+        IllegalStateException failure = new IllegalStateException("boom");
+        StubJoinPoint joinPoint = new StubJoinPoint(SampleService.class.getMethod("process", Long.class), failure);
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> aspect.instrument(joinPoint));
+
+        assertSame(failure, thrown);
+        assertEquals(1.0, registry.get(ServiceInstrumentationAspect.ERROR_COUNTER_NAME)
+                .tag("method", "process")
+                .tag("exception", "IllegalStateException")
+                .counter()
+                .count());
+        assertEquals(1, registry.get(ServiceInstrumentationAspect.TIMER_NAME).timer().count());
+    }
+
+    @Test
+    void instrument_PublishesPercentilesOnlyForMethodsThatAskForThem() throws Throwable {
+        Map<String, Boolean> publishesHistogram = new HashMap<>();
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                publishesHistogram.put(id.getTag("method"), config.isPublishingHistogram());
+                return config;
+            }
+        });
+
+        aspect.instrument(new StubJoinPoint(SampleService.class.getMethod("process", Long.class), null));
+        aspect.instrument(new StubJoinPoint(SampleService.class.getMethod("settle", Long.class), null));
+
+        assertEquals(Map.of("process", false, "settle", true), publishesHistogram);
+    }
+
+    @Test
+    void pointcut_AdvisesOnlyInstrumentedMethods() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new PartlyInstrumentedService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        PartlyInstrumentedService proxy = factory.getProxy();
+
+        proxy.entryPoint();
+        proxy.helper();
+
+        assertEquals(1, registry.get(ServiceInstrumentationAspect.TIMER_NAME).timers().size());
+        assertEquals(1, timer("entryPoint").count());
+    }
+
+    @Test
+    void instrument_DoesNotAllocateWhenTracingDisabled() throws Throwable {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationTracking(threads);
+
+        StubJoinPoint joinPoint = new StubJoinPoint(SampleService.class.getMethod("process", Long.class), null);
+        for (int i = 0; i < 50_000; i++) {
+            aspect.instrument(joinPoint);
+        }
+
+        int iterations = 200_000;
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            aspect.instrument(joinPoint);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Allow for the measurement itself; the per-call cost must round to zero bytes
+        assertTrue(allocated / iterations == 0,
+                "Expected no per-call allocation but measured " + allocated + " bytes for " + iterations + " calls");
+    }
+
+    private static void assumeAllocationTracking(com.sun.management.ThreadMXBean threads) {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private Timer timer(String method) {
+        return registry.get(ServiceInstrumentationAspect.TIMER_NAME).tag("method", method).timer();
+    }
+
+    @Instrumented
+    static class SampleService {
+        public String process(Long id) {
+            return "ok";
+        }
+
+        @Instrumented(percentiles = true)
+        public String settle(Long id) {
+            return "ok";
+        }
+    }
+
+    static class PartlyInstrumentedService {
+        @Instrumented
+        public String entryPoint() {
+            return "ok";
+        }
+
+        public String helper() {
+            return "ok";
+        }
+    }
+
+    /**
+     * Minimal join point that returns a constant without allocating, so the test measures
+     * only what the aspect itself allocates
+     */
+    private static final class StubJoinPoint implements ProceedingJoinPoint, MethodSignature {
+
+        private static final Object[] ARGS = {42L};
+
+        private final Method method;
+        private final Throwable failure;
+
+        StubJoinPoint(Method method, Throwable failure) {
+            this.method = method;
+            this.failure = failure;
+        }
+
+        @Override
+        public Object proceed() throws Throwable {
+            if (failure != null) {
+                throw failure;
+            }
+            return "ok";
+        }
+
+        @Override
+        public Object proceed(Object[] args) throws Throwable {
+            return proceed();
+        }
+
+        @Override
+        public void set$AroundClosure(AroundClosure arc) {
+        }
+
+        @Override
+        public Signature getSignature() {
+            return this;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return ARGS;
+        }
+
+        @Override
+        public Class<?> getReturnType() {
+            return method.getReturnType();
+        }
+
+        @Override
+        public Class<?>[] getParameterTypes() {
+            return method.getParameterTypes();
+        }
+
+        @Override
+        public String[] getParameterNames() {
+            return new String[]{"id"};
+        }
+
+        @Override
+        public Class<?>[] getExceptionTypes() {
+            return method.getExceptionTypes();
+        }
+
+        @Override
+        public String getName() {
+            return method.getName();
+        }
+
+        @Override
+        public int getModifiers() {
+            return method.getModifiers();
+        }
+
+        @Override
+        public Class<?> getDeclaringType() {
+            return method.getDeclaringClass();
+        }
+
+        @Override
+        public String getDeclaringTypeName() {
+            return method.getDeclaringClass().getName();
+        }
+
+        @Override
+        public String toShortString() {
+            return method.getName();
+        }
+
+        @Override
+        public String toLongString() {
+            return method.toString();
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return ProceedingJoinPoint.METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+}
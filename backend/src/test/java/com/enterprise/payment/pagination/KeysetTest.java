@@ -0,0 +1,83 @@
+package com.enterprise.payment.pagination;
+
+import com.enterprise.payment.dto.response.CursorPage;
+import com.enterprise.payment.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetTest {
+
+    private static final OffsetDateTime CREATED_AT = OffsetDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000,
+            ZoneOffset.UTC);
+
+    @Test
+    void cursor_RoundTripsThroughItsToken() {
+        Cursor cursor = new Cursor(CREATED_AT, 987_654_321L);
+
+        Cursor decoded = Cursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertTrue(cursor.encode().matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void cursor_DecodesNullOrBlankAsTheFirstPage() {
+        assertNull(Cursor.decode(null));
+        assertNull(Cursor.decode(" "));
+    }
+
+    @Test
+    void cursor_RejectsTamperedTokens() {
+        String token = new Cursor(CREATED_AT, 1L).encode();
+
+        assertThrows(ValidationException.class, () -> Cursor.decode("not a cursor"));
+        assertThrows(ValidationException.class, () -> Cursor.decode(token.substring(1)));
+        assertThrows(ValidationException.class, () -> Cursor.decode("B" + token.substring(1)));
+    }
+
+    @Test
+    void page_TrimsTheExtraRowAndPointsAfterTheLastOne() {
+        List<Long> rows = LongStream.rangeClosed(1, 4).boxed().toList();
+
+        CursorPage<String> page = Keyset.page(rows, 3, id -> new Cursor(CREATED_AT, id), String::valueOf);
+
+        assertEquals(List.of("1", "2", "3"), page.getItems());
+        assertTrue(page.getHasMore());
+        assertEquals(new Cursor(CREATED_AT, 3L), Cursor.decode(page.getNextCursor()));
+        assertNull(page.getTotal());
+    }
+
+    @Test
+    void page_HasNoCursorOnTheLastPage() {
+        CursorPage<String> page = Keyset.page(List.of(1L, 2L, 3L), 3, id -> new Cursor(CREATED_AT, id),
+                String::valueOf);
+
+        assertEquals(3, page.getItems().size());
+        assertFalse(page.getHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void fetchLimit_AsksForOneMoreRowWithinBounds() {
+        assertEquals(21, Keyset.fetchLimit(20).max());
+        assertThrows(ValidationException.class, () -> Keyset.fetchLimit(0));
+        assertThrows(ValidationException.class, () -> Keyset.fetchLimit(Keyset.MAX_LIMIT + 1));
+    }
+
+    @Test
+    void withTotal_ReportsCappedCountsAsInexact() {
+        CursorPage<String> small = Keyset.withTotal(new CursorPage<>(), () -> 42);
+        CursorPage<String> large = Keyset.withTotal(new CursorPage<>(), () -> Keyset.COUNT_CAP + 1);
+
+        assertEquals(42, small.getTotal());
+        assertTrue(small.getTotalExact());
+        assertEquals(Keyset.COUNT_CAP, large.getTotal());
+        assertFalse(large.getTotalExact());
+    }
+}
@@ -0,0 +1,145 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.entity.Account;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.entity.PaymentMethod;
+import com.enterprise.payment.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements per listing and lookup that is mapped to a response: the associations the mapping
+ * reads come with the rows (fetch plans of the repositories), so a page costs one select, and
+ * one count for a {@code Page}, whatever its size. Counted with Hibernate statistics against the
+ * Flyway schema; skipped without Docker.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FetchPlanTest extends PostgresRepositoryTest {
+
+    private static final int ROWS = 20;
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    private Statistics statistics;
+    private Long accountId;
+    private Long paymentId;
+    private Long transactionId;
+
+    @BeforeEach
+    void setUp() {
+        // ROWS accounts with a card each; the first one has ROWS payments with a transaction each
+        jdbcTemplate.update("""
+                INSERT INTO accounts (account_number, account_name, email, created_by)
+                SELECT 'ACCFETCH' || n, 'Fetch Account ' || n, 'fetch' || n || '@example.com', 'test'
+                FROM generate_series(1, ?) n
+                """, ROWS);
+        jdbcTemplate.update("""
+                INSERT INTO payment_methods (account_id, type, provider, encrypted_details)
+                SELECT id, 'CREDIT_CARD'::payment_method_type, 'VISA', 'encrypted'
+                FROM accounts WHERE account_number LIKE 'ACCFETCH%'
+                """);
+        accountId = jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE account_number = 'ACCFETCH1'",
+                Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, status)
+                SELECT 'PAY_FETCH_' || n, ?, 10.00, 'USD', 'COMPLETED'::payment_status FROM generate_series(1, ?) n
+                """, accountId, ROWS);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (transaction_reference, payment_id, type, amount, status)
+                SELECT 'TXN_FETCH_' || p.id, p.id, 'PAYMENT'::transaction_type, p.amount, p.status
+                FROM payments p WHERE p.payment_reference LIKE 'PAY_FETCH_%'
+                """);
+        paymentId = jdbcTemplate.queryForObject("SELECT id FROM payments WHERE payment_reference = 'PAY_FETCH_1'",
+                Long.class);
+        transactionId = jdbcTemplate.queryForObject("SELECT id FROM transactions WHERE payment_id = ?",
+                Long.class, paymentId);
+
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void transactionPageOfAnAccount_IsOneSelectAndACount() {
+        Account account = entityManager.getReference(Account.class, accountId);
+
+        Page<Transaction> page = transactionRepository.findByPayment_AccountOrderByCreatedAtDesc(account, PAGE);
+        page.forEach(transaction -> assertNotNull(transaction.getPayment().getPaymentReference()));
+
+        assertEquals(PAGE.getPageSize(), page.getNumberOfElements());
+        assertStatements(2);
+    }
+
+    @Test
+    void transactionKeysetPages_AreOneSelect() {
+        List<Transaction> byAccount = transactionRepository.findKeysetByAccountId(accountId, Limit.of(ROWS));
+        byAccount.forEach(transaction -> assertNotNull(transaction.getPayment().getPaymentReference()));
+        assertEquals(ROWS, byAccount.size());
+        assertStatements(1);
+
+        entityManager.clear();
+        statistics.clear();
+        List<Transaction> byType = transactionRepository.findKeysetByType(Transaction.TransactionType.PAYMENT,
+                Limit.of(ROWS));
+        byType.forEach(transaction -> assertNotNull(transaction.getPayment().getPaymentReference()));
+        assertStatements(1);
+    }
+
+    @Test
+    void transactionById_IsOneSelect() {
+        Transaction transaction = transactionRepository.findWithPaymentById(transactionId).orElseThrow();
+
+        assertEquals("PAY_FETCH_1", transaction.getPayment().getPaymentReference());
+        assertStatements(1);
+    }
+
+    @Test
+    void paymentMethodPageByType_IsOneSelectAndACount() {
+        Page<PaymentMethod> page = paymentMethodRepository.findByTypeAndIsActiveOrderByCreatedAtDesc(
+                PaymentMethod.PaymentMethodType.CREDIT_CARD, true, PAGE);
+        page.forEach(paymentMethod -> assertNotNull(paymentMethod.getAccount().getAccountNumber()));
+
+        assertEquals(PAGE.getPageSize(), page.getNumberOfElements());
+        assertStatements(2);
+    }
+
+    @Test
+    void paymentToProcess_ComesWithItsAccountInOneSelect() {
+        Payment payment = paymentRepository.findWithAccountById(paymentId).orElseThrow();
+
+        assertNotNull(payment.getAccount().getBalance());
+        assertStatements(1);
+    }
+
+    private void assertStatements(long expected) {
+        assertEquals(expected, statistics.getPrepareStatementCount(),
+                () -> statistics.getPrepareStatementCount() + " statements: " + List.of(statistics.getQueries()));
+    }
+}
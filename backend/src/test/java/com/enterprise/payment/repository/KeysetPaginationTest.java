@@ -0,0 +1,140 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.pagination.Cursor;
+import com.enterprise.payment.pagination.Keyset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Page 10,000 of an account's payments, by OFFSET and by keyset. Seeds 10,000 pages of 20 rows
+ * into PostgreSQL with the Flyway schema and checks under EXPLAIN ANALYZE that the keyset page
+ * reads one short range of the account index while the OFFSET page reads every row before it;
+ * skipped without Docker. {@code KeysetPaginationBenchmark} times both.
+ */
+class KeysetPaginationTest extends PostgresRepositoryTest {
+
+    private static final int PAGE_SIZE = Keyset.DEFAULT_LIMIT;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int ROWS = PAGE_SIZE * DEEP_PAGE;
+    // The node under the plan's Limit, and how many rows it actually returned
+    private static final Pattern LIMITED_NODE = Pattern.compile("->  .*actual time=\\S+ rows=(\\d+)");
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setUp() {
+        accountId = jdbcTemplate.queryForObject("""
+                INSERT INTO accounts (account_number, account_name, email, created_by)
+                VALUES ('ACCKEYSET', 'Keyset Account', 'keyset@example.com', 'test') RETURNING id
+                """, Long.class);
+        // Several rows share each timestamp, so the id tie-breaker is exercised
+        jdbcTemplate.update("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, status, created_at)
+                SELECT 'PAY_KEYSET_' || n, ?, 10.00, 'USD', 'COMPLETED',
+                       TIMESTAMPTZ '2024-01-01 00:00:00+00' + (n / 4) * INTERVAL '1 second'
+                FROM generate_series(1, ?) n
+                """, accountId, ROWS);
+        jdbcTemplate.execute("ANALYZE payments");
+    }
+
+    @Test
+    void deepKeysetPage_ReadsOnlyItsOwnRowsFromTheIndex() {
+        Cursor cursor = cursorBefore(DEEP_PAGE);
+
+        // The SQL of findKeysetByAccountIdAfter
+        String plan = explain("""
+                SELECT * FROM payments WHERE account_id = %d
+                AND created_at <= '%s' AND (created_at < '%s' OR id < %d)
+                ORDER BY created_at DESC, id DESC LIMIT %d
+                """.formatted(accountId, cursor.createdAt(), cursor.createdAt(), cursor.id(),
+                Keyset.fetchLimit(PAGE_SIZE).max()));
+
+        assertTrue(plan.contains("Index Scan using idx_payments_account_created"), plan);
+        assertFalse(plan.contains("Sort"), plan);
+        assertTrue(rowsUnderLimit(plan) <= Keyset.fetchLimit(PAGE_SIZE).max(), plan);
+    }
+
+    @Test
+    void deepOffsetPage_ReadsEveryRowBeforeIt() {
+        // The SQL of findByAccountIdOrderByCreatedAtDesc
+        String plan = explain("""
+                SELECT * FROM payments WHERE account_id = %d
+                ORDER BY created_at DESC OFFSET %d LIMIT %d
+                """.formatted(accountId, (DEEP_PAGE - 1) * PAGE_SIZE, PAGE_SIZE));
+
+        assertTrue(rowsUnderLimit(plan) >= DEEP_PAGE * PAGE_SIZE, plan);
+    }
+
+    @Test
+    void keysetPages_WalkEveryRowOnceAcrossTimestampTies() {
+        Set<Long> seen = new HashSet<>();
+        Cursor cursor = cursorBefore(DEEP_PAGE - 50);
+        for (int page = 0; page < 50; page++) {
+            List<Payment> rows = keysetPage(cursor);
+            rows.forEach(payment -> assertTrue(seen.add(payment.getId())));
+            Payment last = rows.get(rows.size() - 1);
+            cursor = new Cursor(last.getCreatedAt(), last.getId());
+        }
+
+        assertEquals(50 * PAGE_SIZE, seen.size());
+        assertTrue(keysetPage(cursor).isEmpty());
+    }
+
+    @Test
+    void cappedCount_StopsAtTheCap() {
+        assertEquals(Keyset.COUNT_CAP + 1,
+                paymentRepository.countByAccountIdUpTo(accountId, Keyset.COUNT_CAP + 1));
+    }
+
+    private List<Payment> keysetPage(Cursor cursor) {
+        List<Payment> rows = cursor == null
+                ? paymentRepository.findKeysetByAccountId(accountId, Keyset.fetchLimit(PAGE_SIZE))
+                : paymentRepository.findKeysetByAccountIdAfter(accountId, cursor.createdAt(), cursor.id(),
+                        Keyset.fetchLimit(PAGE_SIZE));
+        return rows.subList(0, Math.min(PAGE_SIZE, rows.size()));
+    }
+
+    /**
+     * The cursor a client holds after reading every page before {@code page}
+     */
+    private Cursor cursorBefore(int page) {
+        return jdbcTemplate.queryForObject("""
+                SELECT created_at, id FROM payments WHERE account_id = ?
+                ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1
+                """, (rs, rowNum) -> new Cursor(rs.getObject("created_at", OffsetDateTime.class), rs.getLong("id")),
+                accountId, (page - 1) * PAGE_SIZE - 1);
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (ANALYZE, BUFFERS) " + sql, String.class));
+    }
+
+    /**
+     * Rows fed to the plan's Limit, i.e. read to produce the page, whether from an index scan
+     * or a sort
+     */
+    private static long rowsUnderLimit(String plan) {
+        assertTrue(plan.startsWith("Limit"), plan);
+        Matcher node = LIMITED_NODE.matcher(plan);
+        assertTrue(node.find(), plan);
+        return Long.parseLong(node.group(1));
+    }
+}
@@ -0,0 +1,112 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.repository.PaymentBatchRepository.ExpiredPayment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The expiry statements cancel exactly the expired PENDING payments, in batches that continue
+ * after the previous one or by id, with their history and audit entries; against the Flyway
+ * schema, skipped without Docker.
+ */
+@Import(PaymentBatchRepository.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class PaymentExpiryTest extends PostgresRepositoryTest {
+
+    private static final OffsetDateTime CUTOFF = OffsetDateTime.parse("2024-02-01T00:00:00Z");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentBatchRepository paymentBatchRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                INSERT INTO accounts (account_number, account_name, email, created_by)
+                VALUES ('ACCEXPIRY1', 'Expiry Account', 'expiry@example.com', 'test')
+                """);
+        // 10 expired PENDING payments, two per expiry time; one expired COMPLETED, one PENDING
+        // expiring after the cutoff
+        jdbcTemplate.update("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, status, expires_at)
+                SELECT 'PAY_EXPIRED_' || n, a.id, 5.00, 'USD', 'PENDING'::payment_status,
+                       timestamptz '2024-01-01 00:00:00+00' + ((n + 1) / 2) * interval '1 hour'
+                FROM accounts a, generate_series(1, 10) n WHERE a.account_number = 'ACCEXPIRY1'
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, status, expires_at)
+                SELECT ref, a.id, 5.00, 'USD', status::payment_status, expires_at
+                FROM accounts a, (VALUES ('PAY_EXPIRY_DONE', 'COMPLETED', timestamptz '2024-01-01 00:00:00+00'),
+                                         ('PAY_EXPIRY_LATER', 'PENDING', timestamptz '2024-03-01 00:00:00+00'))
+                                 AS p(ref, status, expires_at)
+                WHERE a.account_number = 'ACCEXPIRY1'
+                """);
+    }
+
+    @Test
+    void expirePending_CancelsExpiredPendingPaymentsBatchAfterBatch() {
+        List<ExpiredPayment> first = paymentBatchRepository.expirePending(CUTOFF, null, 3, "system", "corr-1");
+        List<ExpiredPayment> second = paymentBatchRepository.expirePending(CUTOFF, first.get(2), 3, "system",
+                "corr-1");
+        List<ExpiredPayment> rest = paymentBatchRepository.expirePending(CUTOFF, second.get(2), 10, "system",
+                "corr-1");
+
+        assertEquals(List.of("PAY_EXPIRED_1", "PAY_EXPIRED_2", "PAY_EXPIRED_3"), references(first));
+        assertEquals(List.of("PAY_EXPIRED_4", "PAY_EXPIRED_5", "PAY_EXPIRED_6"), references(second));
+        assertEquals(4, rest.size());
+        assertTrue(paymentBatchRepository.expirePending(CUTOFF, null, 10, "system", "corr-1").isEmpty());
+
+        assertEquals(10, count("SELECT COUNT(*) FROM payments WHERE payment_reference LIKE 'PAY_EXPIRED_%' "
+                + "AND status = 'CANCELLED'"));
+        assertEquals("COMPLETED", status("PAY_EXPIRY_DONE"));
+        assertEquals("PENDING", status("PAY_EXPIRY_LATER"));
+        assertEquals(10, count("""
+                SELECT COUNT(*) FROM payment_status_history h JOIN payments p ON p.id = h.payment_id
+                WHERE p.payment_reference LIKE 'PAY_EXPIRED_%' AND h.from_status = 'PENDING'
+                  AND h.to_status = 'CANCELLED' AND h.reason = 'Payment expired'
+                """));
+        assertEquals(10, count("SELECT COUNT(*) FROM audit_logs WHERE action = 'PAYMENT_EXPIRED' "
+                + "AND correlation_id = 'corr-1'"));
+    }
+
+    @Test
+    void expireDue_CancelsOnlyTheGivenPaymentsPastTheirExpiry() {
+        List<Long> ids = jdbcTemplate.queryForList("""
+                SELECT id FROM payments
+                WHERE payment_reference IN ('PAY_EXPIRED_1', 'PAY_EXPIRY_DONE', 'PAY_EXPIRY_LATER')
+                """, Long.class);
+
+        List<ExpiredPayment> expired = paymentBatchRepository.expireDue(ids, "system", "corr-2");
+
+        assertEquals(List.of("PAY_EXPIRED_1"), references(expired));
+        assertEquals("PENDING", status("PAY_EXPIRED_2"));
+        assertEquals("PENDING", status("PAY_EXPIRY_LATER"));
+        assertEquals(1, count("SELECT COUNT(*) FROM audit_logs WHERE action = 'PAYMENT_EXPIRED' "
+                + "AND correlation_id = 'corr-2'"));
+    }
+
+    private static List<String> references(List<ExpiredPayment> payments) {
+        return payments.stream().map(ExpiredPayment::paymentReference).toList();
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private String status(String paymentReference) {
+        return jdbcTemplate.queryForObject("SELECT status::text FROM payments WHERE payment_reference = ?",
+                String.class, paymentReference);
+    }
+}
@@ -0,0 +1,154 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.pagination.Cursor;
+import com.enterprise.payment.repository.PaymentReadRepository.PaymentView;
+import com.enterprise.payment.repository.PaymentReadRepository.TransactionView;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The JDBC read path returns what the entities hold, leaves metadata out unless asked, and
+ * allocates less per page than loading the entities; against the Flyway schema, skipped
+ * without Docker.
+ */
+@Import(PaymentReadRepository.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class PaymentReadRepositoryTest extends PostgresRepositoryTest {
+
+    private static final int ROWS = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentReadRepository paymentReadRepository;
+
+    private long accountId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                INSERT INTO accounts (account_number, account_name, email, created_by)
+                VALUES ('ACCREAD1', 'Read Account', 'read@example.com', 'test')
+                """);
+        accountId = paymentReadRepository.findAccountId("ACCREAD1").orElseThrow();
+        jdbcTemplate.update("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, description, status,
+                                      merchant_reference, risk_score, metadata, created_at)
+                SELECT 'PAY_READ_' || n, ?, n * 1.25, 'USD', 'Order ' || n, 'COMPLETED'::payment_status,
+                       'M-' || n, 12.50, jsonb_build_object('orderId', n, 'channel', 'web'),
+                       timestamptz '2024-01-01 00:00:00+00' + (n / 2) * interval '1 minute'
+                FROM generate_series(1, ?) n
+                """, accountId, ROWS);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (transaction_reference, payment_id, type, amount, status, gateway_response,
+                                          processing_fee)
+                SELECT 'TXN_READ_1', id, 'PAYMENT'::transaction_type, amount, status, '{"code": "00"}', 0.25
+                FROM payments WHERE payment_reference = 'PAY_READ_1'
+                """);
+        entityManager.clear();
+    }
+
+    @Test
+    void paymentByReference_MatchesTheEntityAndReadsMetadataOnlyWhenAsked() {
+        Payment entity = paymentRepository.findByPaymentReference("PAY_READ_7").orElseThrow();
+        PaymentView view = paymentReadRepository.findPaymentByReference("PAY_READ_7", true).orElseThrow();
+
+        assertEquals(entity.getId(), view.id());
+        assertEquals(0, entity.getAmount().compareTo(view.amount()));
+        assertEquals(entity.getStatus(), view.status());
+        assertEquals(entity.getMerchantReference(), view.merchantReference());
+        assertEquals(entity.getCreatedAt().toInstant(), view.createdAt().toInstant());
+        assertEquals(entity.getMetadata(), view.metadata());
+        assertEquals(Map.of("orderId", 7, "channel", "web"), view.metadata());
+
+        assertNull(paymentReadRepository.findPaymentByReference("PAY_READ_7", false).orElseThrow().metadata());
+        assertTrue(paymentReadRepository.findPaymentByReference("PAY_UNKNOWN", true).isEmpty());
+        assertTrue(paymentReadRepository.findAccountId("ACCUNKNOWN").isEmpty());
+    }
+
+    @Test
+    void keysetAndOffsetPages_ReturnTheEntityOrder() {
+        List<Long> expected = paymentRepository.findKeysetByAccountId(accountId, Limit.of(ROWS)).stream()
+                .map(Payment::getId).toList();
+
+        List<Long> keyset = new ArrayList<>();
+        Cursor after = null;
+        List<PaymentView> page;
+        while (!(page = paymentReadRepository.findPaymentKeysetByAccountId(accountId, after, 7, false)).isEmpty()) {
+            page.forEach(payment -> keyset.add(payment.id()));
+            PaymentView last = page.get(page.size() - 1);
+            after = new Cursor(last.createdAt(), last.id());
+        }
+        assertEquals(expected, keyset);
+
+        Page<PaymentView> offset = paymentReadRepository.findPaymentsByAccountId(accountId, PageRequest.of(1, 20),
+                false);
+        assertEquals(expected.subList(20, 40), offset.map(PaymentView::id).getContent());
+        assertEquals(ROWS, offset.getTotalElements());
+    }
+
+    @Test
+    void transactionById_ComesWithItsPaymentReference() {
+        long id = jdbcTemplate.queryForObject("SELECT id FROM transactions WHERE transaction_reference = 'TXN_READ_1'",
+                Long.class);
+
+        TransactionView transaction = paymentReadRepository.findTransactionById(id).orElseThrow();
+
+        assertEquals("PAY_READ_1", transaction.paymentReference());
+        assertEquals(Map.of("code", "00"), transaction.gatewayResponse());
+        assertTrue(paymentReadRepository.findTransactionById(-1).isEmpty());
+    }
+
+    @Test
+    void readPath_AllocatesLessPerPageThanLoadingEntities() {
+        long entities = allocatedPerCall(() -> {
+            entityManager.clear();
+            return paymentRepository.findKeysetByAccountId(accountId, Limit.of(ROWS));
+        });
+        long withMetadata = allocatedPerCall(
+                () -> paymentReadRepository.findPaymentKeysetByAccountId(accountId, null, ROWS, true));
+        long withoutMetadata = allocatedPerCall(
+                () -> paymentReadRepository.findPaymentKeysetByAccountId(accountId, null, ROWS, false));
+
+        assertTrue(withMetadata < entities, () -> withMetadata + " >= " + entities);
+        assertTrue(withoutMetadata < withMetadata, () -> withoutMetadata + " >= " + withMetadata);
+    }
+
+    private static long allocatedPerCall(Supplier<List<?>> call) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20; i++) {
+            assertEquals(ROWS, call.get().size());
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 50; i++) {
+            call.get();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / 50;
+    }
+}
@@ -0,0 +1,103 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.repository.PaymentBatchRepository.BatchPayment;
+import com.enterprise.payment.repository.PaymentBatchRepository.Settlement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Claimed batch payments reserve their amounts in claim order without overdrawing the account,
+ * failed settlements release them, and claims past their lease are taken over once; against
+ * the Flyway schema, skipped without Docker.
+ */
+@Import(PaymentBatchRepository.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class PaymentReservationTest extends PostgresRepositoryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentBatchRepository paymentBatchRepository;
+
+    private List<Long> paymentIds;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                INSERT INTO accounts (account_number, account_name, email, balance, created_by)
+                VALUES ('ACCRESERVE1', 'Reserve Account', 'reserve@example.com', 20.00, 'test')
+                """);
+        paymentIds = jdbcTemplate.queryForList("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, status, batch_eligible)
+                SELECT 'PAY_RESERVE_' || n, a.id, amount, 'USD', 'PENDING'::payment_status, true
+                FROM accounts a, (VALUES (1, 10.00), (2, 15.00), (3, 5.00)) AS p(n, amount)
+                WHERE a.account_number = 'ACCRESERVE1'
+                ORDER BY n
+                RETURNING id
+                """, Long.class);
+    }
+
+    @Test
+    void reserve_DebitsInClaimOrderAndSkipsWhatTheBalanceCannotCover() {
+        List<BatchPayment> claimed = paymentBatchRepository.claimPending(paymentIds, "system");
+
+        List<BatchPayment> unreserved = paymentBatchRepository.reserve(claimed);
+
+        assertEquals(List.of(paymentIds.get(1)), unreserved.stream().map(BatchPayment::id).toList());
+        assertEquals(0, new BigDecimal("5.00").compareTo(balance()));
+    }
+
+    @Test
+    void settle_ReleasesTheReservationsOfFailedPaymentsOnly() {
+        List<BatchPayment> claimed = paymentBatchRepository.claimPending(paymentIds, "system");
+        List<BatchPayment> unreserved = paymentBatchRepository.reserve(claimed);
+
+        paymentBatchRepository.reject(List.of(settlement(unreserved.get(0), Payment.PaymentStatus.FAILED)),
+                "system", "corr-1");
+        List<Settlement> applied = paymentBatchRepository.settle(List.of(
+                settlement(claimed.get(0), Payment.PaymentStatus.COMPLETED),
+                settlement(claimed.get(2), Payment.PaymentStatus.FAILED)), "system", "corr-1");
+
+        assertEquals(2, applied.size());
+        assertEquals(0, new BigDecimal("10.00").compareTo(balance()));
+        assertTrue(paymentBatchRepository.settle(List.of(settlement(claimed.get(2), Payment.PaymentStatus.FAILED)),
+                "system", "corr-1").isEmpty());
+        assertEquals(0, new BigDecimal("10.00").compareTo(balance()));
+    }
+
+    @Test
+    void reclaimStale_TakesOverClaimsPastTheirLeaseOnce() {
+        paymentBatchRepository.claimPending(paymentIds, "system");
+        jdbcTemplate.update("UPDATE payments SET claimed_at = now() - interval '10 minutes' WHERE id = ?",
+                paymentIds.get(0));
+        OffsetDateTime cutoff = OffsetDateTime.now().minusMinutes(5);
+
+        List<BatchPayment> stale = paymentBatchRepository.reclaimStale(cutoff, 10);
+
+        assertEquals(List.of(paymentIds.get(0)), stale.stream().map(BatchPayment::id).toList());
+        assertTrue(paymentBatchRepository.reclaimStale(cutoff, 10).isEmpty());
+    }
+
+    private BigDecimal balance() {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_number = 'ACCRESERVE1'",
+                BigDecimal.class);
+    }
+
+    private static Settlement settlement(BatchPayment payment, Payment.PaymentStatus status) {
+        return new Settlement(payment, status, "test", "PAYMENT_" + status, Map.of("details", "test"));
+    }
+}
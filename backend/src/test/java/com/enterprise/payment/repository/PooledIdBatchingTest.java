@@ -0,0 +1,146 @@
+package com.enterprise.payment.repository;
+
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.entity.PaymentStatusHistory;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Entity inserts are JDBC-batched now that ids come from pooled-lo sequences instead of
+ * IDENTITY. Runs against PostgreSQL with the Flyway schema; skipped without Docker.
+ */
+@Import(PooledIdBatchingTest.RoundTripCounting.class)
+class PooledIdBatchingTest extends PostgresRepositoryTest {
+
+    private static final int ROWS = 100;
+    private static final int BATCH_SIZE = 20;
+    private static final int ID_BLOCK = 50;
+
+    private static final RoundTrips ROUND_TRIPS = new RoundTrips();
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Payment payment;
+
+    @BeforeEach
+    void setUp() {
+        payment = entityManager.getEntityManager()
+                .createQuery("SELECT p FROM Payment p ORDER BY p.id", Payment.class)
+                .setMaxResults(1)
+                .getSingleResult();
+        ROUND_TRIPS.reset();
+    }
+
+    @Test
+    void persistingHistoryRows_IssuesBatchedInserts() {
+        for (int i = 0; i < ROWS; i++) {
+            entityManager.persist(history("Batched " + i));
+        }
+        entityManager.flush();
+
+        int sequenceCalls = (ROWS + ID_BLOCK - 1) / ID_BLOCK;
+        int insertBatches = (ROWS + BATCH_SIZE - 1) / BATCH_SIZE;
+        assertEquals(insertBatches, ROUND_TRIPS.batches.get());
+        assertEquals(sequenceCalls, ROUND_TRIPS.singles.get());
+        assertTrue(ROUND_TRIPS.total() * 10 < ROWS, () -> ROUND_TRIPS.total() + " round trips for " + ROWS + " rows");
+    }
+
+    @Test
+    void pooledIds_DoNotCollideWithColumnDefaults() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 3 * ID_BLOCK; i++) {
+            if (i % 7 == 0) {
+                ids.add(jdbcTemplate.queryForObject("""
+                        INSERT INTO payment_status_history (payment_id, to_status, reason)
+                        VALUES (?, 'PENDING', 'Plain SQL') RETURNING id
+                        """, Long.class, payment.getId()));
+            } else {
+                PaymentStatusHistory history = history("Pooled " + i);
+                entityManager.persist(history);
+                ids.add(history.getId());
+            }
+            if (i % 20 == 0) {
+                entityManager.flush();
+            }
+        }
+        entityManager.flush();
+
+        assertEquals(3 * ID_BLOCK, ids.size());
+    }
+
+    private PaymentStatusHistory history(String reason) {
+        PaymentStatusHistory history = new PaymentStatusHistory();
+        history.setPayment(payment);
+        history.setToStatus(Payment.PaymentStatus.PENDING);
+        history.setReason(reason);
+        history.setChangedBy("test");
+        return history;
+    }
+
+    /**
+     * Counts JDBC executions: one per executeBatch, one per single statement
+     */
+    static final class RoundTrips implements QueryExecutionListener {
+
+        final AtomicInteger batches = new AtomicInteger();
+        final AtomicInteger singles = new AtomicInteger();
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            (execInfo.isBatch() ? batches : singles).incrementAndGet();
+        }
+
+        int total() {
+            return batches.get() + singles.get();
+        }
+
+        void reset() {
+            batches.set(0);
+            singles.set(0);
+        }
+    }
+
+    @TestConfiguration
+    static class RoundTripCounting {
+
+        @Bean
+        static BeanPostProcessor roundTripCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource).listener(ROUND_TRIPS).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.enterprise.payment.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plans of the hot queries against the Flyway schema (indexes of V6 to V8, partitions of V9
+ * to V11): each must use its index, and audit log date ranges must read only the partitions
+ * they cover. Seeds {@code -Dplan.rows} payments (default 200,000) with one transaction each;
+ * skipped without Docker.
+ */
+class QueryPlanTest extends PostgresRepositoryTest {
+
+    private static final int ROWS = Integer.getInteger("plan.rows", 200_000);
+    private static final int ACCOUNTS = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long accountId;
+    private final OffsetDateTime nextMonth = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS)
+            .withDayOfMonth(1).plusMonths(1);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                INSERT INTO accounts (account_number, account_name, email, created_by)
+                SELECT 'ACCPLAN' || n, 'Plan Account ' || n, 'plan' || n || '@example.com', 'test'
+                FROM generate_series(1, ?) n
+                """, ACCOUNTS);
+        accountId = jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE account_number = 'ACCPLAN1'",
+                Long.class);
+        // One payment in a hundred is PENDING, the rest COMPLETED
+        jdbcTemplate.update("""
+                INSERT INTO payments (payment_reference, account_id, amount, currency_code, status, expires_at,
+                                      created_at)
+                SELECT 'PAY_PLAN_' || n, a.id, 10.00, 'USD',
+                       CASE WHEN n % 100 = 0 THEN 'PENDING' ELSE 'COMPLETED' END::payment_status,
+                       TIMESTAMPTZ '2024-01-02 00:00:00+00' + n * INTERVAL '1 second',
+                       TIMESTAMPTZ '2024-01-01 00:00:00+00' + n * INTERVAL '1 second'
+                FROM generate_series(1, ?) n
+                JOIN accounts a ON a.account_number = 'ACCPLAN' || (n % ? + 1)
+                """, ROWS, ACCOUNTS);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (transaction_reference, payment_id, type, amount, status, created_at)
+                SELECT 'TXN_PLAN_' || p.id, p.id,
+                       CASE WHEN p.id % 10 = 0 THEN 'REFUND' ELSE 'PAYMENT' END::transaction_type,
+                       p.amount, p.status, p.created_at
+                FROM payments p WHERE p.payment_reference LIKE 'PAY_PLAN_%'
+                """);
+        Long webhookId = jdbcTemplate.queryForObject("""
+                INSERT INTO webhooks (account_id, url, events, secret)
+                VALUES (?, 'https://merchant.example/hooks', ARRAY['payment.completed'], 'secret') RETURNING id
+                """, Long.class, accountId);
+        // Delivered except one in a hundred, which waits for a retry
+        jdbcTemplate.update("""
+                INSERT INTO webhook_deliveries (webhook_id, event, payload, delivered_at, next_retry_at, created_at)
+                SELECT ?, 'payment.completed', '{}',
+                       CASE WHEN n % 100 = 0 THEN NULL ELSE created END,
+                       CASE WHEN n % 100 = 0 THEN created + INTERVAL '1 minute' END, created
+                FROM (SELECT n, TIMESTAMPTZ '2024-01-01 00:00:00+00' + n * INTERVAL '1 second' AS created
+                      FROM generate_series(1, ?) n) deliveries
+                """, webhookId, ROWS / 10);
+        // Audit entries in the legacy partition and in next month's
+        jdbcTemplate.update("""
+                INSERT INTO audit_logs (entity_type, entity_id, action, created_at)
+                SELECT 'PAYMENT', n, 'UPDATE', TIMESTAMPTZ '2024-01-01 00:00:00+00' + n * INTERVAL '1 second'
+                FROM generate_series(1, ?) n
+                """, ROWS);
+        jdbcTemplate.update("""
+                INSERT INTO audit_logs (entity_type, entity_id, action, created_at)
+                SELECT 'PAYMENT', n, 'UPDATE', ? + n * INTERVAL '1 second'
+                FROM generate_series(1, 1000) n
+                """, nextMonth);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void accountListing_UsesTheAccountCreatedIndex() {
+        assertPlanUses("idx_payments_account_created", """
+                SELECT * FROM payments WHERE account_id = %d ORDER BY created_at DESC, id DESC LIMIT 21
+                """.formatted(accountId));
+    }
+
+    @Test
+    void statusListing_UsesTheStatusCreatedIndex() {
+        assertPlanUses("idx_payments_status_created", """
+                SELECT * FROM payments WHERE status = 'PENDING' ORDER BY created_at DESC, id DESC LIMIT 21
+                """);
+    }
+
+    @Test
+    void pendingExpiry_UsesThePartialIndex() {
+        assertPlanUses("idx_payments_pending_expires", """
+                SELECT * FROM payments WHERE status = 'PENDING' AND expires_at < TIMESTAMPTZ '2024-01-03 00:00:00+00'
+                """);
+    }
+
+    @Test
+    void transactionsOfAPaymentByType_UseThePaymentTypeIndex() {
+        assertPlanUses("idx_transactions_payment_type", """
+                SELECT * FROM transactions t
+                WHERE t.type = 'REFUND' AND t.payment_id IN (SELECT id FROM payments WHERE account_id = %d)
+                """.formatted(accountId));
+    }
+
+    @Test
+    void webhookRetries_UseThePartialIndex() {
+        // Plans name the partition's own index: the seeded rows lie in the legacy partition
+        assertPlanUses("webhook_deliveries_legacy_retry", """
+                SELECT * FROM webhook_deliveries
+                WHERE delivered_at IS NULL AND next_retry_at < TIMESTAMPTZ '2024-01-01 01:00:00+00'
+                """);
+    }
+
+    @Test
+    void auditLogDateRange_ReadsOnlyThePartitionsItCovers() {
+        String partition = "audit_logs_" + nextMonth.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+
+        String plan = assertPlanUses(partition, """
+                SELECT * FROM audit_logs WHERE created_at >= '%s' AND created_at < '%s'
+                ORDER BY created_at DESC, id DESC
+                """.formatted(nextMonth, nextMonth.plusDays(1)));
+
+        assertFalse(plan.contains("audit_logs_legacy"), plan);
+        assertEquals(1000, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class));
+    }
+
+    @Test
+    void partitionMaintenance_IsIdempotentAndDropsOnlyPastRetention() {
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT create_monthly_partitions('audit_logs', 3)",
+                Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT create_monthly_partitions('audit_logs', 4)",
+                Integer.class));
+        // Monthly partitions all lie in the current month or later, and the legacy one is never dropped
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT drop_monthly_partitions('audit_logs', 0)",
+                Integer.class));
+    }
+
+    /**
+     * Run the query under EXPLAIN ANALYZE and assert that its plan mentions {@code index}
+     */
+    private String assertPlanUses(String index, String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN (ANALYZE, BUFFERS) " + sql, String.class);
+        String plan = String.join("\n", lines);
+        assertTrue(plan.contains(index), plan);
+        return plan;
+    }
+}
@@ -0,0 +1,89 @@
+package com.enterprise.payment.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsScrapeAuthenticationFilterTest {
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_AuthenticatesTheScraperByItsToken() throws Exception {
+        Authentication seen = filter("scrape-token", MetricsScrapeAuthenticationFilter.PROMETHEUS_PATH,
+                "Bearer scrape-token");
+
+        assertNotNull(seen);
+        assertEquals(MetricsScrapeAuthenticationFilter.SCRAPER, seen.getName());
+        assertEquals("ROLE_METRICS", seen.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void doFilter_IgnoresAWrongToken() throws Exception {
+        assertNull(filter("scrape-token", MetricsScrapeAuthenticationFilter.PROMETHEUS_PATH, "Bearer guess"));
+    }
+
+    @Test
+    void doFilter_IgnoresTheTokenOnOtherPaths() throws Exception {
+        assertNull(filter("scrape-token", "/payments", "Bearer scrape-token"));
+    }
+
+    @Test
+    void doFilter_WithoutAConfiguredToken_AuthenticatesNobody() throws Exception {
+        assertNull(filter("", MetricsScrapeAuthenticationFilter.PROMETHEUS_PATH, "Bearer "));
+    }
+
+    @Test
+    void doFilter_NeverGrantsMoreThanMetrics() throws Exception {
+        Authentication seen = filter("scrape-token", MetricsScrapeAuthenticationFilter.PROMETHEUS_PATH,
+                "Bearer scrape-token");
+
+        assertTrue(seen.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+                .noneMatch("ROLE_ADMIN"::equals));
+    }
+
+    @Test
+    void constructor_RefusesTheDevTokenOutsideTheDevProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("docker");
+
+        assertThrows(IllegalStateException.class, () -> new MetricsScrapeAuthenticationFilter(
+                MetricsScrapeAuthenticationFilter.DEV_SCRAPE_TOKEN, environment));
+    }
+
+    @Test
+    void constructor_AcceptsTheDevTokenUnderTheDevProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("dev");
+
+        assertDoesNotThrow(() -> new MetricsScrapeAuthenticationFilter(
+                MetricsScrapeAuthenticationFilter.DEV_SCRAPE_TOKEN, environment));
+    }
+
+    /**
+     * Run the filter and return the authentication the rest of the chain saw
+     */
+    private static Authentication filter(String scrapeToken, String path, String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1" + path);
+        request.setContextPath("/api/v1");
+        request.setServletPath(path);
+        request.addHeader("Authorization", authorization);
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        new MetricsScrapeAuthenticationFilter(scrapeToken, new MockEnvironment()).doFilter(request,
+                new MockHttpServletResponse(),
+                (req, res) -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+        return seen.get();
+    }
+}
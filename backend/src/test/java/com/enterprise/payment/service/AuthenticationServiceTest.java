@@ -1,28 +1,32 @@
 package com.enterprise.payment.service;
 
+import com.enterprise.payment.auth.RefreshTokenProperties;
+import com.enterprise.payment.auth.RefreshTokenStore;
+import com.enterprise.payment.auth.RefreshTokens;
+import com.enterprise.payment.auth.RevokedRefreshToken;
+import com.enterprise.payment.auth.StoredRefreshToken;
+import com.enterprise.payment.deadline.DeadlineScheduler;
+import com.enterprise.payment.deadline.DeadlineType;
 import com.enterprise.payment.dto.request.LoginRequest;
 import com.enterprise.payment.dto.request.RegisterRequest;
 import com.enterprise.payment.dto.response.AuthResponse;
-import com.enterprise.payment.entity.RefreshToken;
 import com.enterprise.payment.entity.User;
-import com.enterprise.payment.exception.DuplicateResourceException;
+import com.enterprise.payment.exception.AuthenticationException;
 import com.enterprise.payment.exception.ValidationException;
-import com.enterprise.payment.repository.RefreshTokenRepository;
+import com.enterprise.payment.monitoring.PaymentMetrics;
 import com.enterprise.payment.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,28 +35,38 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class AuthenticationServiceTest {
 
+    private static final String PRESENTED = "presented-refresh-token";
+    private static final UUID FAMILY = UUID.fromString("6f1c2a7e-3b4d-4e5f-8a9b-0c1d2e3f4a5b");
+
     @Mock
     private UserRepository userRepository;
 
     @Mock
-    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenStore refreshTokenStore;
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private JwtService jwtService;
 
-    @InjectMocks
-    private AuthenticationService authenticationService;
+    @Mock
+    private UserService userService;
 
+    @Mock
+    private DeadlineScheduler deadlineScheduler;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final byte[] presentedDigest = RefreshTokens.digest(PRESENTED);
+    private AuthenticationService authenticationService;
     private User testUser;
-    private LoginRequest loginRequest;
-    private RegisterRequest registerRequest;
-    private RegisterRequest.UserInfo userInfo;
 
     @BeforeEach
     void setUp() {
+        authenticationService = new AuthenticationService(userRepository, refreshTokenStore,
+                new RefreshTokenProperties(), passwordEncoder, jwtService, userService, deadlineScheduler,
+                new PaymentMetrics(registry));
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
@@ -62,213 +76,222 @@ class AuthenticationServiceTest {
         testUser.setLastName("User");
         testUser.setRole(User.UserRole.USER);
         testUser.setIsActive(true);
-
-        loginRequest = new LoginRequest();
-        loginRequest.setUsernameOrEmail("testuser");
-        loginRequest.setPassword("password123");
-
-        userInfo = new RegisterRequest.UserInfo();
-        userInfo.setUsername("newuser");
-        userInfo.setEmail("newuser@example.com");
-        userInfo.setFirstName("New");
-        userInfo.setLastName("User");
-        userInfo.setPassword("password123");
-        userInfo.setConfirmPassword("password123");
-
-        registerRequest = new RegisterRequest();
-        registerRequest.setUserInfo(userInfo);
-        registerRequest.setAcceptTerms(true);
-        registerRequest.setAcceptPrivacy(true);
     }
 
     @Test
-    void login_WithValidCredentials_ShouldReturnAuthResponse() {
-        // Arrange
-        when(userRepository.findByUsernameOrEmail("testuser", "testuser"))
-                .thenReturn(Optional.of(testUser));
+    void login_WithValidCredentials_IssuesANewTokenFamily() {
+        LoginRequest request = new LoginRequest();
+        request.setUsernameOrEmail("testuser");
+        request.setPassword("password123");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("password123", "hashedPassword")).thenReturn(true);
+        when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
+        when(refreshTokenStore.insert(any(), eq(1L), any(), any())).thenReturn(stored(11L, false));
 
-        // Act
-        AuthResponse response = authenticationService.login(loginRequest);
+        AuthResponse response = authenticationService.login(request);
 
-        // Assert
-        assertNotNull(response);
-        assertNotNull(response.getAccessToken());
+        assertEquals("access-token", response.getAccessToken());
         assertNotNull(response.getRefreshToken());
-        assertNotNull(response.getUser());
-        assertEquals("testuser", response.getUser().getUsername());
-
-        verify(userRepository).findByUsernameOrEmail("testuser", "testuser");
+        verify(refreshTokenStore).insert(eq(RefreshTokens.digest(response.getRefreshToken())), eq(1L), any(),
+                any());
+        verify(deadlineScheduler).schedule(eq(DeadlineType.REFRESH_TOKEN_EXPIRY), eq(11L), any());
+        verify(userService).recordLoginAttempt("testuser", true);
     }
 
     @Test
-    void login_WithInvalidCredentials_ShouldThrowValidationException() {
-        // Arrange
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenThrow(new BadCredentialsException("Invalid credentials"));
-
-        // Act & Assert
-        ValidationException exception = assertThrows(ValidationException.class, 
-                () -> authenticationService.login(loginRequest));
-        
-        assertEquals("Invalid username/email or password", exception.getMessage());
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verifyNoInteractions(userRepository, jwtService);
+    void login_WithWrongPassword_RecordsTheFailedAttempt() {
+        LoginRequest request = new LoginRequest();
+        request.setUsernameOrEmail("testuser");
+        request.setPassword("wrong");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("wrong", "hashedPassword")).thenReturn(false);
+
+        AuthenticationException exception = assertThrows(AuthenticationException.class,
+                () -> authenticationService.login(request));
+
+        assertEquals("Invalid username or password", exception.getMessage());
+        verify(userService).recordLoginAttempt("testuser", false);
+        verifyNoInteractions(refreshTokenStore, jwtService);
     }
 
     @Test
-    void login_WithUserNotFound_ShouldThrowValidationException() {
-        // Arrange
-        Authentication mockAuth = mock(Authentication.class);
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(mockAuth);
-        when(userRepository.findByUsernameOrEmail("testuser", "testuser"))
-                .thenReturn(Optional.empty());
-
-        // Act & Assert
-        ValidationException exception = assertThrows(ValidationException.class, 
-                () -> authenticationService.login(loginRequest));
-        
-        assertEquals("User not found", exception.getMessage());
-        verify(userRepository).findByUsernameOrEmail("testuser", "testuser");
+    void login_WithUserNotFound_ShouldThrowAuthenticationException() {
+        LoginRequest request = new LoginRequest();
+        request.setUsernameOrEmail("testuser");
+        request.setPassword("password123");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
+
+        AuthenticationException exception = assertThrows(AuthenticationException.class,
+                () -> authenticationService.login(request));
+
+        assertEquals("Invalid username or password", exception.getMessage());
+        verifyNoInteractions(passwordEncoder, refreshTokenStore, jwtService);
     }
 
     @Test
     void register_WithValidData_ShouldReturnAuthResponse() {
-        // Arrange
+        RegisterRequest request = registerRequest();
         when(userRepository.existsByUsername("newuser")).thenReturn(false);
         when(userRepository.existsByEmail("newuser@example.com")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn("hashedPassword");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
-        when(jwtService.generateToken(testUser)).thenReturn("access-token");
-        when(jwtService.generateRefreshToken(testUser)).thenReturn("refresh-token");
+        when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
+        when(refreshTokenStore.insert(any(), eq(1L), any(), any())).thenReturn(stored(11L, false));
 
-        // Act
-        AuthResponse response = authenticationService.register(registerRequest);
+        AuthResponse response = authenticationService.register(request);
 
-        // Assert
-        assertNotNull(response);
         assertEquals("access-token", response.getAccessToken());
-        assertEquals("refresh-token", response.getRefreshToken());
-        assertEquals("Bearer", response.getType());
+        assertNotNull(response.getRefreshToken());
         assertNotNull(response.getUser());
-
-        verify(userRepository).existsByUsername("newuser");
-        verify(userRepository).existsByEmail("newuser@example.com");
         verify(passwordEncoder).encode("password123");
         verify(userRepository).save(any(User.class));
-        verify(jwtService).generateToken(testUser);
-        verify(jwtService).generateRefreshToken(testUser);
+        verify(deadlineScheduler).schedule(eq(DeadlineType.REFRESH_TOKEN_EXPIRY), eq(11L), any());
     }
 
     @Test
-    void register_WithExistingUsername_ShouldThrowDuplicateResourceException() {
-        // Arrange
+    void register_WithExistingUsername_ShouldThrowValidationException() {
+        RegisterRequest request = registerRequest();
         when(userRepository.existsByUsername("newuser")).thenReturn(true);
 
-        // Act & Assert
-        DuplicateResourceException exception = assertThrows(DuplicateResourceException.class, 
-                () -> authenticationService.register(registerRequest));
-        
-        assertEquals("Username 'newuser' is already taken", exception.getMessage());
-        verify(userRepository).existsByUsername("newuser");
-        verifyNoMoreInteractions(userRepository);
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> authenticationService.register(request));
+
+        assertEquals("Username is already taken", exception.getMessage());
+        verify(userRepository, never()).save(any());
+        verifyNoInteractions(refreshTokenStore);
     }
 
     @Test
-    void register_WithExistingEmail_ShouldThrowDuplicateResourceException() {
-        // Arrange
+    void register_WithExistingEmail_ShouldThrowValidationException() {
+        RegisterRequest request = registerRequest();
         when(userRepository.existsByUsername("newuser")).thenReturn(false);
         when(userRepository.existsByEmail("newuser@example.com")).thenReturn(true);
 
-        // Act & Assert
-        DuplicateResourceException exception = assertThrows(DuplicateResourceException.class, 
-                () -> authenticationService.register(registerRequest));
-        
-        assertEquals("Email 'newuser@example.com' is already registered", exception.getMessage());
-        verify(userRepository).existsByUsername("newuser");
-        verify(userRepository).existsByEmail("newuser@example.com");
-        verifyNoMoreInteractions(userRepository);
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> authenticationService.register(request));
+
+        assertEquals("Email is already registered", exception.getMessage());
+        verify(userRepository, never()).save(any());
+        verifyNoInteractions(refreshTokenStore);
     }
 
     @Test
-    void logout_ShouldDeleteRefreshTokens() {
-        // Act
-        authenticationService.logout(testUser);
+    void refreshToken_RotatesThePresentedTokenWithinItsFamily() {
+        when(refreshTokenStore.find(presentedDigest)).thenReturn(stored(7L, false));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(refreshTokenStore.revoke(presentedDigest, 7L)).thenReturn(true);
+        when(jwtService.generateAccessToken(testUser)).thenReturn("new-access-token");
+        when(refreshTokenStore.insert(any(), eq(1L), eq(FAMILY), any())).thenReturn(stored(8L, false));
+
+        AuthResponse response = authenticationService.refreshToken(PRESENTED);
 
-        // Assert
-        verify(refreshTokenRepository).deleteByUser(testUser);
+        assertEquals("new-access-token", response.getAccessToken());
+        assertNotEquals(PRESENTED, response.getRefreshToken());
+        verify(refreshTokenStore).insert(eq(RefreshTokens.digest(response.getRefreshToken())), eq(1L), eq(FAMILY),
+                any());
+        verify(deadlineScheduler).cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, 7L);
+        verify(deadlineScheduler).schedule(eq(DeadlineType.REFRESH_TOKEN_EXPIRY), eq(8L), any());
+        verify(refreshTokenStore, never()).revokeFamily(any());
+        assertEquals(1, refreshes(PaymentMetrics.RefreshOutcome.ROTATED));
     }
 
     @Test
-    void refreshToken_WithValidToken_ShouldReturnNewTokens() {
-        // Arrange
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setUser(testUser);
-        refreshToken.setToken("valid-refresh-token");
-        refreshToken.setExpiresAt(LocalDateTime.now().plusDays(1));
-
-        when(refreshTokenRepository.findByToken("valid-refresh-token"))
-                .thenReturn(Optional.of(refreshToken));
-        when(jwtService.generateToken(testUser)).thenReturn("new-access-token");
-        when(jwtService.generateRefreshToken(testUser)).thenReturn("new-refresh-token");
-
-        // Act
-        AuthResponse response = authenticationService.refreshToken("valid-refresh-token");
-
-        // Assert
-        assertNotNull(response);
-        assertEquals("new-access-token", response.getAccessToken());
-        assertEquals("new-refresh-token", response.getRefreshToken());
-        assertEquals("Bearer", response.getType());
+    void refreshToken_WithARevokedToken_RevokesTheWholeFamily() {
+        when(refreshTokenStore.find(presentedDigest)).thenReturn(stored(7L, true));
+        when(refreshTokenStore.revokeFamily(FAMILY)).thenReturn(List.of(
+                new RevokedRefreshToken(8L, RefreshTokens.digest("current"))));
+
+        AuthenticationException exception = assertThrows(AuthenticationException.class,
+                () -> authenticationService.refreshToken(PRESENTED));
 
-        verify(refreshTokenRepository).findByToken("valid-refresh-token");
-        verify(refreshTokenRepository).delete(refreshToken);
-        verify(jwtService).generateToken(testUser);
-        verify(jwtService).generateRefreshToken(testUser);
+        assertEquals("Invalid refresh token", exception.getMessage());
+        verify(deadlineScheduler).cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, 8L);
+        verify(refreshTokenStore, never()).revoke(any(), anyLong());
+        verify(refreshTokenStore, never()).insert(any(), anyLong(), any(), any());
+        verifyNoInteractions(jwtService);
+        assertEquals(1, refreshes(PaymentMetrics.RefreshOutcome.REUSED));
     }
 
     @Test
-    void refreshToken_WithInvalidToken_ShouldThrowValidationException() {
-        // Arrange
-        when(refreshTokenRepository.findByToken("invalid-token"))
-                .thenReturn(Optional.empty());
-
-        // Act & Assert
-        ValidationException exception = assertThrows(ValidationException.class, 
-                () -> authenticationService.refreshToken("invalid-token"));
-        
-        assertEquals("Invalid refresh token", exception.getMessage());
-        verify(refreshTokenRepository).findByToken("invalid-token");
+    void refreshToken_LosingTheRevokeRace_RevokesTheFamilyInsteadOfIssuing() {
+        when(refreshTokenStore.find(presentedDigest)).thenReturn(stored(7L, false));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(refreshTokenStore.revoke(presentedDigest, 7L)).thenReturn(false);
+        when(refreshTokenStore.revokeFamily(FAMILY)).thenReturn(List.of(
+                new RevokedRefreshToken(8L, RefreshTokens.digest("issued-to-the-winner"))));
+
+        assertThrows(AuthenticationException.class, () -> authenticationService.refreshToken(PRESENTED));
+
+        verify(deadlineScheduler).cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, 8L);
+        verify(deadlineScheduler, never()).cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, 7L);
+        verify(refreshTokenStore, never()).insert(any(), anyLong(), any(), any());
         verifyNoInteractions(jwtService);
+        assertEquals(1, refreshes(PaymentMetrics.RefreshOutcome.REUSED));
+    }
+
+    @Test
+    void refreshToken_WithUnknownToken_ShouldThrowAuthenticationException() {
+        AuthenticationException exception = assertThrows(AuthenticationException.class,
+                () -> authenticationService.refreshToken("unknown-token"));
+
+        assertEquals("Invalid refresh token", exception.getMessage());
+        verify(refreshTokenStore, never()).revokeFamily(any());
+        assertEquals(1, refreshes(PaymentMetrics.RefreshOutcome.REJECTED));
     }
 
     @Test
-    void refreshToken_WithExpiredToken_ShouldThrowValidationException() {
-        // Arrange
-        RefreshToken expiredToken = new RefreshToken();
-        expiredToken.setUser(testUser);
-        expiredToken.setToken("expired-token");
-        expiredToken.setExpiresAt(LocalDateTime.now().minusDays(1));
-
-        when(refreshTokenRepository.findByToken("expired-token"))
-                .thenReturn(Optional.of(expiredToken));
-
-        // Act & Assert
-        ValidationException exception = assertThrows(ValidationException.class, 
-                () -> authenticationService.refreshToken("expired-token"));
-        
-        assertEquals("Refresh token has expired", exception.getMessage());
-        verify(refreshTokenRepository).findByToken("expired-token");
-        verify(refreshTokenRepository).delete(expiredToken);
+    void refreshToken_WithExpiredToken_ShouldThrowAuthenticationException() {
+        when(refreshTokenStore.find(presentedDigest)).thenReturn(new StoredRefreshToken(7L, 1L, FAMILY,
+                OffsetDateTime.now().minusDays(1), false));
+
+        AuthenticationException exception = assertThrows(AuthenticationException.class,
+                () -> authenticationService.refreshToken(PRESENTED));
+
+        assertEquals("Refresh token expired", exception.getMessage());
+        verify(refreshTokenStore, never()).revoke(any(), anyLong());
         verifyNoInteractions(jwtService);
     }
 
     @Test
-    void cleanupExpiredTokens_ShouldDeleteExpiredTokens() {
-        // Act
-        authenticationService.cleanupExpiredTokens();
+    void logout_RevokesThePresentedTokenAndCancelsItsExpiry() {
+        when(refreshTokenStore.find(presentedDigest)).thenReturn(stored(7L, false));
+        when(refreshTokenStore.revoke(presentedDigest, 7L)).thenReturn(true);
+
+        authenticationService.logout(PRESENTED);
+
+        verify(deadlineScheduler).cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, 7L);
+    }
+
+    @Test
+    void revokeAllTokens_CancelsTheExpiryOfEveryRevokedToken() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(refreshTokenStore.revokeAllForUser(1L)).thenReturn(List.of(
+                new RevokedRefreshToken(7L, RefreshTokens.digest("a")),
+                new RevokedRefreshToken(9L, RefreshTokens.digest("b"))));
+
+        authenticationService.revokeAllTokens("testuser");
+
+        verify(deadlineScheduler).cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, 7L);
+        verify(deadlineScheduler).cancel(DeadlineType.REFRESH_TOKEN_EXPIRY, 9L);
+    }
+
+    private long refreshes(PaymentMetrics.RefreshOutcome outcome) {
+        return registry.get("payment.auth.refresh").tag("outcome", outcome.name().toLowerCase()).timer().count();
+    }
+
+    private static RegisterRequest registerRequest() {
+        RegisterRequest.UserInfo userInfo = new RegisterRequest.UserInfo();
+        userInfo.setUsername("newuser");
+        userInfo.setEmail("newuser@example.com");
+        userInfo.setFirstName("New");
+        userInfo.setLastName("User");
+        userInfo.setPassword("password123");
+        RegisterRequest request = new RegisterRequest();
+        request.setUserInfo(userInfo);
+        return request;
+    }
 
-        // Assert
-        verify(refreshTokenRepository).deleteByExpiresAtBefore(any(LocalDateTime.class));
+    private static StoredRefreshToken stored(long id, boolean revoked) {
+        return new StoredRefreshToken(id, 1L, FAMILY, OffsetDateTime.now().plusDays(30), revoked);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.entity.PaymentMethod.PaymentMethodType;
+import com.enterprise.payment.entity.Transaction.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupedCountsTest {
+
+    @Test
+    void of_TotalsTheGroupsAndCountsMissingConstantsAsZero() {
+        GroupedCounts<PaymentMethodType> counts = GroupedCounts.of(PaymentMethodType.class, List.of(
+                new Object[]{PaymentMethodType.CREDIT_CARD, 3L, 1L},
+                new Object[]{PaymentMethodType.BANK_TRANSFER, 2L, 2L}));
+        Map<String, Object> stats = new HashMap<>();
+
+        counts.putCounts(stats, "Methods");
+
+        assertTrue(counts.found());
+        assertEquals(5, counts.total());
+        assertEquals(3, counts.filteredTotal());
+        assertEquals(1, counts.filtered(PaymentMethodType.CREDIT_CARD));
+        assertEquals(PaymentMethodType.values().length, stats.size());
+        assertEquals(3L, stats.get("credit_cardMethods"));
+        assertEquals(0L, stats.get("debit_cardMethods"));
+    }
+
+    @Test
+    void of_TellsAnOwnerWithNothingToCountFromAMissingOne() {
+        GroupedCounts<TransactionType> empty = GroupedCounts.of(TransactionType.class,
+                List.<Object[]>of(new Object[]{null, 0L, 0L, null}));
+        GroupedCounts<TransactionType> missing = GroupedCounts.of(TransactionType.class, List.of());
+
+        assertTrue(empty.found());
+        assertEquals(0, empty.total());
+        assertEquals(BigDecimal.ZERO, empty.sum());
+        assertFalse(missing.found());
+    }
+
+    @Test
+    void of_AddsUpTheSumColumn() {
+        GroupedCounts<TransactionType> counts = GroupedCounts.of(TransactionType.class, List.of(
+                new Object[]{TransactionType.values()[0], 2L, 0L, new BigDecimal("10.50")},
+                new Object[]{TransactionType.values()[1], 1L, 1L, new BigDecimal("4.50")}));
+
+        assertEquals(new BigDecimal("15.00"), counts.sum());
+        assertEquals(2, counts.count(TransactionType.values()[0]));
+    }
+}
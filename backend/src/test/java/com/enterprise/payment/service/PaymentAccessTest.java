@@ -0,0 +1,189 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.dto.request.CreatePaymentRequest;
+import com.enterprise.payment.dto.request.RefundPaymentRequest;
+import com.enterprise.payment.entity.Account;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.PaymentReadRepository;
+import com.enterprise.payment.repository.PaymentReadRepository.PaymentView;
+import com.enterprise.payment.repository.PaymentRepository;
+import com.enterprise.payment.repository.UserRepository;
+import com.enterprise.payment.security.AccountAccess;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Whose payments a caller may reach; the payment lifecycle itself is covered by {@link PaymentServiceTest}
+ */
+@ExtendWith(MockitoExtension.class)
+class PaymentAccessTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentReadRepository paymentReadRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private PaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        paymentService = new PaymentService(paymentRepository, paymentReadRepository, accountRepository, null, null,
+                null, null, null, null, null, null, null, null, null, null, null, new AccountAccess(userRepository));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void createPayment_CannotChargeAnotherAccount() {
+        authenticate("merchant", "ROLE_MERCHANT");
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(account(2L)));
+        when(userRepository.existsByUsernameAndAccountId("merchant", 2L)).thenReturn(false);
+
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setAccountId(2L);
+        request.setAmount(new BigDecimal("100.00"));
+        request.setCurrencyCode("USD");
+
+        assertThrows(AccessDeniedException.class, () -> paymentService.createPayment(request));
+
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void getPayment_CannotReadAnotherAccountsPayment() {
+        authenticate("user", "ROLE_USER");
+        when(paymentReadRepository.findPaymentByReference("PAY-002", true)).thenReturn(Optional.of(view(2L)));
+        when(userRepository.existsByUsernameAndAccountId("user", 2L)).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class, () -> paymentService.getPaymentByReference("PAY-002"));
+    }
+
+    @Test
+    void getPayment_ReadsItsOwnAccountsPayment() {
+        authenticate("user", "ROLE_USER");
+        when(paymentReadRepository.findPaymentByReference("PAY-001", true)).thenReturn(Optional.of(view(1L)));
+        when(userRepository.existsByUsernameAndAccountId("user", 1L)).thenReturn(true);
+
+        assertEquals("PAY-001", paymentService.getPaymentByReference("PAY-001").getPaymentReference());
+    }
+
+    @Test
+    void getPayment_AdminReadsAnyAccountsPayment() {
+        authenticate("admin", "ROLE_ADMIN");
+        when(paymentReadRepository.findPaymentByReference("PAY-002", true)).thenReturn(Optional.of(view(2L)));
+
+        assertNotNull(paymentService.getPaymentByReference("PAY-002"));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void refundPayment_CannotRefundAnotherAccountsPayment() {
+        authenticate("merchant", "ROLE_MERCHANT");
+        Payment payment = payment(2L);
+        when(paymentRepository.findByPaymentReference("PAY-002")).thenReturn(Optional.of(payment));
+        when(userRepository.existsByUsernameAndAccountId("merchant", 2L)).thenReturn(false);
+
+        RefundPaymentRequest request = new RefundPaymentRequest();
+        request.setAmount(new BigDecimal("10.00"));
+
+        assertThrows(AccessDeniedException.class, () -> paymentService.refundPayment("PAY-002", request));
+
+        assertEquals(Payment.PaymentStatus.COMPLETED, payment.getStatus());
+    }
+
+    @Test
+    void cancelPayment_CannotCancelAnotherAccountsPayment() {
+        authenticate("user", "ROLE_USER");
+        Payment payment = payment(2L);
+        payment.setStatus(Payment.PaymentStatus.PENDING);
+        when(paymentRepository.findByPaymentReference("PAY-002")).thenReturn(Optional.of(payment));
+        when(userRepository.existsByUsernameAndAccountId("user", 2L)).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class, () -> paymentService.cancelPayment("PAY-002", "Not mine"));
+
+        assertEquals(Payment.PaymentStatus.PENDING, payment.getStatus());
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    void getAccountPayments_CannotListAnotherAccount() {
+        authenticate("user", "ROLE_USER");
+        when(paymentReadRepository.findAccountId("ACC002")).thenReturn(Optional.of(2L));
+        when(userRepository.existsByUsernameAndAccountId("user", 2L)).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class,
+                () -> paymentService.getPaymentsForAccount("ACC002", PageRequest.of(0, 20), false));
+
+        verify(paymentReadRepository, never()).findPaymentsByAccountId(anyLong(), any(), anyBoolean());
+    }
+
+    @Test
+    void getAccountPaymentsByCursor_CannotListAnotherAccount() {
+        authenticate("user", "ROLE_USER");
+        when(paymentReadRepository.findAccountId("ACC002")).thenReturn(Optional.of(2L));
+        when(userRepository.existsByUsernameAndAccountId("user", 2L)).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class,
+                () -> paymentService.getPaymentsForAccount("ACC002", null, 20, true, false));
+
+        verify(paymentReadRepository, never()).findPaymentKeysetByAccountId(anyLong(), any(), anyInt(), anyBoolean());
+        verifyNoInteractions(paymentRepository);
+    }
+
+    private static void authenticate(String username, String authority) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null,
+                List.of(new SimpleGrantedAuthority(authority))));
+    }
+
+    private static Account account(Long id) {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber("ACC00" + id);
+        return account;
+    }
+
+    private static Payment payment(Long accountId) {
+        Payment payment = new Payment();
+        payment.setId(accountId);
+        payment.setPaymentReference("PAY-00" + accountId);
+        payment.setAccount(account(accountId));
+        payment.setAmount(new BigDecimal("100.00"));
+        payment.setStatus(Payment.PaymentStatus.COMPLETED);
+        return payment;
+    }
+
+    private static PaymentView view(long accountId) {
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        return new PaymentView(accountId, accountId, "PAY-00" + accountId, new BigDecimal("100.00"), "USD", null,
+                Payment.PaymentStatus.COMPLETED, null, null, null, null, createdAt, createdAt, null);
+    }
+}
@@ -0,0 +1,251 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.deadline.DeadlineScheduler;
+import com.enterprise.payment.deadline.DeadlineType;
+import com.enterprise.payment.dto.request.BulkCreatePaymentRequest;
+import com.enterprise.payment.dto.request.CreatePaymentRequest;
+import com.enterprise.payment.dto.response.BulkCreatePaymentResponse;
+import com.enterprise.payment.entity.Account;
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.PaymentBulkRepository;
+import com.enterprise.payment.repository.PaymentMethodRepository;
+import com.enterprise.payment.security.AccountAccess;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentBulkServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Mock
+    private PaymentBulkRepository paymentBulkRepository;
+
+    @Mock
+    private PaymentBatchService paymentBatchService;
+
+    @Mock
+    private RiskAssessmentService riskAssessmentService;
+
+    @Mock
+    private AccountAccess accountAccess;
+
+    @Mock
+    private DeadlineScheduler deadlineScheduler;
+
+    private PaymentService paymentService;
+    private PaymentBulkService paymentBulkService;
+
+    @BeforeEach
+    void setUp() {
+        paymentService = spy(new PaymentService(null, null, null, null, null, null, null, null, null,
+                null, null, null, new ReferenceGenerator(1, System::currentTimeMillis), null, null, null, null));
+        lenient().doReturn(CompletableFuture.completedFuture(null)).when(paymentService).processPaymentAsync(anyLong());
+        paymentBulkService = new PaymentBulkService(accountRepository, paymentMethodRepository,
+                paymentBulkRepository, paymentService, paymentBatchService, riskAssessmentService,
+                new PaymentMetrics(new SimpleMeterRegistry()),
+                Validation.buildDefaultValidatorFactory().getValidator(), accountAccess,
+                deadlineScheduler);
+        lenient().when(accountAccess.canAccess(anyLong())).thenReturn(true);
+        lenient().when(riskAssessmentService.scorePaymentRisk(any())).thenReturn(BigDecimal.TEN);
+        lenient().when(paymentBulkRepository.allocatePaymentIds(anyInt())).thenAnswer(invocation -> {
+            List<Long> ids = new ArrayList<>();
+            for (long id = 1; id <= (int) invocation.getArgument(0); id++) {
+                ids.add(100 + id);
+            }
+            return ids;
+        });
+    }
+
+    @Test
+    void createPayments_ReportsInvalidItemsAndCreatesTheRest() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE),
+                account(2L, Account.AccountStatus.SUSPENDED)));
+
+        BulkCreatePaymentResponse response = paymentBulkService.createPayments(request(
+                item(1L, "10.00"), item(null, "10.00"), item(1L, "0.00"), item(2L, "10.00"),
+                item(99L, "10.00"), item(1L, "20.00")));
+
+        assertEquals(6, response.getRequested());
+        assertEquals(2, response.getCreated());
+        assertEquals(4, response.getInvalid());
+        assertEquals(Payment.PaymentStatus.PENDING, response.getItems().get(0).getStatus());
+        assertEquals(101L, response.getItems().get(0).getId());
+        assertEquals(102L, response.getItems().get(5).getId());
+        assertEquals("accountId", response.getItems().get(1).getErrors().get(0).getField());
+        assertEquals("amount", response.getItems().get(2).getErrors().get(0).getField());
+        assertTrue(response.getItems().get(3).getErrors().get(0).getMessage().contains("not active"));
+        assertTrue(response.getItems().get(4).getErrors().get(0).getMessage().contains("not found"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Payment>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(paymentBulkRepository).insertPayments(inserted.capture(), anyInt());
+        assertEquals(2, inserted.getValue().size());
+        assertTrue(inserted.getValue().get(0).getBatchEligible());
+        verify(paymentBulkRepository).insertStatusHistory(same(inserted.getValue()), any(), any(), anyInt());
+    }
+
+    @Test
+    void createPayments_ResolvesAccountsWithOneQueryAndIdsWithOneAllocation() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE),
+                account(2L, Account.AccountStatus.ACTIVE)));
+
+        paymentBulkService.createPayments(request(item(1L, "10.00"), item(2L, "10.00"), item(1L, "30.00")));
+
+        verify(accountRepository).findAllById(Set.of(1L, 2L));
+        verify(paymentBulkRepository).allocatePaymentIds(3);
+        verifyNoInteractions(paymentMethodRepository);
+    }
+
+    @Test
+    void createPayments_ReportsItemsForAccountsOfOtherUsers() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE),
+                account(2L, Account.AccountStatus.ACTIVE)));
+        when(accountAccess.canAccess(2L)).thenReturn(false);
+
+        BulkCreatePaymentResponse response = paymentBulkService.createPayments(request(
+                item(1L, "10.00"), item(2L, "10.00")));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getInvalid());
+        assertEquals(101L, response.getItems().get(0).getId());
+        assertNull(response.getItems().get(1).getId());
+        assertEquals("accountId", response.getItems().get(1).getErrors().get(0).getField());
+        verify(paymentBulkRepository).allocatePaymentIds(1);
+    }
+
+    @Test
+    void createPayments_RejectsHighRiskPaymentsAsFailed() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE)));
+        when(riskAssessmentService.scorePaymentRisk(any())).thenReturn(BigDecimal.valueOf(85));
+
+        BulkCreatePaymentResponse response = paymentBulkService.createPayments(request(item(1L, "10.00")));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getRejected());
+        assertEquals(Payment.PaymentStatus.FAILED, response.getItems().get(0).getStatus());
+        verify(paymentBatchService, never()).submit(any());
+        verifyNoInteractions(deadlineScheduler);
+    }
+
+    @Test
+    void createPayments_JoinsMicroBatches() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE)));
+        when(paymentBatchService.submit(any())).thenReturn(PaymentBatchService.Submission.QUEUED);
+
+        paymentBulkService.createPayments(request(item(1L, "10.00"), item(1L, "20.00")));
+
+        verify(paymentBatchService, times(2)).submit(any());
+        verify(paymentService, never()).processPaymentAsync(anyLong());
+    }
+
+    @Test
+    void createPayments_SchedulesTheExpiryOfPendingPayments() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE)));
+        when(paymentBatchService.submit(any())).thenReturn(PaymentBatchService.Submission.QUEUED);
+
+        BulkCreatePaymentResponse response = paymentBulkService.createPayments(request(
+                item(1L, "10.00"), item(1L, "20.00")));
+
+        verify(deadlineScheduler).schedule(eq(DeadlineType.PAYMENT_EXPIRY), eq(101L), notNull());
+        verify(deadlineScheduler).schedule(eq(DeadlineType.PAYMENT_EXPIRY), eq(102L), notNull());
+        assertEquals(2, response.getCreated());
+    }
+
+    @Test
+    void createPayments_WithBatchingDisabled_ProcessesEachPaymentOnItsOwn() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE)));
+        when(paymentBatchService.submit(any())).thenReturn(PaymentBatchService.Submission.NOT_BATCHED);
+
+        paymentBulkService.createPayments(request(item(1L, "10.00"), item(1L, "20.00")));
+
+        verify(paymentService).processPaymentAsync(101L);
+        verify(paymentService).processPaymentAsync(102L);
+    }
+
+    @Test
+    void createPayments_WithTheAsyncPoolFull_LeavesTheOverflowPending() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE)));
+        when(paymentBatchService.submit(any())).thenReturn(PaymentBatchService.Submission.NOT_BATCHED);
+        doThrow(new RejectedExecutionException("full")).when(paymentService).processPaymentAsync(102L);
+
+        BulkCreatePaymentResponse response = paymentBulkService.createPayments(request(
+                item(1L, "10.00"), item(1L, "20.00")));
+
+        verify(paymentService).processPaymentAsync(101L);
+        assertEquals(1, response.getAccepted());
+        assertEquals(1, response.getQueued());
+        assertEquals(Payment.PaymentStatus.PENDING, response.getItems().get(1).getStatus());
+    }
+
+    @Test
+    void createPayments_WithTheBatcherFull_LeavesBatchEligiblePaymentsForTheRequeue() {
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(1L, Account.AccountStatus.ACTIVE)));
+        when(paymentBatchService.submit(any())).thenAnswer(invocation ->
+                invocation.<Payment>getArgument(0).getId() == 101L
+                        ? PaymentBatchService.Submission.QUEUED : PaymentBatchService.Submission.FULL);
+
+        BulkCreatePaymentResponse response = paymentBulkService.createPayments(request(
+                item(1L, "10.00"), item(1L, "20.00")));
+
+        verify(paymentService, never()).processPaymentAsync(anyLong());
+        assertEquals(1, response.getAccepted());
+        assertEquals(1, response.getQueued());
+    }
+
+    @Test
+    void createPayments_WritesNothingWhenEveryItemIsInvalid() {
+        BulkCreatePaymentResponse response = paymentBulkService.createPayments(request(item(null, "10.00")));
+
+        assertEquals(0, response.getCreated());
+        verify(paymentBulkRepository, never()).allocatePaymentIds(anyInt());
+        verify(paymentBulkRepository, never()).insertPayments(any(), anyInt());
+    }
+
+    private static BulkCreatePaymentRequest request(CreatePaymentRequest... items) {
+        BulkCreatePaymentRequest request = new BulkCreatePaymentRequest();
+        request.setPayments(Arrays.asList(items));
+        return request;
+    }
+
+    private static CreatePaymentRequest item(Long accountId, String amount) {
+        CreatePaymentRequest item = new CreatePaymentRequest();
+        item.setAccountId(accountId);
+        item.setAmount(new BigDecimal(amount));
+        item.setCurrencyCode("USD");
+        return item;
+    }
+
+    private static Account account(Long id, Account.AccountStatus status) {
+        Account account = new Account();
+        account.setId(id);
+        account.setStatus(status);
+        account.setCreatedAt(OffsetDateTime.now().minusYears(1));
+        return account;
+    }
+}
@@ -0,0 +1,125 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.repository.PaymentBatchRepository;
+import com.enterprise.payment.repository.PaymentBatchRepository.ExpiredPayment;
+import com.enterprise.payment.repository.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentExpiryServiceTest {
+
+    private static final OffsetDateTime CUTOFF = OffsetDateTime.parse("2024-01-02T00:00:00Z");
+
+    @Mock
+    private PaymentBatchRepository paymentBatchRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private WebhookService webhookService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PaymentExpiryService paymentExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        paymentExpiryService = new PaymentExpiryService(paymentBatchRepository, paymentRepository,
+                notificationService, webhookService, new PaymentMetrics(registry),
+                new TransactionTemplate(transactionManager), true, 2);
+        lenient().when(paymentRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<Payment> payments = new ArrayList<>();
+            ids.forEach(id -> {
+                Payment payment = new Payment();
+                payment.setId(id);
+                payments.add(payment);
+            });
+            return payments;
+        });
+    }
+
+    @Test
+    void sweep_ContinuesAfterTheLastPaymentOfEachFullBatch() {
+        ExpiredPayment p1 = expired(1, 10);
+        ExpiredPayment p2 = expired(2, 11);
+        ExpiredPayment p3 = expired(3, 11);
+        ExpiredPayment p4 = expired(4, 12);
+        ExpiredPayment p5 = expired(5, 13);
+        when(paymentBatchRepository.expirePending(eq(CUTOFF), isNull(), eq(2), eq("system"), any()))
+                .thenReturn(List.of(p1, p2));
+        when(paymentBatchRepository.expirePending(eq(CUTOFF), eq(p2), eq(2), eq("system"), any()))
+                .thenReturn(List.of(p3, p4));
+        when(paymentBatchRepository.expirePending(eq(CUTOFF), eq(p4), eq(2), eq("system"), any()))
+                .thenReturn(List.of(p5));
+
+        PaymentExpiryService.SweepResult result = paymentExpiryService.sweep(CUTOFF);
+
+        assertEquals(5, result.expired());
+        assertEquals(3, result.batches());
+        verify(paymentBatchRepository, times(3)).expirePending(any(), any(), anyInt(), any(), any());
+        verify(webhookService, times(5)).sendPaymentWebhook(any(), eq("payment.cancelled"));
+        verify(notificationService, times(5)).sendPaymentCancelledNotification(any());
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(5, registry.get("payments.expired").counter().count());
+    }
+
+    @Test
+    void sweep_StopsAtAnEmptyBatchWithoutPublishing() {
+        ExpiredPayment p1 = expired(1, 10);
+        ExpiredPayment p2 = expired(2, 11);
+        when(paymentBatchRepository.expirePending(eq(CUTOFF), isNull(), eq(2), any(), any()))
+                .thenReturn(List.of(p1, p2));
+        when(paymentBatchRepository.expirePending(eq(CUTOFF), eq(p2), eq(2), any(), any()))
+                .thenReturn(List.of());
+
+        PaymentExpiryService.SweepResult result = paymentExpiryService.sweep(CUTOFF);
+
+        assertEquals(2, result.expired());
+        assertEquals(1, result.batches());
+        verify(paymentRepository, times(1)).findAllById(any());
+        verify(webhookService, times(2)).sendPaymentWebhook(any(), eq("payment.cancelled"));
+        assertEquals(1, registry.get("payment.expiry.sweep").timer().count());
+    }
+
+    @Test
+    void handle_ExpiresOnlyTheDuePayments() {
+        when(paymentBatchRepository.expireDue(eq(List.of(1L, 2L, 3L)), eq("system"), any()))
+                .thenReturn(List.of(expired(1, 10), expired(3, 10)));
+
+        paymentExpiryService.handle(List.of(1L, 2L, 3L));
+
+        verify(paymentBatchRepository, never()).expirePending(any(), any(), anyInt(), any(), any());
+        verify(webhookService, times(2)).sendPaymentWebhook(any(), eq("payment.cancelled"));
+        assertEquals(2, registry.get("payments.expired").counter().count());
+    }
+
+    private static ExpiredPayment expired(long id, int hour) {
+        return new ExpiredPayment(id, 1L, "PAY_" + id, BigDecimal.TEN, "USD",
+                OffsetDateTime.parse("2024-01-01T00:00:00Z").plusHours(hour));
+    }
+}
@@ -0,0 +1,74 @@
+package com.enterprise.payment.service;
+
+import com.enterprise.payment.entity.Payment;
+import com.enterprise.payment.exception.GatewayUnavailableException;
+import com.enterprise.payment.exception.PaymentProcessingException;
+import com.enterprise.payment.gateway.GatewayRouter;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentTracing;
+import com.enterprise.payment.repository.AuditLogRepository;
+import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
+import io.github.resilience4j.springboot3.retry.autoconfigure.RetryAutoConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * The gateway call through the resilience4j aspects and the {@code payment-gateway}
+ * configuration of application.yml: the router's failover is the only retry, so a payment
+ * no gateway took is declined after one attempt, and an unknown outcome propagates.
+ */
+@SpringBootTest(classes = {PaymentGatewayService.class, PaymentTracing.class},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ImportAutoConfiguration({AopAutoConfiguration.class, CircuitBreakerAutoConfiguration.class,
+        RetryAutoConfiguration.class})
+class PaymentGatewayServiceTest {
+
+    @MockBean
+    private GatewayRouter gatewayRouter;
+
+    @MockBean
+    private PaymentMetrics paymentMetrics;
+
+    @MockBean
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private PaymentGatewayService paymentGatewayService;
+
+    @Test
+    void processPayment_WhenNoGatewayTakesIt_DeclinesWithoutRetrying() {
+        when(gatewayRouter.submit(any())).thenThrow(new GatewayUnavailableException("All gateways are open"));
+
+        assertFalse(paymentGatewayService.processPayment(payment()));
+
+        verify(gatewayRouter, times(1)).submit(any());
+    }
+
+    @Test
+    void processPayment_WhenTheOutcomeIsUnknown_PropagatesWithoutRetrying() {
+        when(gatewayRouter.submit(any())).thenThrow(new IllegalStateException("Read timed out"));
+
+        assertThrows(PaymentProcessingException.class, () -> paymentGatewayService.processPayment(payment()));
+
+        verify(gatewayRouter, times(1)).submit(any());
+    }
+
+    private static Payment payment() {
+        Payment payment = new Payment();
+        payment.setId(1L);
+        payment.setPaymentReference("PAY-001");
+        payment.setAmount(new BigDecimal("100.00"));
+        payment.setCurrencyCode("USD");
+        return payment;
+    }
+}
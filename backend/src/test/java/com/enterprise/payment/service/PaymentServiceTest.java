@@ -1,33 +1,53 @@
 package com.enterprise.payment.service;
 
-import com.enterprise.payment.dto.request.CreateCreatePaymentRequest;
+import com.enterprise.payment.deadline.DeadlineScheduler;
+import com.enterprise.payment.deadline.DeadlineType;
+import com.enterprise.payment.dto.request.CreatePaymentRequest;
+import com.enterprise.payment.dto.request.RefundPaymentRequest;
 import com.enterprise.payment.dto.response.PaymentResponse;
 import com.enterprise.payment.entity.Account;
 import com.enterprise.payment.entity.Payment;
 import com.enterprise.payment.entity.PaymentMethod;
-import com.enterprise.payment.entity.User;
 import com.enterprise.payment.exception.AccountNotFoundException;
 import com.enterprise.payment.exception.InsufficientFundsException;
 import com.enterprise.payment.exception.PaymentNotFoundException;
 import com.enterprise.payment.exception.PaymentProcessingException;
+import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import com.enterprise.payment.monitoring.PaymentTracing;
 import com.enterprise.payment.repository.AccountRepository;
+import com.enterprise.payment.repository.PaymentBatchRepository;
+import com.enterprise.payment.repository.PaymentBatchRepository.BatchPayment;
+import com.enterprise.payment.repository.PaymentBatchRepository.Settlement;
 import com.enterprise.payment.repository.PaymentMethodRepository;
+import com.enterprise.payment.repository.PaymentReadRepository;
+import com.enterprise.payment.repository.PaymentReadRepository.PaymentView;
 import com.enterprise.payment.repository.PaymentRepository;
+import com.enterprise.payment.security.AccountAccess;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -39,6 +59,9 @@ class PaymentServiceTest {
     @Mock
     private PaymentRepository paymentRepository;
 
+    @Mock
+    private PaymentReadRepository paymentReadRepository;
+
     @Mock
     private AccountRepository accountRepository;
 
@@ -46,12 +69,50 @@ class PaymentServiceTest {
     private PaymentMethodRepository paymentMethodRepository;
 
     @Mock
-    private TransactionService transactionService;
+    private PaymentGatewayService paymentGatewayService;
+
+    @Mock
+    private PaymentBatchService paymentBatchService;
+
+    @Mock
+    private PaymentBatchRepository paymentBatchRepository;
+
+    @Mock
+    private RiskAssessmentService riskAssessmentService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private WebhookService webhookService;
+
+    @Spy
+    private PaymentMetrics paymentMetrics = new PaymentMetrics(new SimpleMeterRegistry());
+
+    @Mock
+    private PaymentTracing paymentTracing;
+
+    @Spy
+    private ReferenceGenerator referenceGenerator = new ReferenceGenerator(1, System::currentTimeMillis);
+
+    @Mock
+    private Executor taskExecutor;
+
+    @Mock
+    private DeadlineScheduler deadlineScheduler;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AccountAccess accountAccess;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
 
     @InjectMocks
     private PaymentService paymentService;
 
-    private User testUser;
     private Account testAccount;
     private PaymentMethod testPaymentMethod;
     private Payment testPayment;
@@ -59,10 +120,7 @@ class PaymentServiceTest {
 
     @BeforeEach
     void setUp() {
-        testUser = new User();
-        testUser.setId(1L);
-        testUser.setUsername("testuser");
-        testUser.setEmail("test@example.com");
+        transactionTemplate.setTransactionManager(transactionManager);
 
         testAccount = new Account();
         testAccount.setId(1L);
@@ -90,6 +148,7 @@ class PaymentServiceTest {
         testPayment.setCreatedAt(OffsetDateTime.now());
 
         paymentRequest = new CreatePaymentRequest();
+        paymentRequest.setAccountId(1L);
         paymentRequest.setPaymentMethodId(1L);
         paymentRequest.setAmount(new BigDecimal("100.00"));
         paymentRequest.setCurrencyCode("USD");
@@ -98,16 +157,15 @@ class PaymentServiceTest {
     }
 
     @Test
-    void initiatePayment_WithValidRequest_ShouldReturnPaymentResponse() {
+    void createPayment_WithValidRequest_ShouldReturnPaymentResponse() {
         // Arrange
-        when(accountRepository.findByUsersContaining(testUser))
-                .thenReturn(Optional.of(testAccount));
-        when(paymentMethodRepository.findByIdAndAccountAndIsActiveTrue(1L, testAccount))
-                .thenReturn(Optional.of(testPaymentMethod));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(paymentMethodRepository.findById(1L)).thenReturn(Optional.of(testPaymentMethod));
+        when(riskAssessmentService.assessPaymentRisk(any(Payment.class))).thenReturn(BigDecimal.TEN);
         when(paymentRepository.save(any(Payment.class))).thenReturn(testPayment);
 
         // Act
-        PaymentResponse response = paymentService.initiatePayment(paymentRequest, testUser);
+        PaymentResponse response = paymentService.createPayment(paymentRequest);
 
         // Assert
         assertNotNull(response);
@@ -115,170 +173,316 @@ class PaymentServiceTest {
         assertEquals(new BigDecimal("100.00"), response.getAmount());
         assertEquals("USD", response.getCurrencyCode());
         assertEquals("Test Payment", response.getDescription());
-        assertEquals("PENDING", response.getStatus());
+        assertEquals(Payment.PaymentStatus.PENDING, response.getStatus());
 
-        verify(accountRepository).findByUsersContaining(testUser);
-        verify(paymentMethodRepository).findByIdAndAccountAndIsActiveTrue(1L, testAccount);
+        verify(accountRepository).findById(1L);
+        verify(paymentMethodRepository).findById(1L);
         verify(paymentRepository).save(any(Payment.class));
+        verify(referenceGenerator).nextPaymentReference();
+        verify(deadlineScheduler).schedule(eq(DeadlineType.PAYMENT_EXPIRY), eq(1L), any());
     }
 
     @Test
-    void initiatePayment_WithNoAccount_ShouldThrowAccountNotFoundException() {
+    void createPayment_WithNoAccount_ShouldThrowAccountNotFoundException() {
         // Arrange
-        when(accountRepository.findByUsersContaining(testUser))
-                .thenReturn(Optional.empty());
+        when(accountRepository.findById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         AccountNotFoundException exception = assertThrows(AccountNotFoundException.class,
-                () -> paymentService.initiatePayment(paymentRequest, testUser));
+                () -> paymentService.createPayment(paymentRequest));
 
-        assertEquals("Account not found for user: testuser", exception.getMessage());
-        verify(accountRepository).findByUsersContaining(testUser);
+        assertEquals("Account not found with ID: 1", exception.getMessage());
+        verify(accountRepository).findById(1L);
         verifyNoInteractions(paymentMethodRepository, paymentRepository);
     }
 
     @Test
-    void initiatePayment_WithInvalidPaymentMethod_ShouldThrowPaymentProcessingException() {
+    void createPayment_WithInvalidPaymentMethod_ShouldThrowValidationException() {
         // Arrange
-        when(accountRepository.findByUsersContaining(testUser))
-                .thenReturn(Optional.of(testAccount));
-        when(paymentMethodRepository.findByIdAndAccountAndIsActiveTrue(1L, testAccount))
-                .thenReturn(Optional.empty());
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(paymentMethodRepository.findById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
-        PaymentProcessingException exception = assertThrows(PaymentProcessingException.class,
-                () -> paymentService.initiatePayment(paymentRequest, testUser));
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> paymentService.createPayment(paymentRequest));
 
-        assertEquals("Invalid payment method", exception.getMessage());
-        verify(paymentMethodRepository).findByIdAndAccountAndIsActiveTrue(1L, testAccount);
+        assertEquals("Invalid payment method ID", exception.getMessage());
+        verify(paymentMethodRepository).findById(1L);
         verifyNoInteractions(paymentRepository);
     }
 
     @Test
-    void initiatePayment_WithInsufficientFunds_ShouldThrowInsufficientFundsException() {
+    void createPayment_WithHighRiskScore_ShouldNotScheduleAnExpiry() {
+        // Arrange
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(paymentMethodRepository.findById(1L)).thenReturn(Optional.of(testPaymentMethod));
+        when(riskAssessmentService.assessPaymentRisk(any(Payment.class))).thenReturn(BigDecimal.valueOf(90));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        PaymentResponse response = paymentService.createPayment(paymentRequest);
+
+        // Assert
+        assertEquals(Payment.PaymentStatus.FAILED, response.getStatus());
+        verify(deadlineScheduler, never()).schedule(any(), anyLong(), any());
+        verifyNoInteractions(paymentBatchService);
+    }
+
+    @Test
+    void createPayment_WhenBatchEligible_ShouldJoinAMicroBatch() {
+        // Arrange
+        paymentRequest.setBatchEligible(true);
+        testPayment.setBatchEligible(true);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(paymentMethodRepository.findById(1L)).thenReturn(Optional.of(testPaymentMethod));
+        when(riskAssessmentService.assessPaymentRisk(any(Payment.class))).thenReturn(BigDecimal.TEN);
+        when(paymentRepository.save(any(Payment.class))).thenReturn(testPayment);
+        when(paymentBatchService.submit(testPayment)).thenReturn(PaymentBatchService.Submission.QUEUED);
+
+        // Act
+        paymentService.createPayment(paymentRequest);
+
+        // Assert
+        verify(paymentBatchService).submit(testPayment);
+        verifyNoInteractions(taskExecutor);
+    }
+
+    @Test
+    void createPayment_WhenTheTaskPoolIsFull_ShouldFailThePayment() {
+        // Arrange
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(paymentMethodRepository.findById(1L)).thenReturn(Optional.of(testPaymentMethod));
+        when(riskAssessmentService.assessPaymentRisk(any(Payment.class))).thenReturn(BigDecimal.TEN);
+        when(paymentRepository.save(any(Payment.class))).thenReturn(testPayment);
+        Payment committed = new Payment();
+        committed.setId(1L);
+        committed.setStatus(Payment.PaymentStatus.PENDING);
+        committed.setStatusHistory(new ArrayList<>());
+        when(paymentRepository.findById(1L)).thenReturn(Optional.of(committed));
+        doThrow(new RejectedExecutionException("full")).when(taskExecutor).execute(any());
+
+        // Act
+        paymentService.createPayment(paymentRequest);
+
+        // Assert
+        assertEquals(Payment.PaymentStatus.FAILED, committed.getStatus());
+        verify(paymentRepository).save(committed);
+        verify(deadlineScheduler).cancel(DeadlineType.PAYMENT_EXPIRY, 1L);
+    }
+
+    @Test
+    void processPaymentAsync_ShouldTakeOneSlotOfTheTaskPool() {
+        // Act
+        paymentService.processPaymentAsync(1L);
+
+        // Assert
+        verify(taskExecutor, times(1)).execute(any());
+    }
+
+    @Test
+    void processPaymentAsync_WhenTheTaskPoolIsFull_ShouldThrowToTheCaller() {
+        // Arrange
+        doThrow(new RejectedExecutionException("full")).when(taskExecutor).execute(any());
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> paymentService.processPaymentAsync(1L));
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void processPayment_WithInsufficientFunds_ShouldFailWithInsufficientFundsException() {
         // Arrange
         testAccount.setBalance(new BigDecimal("50.00"));
-        when(accountRepository.findByUsersContaining(testUser))
-                .thenReturn(Optional.of(testAccount));
-        when(paymentMethodRepository.findByIdAndAccountAndIsActiveTrue(1L, testAccount))
-                .thenReturn(Optional.of(testPaymentMethod));
+        when(paymentRepository.findWithAccountById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentBatchRepository.claimPending(eq(List.of(1L)), any())).thenReturn(List.of(claimed()));
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("100.00"))).thenReturn(0);
+        when(accountRepository.findBalanceById(1L)).thenReturn(new BigDecimal("50.00"));
 
         // Act & Assert
-        InsufficientFundsException exception = assertThrows(InsufficientFundsException.class,
-                () -> paymentService.initiatePayment(paymentRequest, testUser));
+        PaymentProcessingException exception = assertThrows(PaymentProcessingException.class,
+                () -> paymentService.processPayment(1L));
 
-        assertTrue(exception.getMessage().contains("Insufficient funds"));
-        verify(accountRepository).findByUsersContaining(testUser);
-        verify(paymentMethodRepository).findByIdAndAccountAndIsActiveTrue(1L, testAccount);
-        verifyNoInteractions(paymentRepository);
+        InsufficientFundsException shortfall = assertInstanceOf(InsufficientFundsException.class,
+                exception.getCause());
+        assertTrue(shortfall.getMessage().contains("Insufficient funds"));
+        assertEquals(new BigDecimal("50.00"), shortfall.getAvailableBalance());
+        verify(paymentBatchRepository).reject(anyList(), any(), any());
+        verifyNoInteractions(paymentGatewayService);
     }
 
     @Test
-    void processPayment_WithValidPayment_ShouldReturnProcessedPayment() {
+    void processPayment_WithValidPayment_ShouldCallTheGatewayBetweenReservingAndSettling() {
         // Arrange
-        when(paymentRepository.findById(1L)).thenReturn(Optional.of(testPayment));
-        when(paymentRepository.save(any(Payment.class))).thenReturn(testPayment);
+        when(paymentRepository.findWithAccountById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentBatchRepository.claimPending(eq(List.of(1L)), any())).thenReturn(List.of(claimed()));
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("100.00"))).thenReturn(1);
+        when(paymentGatewayService.processPayment(testPayment)).thenReturn(true);
+        when(paymentBatchRepository.settle(anyList(), any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        PaymentResponse response = paymentService.processPayment(1L);
+        paymentService.processPayment(1L);
 
         // Assert
-        assertNotNull(response);
-        verify(paymentRepository).findById(1L);
-        verify(transactionService).createTransaction(testPayment);
-        verify(paymentRepository).save(testPayment);
+        InOrder inOrder = inOrder(transactionManager, accountRepository, paymentGatewayService, paymentBatchRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(accountRepository).debitIfSufficient(1L, new BigDecimal("100.00"));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(paymentGatewayService).processPayment(testPayment);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(paymentBatchRepository).settle(anyList(), any(), any());
+        inOrder.verify(transactionManager).commit(any());
+        assertEquals(Payment.PaymentStatus.COMPLETED, settled().status());
+        assertEquals(Payment.PaymentStatus.COMPLETED, testPayment.getStatus());
+        verify(notificationService).sendPaymentSuccessNotification(testPayment);
+        verify(webhookService).sendPaymentWebhook(testPayment, "payment.completed");
     }
 
     @Test
     void processPayment_WithInvalidPaymentId_ShouldThrowPaymentNotFoundException() {
         // Arrange
-        when(paymentRepository.findById(1L)).thenReturn(Optional.empty());
+        when(paymentRepository.findWithAccountById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
-        PaymentNotFoundException exception = assertThrows(PaymentNotFoundException.class,
-                () -> paymentService.processPayment(1L));
+        assertThrows(PaymentNotFoundException.class, () -> paymentService.processPayment(1L));
 
-        assertEquals("Payment not found with ID: 1", exception.getMessage());
-        verify(paymentRepository).findById(1L);
-        verifyNoInteractions(transactionService);
+        verify(paymentRepository).findWithAccountById(1L);
+        verifyNoInteractions(paymentBatchRepository, paymentGatewayService);
     }
 
     @Test
-    void getPayment_WithValidId_ShouldReturnPayment() {
+    void processPayment_WhenDeclined_ShouldSettleAsFailed() {
         // Arrange
-        when(paymentRepository.findById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentRepository.findWithAccountById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentBatchRepository.claimPending(eq(List.of(1L)), any())).thenReturn(List.of(claimed()));
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("100.00"))).thenReturn(1);
+        when(paymentGatewayService.processPayment(testPayment)).thenReturn(false);
+        when(paymentBatchRepository.settle(anyList(), any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        PaymentResponse response = paymentService.getPayment(1L, testUser);
+        paymentService.processPayment(1L);
+
+        // Assert
+        assertEquals(Payment.PaymentStatus.FAILED, settled().status());
+        verifyNoInteractions(notificationService, webhookService);
+    }
+
+    @Test
+    void processPayment_WithUnknownGatewayOutcome_ShouldLeaveThePaymentReserved() {
+        // Arrange
+        when(paymentRepository.findWithAccountById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentBatchRepository.claimPending(eq(List.of(1L)), any())).thenReturn(List.of(claimed()));
+        when(accountRepository.debitIfSufficient(1L, new BigDecimal("100.00"))).thenReturn(1);
+        when(paymentGatewayService.processPayment(testPayment))
+                .thenThrow(new PaymentProcessingException("Payment gateway error"));
+
+        // Act & Assert
+        assertThrows(PaymentProcessingException.class, () -> paymentService.processPayment(1L));
+
+        verify(paymentBatchRepository, never()).settle(anyList(), any(), any());
+        verify(accountRepository, never()).credit(anyLong(), any());
+    }
+
+    @Test
+    void processPayment_WhenTakenByAnotherWorker_ShouldLeaveItAlone() {
+        // Arrange
+        when(paymentRepository.findWithAccountById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentBatchRepository.claimPending(eq(List.of(1L)), any())).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(PaymentProcessingException.class, () -> paymentService.processPayment(1L));
+
+        verify(accountRepository, never()).debitIfSufficient(anyLong(), any());
+        verifyNoInteractions(paymentGatewayService);
+    }
+
+    @Test
+    void getPayment_WithValidReference_ShouldReturnPayment() {
+        // Arrange
+        when(paymentReadRepository.findPaymentByReference("PAY-001", true)).thenReturn(Optional.of(view()));
+
+        // Act
+        PaymentResponse response = paymentService.getPaymentByReference("PAY-001");
 
         // Assert
         assertNotNull(response);
         assertEquals("PAY-001", response.getPaymentReference());
-        verify(paymentRepository).findById(1L);
+        verify(paymentReadRepository).findPaymentByReference("PAY-001", true);
     }
 
     @Test
-    void getPayment_WithInvalidId_ShouldThrowPaymentNotFoundException() {
+    void getPayment_WithInvalidReference_ShouldThrowPaymentNotFoundException() {
         // Arrange
-        when(paymentRepository.findById(1L)).thenReturn(Optional.empty());
+        when(paymentReadRepository.findPaymentByReference("PAY-404", true)).thenReturn(Optional.empty());
 
         // Act & Assert
-        PaymentNotFoundException exception = assertThrows(PaymentNotFoundException.class,
-                () -> paymentService.getPayment(1L, testUser));
+        assertThrows(PaymentNotFoundException.class, () -> paymentService.getPaymentByReference("PAY-404"));
 
-        assertEquals("Payment not found with ID: 1", exception.getMessage());
-        verify(paymentRepository).findById(1L);
+        verify(paymentReadRepository).findPaymentByReference("PAY-404", true);
     }
 
     @Test
-    void getUserPayments_ShouldReturnPagedPayments() {
+    void getAccountPayments_ShouldReturnPagedPayments() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Payment> paymentPage = new PageImpl<>(Arrays.asList(testPayment));
-        
-        when(accountRepository.findByUsersContaining(testUser))
-                .thenReturn(Optional.of(testAccount));
-        when(paymentRepository.findByAccountOrderByCreatedAtDesc(testAccount, pageable))
-                .thenReturn(paymentPage);
+        Page<PaymentView> paymentPage = new PageImpl<>(List.of(view()));
+
+        when(paymentReadRepository.findAccountId("ACC001")).thenReturn(Optional.of(1L));
+        when(paymentReadRepository.findPaymentsByAccountId(1L, pageable, false)).thenReturn(paymentPage);
 
         // Act
-        Page<PaymentResponse> result = paymentService.getUserPayments(testUser, pageable);
+        Page<PaymentResponse> result = paymentService.getPaymentsForAccount("ACC001", pageable, false);
 
         // Assert
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals("PAY-001", result.getContent().get(0).getPaymentReference());
-        verify(accountRepository).findByUsersContaining(testUser);
-        verify(paymentRepository).findByAccountOrderByCreatedAtDesc(testAccount, pageable);
+        verify(paymentReadRepository).findAccountId("ACC001");
+        verify(paymentReadRepository).findPaymentsByAccountId(1L, pageable, false);
     }
 
     @Test
     void cancelPayment_WithValidPayment_ShouldCancelPayment() {
         // Arrange
-        when(paymentRepository.findById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentRepository.findByPaymentReference("PAY-001")).thenReturn(Optional.of(testPayment));
         when(paymentRepository.save(any(Payment.class))).thenReturn(testPayment);
 
         // Act
-        PaymentResponse response = paymentService.cancelPayment(1L, testUser);
+        PaymentResponse response = paymentService.cancelPayment("PAY-001", "Customer request");
 
         // Assert
         assertNotNull(response);
-        verify(paymentRepository).findById(1L);
+        assertEquals(Payment.PaymentStatus.CANCELLED, response.getStatus());
+        verify(paymentRepository).findByPaymentReference("PAY-001");
         verify(paymentRepository).save(testPayment);
+        verify(deadlineScheduler).cancel(DeadlineType.PAYMENT_EXPIRY, 1L);
     }
 
     @Test
     void cancelPayment_WithCompletedPayment_ShouldThrowPaymentProcessingException() {
         // Arrange
         testPayment.setStatus(Payment.PaymentStatus.COMPLETED);
-        when(paymentRepository.findById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentRepository.findByPaymentReference("PAY-001")).thenReturn(Optional.of(testPayment));
 
         // Act & Assert
         PaymentProcessingException exception = assertThrows(PaymentProcessingException.class,
-                () -> paymentService.cancelPayment(1L, testUser));
+                () -> paymentService.cancelPayment("PAY-001", "Customer request"));
 
-        assertEquals("Cannot cancel a completed payment", exception.getMessage());
-        verify(paymentRepository).findById(1L);
+        assertEquals("Payment cannot be cancelled in current state: COMPLETED", exception.getMessage());
+        verify(paymentRepository).findByPaymentReference("PAY-001");
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelPayment_WhileAtTheGateway_ShouldThrowPaymentProcessingException() {
+        // Arrange
+        testPayment.setStatus(Payment.PaymentStatus.PROCESSING);
+        when(paymentRepository.findByPaymentReference("PAY-001")).thenReturn(Optional.of(testPayment));
+
+        // Act & Assert
+        assertThrows(PaymentProcessingException.class,
+                () -> paymentService.cancelPayment("PAY-001", "Customer request"));
+
+        assertEquals(Payment.PaymentStatus.PROCESSING, testPayment.getStatus());
         verify(paymentRepository, never()).save(any());
     }
 
@@ -286,30 +490,58 @@ class PaymentServiceTest {
     void refundPayment_WithValidPayment_ShouldProcessRefund() {
         // Arrange
         testPayment.setStatus(Payment.PaymentStatus.COMPLETED);
-        when(paymentRepository.findById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentRepository.findByPaymentReference("PAY-001")).thenReturn(Optional.of(testPayment));
         when(paymentRepository.save(any(Payment.class))).thenReturn(testPayment);
+        when(paymentGatewayService.refundPayment(testPayment, new BigDecimal("100.00"))).thenReturn(true);
 
         // Act
-        PaymentResponse response = paymentService.refundPayment(1L, testUser);
+        PaymentResponse response = paymentService.refundPayment("PAY-001", refund(new BigDecimal("100.00")));
 
         // Assert
         assertNotNull(response);
-        verify(paymentRepository).findById(1L);
-        verify(transactionService).createRefundTransaction(testPayment);
+        assertEquals(Payment.PaymentStatus.REFUNDED, response.getStatus());
+        assertEquals(new BigDecimal("1100.00"), testAccount.getBalance());
+        verify(paymentRepository).findByPaymentReference("PAY-001");
+        verify(paymentGatewayService).refundPayment(testPayment, new BigDecimal("100.00"));
         verify(paymentRepository).save(testPayment);
     }
 
     @Test
     void refundPayment_WithNonCompletedPayment_ShouldThrowPaymentProcessingException() {
         // Arrange
-        when(paymentRepository.findById(1L)).thenReturn(Optional.of(testPayment));
+        when(paymentRepository.findByPaymentReference("PAY-001")).thenReturn(Optional.of(testPayment));
 
         // Act & Assert
         PaymentProcessingException exception = assertThrows(PaymentProcessingException.class,
-                () -> paymentService.refundPayment(1L, testUser));
+                () -> paymentService.refundPayment("PAY-001", refund(new BigDecimal("100.00"))));
+
+        assertEquals("Payment cannot be refunded in current state: PENDING", exception.getMessage());
+        verify(paymentRepository).findByPaymentReference("PAY-001");
+        verifyNoInteractions(paymentGatewayService);
+    }
+
+    private Settlement settled() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Settlement>> settlements = ArgumentCaptor.forClass(List.class);
+        verify(paymentBatchRepository).settle(settlements.capture(), any(), any());
+        assertEquals(1, settlements.getValue().size());
+        return settlements.getValue().get(0);
+    }
+
+    private static BatchPayment claimed() {
+        return new BatchPayment(1L, 1L, "PAY-001", new BigDecimal("100.00"), "USD");
+    }
+
+    private PaymentView view() {
+        return new PaymentView(testPayment.getId(), testAccount.getId(), testPayment.getPaymentReference(),
+                testPayment.getAmount(), testPayment.getCurrencyCode(), testPayment.getDescription(), testPayment.getStatus(), null, null,
+                null, null, testPayment.getCreatedAt(), testPayment.getCreatedAt(), null);
+    }
 
-        assertEquals("Can only refund completed payments", exception.getMessage());
-        verify(paymentRepository).findById(1L);
-        verifyNoInteractions(transactionService);
+    private static RefundPaymentRequest refund(BigDecimal amount) {
+        RefundPaymentRequest request = new RefundPaymentRequest();
+        request.setAmount(amount);
+        request.setReason("Customer request");
+        return request;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.enterprise.payment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceGeneratorTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Test
+    void next_ProducesPrefixedCrockfordReferences() {
+        ReferenceGenerator generator = new ReferenceGenerator(7, () -> NOW);
+
+        String payment = generator.nextPaymentReference();
+        String transaction = generator.nextTransactionReference();
+
+        assertTrue(payment.matches("PAY_[0-9A-HJKMNP-TV-Z]{24}"), payment);
+        assertTrue(transaction.matches("TXN_[0-9A-HJKMNP-TV-Z]{24}"), transaction);
+        assertEquals(NOW, ReferenceGenerator.timestampOf(payment, ReferenceGenerator.PAYMENT_PREFIX));
+    }
+
+    @Test
+    void next_IsStrictlyIncreasingWhenTheClockStandsStillOrStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        ReferenceGenerator generator = new ReferenceGenerator(3, clock::get);
+
+        String previous = generator.nextPaymentReference();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.addAndGet(-60_000);
+            }
+            String next = generator.nextPaymentReference();
+            assertTrue(next.compareTo(previous) > 0, previous + " >= " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void next_OrdersReferencesOfDifferentNodesByTime() {
+        AtomicLong clock = new AtomicLong(NOW);
+        ReferenceGenerator nodeA = new ReferenceGenerator(900, clock::get);
+        ReferenceGenerator nodeB = new ReferenceGenerator(2, clock::get);
+
+        String earlier = nodeA.nextPaymentReference();
+        clock.incrementAndGet();
+        String later = nodeB.nextPaymentReference();
+
+        assertTrue(later.compareTo(earlier) > 0);
+    }
+
+    @Test
+    void next_IsUniqueAcrossThreads() throws InterruptedException {
+        ReferenceGenerator generator = new ReferenceGenerator(1, System::currentTimeMillis);
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    references.add(generator.nextPaymentReference());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8 * 20_000, references.size());
+    }
+
+    @Test
+    void constructor_RejectsNodeIdsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ReferenceGenerator(1024, () -> NOW));
+        assertThrows(IllegalArgumentException.class, () -> new ReferenceGenerator(-1, () -> NOW));
+        assertDoesNotThrow(() -> new ReferenceGenerator(-1));
+    }
+}
@@ -0,0 +1,159 @@
+package com.enterprise.payment.tokenization;
+
+import com.enterprise.payment.crypto.CardFingerprint;
+import com.enterprise.payment.crypto.CryptoJobCheckpoint;
+import com.enterprise.payment.crypto.CryptoJobCheckpointStore;
+import com.enterprise.payment.crypto.EncryptedDetails;
+import com.enterprise.payment.crypto.EncryptionProperties;
+import com.enterprise.payment.crypto.EnvelopeEncryption;
+import com.enterprise.payment.crypto.KeyedHash;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardFingerprintBackfillTest {
+
+    private static final String PAN = "4111111111111111";
+
+    private final EnvelopeEncryption encryption = new EnvelopeEncryption(new TokenVaultTest.InMemoryDataKeyStore(),
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8), null);
+    private final TokenVault vault = new TokenVault(new TokenVaultTest.InMemoryVaultStore(), encryption,
+            new KeyedHash("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8)),
+            new PaymentMetrics(new SimpleMeterRegistry()), new TokenizationProperties());
+    private final CardFingerprint cardFingerprint =
+            new CardFingerprint("card-fingerprint-key-of-32-bytes".getBytes(StandardCharsets.UTF_8));
+    private final InMemoryFingerprintStore store = new InMemoryFingerprintStore();
+    private final InMemoryCheckpointStore checkpointStore = new InMemoryCheckpointStore();
+
+    @Test
+    void fingerprint_IsKeyedAndTheSameForStringsAndCharacters() {
+        CardFingerprint otherKey = new CardFingerprint("another-fingerprint-key-32-bytes".getBytes(StandardCharsets.UTF_8));
+
+        assertArrayEquals(cardFingerprint.of(PAN), cardFingerprint.of(PAN.toCharArray()));
+        assertEquals(32, cardFingerprint.of(PAN).length);
+        assertFalse(Arrays.equals(cardFingerprint.of(PAN), otherKey.of(PAN)));
+        assertFalse(Arrays.equals(cardFingerprint.of(PAN), cardFingerprint.of("5555555555554444")));
+    }
+
+    @Test
+    void run_FingerprintsTokenizedAndLegacyRowsAndSkipsDuplicates() {
+        store.add(1, 10, true, "{cardholderName=Jane Doe, cardToken=" + vault.tokenize(PAN) + ", cvv=123}");
+        store.add(2, 10, true, "{cardholderName=Jane Doe, cardNumber=5555555555554444, cvv=123}");
+        // The same card again on account 10, and on another account
+        store.add(3, 10, true, "{cardholderName=Jane Doe, cardNumber=" + PAN + ", cvv=123}");
+        store.add(4, 20, true, "{cardholderName=John Doe, cardNumber=" + PAN + ", cvv=456}");
+        store.add(5, 20, true, "{cardholderName=John Doe, cardToken=tok_unknown}");
+        store.rows.put(6L, new Row(20, true, "encrypted_card_data_1"));
+
+        CryptoJobCheckpoint checkpoint = backfill(2).run(false);
+
+        assertTrue(checkpoint.finished());
+        assertEquals(6, checkpoint.scanned());
+        assertEquals(3, checkpoint.changed());
+        assertEquals(3, checkpoint.failed());
+        assertArrayEquals(cardFingerprint.of(PAN), store.rows.get(1L).fingerprint);
+        assertArrayEquals(cardFingerprint.of("5555555555554444"), store.rows.get(2L).fingerprint);
+        assertNull(store.rows.get(3L).fingerprint);
+        assertArrayEquals(cardFingerprint.of(PAN), store.rows.get(4L).fingerprint);
+    }
+
+    @Test
+    void rerun_FingerprintsADuplicateOnceTheOtherIsDeactivated() {
+        store.add(1, 10, true, "{cardNumber=" + PAN + "}");
+        store.add(2, 10, true, "{cardNumber=" + PAN + "}");
+        CardFingerprintBackfill backfill = backfill(10);
+        backfill.run(false);
+
+        store.rows.get(1L).active = false;
+        CryptoJobCheckpoint rerun = backfill.run(false);
+
+        assertEquals(1, rerun.scanned());
+        assertEquals(1, rerun.changed());
+        assertArrayEquals(cardFingerprint.of(PAN), store.rows.get(2L).fingerprint);
+    }
+
+    private CardFingerprintBackfill backfill(int batchSize) {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.getBulk().setBatchSize(batchSize);
+        return new CardFingerprintBackfill(store, checkpointStore, encryption, vault, cardFingerprint, Runnable::run,
+                properties);
+    }
+
+    static final class Row {
+
+        final long accountId;
+        final String encryptedDetails;
+        boolean active;
+        byte[] fingerprint;
+
+        Row(long accountId, boolean active, String encryptedDetails) {
+            this.accountId = accountId;
+            this.active = active;
+            this.encryptedDetails = encryptedDetails;
+        }
+    }
+
+    final class InMemoryFingerprintStore implements CardFingerprintStore {
+
+        final NavigableMap<Long, Row> rows = new ConcurrentSkipListMap<>();
+
+        void add(long id, long accountId, boolean active, String details) {
+            rows.put(id, new Row(accountId, active, encryption.encrypt(details)));
+        }
+
+        @Override
+        public List<EncryptedDetails> readUnfingerprinted(long afterId, int limit) {
+            List<EncryptedDetails> batch = new ArrayList<>();
+            for (Map.Entry<Long, Row> row : rows.tailMap(afterId, false).entrySet()) {
+                if (batch.size() == limit) {
+                    break;
+                }
+                if (row.getValue().fingerprint == null) {
+                    batch.add(new EncryptedDetails(row.getKey(), row.getValue().encryptedDetails));
+                }
+            }
+            return batch;
+        }
+
+        @Override
+        public synchronized int fill(List<Fingerprint> fingerprints) {
+            int filled = 0;
+            for (Fingerprint fingerprint : fingerprints) {
+                Row row = rows.get(fingerprint.id());
+                boolean duplicate = row.active && rows.values().stream().anyMatch(other -> other.active
+                        && other.accountId == row.accountId && Arrays.equals(other.fingerprint, fingerprint.fingerprint()));
+                if (row.fingerprint == null && !duplicate) {
+                    row.fingerprint = fingerprint.fingerprint();
+                    filled++;
+                }
+            }
+            return filled;
+        }
+    }
+
+    static final class InMemoryCheckpointStore implements CryptoJobCheckpointStore {
+
+        private final Map<String, CryptoJobCheckpoint> checkpoints = new ConcurrentHashMap<>();
+
+        @Override
+        public CryptoJobCheckpoint find(String job) {
+            return checkpoints.get(job);
+        }
+
+        @Override
+        public void save(CryptoJobCheckpoint checkpoint) {
+            checkpoints.put(checkpoint.job(), checkpoint);
+        }
+    }
+}
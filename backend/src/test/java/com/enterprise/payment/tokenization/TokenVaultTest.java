@@ -0,0 +1,189 @@
+package com.enterprise.payment.tokenization;
+
+import com.enterprise.payment.crypto.DataKeyStore;
+import com.enterprise.payment.crypto.EnvelopeEncryption;
+import com.enterprise.payment.crypto.KeyedHash;
+import com.enterprise.payment.exception.ValidationException;
+import com.enterprise.payment.monitoring.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenVaultTest {
+
+    private static final String PAN = "4111111111111111";
+
+    private final InMemoryVaultStore store = new InMemoryVaultStore();
+    private final EnvelopeEncryption encryption = new EnvelopeEncryption(new InMemoryDataKeyStore(),
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8), null);
+    private final KeyedHash keyedHash = new KeyedHash("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void tokenize_ReturnsTheSameTokenForTheSameCardWithoutDecrypting() {
+        TokenVault vault = vault(TokenFormat.RANDOM);
+
+        String token = vault.tokenize(PAN);
+
+        assertTrue(token.startsWith("tok_"), token);
+        assertEquals(token, vault.tokenize(PAN));
+        assertNotEquals(token, vault.tokenize("5555555555554444"));
+        assertEquals(2, store.byToken.size());
+        assertFalse(store.byToken.get(token).encryptedPan().contains(PAN));
+    }
+
+    @Test
+    void formatPreservingTokens_KeepLengthAndLastFourButFailLuhn() {
+        TokenVault vault = vault(TokenFormat.FORMAT_PRESERVING);
+
+        for (int i = 0; i < 200; i++) {
+            String pan = luhnValid("4000" + String.format("%011d", i * 7919L));
+            String token = vault.tokenize(pan);
+
+            assertEquals(pan.length(), token.length());
+            assertTrue(token.matches("\\d+"), token);
+            assertEquals(pan.substring(pan.length() - 4), token.substring(token.length() - 4));
+            assertFalse(TokenVault.isValidLuhn(token), token);
+        }
+    }
+
+    @Test
+    void detokenize_ServesRepeatsFromTheCacheAndZeroesOnClose() {
+        TokenVault vault = vault(TokenFormat.RANDOM);
+        String token = vault.tokenize(PAN);
+        char[] first;
+
+        try (DetokenizedPan pan = vault.detokenize(token)) {
+            first = pan.digits();
+            assertEquals(PAN, new String(pan.digits()));
+            assertEquals("****1111", pan.toString());
+        }
+        try (DetokenizedPan pan = vault.detokenize(token)) {
+            assertEquals(PAN, new String(pan.digits()));
+        }
+
+        assertTrue(new String(first).chars().allMatch(c -> c == 0));
+        assertEquals(1, store.panReads.get());
+        assertEquals(1, registry.get("payment.tokenization.detokenized").tag("source", "cache").counter().count());
+    }
+
+    @Test
+    void detokenize_RejectsUnknownTokens() {
+        TokenVault vault = vault(TokenFormat.RANDOM);
+
+        assertThrows(ValidationException.class, () -> vault.detokenize("tok_unknown"));
+        assertThrows(ValidationException.class, () -> vault.tokenize("4111-1111"));
+    }
+
+    @Test
+    void cache_ZeroesCardNumbersWhenTheyExpireOrAreEvicted() {
+        AtomicLong clock = new AtomicLong();
+        DetokenizationCache cache = new DetokenizationCache(10, Duration.ofSeconds(30), clock::get);
+        char[] digits = PAN.toCharArray();
+        cache.put("tok_a", digits);
+        Arrays.fill(digits, '\0');
+
+        assertEquals(PAN, new String(cache.get("tok_a")));
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        cache.evictExpired();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("tok_a"));
+
+        for (int i = 0; i < 11; i++) {
+            cache.put("tok_" + i, PAN.toCharArray());
+        }
+        assertTrue(cache.size() <= 10);
+    }
+
+    @Test
+    void tokenization_ReplacesStoredCardNumbersWithTokens() {
+        TokenVault vault = vault(TokenFormat.RANDOM);
+        Tokenization tokenization = new Tokenization(vault, encryption);
+
+        String replaced = tokenization.apply(1, "{cardholderName=Jane Doe, cardNumber=" + PAN + ", cvv=123}");
+
+        assertEquals("{cardholderName=Jane Doe, cardToken=" + vault.tokenize(PAN) + ", cvv=123}",
+                encryption.decrypt(replaced));
+        assertNull(tokenization.apply(2, "{cardholderName=Jane Doe, cardToken=tok_abc}"));
+    }
+
+    private TokenVault vault(TokenFormat format) {
+        TokenizationProperties properties = new TokenizationProperties();
+        properties.setFormat(format);
+        return new TokenVault(store, encryption, keyedHash, new PaymentMetrics(registry), properties);
+    }
+
+    private static String luhnValid(String prefix) {
+        for (int check = 0; check < 10; check++) {
+            if (TokenVault.isValidLuhn(prefix + check)) {
+                return prefix + check;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    static final class InMemoryVaultStore implements TokenVaultStore {
+
+        record Row(String hash, String encryptedPan) {
+        }
+
+        final Map<String, Row> byToken = new ConcurrentHashMap<>();
+        final Map<String, String> byHash = new ConcurrentHashMap<>();
+        final AtomicInteger panReads = new AtomicInteger();
+
+        @Override
+        public String findToken(byte[] panHash) {
+            return byHash.get(Arrays.toString(panHash));
+        }
+
+        @Override
+        public String findEncryptedPan(String token) {
+            panReads.incrementAndGet();
+            Row row = byToken.get(token);
+            return row != null ? row.encryptedPan() : null;
+        }
+
+        @Override
+        public synchronized boolean insert(String token, byte[] panHash, String encryptedPan, String lastFour) {
+            String hash = Arrays.toString(panHash);
+            if (byToken.containsKey(token) || byHash.containsKey(hash)) {
+                return false;
+            }
+            byToken.put(token, new Row(hash, encryptedPan));
+            byHash.put(hash, token);
+            return true;
+        }
+    }
+
+    static final class InMemoryDataKeyStore implements DataKeyStore {
+
+        private final Map<Integer, byte[]> keys = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] find(int version) {
+            return keys.get(version);
+        }
+
+        @Override
+        public OptionalInt latestVersion() {
+            return keys.keySet().stream().mapToInt(Integer::intValue).max();
+        }
+
+        @Override
+        public boolean insert(int version, byte[] wrappedKey) {
+            return keys.putIfAbsent(version, wrappedKey) == null;
+        }
+    }
+}